@@ -20,6 +20,11 @@ import tech.pegasys.pantheon.cli.EthNetworkConfig;
 import tech.pegasys.pantheon.cli.PantheonControllerBuilder;
 import tech.pegasys.pantheon.controller.PantheonController;
 import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration.Builder;
+import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPoolConfiguration;
+import tech.pegasys.pantheon.ethereum.worldstate.PrunerConfiguration;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.metrics.prometheus.MetricsConfiguration;
+import tech.pegasys.pantheon.services.kvstore.RocksDbConfiguration;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -59,7 +64,11 @@ public class ThreadPantheonNodeRunner implements PantheonNodeRunner {
               ethNetworkConfig,
               false,
               node.getMiningParameters(),
-              true);
+              true,
+              PrunerConfiguration.disabled(),
+              TransactionPoolConfiguration.createDefault(),
+              RocksDbConfiguration.builder().build(),
+              new NoOpMetricsSystem());
     } catch (final IOException e) {
       throw new RuntimeException("Error building PantheonController", e);
     }
@@ -76,6 +85,7 @@ public class ThreadPantheonNodeRunner implements PantheonNodeRunner {
                 25,
                 node.jsonRpcConfiguration(),
                 node.webSocketConfiguration(),
+                MetricsConfiguration.createDefault(),
                 node.homeDirectory());
 
     nodeExecutor.submit(runner::execute);
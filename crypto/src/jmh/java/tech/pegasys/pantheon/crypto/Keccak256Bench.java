@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.MutableBytes32;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares hashing through {@link Keccak256} with creating a {@link MessageDigest} for every hash,
+ * which is what {@link Hash#keccak256(BytesValue)} used to do.
+ */
+@State(Scope.Thread)
+public class Keccak256Bench {
+
+  @Param({"20", "32", "128", "532"})
+  public int size;
+
+  private BytesValue input;
+  private final MutableBytes32 result = MutableBytes32.create();
+
+  @Setup(Level.Trial)
+  public void prepare() {
+    final byte[] bytes = new byte[size + 16];
+    new Random(1).nextBytes(bytes);
+    // Hash a slice, as trie nodes and RLP items usually are.
+    input = BytesValue.wrap(bytes).slice(8, size);
+  }
+
+  @Benchmark
+  public byte[] digestPerHash() throws NoSuchAlgorithmException {
+    final MessageDigest digest = BouncyCastleMessageDigestFactory.create(Hash.KECCAK256_ALG);
+    input.update(digest);
+    return digest.digest();
+  }
+
+  @Benchmark
+  public Bytes32 keccak256() {
+    return Keccak256.hash(input);
+  }
+
+  @Benchmark
+  public Bytes32 keccak256IntoResult() {
+    Keccak256.hash(input, result);
+    return result;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
+import tech.pegasys.pantheon.crypto.SECP256K1.PrivateKey;
+import tech.pegasys.pantheon.crypto.SECP256K1.PublicKey;
+import tech.pegasys.pantheon.crypto.SECP256K1.RecoveryEngine;
+import tech.pegasys.pantheon.crypto.SECP256K1.Signature;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+
+import java.math.BigInteger;
+import java.util.Optional;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares public key recovery through Bouncy Castle's generic curve arithmetic with the
+ * specialised secp256k1 implementation in {@link SECP256K1Recovery}.
+ */
+@State(Scope.Thread)
+public class SECP256K1RecoveryBench {
+
+  private static final int SIGNATURE_COUNT = 64;
+
+  @Param({"BOUNCY_CASTLE", "SPECIALISED"})
+  public RecoveryEngine engine;
+
+  private final Bytes32[] hashes = new Bytes32[SIGNATURE_COUNT];
+  private final Signature[] signatures = new Signature[SIGNATURE_COUNT];
+  private int next;
+
+  @Setup(Level.Trial)
+  public void prepare() {
+    SECP256K1.setRecoveryEngine(engine);
+    final Random random = new Random(1);
+    for (int i = 0; i < SIGNATURE_COUNT; i++) {
+      final KeyPair keyPair =
+          KeyPair.create(PrivateKey.create(new BigInteger(255, random).setBit(254)));
+      final byte[] hash = new byte[Bytes32.SIZE];
+      random.nextBytes(hash);
+      hashes[i] = Bytes32.wrap(hash);
+      signatures[i] = SECP256K1.sign(hashes[i], keyPair);
+    }
+  }
+
+  @Benchmark
+  public Optional<PublicKey> recoverFromSignature() {
+    final int index = next++ & (SIGNATURE_COUNT - 1);
+    return PublicKey.recoverFromSignature(hashes[index], signatures[index]);
+  }
+}
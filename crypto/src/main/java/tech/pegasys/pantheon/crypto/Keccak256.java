@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.MutableBytes32;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Keccak-256 hashing on a digest kept per thread.
+ *
+ * <p>Looking up and initialising a {@link MessageDigest} costs more than hashing the short inputs
+ * typical of trie nodes, addresses and storage keys, so each thread keeps a single digest that is
+ * reset by every hash. Inputs are absorbed straight from the arrays backing them, and {@link
+ * #hash(BytesValue, MutableBytes32)} writes into a caller-supplied value without allocating.
+ */
+public final class Keccak256 {
+
+  private static final ThreadLocal<Keccak256> HASHER = ThreadLocal.withInitial(Keccak256::new);
+
+  private final MessageDigest digest;
+  private final byte[] output = new byte[Bytes32.SIZE];
+
+  private Keccak256() {
+    try {
+      digest = BouncyCastleMessageDigestFactory.create(Hash.KECCAK256_ALG);
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Hashes a value.
+   *
+   * @param input the value to hash
+   * @return the Keccak-256 hash of {@code input}
+   */
+  public static Bytes32 hash(final BytesValue input) {
+    final MessageDigest digest = HASHER.get().digest;
+    // Discards anything left by a hash that failed part way through absorbing its input.
+    digest.reset();
+    input.update(digest);
+    return Bytes32.wrap(digest.digest());
+  }
+
+  /**
+   * Hashes a value into an existing 32 byte value.
+   *
+   * @param input the value to hash
+   * @param result the value the Keccak-256 hash of {@code input} is written to
+   */
+  public static void hash(final BytesValue input, final MutableBytes32 result) {
+    final Keccak256 hasher = HASHER.get();
+    hasher.digest.reset();
+    input.update(hasher.digest);
+    try {
+      hasher.digest.digest(hasher.output, 0, Bytes32.SIZE);
+    } catch (final DigestException e) {
+      throw new IllegalStateException(e);
+    }
+    for (int i = 0; i < Bytes32.SIZE; i++) {
+      result.set(i, hasher.output[i]);
+    }
+  }
+}
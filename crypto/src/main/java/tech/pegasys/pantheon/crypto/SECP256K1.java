@@ -79,6 +79,16 @@ public class SECP256K1 {
   private static final KeyPairGenerator KEY_PAIR_GENERATOR;
   private static final BigInteger CURVE_ORDER;
 
+  /** The implementations available for recovering a public key from a signature. */
+  public enum RecoveryEngine {
+    /** Bouncy Castle's generic elliptic curve arithmetic. */
+    BOUNCY_CASTLE,
+    /** Fixed-limb arithmetic specialised for secp256k1. */
+    SPECIALISED
+  }
+
+  private static volatile RecoveryEngine recoveryEngine = RecoveryEngine.SPECIALISED;
+
   static {
     Security.addProvider(new BouncyCastleProvider());
 
@@ -99,6 +109,17 @@ public class SECP256K1 {
     }
   }
 
+  /**
+   * Selects the implementation used to recover public keys from signatures. Both produce the same
+   * keys; {@link RecoveryEngine#SPECIALISED} is the default.
+   *
+   * @param engine the implementation to use
+   */
+  public static void setRecoveryEngine(final RecoveryEngine engine) {
+    checkNotNull(engine);
+    recoveryEngine = engine;
+  }
+
   /** Decompress a compressed public key (x co-ord and low-bit of y-coord). */
   private static ECPoint decompressKey(final BigInteger xBN, final boolean yBit) {
     final X9IntegerConverter x9 = new X9IntegerConverter();
@@ -188,6 +209,21 @@ public class SECP256K1 {
     return new BigInteger(1, Arrays.copyOfRange(qBytes, 1, qBytes.length));
   }
 
+  /**
+   * Recovers the encoded public key that generated a signature using the selected {@link
+   * RecoveryEngine}.
+   *
+   * @return the 64 byte public key, or null if recovery wasn't possible
+   */
+  static BytesValue recoverPublicKey(
+      final int recId, final BigInteger r, final BigInteger s, final Bytes32 dataHash) {
+    if (recoveryEngine == RecoveryEngine.SPECIALISED) {
+      return SECP256K1Recovery.recover(recId, r, s, dataHash);
+    }
+    final BigInteger publicKey = recoverFromSignature(recId, r, s, dataHash);
+    return publicKey == null ? null : PublicKey.toBytes64(publicKey.toByteArray());
+  }
+
   public static Signature sign(final Bytes32 dataHash, final KeyPair keyPair) {
     final ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
 
@@ -218,10 +254,10 @@ public class SECP256K1 {
 
     // Now we have to work backwards to figure out the recId needed to recover the signature.
     int recId = -1;
-    final BigInteger publicKeyBI = asUnsignedBigInteger(keyPair.getPublicKey().getEncodedBytes());
+    final BytesValue publicKey = keyPair.getPublicKey().getEncodedBytes();
     for (int i = 0; i < 4; i++) {
-      final BigInteger k = recoverFromSignature(i, r, s, dataHash);
-      if (k != null && k.equals(publicKeyBI)) {
+      final BytesValue k = recoverPublicKey(i, r, s, dataHash);
+      if (k != null && k.equals(publicKey)) {
         recId = i;
         break;
       }
@@ -444,10 +480,9 @@ public class SECP256K1 {
 
     public static Optional<PublicKey> recoverFromSignature(
         final Bytes32 dataHash, final Signature signature) {
-      final BigInteger publicKeyBI =
-          SECP256K1.recoverFromSignature(
-              signature.getRecId(), signature.getR(), signature.getS(), dataHash);
-      return Optional.ofNullable(publicKeyBI).map(PublicKey::create);
+      final BytesValue publicKey =
+          recoverPublicKey(signature.getRecId(), signature.getR(), signature.getS(), dataHash);
+      return Optional.ofNullable(publicKey).map(PublicKey::create);
     }
 
     private PublicKey(final BytesValue encoded) {
@@ -0,0 +1,575 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import static tech.pegasys.pantheon.util.bytes.BytesValues.asUnsignedBigInteger;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Public key recovery specialised for the secp256k1 curve.
+ *
+ * <p>Field elements are held as eight little-endian 32-bit limbs and reduced using the special form
+ * of the field prime, so no {@link BigInteger} is created inside the point arithmetic. Points are
+ * kept in Jacobian coordinates. Both scalar multiplications of the recovery equation are split in
+ * half with the GLV endomorphism and evaluated together as a single wNAF chain, using a table of
+ * odd multiples of the generator that is computed once. The few operations modulo the group order
+ * that each recovery needs are left to {@link BigInteger}.
+ */
+final class SECP256K1Recovery {
+
+  private static final long M = 0xFFFFFFFFL;
+  private static final int LIMBS = 8;
+
+  private static final BigInteger P_BI =
+      new BigInteger("fffffffffffffffffffffffffffffffffffffffffffffffffffffffefffffc2f", 16);
+  static final BigInteger N =
+      new BigInteger("fffffffffffffffffffffffffffffffebaaedce6af48a03bbfd25e8cd0364141", 16);
+  private static final BigInteger GX_BI =
+      new BigInteger("79be667ef9dcbbac55a06295ce870b07029bfcdb2dce28d959f2815b16f81798", 16);
+  private static final BigInteger GY_BI =
+      new BigInteger("483ada7726a3c4655da4fbfc0e1108a8fd17b448a68554199c47d08ffb10d4b8", 16);
+
+  // The endomorphism (x, y) -> (beta * x, y) multiplies a point by lambda.
+  static final BigInteger LAMBDA =
+      new BigInteger("5363ad4cc05c30e0a5261c028812645a122e22ea20816678df02967c1b23bd72", 16);
+  private static final BigInteger BETA_BI =
+      new BigInteger("7ae96a2b657c07106e64479eac3434e99cf0497512f58995c1396c28719501ee", 16);
+
+  // Short basis of the lattice {(a, b) : a + b * lambda = 0 (mod n)} used to split scalars.
+  private static final BigInteger A1 = new BigInteger("3086d221a7d46bcde86c90e49284eb15", 16);
+  private static final BigInteger MINUS_B1 =
+      new BigInteger("e4437ed6010e88286f547fa90abfe4c3", 16);
+  private static final BigInteger A2 = new BigInteger("114ca50f7a8e2f3f657c1108d9d44cfd8", 16);
+  private static final BigInteger B2 = A1;
+  private static final BigInteger HALF_N = N.shiftRight(1);
+
+  private static final int[] ZERO = new int[LIMBS];
+  private static final int[] P = toField(P_BI);
+  private static final int[] P_MINUS_2 = toField(P_BI.subtract(BigInteger.valueOf(2)));
+  private static final int[] SQRT_EXPONENT = toField(P_BI.add(BigInteger.ONE).shiftRight(2));
+  private static final int[] BETA = toField(BETA_BI);
+  private static final int[] SEVEN = toField(BigInteger.valueOf(7));
+
+  private static final int G_WINDOW = 8;
+  private static final int R_WINDOW = 5;
+
+  // Odd multiples G, 3G, 5G, ... in affine coordinates, and the same multiples of lambda * G.
+  private static final int[][] G_X = new int[1 << (G_WINDOW - 2)][];
+  private static final int[][] G_Y = new int[1 << (G_WINDOW - 2)][];
+  private static final int[][] LAMBDA_G_X = new int[1 << (G_WINDOW - 2)][];
+
+  static {
+    final JacobianPoint g = JacobianPoint.affine(toField(GX_BI), toField(GY_BI));
+    final JacobianPoint twiceG = g.copy();
+    twiceG.twice();
+    final JacobianPoint multiple = g.copy();
+    for (int i = 0; i < G_X.length; i++) {
+      if (i > 0) {
+        multiple.addJacobian(twiceG, false);
+      }
+      G_X[i] = new int[LIMBS];
+      G_Y[i] = new int[LIMBS];
+      multiple.toAffine(G_X[i], G_Y[i]);
+      LAMBDA_G_X[i] = new int[LIMBS];
+      mul(G_X[i], BETA, LAMBDA_G_X[i]);
+    }
+  }
+
+  private SECP256K1Recovery() {}
+
+  /**
+   * Recovers the public key that produced a signature, as described in SEC1v2 section 4.1.6.
+   *
+   * <p>Step 1.4 of the algorithm, checking that nR is the point at infinity, is skipped: the
+   * cofactor of secp256k1 is 1, so every point on the curve has order n.
+   *
+   * @param recId which of the candidate keys to recover
+   * @param r the R component of the signature
+   * @param s the S component of the signature
+   * @param dataHash hash of the data that was signed
+   * @return the 64 byte uncompressed public key, or null if recovery wasn't possible
+   * @throws IllegalArgumentException if the candidate point R is not on the curve
+   */
+  static BytesValue recover(
+      final int recId, final BigInteger r, final BigInteger s, final Bytes32 dataHash) {
+    final BigInteger x = r.add(BigInteger.valueOf((long) recId / 2).multiply(N));
+    if (x.compareTo(P_BI) >= 0) {
+      return null;
+    }
+    final JacobianPoint point = decompress(toField(x), (recId & 1) == 1);
+
+    final BigInteger e = asUnsignedBigInteger(dataHash);
+    final BigInteger eInv = BigInteger.ZERO.subtract(e).mod(N);
+    final BigInteger rInv = r.modInverse(N);
+    final BigInteger srInv = rInv.multiply(s).mod(N);
+    final BigInteger eInvrInv = rInv.multiply(eInv).mod(N);
+
+    final JacobianPoint q = sumOfTwoMultiplies(eInvrInv, point, srInv);
+    if (q.infinity) {
+      return null;
+    }
+    final int[] qx = new int[LIMBS];
+    final int[] qy = new int[LIMBS];
+    q.toAffine(qx, qy);
+    final byte[] encoded = new byte[64];
+    toBytes(qx, encoded, 0);
+    toBytes(qy, encoded, 32);
+    return BytesValue.wrap(encoded);
+  }
+
+  private static JacobianPoint decompress(final int[] x, final boolean yBit) {
+    final int[] rhs = new int[LIMBS];
+    mul(x, x, rhs);
+    mul(rhs, x, rhs);
+    add(rhs, SEVEN, rhs);
+    final int[] y = new int[LIMBS];
+    pow(rhs, SQRT_EXPONENT, y);
+    final int[] check = new int[LIMBS];
+    mul(y, y, check);
+    if (!equal(check, rhs)) {
+      throw new IllegalArgumentException("Invalid point compression");
+    }
+    if (((y[0] & 1) == 1) != yBit) {
+      sub(ZERO, y, y);
+    }
+    return JacobianPoint.affine(x, y);
+  }
+
+  /** Computes {@code a * G + b * point}. */
+  private static JacobianPoint sumOfTwoMultiplies(
+      final BigInteger a, final JacobianPoint point, final BigInteger b) {
+    final BigInteger[] splitA = decompose(a);
+    final BigInteger[] splitB = decompose(b);
+    final byte[] nafA1 = wnaf(splitA[0].abs(), G_WINDOW);
+    final byte[] nafA2 = wnaf(splitA[1].abs(), G_WINDOW);
+    final byte[] nafB1 = wnaf(splitB[0].abs(), R_WINDOW);
+    final byte[] nafB2 = wnaf(splitB[1].abs(), R_WINDOW);
+    final boolean negA1 = splitA[0].signum() < 0;
+    final boolean negA2 = splitA[1].signum() < 0;
+    final boolean negB1 = splitB[0].signum() < 0;
+    final boolean negB2 = splitB[1].signum() < 0;
+
+    final JacobianPoint[] table = new JacobianPoint[1 << (R_WINDOW - 2)];
+    final JacobianPoint[] lambdaTable = new JacobianPoint[table.length];
+    final JacobianPoint twice = point.copy();
+    twice.twice();
+    table[0] = point;
+    for (int i = 1; i < table.length; i++) {
+      table[i] = table[i - 1].copy();
+      table[i].addJacobian(twice, false);
+    }
+    for (int i = 0; i < table.length; i++) {
+      lambdaTable[i] = table[i].copy();
+      mul(lambdaTable[i].x, BETA, lambdaTable[i].x);
+    }
+
+    final int length =
+        Math.max(Math.max(nafA1.length, nafA2.length), Math.max(nafB1.length, nafB2.length));
+    final JacobianPoint result = JacobianPoint.infinity();
+    for (int i = length - 1; i >= 0; i--) {
+      result.twice();
+      final int a1 = digit(nafA1, i);
+      if (a1 != 0) {
+        result.addAffine(G_X[index(a1)], G_Y[index(a1)], (a1 < 0) != negA1);
+      }
+      final int a2 = digit(nafA2, i);
+      if (a2 != 0) {
+        result.addAffine(LAMBDA_G_X[index(a2)], G_Y[index(a2)], (a2 < 0) != negA2);
+      }
+      final int b1 = digit(nafB1, i);
+      if (b1 != 0) {
+        result.addJacobian(table[index(b1)], (b1 < 0) != negB1);
+      }
+      final int b2 = digit(nafB2, i);
+      if (b2 != 0) {
+        result.addJacobian(lambdaTable[index(b2)], (b2 < 0) != negB2);
+      }
+    }
+    return result;
+  }
+
+  private static int digit(final byte[] naf, final int position) {
+    return position < naf.length ? naf[position] : 0;
+  }
+
+  private static int index(final int digit) {
+    return Math.abs(digit) >> 1;
+  }
+
+  /**
+   * Splits a scalar k into k1 and k2, each of roughly half its length, such that k = k1 + k2 *
+   * lambda (mod n).
+   */
+  static BigInteger[] decompose(final BigInteger k) {
+    final BigInteger c1 = B2.multiply(k).add(HALF_N).divide(N);
+    final BigInteger c2 = MINUS_B1.multiply(k).add(HALF_N).divide(N);
+    final BigInteger k1 = k.subtract(c1.multiply(A1)).subtract(c2.multiply(A2));
+    final BigInteger k2 = c1.multiply(MINUS_B1).subtract(c2.multiply(B2));
+    return new BigInteger[] {k1, k2};
+  }
+
+  /**
+   * Computes the width-w non-adjacent form of a non-negative scalar, least significant digit
+   * first. Every non-zero digit is odd and smaller than 2^(w-1) in absolute value.
+   */
+  static byte[] wnaf(final BigInteger k, final int width) {
+    final int[] words = new int[(k.bitLength() + 31) / 32 + 1];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = k.shiftRight(32 * i).intValue();
+    }
+    final byte[] naf = new byte[k.bitLength() + 1];
+    final int mask = (1 << width) - 1;
+    for (int i = 0; !isZero(words); i++) {
+      if ((words[0] & 1) != 0) {
+        int digit = words[0] & mask;
+        if (digit > mask >> 1) {
+          digit -= 1 << width;
+        }
+        long carry = -digit;
+        for (int j = 0; j < words.length; j++) {
+          carry += words[j] & M;
+          words[j] = (int) carry;
+          carry >>= 32;
+        }
+        naf[i] = (byte) digit;
+      }
+      for (int j = 0; j < words.length - 1; j++) {
+        words[j] = (words[j] >>> 1) | (words[j + 1] << 31);
+      }
+      words[words.length - 1] >>>= 1;
+    }
+    return naf;
+  }
+
+  /** A mutable point in Jacobian coordinates (x / z^2, y / z^3). */
+  private static final class JacobianPoint {
+    private final int[] x = new int[LIMBS];
+    private final int[] y = new int[LIMBS];
+    private final int[] z = new int[LIMBS];
+    private boolean infinity;
+
+    private final int[] t1 = new int[LIMBS];
+    private final int[] t2 = new int[LIMBS];
+    private final int[] t3 = new int[LIMBS];
+    private final int[] t4 = new int[LIMBS];
+    private final int[] t5 = new int[LIMBS];
+    private final int[] t6 = new int[LIMBS];
+
+    static JacobianPoint infinity() {
+      final JacobianPoint point = new JacobianPoint();
+      point.infinity = true;
+      return point;
+    }
+
+    static JacobianPoint affine(final int[] x, final int[] y) {
+      final JacobianPoint point = new JacobianPoint();
+      System.arraycopy(x, 0, point.x, 0, LIMBS);
+      System.arraycopy(y, 0, point.y, 0, LIMBS);
+      point.z[0] = 1;
+      return point;
+    }
+
+    JacobianPoint copy() {
+      final JacobianPoint point = new JacobianPoint();
+      System.arraycopy(x, 0, point.x, 0, LIMBS);
+      System.arraycopy(y, 0, point.y, 0, LIMBS);
+      System.arraycopy(z, 0, point.z, 0, LIMBS);
+      point.infinity = infinity;
+      return point;
+    }
+
+    void toAffine(final int[] affineX, final int[] affineY) {
+      pow(z, P_MINUS_2, t1);
+      mul(t1, t1, t2);
+      mul(x, t2, affineX);
+      mul(t2, t1, t2);
+      mul(y, t2, affineY);
+    }
+
+    /** Doubles this point in place (dbl-2009-l, a = 0). */
+    void twice() {
+      if (infinity) {
+        return;
+      }
+      mul(x, x, t1); // A = X^2
+      mul(y, y, t2); // B = Y^2
+      mul(t2, t2, t3); // C = B^2
+      add(x, t2, t4);
+      mul(t4, t4, t4);
+      sub(t4, t1, t4);
+      sub(t4, t3, t4);
+      add(t4, t4, t4); // D = 2 * ((X + B)^2 - A - C)
+      add(t1, t1, t5);
+      add(t5, t1, t5); // E = 3 * A
+      mul(t5, t5, t6); // F = E^2
+      mul(y, z, z);
+      add(z, z, z); // Z3 = 2 * Y * Z
+      sub(t6, t4, x);
+      sub(x, t4, x); // X3 = F - 2 * D
+      sub(t4, x, t4);
+      mul(t5, t4, y);
+      add(t3, t3, t3);
+      add(t3, t3, t3);
+      add(t3, t3, t3);
+      sub(y, t3, y); // Y3 = E * (D - X3) - 8 * C
+    }
+
+    /** Adds the affine point (px, py), or its negation, to this point in place. */
+    void addAffine(final int[] px, final int[] py, final boolean negate) {
+      if (infinity) {
+        System.arraycopy(px, 0, x, 0, LIMBS);
+        if (negate) {
+          sub(ZERO, py, y);
+        } else {
+          System.arraycopy(py, 0, y, 0, LIMBS);
+        }
+        Arrays.fill(z, 0);
+        z[0] = 1;
+        infinity = false;
+        return;
+      }
+      mul(z, z, t1); // Z1Z1
+      mul(px, t1, t2); // U2 = X2 * Z1Z1
+      mul(py, z, t3);
+      mul(t3, t1, t3); // S2 = Y2 * Z1 * Z1Z1
+      if (negate) {
+        sub(ZERO, t3, t3);
+      }
+      finishAdd(x, y, t2, t3, null);
+    }
+
+    /** Adds another Jacobian point, or its negation, to this point in place. */
+    void addJacobian(final JacobianPoint other, final boolean negate) {
+      if (other.infinity) {
+        return;
+      }
+      if (infinity) {
+        System.arraycopy(other.x, 0, x, 0, LIMBS);
+        System.arraycopy(other.z, 0, z, 0, LIMBS);
+        if (negate) {
+          sub(ZERO, other.y, y);
+        } else {
+          System.arraycopy(other.y, 0, y, 0, LIMBS);
+        }
+        infinity = false;
+        return;
+      }
+      final int[] u1 = new int[LIMBS];
+      final int[] s1 = new int[LIMBS];
+      mul(other.z, other.z, t1); // Z2Z2
+      mul(x, t1, u1); // U1 = X1 * Z2Z2
+      mul(y, other.z, s1);
+      mul(s1, t1, s1); // S1 = Y1 * Z2 * Z2Z2
+      mul(z, z, t1); // Z1Z1
+      mul(other.x, t1, t2); // U2 = X2 * Z1Z1
+      mul(other.y, z, t3);
+      mul(t3, t1, t3); // S2 = Y2 * Z1 * Z1Z1
+      if (negate) {
+        sub(ZERO, t3, t3);
+      }
+      finishAdd(u1, s1, t2, t3, other.z);
+    }
+
+    /**
+     * Completes an addition (add-1998-cmo-2) given U1, S1, U2 and S2. The second point's z
+     * coordinate is null when it is affine.
+     */
+    private void finishAdd(
+        final int[] u1, final int[] s1, final int[] u2, final int[] s2, final int[] otherZ) {
+      sub(u2, u1, t4); // H = U2 - U1
+      sub(s2, s1, t5); // R = S2 - S1
+      if (isZero(t4)) {
+        if (isZero(t5)) {
+          twice();
+        } else {
+          infinity = true;
+        }
+        return;
+      }
+      mul(z, t4, z);
+      if (otherZ != null) {
+        mul(z, otherZ, z); // Z3 = Z1 * Z2 * H
+      }
+      mul(t4, t4, t1); // HH
+      mul(t4, t1, t6); // HHH
+      mul(u1, t1, t1); // V = U1 * HH
+      mul(t5, t5, x);
+      sub(x, t6, x);
+      sub(x, t1, x);
+      sub(x, t1, x); // X3 = R^2 - HHH - 2 * V
+      sub(t1, x, t1);
+      mul(t5, t1, t1);
+      mul(s1, t6, t6);
+      sub(t1, t6, y); // Y3 = R * (V - X3) - S1 * HHH
+    }
+  }
+
+  static int[] toField(final BigInteger value) {
+    final int[] limbs = new int[LIMBS];
+    for (int i = 0; i < LIMBS; i++) {
+      limbs[i] = value.shiftRight(32 * i).intValue();
+    }
+    return limbs;
+  }
+
+  private static void toBytes(final int[] a, final byte[] out, final int offset) {
+    for (int i = 0; i < LIMBS; i++) {
+      final int limb = a[LIMBS - 1 - i];
+      final int pos = offset + 4 * i;
+      out[pos] = (byte) (limb >>> 24);
+      out[pos + 1] = (byte) (limb >>> 16);
+      out[pos + 2] = (byte) (limb >>> 8);
+      out[pos + 3] = (byte) limb;
+    }
+  }
+
+  private static boolean isZero(final int[] a) {
+    for (final int limb : a) {
+      if (limb != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean equal(final int[] a, final int[] b) {
+    for (int i = 0; i < LIMBS; i++) {
+      if (a[i] != b[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean greaterOrEqualToP(final int[] a) {
+    for (int i = LIMBS - 1; i >= 0; i--) {
+      final long limb = a[i] & M;
+      final long p = P[i] & M;
+      if (limb != p) {
+        return limb > p;
+      }
+    }
+    return true;
+  }
+
+  /** Adds 2^256 - p, which subtracts p modulo 2^256. */
+  private static void subtractP(final int[] r) {
+    long carry = (r[0] & M) + 0x3D1L;
+    r[0] = (int) carry;
+    carry >>>= 32;
+    carry += (r[1] & M) + 1;
+    r[1] = (int) carry;
+    carry >>>= 32;
+    for (int i = 2; i < LIMBS && carry != 0; i++) {
+      carry += r[i] & M;
+      r[i] = (int) carry;
+      carry >>>= 32;
+    }
+  }
+
+  static void add(final int[] a, final int[] b, final int[] r) {
+    long carry = 0;
+    for (int i = 0; i < LIMBS; i++) {
+      carry += (a[i] & M) + (b[i] & M);
+      r[i] = (int) carry;
+      carry >>>= 32;
+    }
+    if (carry != 0 || greaterOrEqualToP(r)) {
+      subtractP(r);
+    }
+  }
+
+  static void sub(final int[] a, final int[] b, final int[] r) {
+    long borrow = 0;
+    for (int i = 0; i < LIMBS; i++) {
+      final long diff = (a[i] & M) - (b[i] & M) - borrow;
+      r[i] = (int) diff;
+      borrow = diff >>> 63;
+    }
+    if (borrow != 0) {
+      // Add p back, i.e. subtract 2^256 - p modulo 2^256.
+      long diff = (r[0] & M) - 0x3D1L;
+      r[0] = (int) diff;
+      borrow = diff >>> 63;
+      diff = (r[1] & M) - 1 - borrow;
+      r[1] = (int) diff;
+      borrow = diff >>> 63;
+      for (int i = 2; i < LIMBS && borrow != 0; i++) {
+        diff = (r[i] & M) - borrow;
+        r[i] = (int) diff;
+        borrow = diff >>> 63;
+      }
+    }
+  }
+
+  static void mul(final int[] a, final int[] b, final int[] r) {
+    final int[] product = new int[2 * LIMBS];
+    for (int i = 0; i < LIMBS; i++) {
+      final long ai = a[i] & M;
+      long carry = 0;
+      for (int j = 0; j < LIMBS; j++) {
+        carry += ai * (b[j] & M) + (product[i + j] & M);
+        product[i + j] = (int) carry;
+        carry >>>= 32;
+      }
+      product[i + LIMBS] = (int) carry;
+    }
+    reduce(product, r);
+  }
+
+  /** Reduces a 512-bit product modulo p, using 2^256 = 2^32 + 977 (mod p). */
+  private static void reduce(final int[] t, final int[] r) {
+    long carry = 0;
+    for (int i = 0; i < LIMBS; i++) {
+      carry += (t[i] & M) + (t[i + LIMBS] & M) * 977;
+      if (i > 0) {
+        carry += t[i + LIMBS - 1] & M;
+      }
+      r[i] = (int) carry;
+      carry >>>= 32;
+    }
+    final long high = carry + (t[2 * LIMBS - 1] & M);
+    carry = (r[0] & M) + high * 977;
+    r[0] = (int) carry;
+    carry >>>= 32;
+    carry += (r[1] & M) + high;
+    r[1] = (int) carry;
+    carry >>>= 32;
+    for (int i = 2; i < LIMBS && carry != 0; i++) {
+      carry += r[i] & M;
+      r[i] = (int) carry;
+      carry >>>= 32;
+    }
+    if (carry != 0 || greaterOrEqualToP(r)) {
+      subtractP(r);
+    }
+  }
+
+  private static void pow(final int[] base, final int[] exponent, final int[] r) {
+    final int[] result = new int[LIMBS];
+    result[0] = 1;
+    final int[] b = base.clone();
+    for (int i = LIMBS * 32 - 1; i >= 0; i--) {
+      mul(result, result, result);
+      if (((exponent[i >>> 5] >>> (i & 31)) & 1) != 0) {
+        mul(result, b, result);
+      }
+    }
+    System.arraycopy(result, 0, r, 0, LIMBS);
+  }
+}
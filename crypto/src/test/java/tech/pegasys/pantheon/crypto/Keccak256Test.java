@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.MutableBytes32;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+public class Keccak256Test {
+
+  private static final Bytes32 EMPTY_HASH =
+      Bytes32.fromHexString("0xc5d2460186f7233c927e7db2dcc703c0e500b653ca82273b7bfad8045d85a470");
+
+  @Test
+  public void hashesEmptyInput() {
+    assertThat(Keccak256.hash(BytesValue.EMPTY)).isEqualTo(EMPTY_HASH);
+  }
+
+  @Test
+  public void matchesFreshDigestForManyInputs() throws NoSuchAlgorithmException {
+    final Random random = new Random(1);
+    for (int size = 0; size < 300; size++) {
+      final byte[] bytes = new byte[size];
+      random.nextBytes(bytes);
+
+      assertThat(Keccak256.hash(BytesValue.wrap(bytes))).isEqualTo(digest(bytes));
+    }
+  }
+
+  @Test
+  public void writesIntoSuppliedResult() throws NoSuchAlgorithmException {
+    final BytesValue input = BytesValue.fromHexString("0x0102030405");
+    final MutableBytes32 result = MutableBytes32.create();
+    result.fill((byte) 0xff);
+
+    Keccak256.hash(input, result);
+
+    assertThat(result).isEqualTo(digest(input.extractArray()));
+  }
+
+  @Test
+  public void hashesSlicesAndConcatenationsWithoutCopying() throws NoSuchAlgorithmException {
+    final BytesValue value = BytesValue.fromHexString("0x00112233445566778899");
+    final BytesValue slice = value.slice(2, 5);
+    final BytesValue concatenated = slice.concat(value);
+
+    assertThat(Keccak256.hash(slice)).isEqualTo(digest(slice.extractArray()));
+    assertThat(Keccak256.hash(concatenated)).isEqualTo(digest(concatenated.extractArray()));
+  }
+
+  @Test
+  public void eachThreadUsesItsOwnDigest() throws Exception {
+    final BytesValue input = BytesValue.fromHexString("0xdeadbeef");
+    final Bytes32 expected = Keccak256.hash(input);
+
+    final CompletableFuture<Bytes32> other =
+        CompletableFuture.supplyAsync(() -> Keccak256.hash(input));
+
+    assertThat(other.get()).isEqualTo(expected);
+    assertThat(Keccak256.hash(input)).isEqualTo(expected);
+  }
+
+  @Test
+  public void failedHashDoesNotAffectNextHash() {
+    final BytesValue failingInput = mock(BytesValue.class);
+    doAnswer(
+            invocation -> {
+              invocation.<MessageDigest>getArgument(0).update((byte) 1);
+              throw new IllegalStateException("Failed to read input");
+            })
+        .when(failingInput)
+        .update(any());
+
+    assertThatThrownBy(() -> Keccak256.hash(failingInput))
+        .isInstanceOf(IllegalStateException.class);
+    assertThat(Keccak256.hash(BytesValue.EMPTY)).isEqualTo(EMPTY_HASH);
+
+    assertThatThrownBy(() -> Keccak256.hash(failingInput, MutableBytes32.create()))
+        .isInstanceOf(IllegalStateException.class);
+    final MutableBytes32 result = MutableBytes32.create();
+    Keccak256.hash(BytesValue.EMPTY, result);
+    assertThat(result).isEqualTo(EMPTY_HASH);
+  }
+
+  private static Bytes32 digest(final byte[] bytes) throws NoSuchAlgorithmException {
+    final MessageDigest digest = BouncyCastleMessageDigestFactory.create(Hash.KECCAK256_ALG);
+    return Bytes32.wrap(digest.digest(bytes));
+  }
+}
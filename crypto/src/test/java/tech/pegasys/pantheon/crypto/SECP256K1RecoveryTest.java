@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
+import tech.pegasys.pantheon.crypto.SECP256K1.PrivateKey;
+import tech.pegasys.pantheon.crypto.SECP256K1.PublicKey;
+import tech.pegasys.pantheon.crypto.SECP256K1.RecoveryEngine;
+import tech.pegasys.pantheon.crypto.SECP256K1.Signature;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+
+import java.math.BigInteger;
+import java.util.Optional;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SECP256K1RecoveryTest {
+
+  private final Random random = new Random(42);
+
+  @After
+  public void restoreDefaultEngine() {
+    SECP256K1.setRecoveryEngine(RecoveryEngine.SPECIALISED);
+  }
+
+  @Test
+  public void recoversSameKeysAsBouncyCastleForValidSignatures() {
+    for (int i = 0; i < 100; i++) {
+      final KeyPair keyPair = KeyPair.create(PrivateKey.create(randomScalar()));
+      final Bytes32 dataHash = randomHash();
+
+      final Signature signature = SECP256K1.sign(dataHash, keyPair);
+
+      assertThat(recover(RecoveryEngine.SPECIALISED, dataHash, signature))
+          .contains(keyPair.getPublicKey());
+      assertThat(recover(RecoveryEngine.BOUNCY_CASTLE, dataHash, signature))
+          .contains(keyPair.getPublicKey());
+    }
+  }
+
+  @Test
+  public void matchesBouncyCastleForRandomSignatures() {
+    for (int i = 0; i < 200; i++) {
+      final BigInteger r = randomScalar();
+      final BigInteger s = randomScalar();
+      final Bytes32 dataHash = randomHash();
+      for (int recId = 0; recId < 2; recId++) {
+        assertThat(recoverOrFailure(RecoveryEngine.SPECIALISED, recId, r, s, dataHash))
+            .isEqualTo(recoverOrFailure(RecoveryEngine.BOUNCY_CASTLE, recId, r, s, dataHash));
+      }
+    }
+  }
+
+  @Test
+  public void matchesBouncyCastleForRecoveryIdsAboveTheGroupOrder() {
+    // r + n is only a valid x coordinate when r is below p - n.
+    final BigInteger limit = new BigInteger("14551231950b75fc4402da1722fc9baee", 16);
+    for (int i = 0; i < 50; i++) {
+      final BigInteger r = new BigInteger(limit.bitLength(), random).mod(limit);
+      final BigInteger s = randomScalar();
+      final Bytes32 dataHash = randomHash();
+      for (int recId = 2; recId < 4; recId++) {
+        assertThat(recoverOrFailure(RecoveryEngine.SPECIALISED, recId, r, s, dataHash))
+            .isEqualTo(recoverOrFailure(RecoveryEngine.BOUNCY_CASTLE, recId, r, s, dataHash));
+      }
+    }
+  }
+
+  @Test
+  public void decomposedScalarsRecombineToTheOriginal() {
+    for (int i = 0; i < 1000; i++) {
+      final BigInteger k = randomScalar();
+
+      final BigInteger[] split = SECP256K1Recovery.decompose(k);
+
+      final BigInteger recombined = split[0].add(split[1].multiply(SECP256K1Recovery.LAMBDA));
+      assertThat(recombined.mod(SECP256K1Recovery.N)).isEqualTo(k);
+      assertThat(split[0].bitLength()).isLessThanOrEqualTo(129);
+      assertThat(split[1].bitLength()).isLessThanOrEqualTo(129);
+    }
+  }
+
+  @Test
+  public void wnafDigitsSumToTheScalar() {
+    for (int i = 0; i < 1000; i++) {
+      final BigInteger k = new BigInteger(130, random);
+      final int width = 2 + random.nextInt(7);
+
+      final byte[] naf = SECP256K1Recovery.wnaf(k, width);
+
+      BigInteger sum = BigInteger.ZERO;
+      for (int j = naf.length - 1; j >= 0; j--) {
+        assertThat(Math.abs(naf[j])).isLessThan(1 << (width - 1));
+        sum = sum.shiftLeft(1).add(BigInteger.valueOf(naf[j]));
+      }
+      assertThat(sum).isEqualTo(k);
+    }
+  }
+
+  private BigInteger randomScalar() {
+    BigInteger scalar;
+    do {
+      scalar = new BigInteger(256, random);
+    } while (scalar.signum() == 0 || scalar.compareTo(SECP256K1Recovery.N) >= 0);
+    return scalar;
+  }
+
+  private Bytes32 randomHash() {
+    final byte[] hash = new byte[Bytes32.SIZE];
+    random.nextBytes(hash);
+    return Bytes32.wrap(hash);
+  }
+
+  private static Optional<PublicKey> recover(
+      final RecoveryEngine engine, final Bytes32 dataHash, final Signature signature) {
+    SECP256K1.setRecoveryEngine(engine);
+    return PublicKey.recoverFromSignature(dataHash, signature);
+  }
+
+  private static Object recoverOrFailure(
+      final RecoveryEngine engine,
+      final int recId,
+      final BigInteger r,
+      final BigInteger s,
+      final Bytes32 dataHash) {
+    SECP256K1.setRecoveryEngine(engine);
+    try {
+      return Optional.ofNullable(SECP256K1.recoverPublicKey(recId, r, s, dataHash));
+    } catch (final IllegalArgumentException | ArithmeticException e) {
+      return e.getClass();
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm;
+
+import tech.pegasys.pantheon.ethereum.core.TestCodeExecutor;
+import tech.pegasys.pantheon.ethereum.mainnet.MainnetProtocolSchedule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the interpreter loop on a few representative workloads. Each workload is a loop whose
+ * body is executed {@code iterations} times so that per-opcode costs dominate frame setup.
+ */
+@State(Scope.Benchmark)
+public class EVMBench {
+
+  private static final long GAS_LIMIT = 100_000_000L;
+
+  // Decrements the counter left on the stack by the loop prologue and jumps back to the JUMPDEST
+  // at offset 3 until it reaches zero, then pops it and stops.
+  private static final String LOOP_EPILOGUE = "6001900380600357" + "5000";
+
+  // Moves one token between two balances held in a mapping at slot 0, as an ERC20 transfer does:
+  // balances[1] -= 1; balances[2] += 1.
+  private static final String ERC20_TRANSFER_BODY =
+      "6001600052" // MSTORE(0, 1)
+          + "6000602052" // MSTORE(32, 0)
+          + "6040600020" // SHA3(0, 64)
+          + "8054" // DUP1 SLOAD
+          + "60019003" // PUSH1 1 SWAP1 SUB
+          + "9055" // SWAP1 SSTORE
+          + "6002600052" // MSTORE(0, 2)
+          + "6040600020" // SHA3(0, 64)
+          + "8054" // DUP1 SLOAD
+          + "600101" // PUSH1 1 ADD
+          + "9055"; // SWAP1 SSTORE
+
+  // Repeatedly hashes the first 64 bytes of memory, feeding each hash back into memory.
+  private static final String KECCAK_BODY =
+      "6040600020" // SHA3(0, 64)
+          + "600052"; // MSTORE(0, hash)
+
+  // Writes and reads back a word at an offset that grows with the counter, then copies 1 KiB of
+  // code into memory.
+  private static final String MEMORY_BODY =
+      "80602002" // DUP1 PUSH1 32 MUL
+          + "8052" // DUP1 MSTORE
+          + "80602002" // DUP1 PUSH1 32 MUL
+          + "5150" // MLOAD POP
+          + "61040060006000" // PUSH2 1024 PUSH1 0 PUSH1 0
+          + "39"; // CODECOPY
+
+  // Hashes a 1 KiB window that slides through memory 64 bytes per iteration, so memory keeps
+  // expanding and every read spans many words at an unaligned offset.
+  private static final String MEMORY_WINDOW_BODY =
+      "610400" // PUSH2 1024
+          + "81604002600501" // DUP2 PUSH1 64 MUL PUSH1 5 ADD
+          + "20" // SHA3
+          + "50"; // POP
+
+  @Param({"100", "1000"})
+  public int iterations;
+
+  private TestCodeExecutor executor;
+  private String erc20TransferCode;
+  private String keccakCode;
+  private String memoryCode;
+  private String memoryWindowCode;
+
+  @Setup(Level.Trial)
+  public void prepare() {
+    executor = new TestCodeExecutor(MainnetProtocolSchedule.create());
+    erc20TransferCode = loop(ERC20_TRANSFER_BODY);
+    keccakCode = loop(KECCAK_BODY);
+    memoryCode = loop(MEMORY_BODY);
+    memoryWindowCode = loop(MEMORY_WINDOW_BODY);
+  }
+
+  private String loop(final String body) {
+    return String.format("61%04x5b", iterations) + body + LOOP_EPILOGUE;
+  }
+
+  @Benchmark
+  public MessageFrame erc20Transfer() {
+    return executor.executeCode(erc20TransferCode, GAS_LIMIT, account -> {});
+  }
+
+  @Benchmark
+  public MessageFrame keccakLoop() {
+    return executor.executeCode(keccakCode, GAS_LIMIT, account -> {});
+  }
+
+  @Benchmark
+  public MessageFrame memoryHeavy() {
+    return executor.executeCode(memoryCode, GAS_LIMIT, account -> {});
+  }
+
+  @Benchmark
+  public MessageFrame memoryWindow() {
+    return executor.executeCode(memoryWindowCode, GAS_LIMIT, account -> {});
+  }
+}
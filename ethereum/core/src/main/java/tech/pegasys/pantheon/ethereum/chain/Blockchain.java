@@ -130,6 +130,21 @@ public interface Blockchain {
    */
   Optional<Hash> getBlockHashByNumber(long number);
 
+  /**
+   * Retrieves the hash of an ancestor of one of the most recent blocks of the canonical chain,
+   * without having to walk back through the headers of intermediate blocks.
+   *
+   * @param descendantNumber The height of a block on the canonical chain.
+   * @param descendantHash The hash of that block.
+   * @param number The height of the ancestor whose hash should be retrieved.
+   * @return The hash of the ancestor at the given height, or empty if {@code descendantHash} is not
+   *     known to be a recent canonical block or the ancestor is not recent enough to be tracked.
+   */
+  default Optional<Hash> getRecentAncestorHash(
+      final long descendantNumber, final Hash descendantHash, final long number) {
+    return Optional.empty();
+  }
+
   /**
    * Returns the total difficulty (cumulative difficulty up to and including the target block) of
    * the block corresponding to the given hash. Associated block is not necessarily on the canonical
@@ -155,6 +170,15 @@ public interface Blockchain {
    */
   Optional<TransactionLocation> getTransactionLocation(Hash transactionHash);
 
+  /**
+   * Returns the index of logs bloom filters maintained for this chain, if any.
+   *
+   * @return The logs bloom index, or empty if this blockchain does not maintain one.
+   */
+  default Optional<LogsBloomIndex> getLogsBloomIndex() {
+    return Optional.empty();
+  }
+
   /**
    * Adds an observer that will get called when a new block is added.
    *
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.chain;
+
+import java.util.BitSet;
+
+/**
+ * An index of the logs bloom filters of the canonical chain, grouped into fixed size sections of
+ * consecutive blocks. For each bloom bit in a section the index stores which blocks have that bit
+ * set, so the blocks that could contain a given log can be found by combining a handful of bit
+ * vectors rather than reading every header in the section.
+ */
+public interface LogsBloomIndex {
+
+  /** @return the number of blocks in each section of the index */
+  int getSectionSize();
+
+  /**
+   * Checks whether a section has been indexed and still matches the canonical chain.
+   *
+   * @param section the section number, i.e. the first block number in the section divided by the
+   *     section size
+   * @return true if {@link #getBlocksWithBloomBit(long, int)} can be used for this section
+   */
+  boolean isSectionIndexed(long section);
+
+  /**
+   * Retrieves the blocks in a section whose logs bloom has the given bit set. Only meaningful for
+   * sections where {@link #isSectionIndexed(long)} returns true.
+   *
+   * @param section the section number
+   * @param bloomBit the index of the bloom bit, as used by {@link
+   *     tech.pegasys.pantheon.ethereum.core.LogsBloomFilter#isBitSet(int)}
+   * @return a bit set where bit {@code i} is set if block {@code section * getSectionSize() + i}
+   *     has the bloom bit set
+   */
+  BitSet getBlocksWithBloomBit(long section, int bloomBit);
+}
@@ -0,0 +1,448 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.core;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link WorldUpdater} that tracks every change made during the execution of a transaction in a
+ * single map of touched accounts, recording how to undo each change in a journal.
+ *
+ * <p>Unlike the updaters returned by {@link AbstractWorldUpdater#updater()}, the updaters returned
+ * by {@link #updater()} (and recursively by their own {@link #updater()}) do not buffer their
+ * changes separately: they only remember the position of the journal at the time they were
+ * created. Reverting one of them undoes the journal back to that position, and committing one of
+ * them is a no-op since its changes are already visible to the updater it was created from.
+ * Reading an account therefore never has to go through one layer per nested message call.
+ *
+ * <p>As with stacked updaters, an updater returned by {@link #updater()} must be committed or
+ * reverted before its parent is modified again. Changes are only pushed to the wrapped updater
+ * when this (top-level) updater is committed.
+ */
+public class JournaledWorldUpdater implements WorldUpdater {
+
+  private final WorldUpdater wrapped;
+
+  private final Map<Address, JournaledAccount> accounts = new HashMap<>();
+  private final Set<Address> deletedAccounts = new HashSet<>();
+  private final List<Change> journal = new ArrayList<>();
+  private int nextCheckpointId = 1;
+
+  public JournaledWorldUpdater(final WorldUpdater wrapped) {
+    this.wrapped = wrapped;
+  }
+
+  @Override
+  public Account get(final Address address) {
+    final JournaledAccount existing = accounts.get(address);
+    if (existing != null) {
+      return existing;
+    }
+    if (deletedAccounts.contains(address)) {
+      return null;
+    }
+    return wrapped.get(address);
+  }
+
+  @Override
+  public MutableAccount createAccount(final Address address, final long nonce, final Wei balance) {
+    return createAccount(address, nonce, balance, 0);
+  }
+
+  @Override
+  public MutableAccount getMutable(final Address address) {
+    return getMutable(address, 0);
+  }
+
+  @Override
+  public void deleteAccount(final Address address) {
+    replaceAccount(address, null);
+  }
+
+  @Override
+  public Collection<Account> getTouchedAccounts() {
+    return touchedAccountsSince(0);
+  }
+
+  @Override
+  public void revert() {
+    revertTo(0);
+  }
+
+  @Override
+  public void commit() {
+    deletedAccounts.forEach(wrapped::deleteAccount);
+    for (final JournaledAccount account : accounts.values()) {
+      final MutableAccount target =
+          account.origin == null
+              ? wrapped.createAccount(account.address)
+              : wrapped.getMutable(account.address);
+      target.setNonce(account.nonce);
+      target.setBalance(account.balance);
+      if (account.updatedCode != null) {
+        target.setCode(account.updatedCode);
+      }
+      if (account.storageWasCleared) {
+        target.clearStorage();
+      }
+      account.updatedStorage.forEach(target::setStorageValue);
+    }
+  }
+
+  @Override
+  public WorldUpdater updater() {
+    return new Checkpoint();
+  }
+
+  private MutableAccount createAccount(
+      final Address address, final long nonce, final Wei balance, final int checkpointId) {
+    final JournaledAccount account = new JournaledAccount(address, null, checkpointId);
+    account.nonce = nonce;
+    account.balance = balance;
+    account.updatedCode = BytesValue.EMPTY;
+    replaceAccount(address, account);
+    return account;
+  }
+
+  private MutableAccount getMutable(final Address address, final int checkpointId) {
+    final JournaledAccount existing = accounts.get(address);
+    if (existing != null) {
+      if (existing.touchedBy != checkpointId) {
+        // Only recorded so that the checkpoint reports the account as touched.
+        existing.touchedBy = checkpointId;
+        journal.add(new Change(address, () -> {}));
+      }
+      return existing;
+    }
+    if (deletedAccounts.contains(address)) {
+      return null;
+    }
+
+    final Account origin = wrapped.get(address);
+    if (origin == null) {
+      return null;
+    }
+    final JournaledAccount account = new JournaledAccount(address, origin, checkpointId);
+    accounts.put(address, account);
+    journal.add(new Change(address, () -> accounts.remove(address)));
+    return account;
+  }
+
+  private void replaceAccount(final Address address, @Nullable final JournaledAccount account) {
+    final JournaledAccount previous =
+        account == null ? accounts.remove(address) : accounts.put(address, account);
+    final boolean wasDeleted =
+        account == null ? !deletedAccounts.add(address) : deletedAccounts.remove(address);
+    journal.add(
+        new Change(
+            address,
+            () -> {
+              if (previous == null) {
+                accounts.remove(address);
+              } else {
+                accounts.put(address, previous);
+              }
+              if (wasDeleted) {
+                deletedAccounts.add(address);
+              } else {
+                deletedAccounts.remove(address);
+              }
+            }));
+  }
+
+  private Collection<Account> touchedAccountsSince(final int mark) {
+    final Set<Address> touched = new HashSet<>();
+    final List<Account> result = new ArrayList<>();
+    for (int i = mark; i < journal.size(); i++) {
+      final Address address = journal.get(i).address;
+      if (touched.add(address)) {
+        final JournaledAccount account = accounts.get(address);
+        if (account != null) {
+          result.add(account);
+        }
+      }
+    }
+    return result;
+  }
+
+  private void revertTo(final int mark) {
+    for (int i = journal.size() - 1; i >= mark; i--) {
+      journal.get(i).undo.run();
+    }
+    if (journal.size() > mark) {
+      journal.subList(mark, journal.size()).clear();
+    }
+  }
+
+  /** A single journaled change, along with the account it affected. */
+  private static final class Change {
+    private final Address address;
+    private final Runnable undo;
+
+    private Change(final Address address, final Runnable undo) {
+      this.address = address;
+      this.undo = undo;
+    }
+  }
+
+  /**
+   * An updater nested in a {@link JournaledWorldUpdater}, whose changes are applied directly to the
+   * journaled state.
+   */
+  private class Checkpoint implements WorldUpdater {
+    private final int id = nextCheckpointId++;
+    private final int mark = journal.size();
+
+    @Override
+    public Account get(final Address address) {
+      return JournaledWorldUpdater.this.get(address);
+    }
+
+    @Override
+    public MutableAccount createAccount(
+        final Address address, final long nonce, final Wei balance) {
+      return JournaledWorldUpdater.this.createAccount(address, nonce, balance, id);
+    }
+
+    @Override
+    public MutableAccount getMutable(final Address address) {
+      return JournaledWorldUpdater.this.getMutable(address, id);
+    }
+
+    @Override
+    public void deleteAccount(final Address address) {
+      replaceAccount(address, null);
+    }
+
+    @Override
+    public Collection<Account> getTouchedAccounts() {
+      return touchedAccountsSince(mark);
+    }
+
+    @Override
+    public void revert() {
+      revertTo(mark);
+    }
+
+    @Override
+    public void commit() {
+      // Our changes are already part of the journal of the updater we were created from.
+    }
+
+    @Override
+    public WorldUpdater updater() {
+      return new Checkpoint();
+    }
+  }
+
+  /** An account whose modifications are recorded in the enclosing updater's journal. */
+  private class JournaledAccount implements MutableAccount {
+    private final Address address;
+
+    @Nullable private final Account origin; // null if this is a new account.
+    private int touchedBy;
+
+    private long nonce;
+    private Wei balance;
+
+    @Nullable private BytesValue updatedCode; // Null if the underlying code has not been updated.
+    @Nullable private Hash updatedCodeHash;
+
+    // Only contains updated storage entries, but may contains entry with a value of 0 to signify
+    // deletion.
+    private Map<UInt256, UInt256> updatedStorage = new HashMap<>();
+    private boolean storageWasCleared = false;
+
+    JournaledAccount(
+        final Address address, @Nullable final Account origin, final int checkpointId) {
+      checkNotNull(address);
+      this.address = address;
+      this.origin = origin;
+      this.touchedBy = checkpointId;
+      if (origin != null) {
+        this.nonce = origin.getNonce();
+        this.balance = origin.getBalance();
+      }
+    }
+
+    @Override
+    public Address getAddress() {
+      return address;
+    }
+
+    @Override
+    public long getNonce() {
+      return nonce;
+    }
+
+    @Override
+    public void setNonce(final long value) {
+      final long previous = nonce;
+      journal.add(new Change(address, () -> nonce = previous));
+      nonce = value;
+    }
+
+    @Override
+    public Wei getBalance() {
+      return balance;
+    }
+
+    @Override
+    public void setBalance(final Wei value) {
+      final Wei previous = balance;
+      journal.add(new Change(address, () -> balance = previous));
+      balance = value;
+    }
+
+    @Override
+    public BytesValue getCode() {
+      // Note that we set code for new account, so it's only null if origin isn't.
+      return updatedCode == null ? origin.getCode() : updatedCode;
+    }
+
+    @Override
+    public Hash getCodeHash() {
+      if (updatedCode == null) {
+        return origin.getCodeHash();
+      }
+      if (updatedCodeHash == null) {
+        updatedCodeHash = Hash.hash(updatedCode);
+      }
+      return updatedCodeHash;
+    }
+
+    @Override
+    public boolean hasCode() {
+      return updatedCode == null ? origin.hasCode() : !updatedCode.isEmpty();
+    }
+
+    @Override
+    public void setCode(final BytesValue code) {
+      final BytesValue previousCode = updatedCode;
+      final Hash previousCodeHash = updatedCodeHash;
+      journal.add(
+          new Change(
+              address,
+              () -> {
+                updatedCode = previousCode;
+                updatedCodeHash = previousCodeHash;
+              }));
+      updatedCode = code;
+      updatedCodeHash = null;
+    }
+
+    @Override
+    public UInt256 getStorageValue(final UInt256 key) {
+      final UInt256 value = updatedStorage.get(key);
+      if (value != null) {
+        return value;
+      }
+      if (storageWasCleared || origin == null) {
+        return UInt256.ZERO;
+      }
+      return origin.getStorageValue(key);
+    }
+
+    @Override
+    public UInt256 getOriginalStorageValue(final UInt256 key) {
+      return storageWasCleared || origin == null
+          ? UInt256.ZERO
+          : origin.getOriginalStorageValue(key);
+    }
+
+    @Override
+    public NavigableMap<Bytes32, UInt256> storageEntriesFrom(
+        final Bytes32 startKeyHash, final int limit) {
+      final NavigableMap<Bytes32, UInt256> entries;
+      if (origin != null && !storageWasCleared) {
+        entries = origin.storageEntriesFrom(startKeyHash, limit);
+      } else {
+        entries = new TreeMap<>();
+      }
+      updatedStorage.forEach(
+          (key, value) -> {
+            final Hash hashedKey = Hash.hash(key.getBytes());
+            if (hashedKey.compareTo(startKeyHash) >= 0) {
+              entries.put(hashedKey, value);
+            }
+          });
+
+      while (entries.size() > limit) {
+        entries.remove(entries.lastKey());
+      }
+      return entries;
+    }
+
+    @Override
+    public void setStorageValue(final UInt256 key, final UInt256 value) {
+      final UInt256 previous = updatedStorage.put(key, value);
+      final Map<UInt256, UInt256> storage = updatedStorage;
+      journal.add(
+          new Change(
+              address,
+              () -> {
+                if (previous == null) {
+                  storage.remove(key);
+                } else {
+                  storage.put(key, previous);
+                }
+              }));
+    }
+
+    @Override
+    public void clearStorage() {
+      final Map<UInt256, UInt256> previousStorage = updatedStorage;
+      final boolean previouslyCleared = storageWasCleared;
+      journal.add(
+          new Change(
+              address,
+              () -> {
+                updatedStorage = previousStorage;
+                storageWasCleared = previouslyCleared;
+              }));
+      updatedStorage = new HashMap<>();
+      storageWasCleared = true;
+    }
+
+    @Override
+    public Map<UInt256, UInt256> getUpdatedStorage() {
+      return updatedStorage;
+    }
+
+    @Override
+    public String toString() {
+      String storage = updatedStorage.isEmpty() ? "[not updated]" : updatedStorage.toString();
+      if (updatedStorage.isEmpty() && storageWasCleared) {
+        storage = "[cleared]";
+      }
+      return String.format(
+          "%s -> {nonce: %s, balance:%s, code:%s, storage:%s }",
+          address, nonce, balance, updatedCode == null ? "[not updated]" : updatedCode, storage);
+    }
+  }
+}
@@ -34,6 +34,7 @@ import java.util.Collection;
 public class LogsBloomFilter {
 
   public static final int BYTE_SIZE = 256;
+  public static final int BIT_SIZE = BYTE_SIZE * 8;
   private static final int LEAST_SIGNIFICANT_BYTE = 0xFF;
   private static final int LEAST_SIGNIFICANT_THREE_BITS = 0x7;
   private static final int BITS_IN_BYTE = 8;
@@ -133,6 +134,46 @@ public class LogsBloomFilter {
     }
   }
 
+  /**
+   * Adds a single value, such as a logger address or a log topic, to the bloom filter.
+   *
+   * @param value The value to insert.
+   */
+  public void insertBytes(final BytesValue value) {
+    setBits(keccak256(value));
+  }
+
+  /**
+   * Checks whether every bit set in the other bloom filter is also set in this one. A result of
+   * {@code false} guarantees that none of the values inserted into {@code other} were inserted into
+   * this filter, whereas {@code true} means they may have been.
+   *
+   * @param other The bloom filter to test for.
+   * @return true if this bloom filter could contain all the values in {@code other}.
+   */
+  public boolean couldContain(final LogsBloomFilter other) {
+    for (int i = 0; i < data.size(); ++i) {
+      final byte otherByte = other.data.get(i);
+      if ((data.get(i) & otherByte) != otherByte) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether the bit at the given index is set, using the same bit numbering as the values
+   * inserted into the filter.
+   *
+   * @param index The bit index, between 0 and {@link #BIT_SIZE} (exclusive).
+   * @return true if the bit is set.
+   */
+  public boolean isBitSet(final int index) {
+    final int byteIndex = BYTE_SIZE - 1 - index / 8;
+    final int bitIndex = index % 8;
+    return (data.get(byteIndex) & (1 << bitIndex)) != 0;
+  }
+
   private void setBit(final int index) {
     final int byteIndex = BYTE_SIZE - 1 - index / 8;
     final int bitIndex = index % 8;
@@ -14,16 +14,27 @@ package tech.pegasys.pantheon.ethereum.core;
 
 import static java.util.Collections.newSetFromMap;
 import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.toList;
+import static tech.pegasys.pantheon.metrics.MetricCategory.TRANSACTION_POOL;
+
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.Optional;
 import java.util.OptionalLong;
-import java.util.SortedMap;
-import java.util.SortedSet;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
@@ -33,27 +44,58 @@ import java.util.concurrent.atomic.AtomicLong;
  * Holds the current set of pending transactions with the ability to iterate them based on priority
  * for mining or look-up by hash.
  *
+ * <p>Transactions are prioritized by whether they were submitted locally, then by gas price, then
+ * by how recently they were added. Each sender's transactions are kept in nonce order, and only the
+ * sender's lowest nonce transaction competes on priority with other senders; its successors become
+ * eligible once it has been processed. Transactions following a gap in a sender's nonces are held
+ * back until the gap is filled. When the pool is full the lowest priority transaction is dropped.
+ *
  * <p>This class is safe for use across multiple threads.
  */
 public class PendingTransactions {
   public static final int MAX_PENDING_TRANSACTIONS = 30_000;
 
+  private static final Comparator<TransactionInfo> PRIORITY_ORDER =
+      comparing(TransactionInfo::isReceivedFromLocalSource)
+          .thenComparing(TransactionInfo::getGasPrice)
+          .thenComparing(TransactionInfo::getSequence)
+          .reversed();
+
   private final Map<Hash, TransactionInfo> pendingTransactions = new HashMap<>();
-  private final SortedSet<TransactionInfo> prioritizedTransactions =
-      new TreeSet<>(
-          comparing(TransactionInfo::isReceivedFromLocalSource)
-              .thenComparing(TransactionInfo::getSequence)
-              .reversed());
-  private final Map<Address, SortedMap<Long, TransactionInfo>> transactionsBySender =
+  private final NavigableSet<TransactionInfo> prioritizedTransactions =
+      new TreeSet<>(PRIORITY_ORDER);
+  // The lowest nonce transaction of each sender, which is the next one able to be processed.
+  private final NavigableSet<TransactionInfo> prioritizedSenderHeads =
+      new TreeSet<>(PRIORITY_ORDER);
+  private final Map<Address, NavigableMap<Long, TransactionInfo>> transactionsBySender =
       new HashMap<>();
 
   private final Collection<PendingTransactionListener> listeners =
       newSetFromMap(new ConcurrentHashMap<>());
 
   private final int maxPendingTransactions;
+  private final LabelledMetric<Counter> transactionAddedCounter;
+  private final Counter transactionRemovedCounter;
 
   public PendingTransactions(final int maxPendingTransactions) {
+    this(maxPendingTransactions, new NoOpMetricsSystem());
+  }
+
+  public PendingTransactions(final int maxPendingTransactions, final MetricsSystem metricsSystem) {
     this.maxPendingTransactions = maxPendingTransactions;
+    transactionAddedCounter =
+        metricsSystem.createLabelledCounter(
+            TRANSACTION_POOL,
+            "transactions_added_total",
+            "Number of transactions added to the transaction pool",
+            "source");
+    transactionRemovedCounter =
+        metricsSystem.createCounter(
+            TRANSACTION_POOL,
+            "transactions_removed_total",
+            "Number of transactions removed from the transaction pool");
+    metricsSystem.createGauge(
+        TRANSACTION_POOL, "transactions", "Number of pending transactions", this::size);
   }
 
   public boolean addRemoteTransaction(final Transaction transaction) {
@@ -69,58 +111,87 @@ public class PendingTransactions {
     synchronized (pendingTransactions) {
       final TransactionInfo removedTransactionInfo = pendingTransactions.remove(transaction.hash());
       if (removedTransactionInfo != null) {
+        transactionRemovedCounter.inc();
         prioritizedTransactions.remove(removedTransactionInfo);
-        Optional.ofNullable(transactionsBySender.get(transaction.getSender()))
-            .ifPresent(
-                transactionsForSender -> {
-                  transactionsForSender.remove(transaction.getNonce());
-                  if (transactionsForSender.isEmpty()) {
-                    transactionsBySender.remove(transaction.getSender());
-                  }
-                });
+        final NavigableMap<Long, TransactionInfo> transactionsForSender =
+            transactionsBySender.get(transaction.getSender());
+        transactionsForSender.remove(transaction.getNonce());
+        if (prioritizedSenderHeads.remove(removedTransactionInfo)
+            && !transactionsForSender.isEmpty()) {
+          prioritizedSenderHeads.add(transactionsForSender.firstEntry().getValue());
+        }
+        if (transactionsForSender.isEmpty()) {
+          transactionsBySender.remove(transaction.getSender());
+        }
       }
     }
   }
 
   /*
-   * The BlockTransaction selection process (part of block mining) requires synchronised access to
-   * all pendingTransactions - this allows it to iterate over the available transactions without
-   * releasing the lock in between items.
-   *
+   * The BlockTransaction selection process (part of block mining) pulls transactions from the pool
+   * one at a time, in priority order. The lock is only held while choosing the next transaction,
+   * not while the selector evaluates it, so transactions can continue to be added in the meantime.
+   * Transactions added during selection may or may not be offered to the selector.
    */
   public void selectTransactions(final TransactionSelector selector) {
-    synchronized (pendingTransactions) {
-      final Map<Address, AccountTransactionOrder> accountTransactions = new HashMap<>();
-      final List<Transaction> transactionsToRemove = new ArrayList<>();
-      for (final TransactionInfo transactionInfo : prioritizedTransactions) {
-        final AccountTransactionOrder accountTransactionOrder =
-            accountTransactions.computeIfAbsent(
-                transactionInfo.getSender(), this::createSenderTransactionOrder);
-
-        for (final Transaction transactionToProcess :
-            accountTransactionOrder.transactionsToProcess(transactionInfo.getTransaction())) {
-          final TransactionSelectionResult result =
-              selector.evaluateTransaction(transactionToProcess);
-          switch (result) {
-            case DELETE_TRANSACTION_AND_CONTINUE:
-              transactionsToRemove.add(transactionToProcess);
-              break;
-            case CONTINUE:
-              break;
-            case COMPLETE_OPERATION:
-              return;
-            default:
-              throw new RuntimeException("Illegal value for TransactionSelectionResult.");
+    final Set<Address> selectedSenders = new HashSet<>();
+    final Queue<TransactionInfo> eligibleSuccessors = new PriorityQueue<>(PRIORITY_ORDER);
+    TransactionInfo lastSenderHead = null;
+    while (true) {
+      final TransactionInfo transactionInfo;
+      synchronized (pendingTransactions) {
+        TransactionInfo senderHead =
+            lastSenderHead == null
+                ? first(prioritizedSenderHeads)
+                : prioritizedSenderHeads.higher(lastSenderHead);
+        while (senderHead != null && selectedSenders.contains(senderHead.getSender())) {
+          senderHead = prioritizedSenderHeads.higher(senderHead);
+        }
+        final TransactionInfo successor = eligibleSuccessors.peek();
+        if (senderHead == null && successor == null) {
+          return;
+        }
+        if (successor == null
+            || (senderHead != null && PRIORITY_ORDER.compare(senderHead, successor) < 0)) {
+          transactionInfo = senderHead;
+          lastSenderHead = senderHead;
+          selectedSenders.add(senderHead.getSender());
+        } else {
+          transactionInfo = eligibleSuccessors.poll();
+          if (!pendingTransactions.containsKey(transactionInfo.getHash())) {
+            // Removed since it became eligible.
+            continue;
           }
         }
       }
-      transactionsToRemove.forEach(this::removeTransaction);
+
+      final TransactionSelectionResult result =
+          selector.evaluateTransaction(transactionInfo.getTransaction());
+      switch (result) {
+        case DELETE_TRANSACTION_AND_CONTINUE:
+          removeTransaction(transactionInfo.getTransaction());
+          break;
+        case CONTINUE:
+          break;
+        case COMPLETE_OPERATION:
+          return;
+        default:
+          throw new RuntimeException("Illegal value for TransactionSelectionResult.");
+      }
+      nextTransactionForSender(transactionInfo).ifPresent(eligibleSuccessors::add);
     }
   }
 
-  private AccountTransactionOrder createSenderTransactionOrder(final Address address) {
-    return new AccountTransactionOrder(
-        transactionsBySender.get(address).values().stream().map(TransactionInfo::getTransaction));
+  private static TransactionInfo first(final NavigableSet<TransactionInfo> transactions) {
+    return transactions.isEmpty() ? null : transactions.first();
+  }
+
+  private Optional<TransactionInfo> nextTransactionForSender(
+      final TransactionInfo transactionInfo) {
+    synchronized (pendingTransactions) {
+      return Optional.ofNullable(transactionsBySender.get(transactionInfo.getSender()))
+          .map(transactionsForSender -> transactionsForSender.get(transactionInfo.getNonce() + 1));
+    }
   }
 
   private boolean addTransaction(final TransactionInfo transactionInfo) {
@@ -134,6 +205,9 @@ public class PendingTransactions {
       }
       prioritizedTransactions.add(transactionInfo);
       pendingTransactions.put(transactionInfo.getHash(), transactionInfo);
+      transactionAddedCounter
+          .labels(transactionInfo.isReceivedFromLocalSource() ? "local" : "remote")
+          .inc();
 
       notifyTransactionAdded(transactionInfo.getTransaction());
       if (pendingTransactions.size() > maxPendingTransactions) {
@@ -145,16 +219,28 @@ public class PendingTransactions {
   }
 
   private boolean addTransactionForSenderAndNonce(final TransactionInfo transactionInfo) {
-    final Map<Long, TransactionInfo> transactionsForSender =
-        transactionsBySender.computeIfAbsent(transactionInfo.getSender(), key -> new TreeMap<>());
+    final Map<Long, TransactionInfo> existingTransactionsForSender =
+        transactionsBySender.get(transactionInfo.getSender());
     final TransactionInfo existingTransaction =
-        transactionsForSender.get(transactionInfo.getNonce());
+        existingTransactionsForSender != null
+            ? existingTransactionsForSender.get(transactionInfo.getNonce())
+            : null;
     if (existingTransaction != null) {
       if (!shouldReplace(existingTransaction, transactionInfo)) {
         return false;
       }
       removeTransaction(existingTransaction.getTransaction());
     }
+
+    final NavigableMap<Long, TransactionInfo> transactionsForSender =
+        transactionsBySender.computeIfAbsent(transactionInfo.getSender(), key -> new TreeMap<>());
+    final Map.Entry<Long, TransactionInfo> currentHead = transactionsForSender.firstEntry();
+    if (currentHead == null || currentHead.getKey() > transactionInfo.getNonce()) {
+      if (currentHead != null) {
+        prioritizedSenderHeads.remove(currentHead.getValue());
+      }
+      prioritizedSenderHeads.add(transactionInfo);
+    }
     transactionsForSender.put(transactionInfo.getNonce(), transactionInfo);
     return true;
   }
@@ -185,13 +271,45 @@ public class PendingTransactions {
     }
   }
 
+  /**
+   * Returns whether the given transaction is pending and was submitted locally.
+   *
+   * @param transactionHash the hash of the transaction
+   * @return true if the transaction is pending and was submitted locally
+   */
+  public boolean isLocalTransaction(final Hash transactionHash) {
+    synchronized (pendingTransactions) {
+      final TransactionInfo transactionInfo = pendingTransactions.get(transactionHash);
+      return transactionInfo != null && transactionInfo.isReceivedFromLocalSource();
+    }
+  }
+
+  public List<Transaction> getLocalTransactions() {
+    return getTransactions(true);
+  }
+
+  public List<Transaction> getRemoteTransactions() {
+    return getTransactions(false);
+  }
+
+  private List<Transaction> getTransactions(final boolean receivedFromLocalSource) {
+    synchronized (pendingTransactions) {
+      return pendingTransactions
+          .values()
+          .stream()
+          .filter(info -> info.isReceivedFromLocalSource() == receivedFromLocalSource)
+          .map(TransactionInfo::getTransaction)
+          .collect(toList());
+    }
+  }
+
   public void addTransactionListener(final PendingTransactionListener listener) {
     listeners.add(listener);
   }
 
   public OptionalLong getNextNonceForSender(final Address sender) {
     synchronized (pendingTransactions) {
-      final SortedMap<Long, TransactionInfo> transactionsForSender =
+      final NavigableMap<Long, TransactionInfo> transactionsForSender =
           transactionsBySender.get(sender);
       if (transactionsForSender == null) {
         return OptionalLong.empty();
@@ -229,6 +347,10 @@ public class PendingTransactions {
       return transaction.getNonce();
     }
 
+    public Wei getGasPrice() {
+      return transaction.getGasPrice();
+    }
+
     public Address getSender() {
       return transaction.getSender();
     }
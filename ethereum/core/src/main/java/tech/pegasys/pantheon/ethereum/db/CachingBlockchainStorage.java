@@ -0,0 +1,274 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.db;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.ethereum.chain.TransactionLocation;
+import tech.pegasys.pantheon.ethereum.core.BlockBody;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A {@link BlockchainStorage} that keeps the most recently used headers, bodies, receipts, total
+ * difficulties and canonical block hashes in memory, so repeated reads of recent blocks are not
+ * fetched from storage and RLP decoded each time.
+ *
+ * <p>Entries keyed by block hash never become stale as the data they hold is fixed by the hash.
+ * The canonical hash of a block number changes on a reorganisation, so block hash entries are
+ * updated from the changes made by each committed {@link Updater}, under a lock which also covers
+ * reads that fall through to storage. Values written by an updater are only cached once it commits.
+ */
+public class CachingBlockchainStorage implements BlockchainStorage {
+
+  public static final long DEFAULT_MAXIMUM_HEADERS = 2048;
+  public static final long DEFAULT_MAXIMUM_BODIES = 256;
+  public static final long DEFAULT_MAXIMUM_RECEIPTS = 256;
+
+  private final BlockchainStorage storage;
+  private final ReadWriteLock blockHashLock = new ReentrantReadWriteLock();
+  private final Cache<Hash, BlockHeader> headers;
+  private final Cache<Hash, BlockBody> bodies;
+  private final Cache<Hash, List<TransactionReceipt>> receipts;
+  private final Cache<Hash, UInt256> totalDifficulties;
+  private final Cache<Long, Hash> blockHashes;
+
+  public CachingBlockchainStorage(
+      final BlockchainStorage storage, final MetricsSystem metricsSystem) {
+    this(
+        storage,
+        metricsSystem,
+        DEFAULT_MAXIMUM_HEADERS,
+        DEFAULT_MAXIMUM_BODIES,
+        DEFAULT_MAXIMUM_RECEIPTS);
+  }
+
+  public CachingBlockchainStorage(
+      final BlockchainStorage storage,
+      final MetricsSystem metricsSystem,
+      final long maximumHeaders,
+      final long maximumBodies,
+      final long maximumReceipts) {
+    checkArgument(maximumHeaders > 0, "Header cache size must be positive");
+    checkArgument(maximumBodies > 0, "Body cache size must be positive");
+    checkArgument(maximumReceipts > 0, "Receipts cache size must be positive");
+    this.storage = storage;
+    // Total difficulties and block hashes are small, so as many are kept as headers.
+    this.headers = createCache(maximumHeaders);
+    this.bodies = createCache(maximumBodies);
+    this.receipts = createCache(maximumReceipts);
+    this.totalDifficulties = createCache(maximumHeaders);
+    this.blockHashes = createCache(maximumHeaders);
+
+    createHitRateGauge(metricsSystem, "header", headers);
+    createHitRateGauge(metricsSystem, "body", bodies);
+    createHitRateGauge(metricsSystem, "receipts", receipts);
+    createHitRateGauge(metricsSystem, "total_difficulty", totalDifficulties);
+    createHitRateGauge(metricsSystem, "block_hash", blockHashes);
+  }
+
+  private static <K, V> Cache<K, V> createCache(final long maximumSize) {
+    return CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+  }
+
+  private static void createHitRateGauge(
+      final MetricsSystem metricsSystem, final String name, final Cache<?, ?> cache) {
+    metricsSystem.createGauge(
+        MetricCategory.BLOCKCHAIN,
+        name + "_cache_hit_ratio",
+        "Fraction of " + name.replace('_', ' ') + " lookups answered from memory",
+        () -> cache.stats().hitRate());
+  }
+
+  @Override
+  public Optional<Hash> getChainHead() {
+    return storage.getChainHead();
+  }
+
+  @Override
+  public Collection<Hash> getForkHeads() {
+    return storage.getForkHeads();
+  }
+
+  @Override
+  public Optional<BlockHeader> getBlockHeader(final Hash blockHash) {
+    return get(headers, blockHash, storage::getBlockHeader);
+  }
+
+  @Override
+  public Optional<BlockBody> getBlockBody(final Hash blockHash) {
+    return get(bodies, blockHash, storage::getBlockBody);
+  }
+
+  @Override
+  public Optional<List<TransactionReceipt>> getTransactionReceipts(final Hash blockHash) {
+    return get(
+        receipts,
+        blockHash,
+        hash -> storage.getTransactionReceipts(hash).map(Collections::unmodifiableList));
+  }
+
+  @Override
+  public Optional<Hash> getBlockHash(final long blockNumber) {
+    blockHashLock.readLock().lock();
+    try {
+      return get(blockHashes, blockNumber, storage::getBlockHash);
+    } finally {
+      blockHashLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public Optional<UInt256> getTotalDifficulty(final Hash blockHash) {
+    return get(totalDifficulties, blockHash, storage::getTotalDifficulty);
+  }
+
+  @Override
+  public Optional<TransactionLocation> getTransactionLocation(final Hash transactionHash) {
+    return storage.getTransactionLocation(transactionHash);
+  }
+
+  private static <K, V> Optional<V> get(
+      final Cache<K, V> cache, final K key, final Function<K, Optional<V>> loader) {
+    final V cached = cache.getIfPresent(key);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    // Absent values are not cached, as they may be written later.
+    final Optional<V> loaded = loader.apply(key);
+    loaded.ifPresent(value -> cache.put(key, value));
+    return loaded;
+  }
+
+  @Override
+  public Updater updater() {
+    return new CachingUpdater(storage.updater());
+  }
+
+  private class CachingUpdater implements Updater {
+
+    private final Updater updater;
+    private final Map<Hash, BlockHeader> updatedHeaders = new HashMap<>();
+    private final Map<Hash, BlockBody> updatedBodies = new HashMap<>();
+    private final Map<Hash, List<TransactionReceipt>> updatedReceipts = new HashMap<>();
+    private final Map<Hash, UInt256> updatedTotalDifficulties = new HashMap<>();
+    // An empty value marks a block number that is no longer canonical.
+    private final Map<Long, Optional<Hash>> updatedBlockHashes = new HashMap<>();
+
+    private CachingUpdater(final Updater updater) {
+      this.updater = updater;
+    }
+
+    @Override
+    public void putBlockHeader(final Hash blockHash, final BlockHeader blockHeader) {
+      updater.putBlockHeader(blockHash, blockHeader);
+      updatedHeaders.put(blockHash, blockHeader);
+    }
+
+    @Override
+    public void putBlockBody(final Hash blockHash, final BlockBody blockBody) {
+      updater.putBlockBody(blockHash, blockBody);
+      updatedBodies.put(blockHash, blockBody);
+    }
+
+    @Override
+    public void putTransactionLocation(
+        final Hash transactionHash, final TransactionLocation transactionLocation) {
+      updater.putTransactionLocation(transactionHash, transactionLocation);
+    }
+
+    @Override
+    public void putTransactionReceipts(
+        final Hash blockHash, final List<TransactionReceipt> transactionReceipts) {
+      updater.putTransactionReceipts(blockHash, transactionReceipts);
+      updatedReceipts.put(blockHash, Collections.unmodifiableList(transactionReceipts));
+    }
+
+    @Override
+    public void putBlockHash(final long blockNumber, final Hash blockHash) {
+      updater.putBlockHash(blockNumber, blockHash);
+      updatedBlockHashes.put(blockNumber, Optional.of(blockHash));
+    }
+
+    @Override
+    public void putTotalDifficulty(final Hash blockHash, final UInt256 totalDifficulty) {
+      updater.putTotalDifficulty(blockHash, totalDifficulty);
+      updatedTotalDifficulties.put(blockHash, totalDifficulty);
+    }
+
+    @Override
+    public void setChainHead(final Hash blockHash) {
+      updater.setChainHead(blockHash);
+    }
+
+    @Override
+    public void setForkHeads(final Collection<Hash> forkHeadHashes) {
+      updater.setForkHeads(forkHeadHashes);
+    }
+
+    @Override
+    public void removeBlockHash(final long blockNumber) {
+      updater.removeBlockHash(blockNumber);
+      updatedBlockHashes.put(blockNumber, Optional.empty());
+    }
+
+    @Override
+    public void removeTransactionLocation(final Hash transactionHash) {
+      updater.removeTransactionLocation(transactionHash);
+    }
+
+    @Override
+    public void commit() {
+      blockHashLock.writeLock().lock();
+      try {
+        updater.commit();
+        updatedBlockHashes.forEach(
+            (blockNumber, blockHash) -> {
+              if (blockHash.isPresent()) {
+                blockHashes.put(blockNumber, blockHash.get());
+              } else {
+                blockHashes.invalidate(blockNumber);
+              }
+            });
+      } finally {
+        blockHashLock.writeLock().unlock();
+      }
+      headers.putAll(updatedHeaders);
+      bodies.putAll(updatedBodies);
+      receipts.putAll(updatedReceipts);
+      totalDifficulties.putAll(updatedTotalDifficulties);
+    }
+
+    @Override
+    public void rollback() {
+      updater.rollback();
+    }
+  }
+}
@@ -20,6 +20,7 @@ import static java.util.stream.Collectors.toList;
 import tech.pegasys.pantheon.ethereum.chain.BlockAddedEvent;
 import tech.pegasys.pantheon.ethereum.chain.BlockAddedObserver;
 import tech.pegasys.pantheon.ethereum.chain.ChainHead;
+import tech.pegasys.pantheon.ethereum.chain.LogsBloomIndex;
 import tech.pegasys.pantheon.ethereum.chain.MutableBlockchain;
 import tech.pegasys.pantheon.ethereum.chain.TransactionLocation;
 import tech.pegasys.pantheon.ethereum.core.Block;
@@ -30,12 +31,16 @@ import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.ethereum.core.Transaction;
 import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
 import tech.pegasys.pantheon.ethereum.util.InvalidConfigurationException;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
 import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
 import tech.pegasys.pantheon.util.Subscribers;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -48,7 +53,12 @@ import com.google.common.annotations.VisibleForTesting;
 
 public class DefaultMutableBlockchain implements MutableBlockchain {
 
+  // The BLOCKHASH operation can only look back this many blocks.
+  private static final int RECENT_BLOCK_HASHES = 256;
+
   private final BlockchainStorage blockchainStorage;
+  private final KeyValueStorageLogsBloomIndex logsBloomIndex;
+  private final RecentBlockHashes recentBlockHashes = new RecentBlockHashes(RECENT_BLOCK_HASHES);
 
   private final Subscribers<BlockAddedObserver> blockAddedObservers = new Subscribers<>();
 
@@ -56,10 +66,22 @@ public class DefaultMutableBlockchain implements MutableBlockchain {
       final Block genesisBlock,
       final KeyValueStorage keyValueStorage,
       final BlockHashFunction blockHashFunction) {
+    this(genesisBlock, keyValueStorage, blockHashFunction, new NoOpMetricsSystem());
+  }
+
+  public DefaultMutableBlockchain(
+      final Block genesisBlock,
+      final KeyValueStorage keyValueStorage,
+      final BlockHashFunction blockHashFunction,
+      final MetricsSystem metricsSystem) {
     checkArgument(genesisBlock != null, "Missing required KeyValueStorage");
     this.blockchainStorage =
-        new KeyValueStoragePrefixedKeyBlockchainStorage(keyValueStorage, blockHashFunction);
+        new CachingBlockchainStorage(
+            new KeyValueStoragePrefixedKeyBlockchainStorage(keyValueStorage, blockHashFunction),
+            metricsSystem);
+    this.logsBloomIndex = new KeyValueStorageLogsBloomIndex(keyValueStorage, this);
     this.setGenesis(genesisBlock);
+    loadRecentBlockHashes();
   }
 
   @Override
@@ -110,6 +132,12 @@ public class DefaultMutableBlockchain implements MutableBlockchain {
     return blockchainStorage.getBlockHash(number);
   }
 
+  @Override
+  public Optional<Hash> getRecentAncestorHash(
+      final long descendantNumber, final Hash descendantHash, final long number) {
+    return recentBlockHashes.getAncestorHash(descendantNumber, descendantHash, number);
+  }
+
   @Override
   public Optional<UInt256> getTotalDifficultyByHash(final Hash blockHeaderHash) {
     return blockchainStorage.getTotalDifficulty(blockHeaderHash);
@@ -131,6 +159,11 @@ public class DefaultMutableBlockchain implements MutableBlockchain {
     return blockchainStorage.getTransactionLocation(transactionHash);
   }
 
+  @Override
+  public Optional<LogsBloomIndex> getLogsBloomIndex() {
+    return Optional.of(logsBloomIndex);
+  }
+
   @Override
   public synchronized void appendBlock(final Block block, final List<TransactionReceipt> receipts) {
     checkArgument(
@@ -163,10 +196,51 @@ public class DefaultMutableBlockchain implements MutableBlockchain {
     final BlockAddedEvent blockAddedEvent = updateCanonicalChainData(updater, block, td);
 
     updater.commit();
+    updateRecentBlockHashes(blockAddedEvent);
 
     return blockAddedEvent;
   }
 
+  private void loadRecentBlockHashes() {
+    final long chainHeadNumber = getChainHeadBlockNumber();
+    final long firstNumber =
+        Math.max(BlockHeader.GENESIS_BLOCK_NUMBER, chainHeadNumber - RECENT_BLOCK_HASHES + 1);
+    for (long number = firstNumber; number <= chainHeadNumber; number++) {
+      final long blockNumber = number;
+      blockchainStorage
+          .getBlockHash(blockNumber)
+          .ifPresent(hash -> recentBlockHashes.append(blockNumber, hash));
+    }
+  }
+
+  private void updateRecentBlockHashes(final BlockAddedEvent event) {
+    final BlockHeader newChainHead = event.getBlock().getHeader();
+    switch (event.getEventType()) {
+      case HEAD_ADVANCED:
+        recentBlockHashes.append(newChainHead.getNumber(), newChainHead.getHash());
+        break;
+      case CHAIN_REORG:
+        reorgRecentBlockHashes(newChainHead);
+        break;
+      case FORK:
+        break;
+    }
+  }
+
+  private void reorgRecentBlockHashes(final BlockHeader newChainHead) {
+    // Walk back from the new head until we meet a block the buffer already knows about.
+    final Deque<BlockHeader> newCanonicalHeaders = new ArrayDeque<>();
+    BlockHeader header = newChainHead;
+    while (header != null
+        && newCanonicalHeaders.size() < RECENT_BLOCK_HASHES
+        && !recentBlockHashes.contains(header.getNumber(), header.getHash())) {
+      newCanonicalHeaders.push(header);
+      header = blockchainStorage.getBlockHeader(header.getParentHash()).orElse(null);
+    }
+    recentBlockHashes.rewind(newCanonicalHeaders.peek().getNumber() - 1);
+    newCanonicalHeaders.forEach(h -> recentBlockHashes.append(h.getNumber(), h.getHash()));
+  }
+
   private UInt256 calculateTotalDifficulty(final Block block) {
     if (block.getHeader().getNumber() == BlockHeader.GENESIS_BLOCK_NUMBER) {
       return block.getHeader().getDifficulty();
@@ -386,6 +460,8 @@ public class DefaultMutableBlockchain implements MutableBlockchain {
   }
 
   private void notifyBlockAdded(final BlockAddedEvent event) {
+    // The index only schedules its work, and is not counted among the external observers.
+    logsBloomIndex.onBlockAdded(event, this);
     blockAddedObservers.forEach(observer -> observer.onBlockAdded(event, this));
   }
 }
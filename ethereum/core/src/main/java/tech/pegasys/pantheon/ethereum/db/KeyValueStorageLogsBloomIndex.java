@@ -0,0 +1,240 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.db;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedEvent;
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedObserver;
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.chain.LogsBloomIndex;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.LogsBloomFilter;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.bytes.BytesValues;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A {@link LogsBloomIndex} persisted alongside the chain data in a {@link KeyValueStorage}.
+ *
+ * <p>Each section is stored bit-transposed: for every one of the 2048 bloom bits there is an entry
+ * holding one bit per block in the section. Vectors with no bits set are not written. A section is
+ * only indexed once it is buried deep enough under the chain head that it is unlikely to be
+ * reorganised, and it records the hash of its last block so that a deeper reorg is detected and
+ * the section re-indexed.
+ *
+ * <p>Sections are indexed on a background thread each time a block becomes the new chain head, so
+ * importing a block never waits for a section to be indexed.
+ */
+public class KeyValueStorageLogsBloomIndex implements LogsBloomIndex, BlockAddedObserver {
+  private static final Logger LOG = LogManager.getLogger();
+
+  public static final int DEFAULT_SECTION_SIZE = 4096;
+  public static final int DEFAULT_CONFIRMATIONS = 256;
+
+  // Keys are kept apart from the blockchain storage prefixes, which share the same storage.
+  private static final BytesValue BLOOM_INDEX_PREFIX = BytesValue.of(0x10);
+  private static final BytesValue INDEXED_SECTIONS_KEY =
+      BytesValue.wrap("indexedSections".getBytes(StandardCharsets.UTF_8));
+  private static final BytesValue SECTION_HEAD_PREFIX = BytesValue.of(1);
+  private static final BytesValue BLOOM_BITS_PREFIX = BytesValue.of(2);
+
+  private final KeyValueStorage storage;
+  private final Blockchain blockchain;
+  private final int sectionSize;
+  private final int confirmations;
+  private final Executor indexingExecutor;
+  private final AtomicBoolean indexingScheduled = new AtomicBoolean(false);
+
+  public KeyValueStorageLogsBloomIndex(final KeyValueStorage storage, final Blockchain blockchain) {
+    this(
+        storage,
+        blockchain,
+        DEFAULT_SECTION_SIZE,
+        DEFAULT_CONFIRMATIONS,
+        // The thread is only started once the first section may be complete.
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat(KeyValueStorageLogsBloomIndex.class.getSimpleName() + "-%d")
+                .build()));
+  }
+
+  @VisibleForTesting
+  KeyValueStorageLogsBloomIndex(
+      final KeyValueStorage storage,
+      final Blockchain blockchain,
+      final int sectionSize,
+      final int confirmations,
+      final Executor indexingExecutor) {
+    checkArgument(sectionSize > 0 && sectionSize % 8 == 0, "Section size must be a multiple of 8");
+    this.storage = storage;
+    this.blockchain = blockchain;
+    this.sectionSize = sectionSize;
+    this.confirmations = confirmations;
+    this.indexingExecutor = indexingExecutor;
+  }
+
+  @Override
+  public int getSectionSize() {
+    return sectionSize;
+  }
+
+  @Override
+  public boolean isSectionIndexed(final long section) {
+    return section < getIndexedSectionCount() && sectionMatchesCanonicalChain(section);
+  }
+
+  @Override
+  public BitSet getBlocksWithBloomBit(final long section, final int bloomBit) {
+    return storage
+        .get(bloomBitsKey(section, bloomBit))
+        .map(bits -> BitSet.valueOf(bits.extractArray()))
+        .orElseGet(BitSet::new);
+  }
+
+  @Override
+  public void onBlockAdded(final BlockAddedEvent event, final Blockchain chain) {
+    final long chainHeadNumber = event.getBlock().getHeader().getNumber();
+    if (event.isNewCanonicalHead()
+        && chainHeadNumber >= sectionSize - 1 + confirmations
+        && indexingScheduled.compareAndSet(false, true)) {
+      indexingExecutor.execute(this::indexAllCompletedSections);
+    }
+  }
+
+  private void indexAllCompletedSections() {
+    // Cleared first so a chain head added while indexing schedules another run.
+    indexingScheduled.set(false);
+    try {
+      while (indexCompletedSections()) {
+        // Keep going until a node catching up on an existing chain has indexed every section.
+      }
+    } catch (final RuntimeException e) {
+      LOG.error("Unable to index logs bloom filters.", e);
+    }
+  }
+
+  /**
+   * Indexes the next section if it has enough confirmations, first discarding any sections that
+   * were invalidated by a chain reorganisation.
+   *
+   * @return true if a section was indexed
+   */
+  @VisibleForTesting
+  synchronized boolean indexCompletedSections() {
+    final long storedSectionCount = getIndexedSectionCount();
+    long sectionCount = storedSectionCount;
+    while (sectionCount > 0 && !sectionMatchesCanonicalChain(sectionCount - 1)) {
+      sectionCount--;
+    }
+
+    final long lastBlockInNextSection = (sectionCount + 1) * sectionSize - 1;
+    if (lastBlockInNextSection + confirmations <= blockchain.getChainHeadBlockNumber()
+        && indexSection(sectionCount)) {
+      return true;
+    } else if (sectionCount != storedSectionCount) {
+      final KeyValueStorage.Transaction transaction = storage.getStartTransaction();
+      transaction.put(indexedSectionsKey(), BytesValues.toMinimalBytes(sectionCount));
+      transaction.commit();
+    }
+    return false;
+  }
+
+  private boolean indexSection(final long section) {
+    final long firstBlock = section * sectionSize;
+    final BitSet[] blocksByBloomBit = new BitSet[LogsBloomFilter.BIT_SIZE];
+    Hash lastBlockHash = null;
+    for (int offset = 0; offset < sectionSize; offset++) {
+      final Optional<BlockHeader> maybeHeader = blockchain.getBlockHeader(firstBlock + offset);
+      if (!maybeHeader.isPresent()
+          || (lastBlockHash != null && !maybeHeader.get().getParentHash().equals(lastBlockHash))) {
+        // The chain was reorganised while the section was being read; it is retried once the new
+        // chain head is added.
+        return false;
+      }
+      final BlockHeader header = maybeHeader.get();
+      final LogsBloomFilter bloom = header.getLogsBloom();
+      for (int bit = 0; bit < LogsBloomFilter.BIT_SIZE; bit++) {
+        if (bloom.isBitSet(bit)) {
+          if (blocksByBloomBit[bit] == null) {
+            blocksByBloomBit[bit] = new BitSet(sectionSize);
+          }
+          blocksByBloomBit[bit].set(offset);
+        }
+      }
+      lastBlockHash = header.getHash();
+    }
+
+    final KeyValueStorage.Transaction transaction = storage.getStartTransaction();
+    for (int bit = 0; bit < LogsBloomFilter.BIT_SIZE; bit++) {
+      if (blocksByBloomBit[bit] == null) {
+        transaction.remove(bloomBitsKey(section, bit));
+      } else {
+        final byte[] bits = Arrays.copyOf(blocksByBloomBit[bit].toByteArray(), sectionSize / 8);
+        transaction.put(bloomBitsKey(section, bit), BytesValue.wrap(bits));
+      }
+    }
+    transaction.put(sectionHeadKey(section), lastBlockHash);
+    transaction.put(indexedSectionsKey(), BytesValues.toMinimalBytes(section + 1));
+    transaction.commit();
+    LOG.debug(
+        "Indexed logs bloom filters for blocks {} to {}.",
+        firstBlock,
+        firstBlock + sectionSize - 1);
+    return true;
+  }
+
+  private long getIndexedSectionCount() {
+    return storage.get(indexedSectionsKey()).map(BytesValues::extractLong).orElse(0L);
+  }
+
+  private boolean sectionMatchesCanonicalChain(final long section) {
+    final Optional<Hash> indexedHead =
+        storage.get(sectionHeadKey(section)).map(bytes -> Hash.wrap(Bytes32.wrap(bytes, 0)));
+    return indexedHead.isPresent()
+        && indexedHead.equals(blockchain.getBlockHashByNumber((section + 1) * sectionSize - 1));
+  }
+
+  private BytesValue indexedSectionsKey() {
+    return BytesValues.concatenate(BLOOM_INDEX_PREFIX, INDEXED_SECTIONS_KEY);
+  }
+
+  private BytesValue sectionHeadKey(final long section) {
+    return BytesValues.concatenate(
+        BLOOM_INDEX_PREFIX, SECTION_HEAD_PREFIX, BytesValues.ofUnsignedInt(section));
+  }
+
+  private BytesValue bloomBitsKey(final long section, final int bloomBit) {
+    return BytesValues.concatenate(
+        BLOOM_INDEX_PREFIX,
+        BLOOM_BITS_PREFIX,
+        BytesValues.ofUnsignedInt(section),
+        BytesValues.ofUnsignedShort(bloomBit));
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.db;
+
+import tech.pegasys.pantheon.services.kvstore.SegmentedKeyValueStorage.AccessPattern;
+import tech.pegasys.pantheon.services.kvstore.SegmentedKeyValueStorage.Segment;
+
+import java.nio.charset.StandardCharsets;
+
+/** The storage segments used to persist chain and world state data. */
+public enum KeyValueStorageSegment implements Segment {
+  BLOCKCHAIN("blockchain", AccessPattern.APPEND_ORDERED),
+  WORLD_STATE("worldState", AccessPattern.POINT_LOOKUP);
+
+  private final String name;
+  private final byte[] id;
+  private final AccessPattern accessPattern;
+
+  KeyValueStorageSegment(final String name, final AccessPattern accessPattern) {
+    this.name = name;
+    this.id = name.getBytes(StandardCharsets.UTF_8);
+    this.accessPattern = accessPattern;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public byte[] getId() {
+    return id;
+  }
+
+  @Override
+  public AccessPattern getAccessPattern() {
+    return accessPattern;
+  }
+}
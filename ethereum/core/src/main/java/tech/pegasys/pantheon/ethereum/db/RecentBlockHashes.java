@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.db;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+
+import java.util.Optional;
+
+/**
+ * A ring buffer holding the hashes of the most recent blocks of the canonical chain, so that the
+ * ancestors of a recent canonical block can be resolved without reading headers from storage.
+ *
+ * <p>The buffer covers a contiguous range of block numbers ending at the most recently appended
+ * block. Appending a block that does not directly follow that range restarts the buffer from that
+ * block.
+ */
+class RecentBlockHashes {
+
+  private final Hash[] hashes;
+  // The buffer holds the hashes of blocks oldestNumber to headNumber, both inclusive.
+  private long oldestNumber = 0;
+  private long headNumber = -1;
+
+  RecentBlockHashes(final int capacity) {
+    checkArgument(capacity > 0, "Capacity must be positive");
+    this.hashes = new Hash[capacity];
+  }
+
+  /**
+   * Records the hash of the new head of the canonical chain.
+   *
+   * @param number the number of the new chain head
+   * @param hash the hash of the new chain head
+   */
+  synchronized void append(final long number, final Hash hash) {
+    if (number != headNumber + 1 || headNumber < oldestNumber) {
+      oldestNumber = number;
+    }
+    headNumber = number;
+    oldestNumber = Math.max(oldestNumber, number - hashes.length + 1);
+    hashes[slot(number)] = hash;
+  }
+
+  /**
+   * Discards the hashes of all blocks after the given number, typically because those blocks are
+   * no longer part of the canonical chain after a reorg.
+   *
+   * @param number the number of the last block to keep
+   */
+  synchronized void rewind(final long number) {
+    if (number < headNumber) {
+      headNumber = number;
+    }
+  }
+
+  /**
+   * Whether the buffer knows the given block to be on the canonical chain.
+   *
+   * @param number the number of the block
+   * @param hash the hash of the block
+   * @return {@code true} if {@code hash} is the recorded hash for block {@code number}
+   */
+  synchronized boolean contains(final long number, final Hash hash) {
+    return isTracked(number) && hashes[slot(number)].equals(hash);
+  }
+
+  /**
+   * Retrieves the hash of an ancestor of a recent canonical block.
+   *
+   * @param descendantNumber the number of a block on the canonical chain
+   * @param descendantHash the hash of that block
+   * @param number the number of the ancestor whose hash should be retrieved
+   * @return the hash of the ancestor, or empty if {@code descendantHash} isn't known to be on the
+   *     canonical chain or the ancestor is not held in the buffer
+   */
+  synchronized Optional<Hash> getAncestorHash(
+      final long descendantNumber, final Hash descendantHash, final long number) {
+    if (number > descendantNumber
+        || !isTracked(number)
+        || !contains(descendantNumber, descendantHash)) {
+      return Optional.empty();
+    }
+    return Optional.of(hashes[slot(number)]);
+  }
+
+  private boolean isTracked(final long number) {
+    return number >= oldestNumber && number <= headNumber;
+  }
+
+  private int slot(final long number) {
+    return (int) (number % hashes.length);
+  }
+}
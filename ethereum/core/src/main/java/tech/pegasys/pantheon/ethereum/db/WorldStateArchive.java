@@ -17,18 +17,43 @@ import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
 import tech.pegasys.pantheon.ethereum.core.WorldState;
 import tech.pegasys.pantheon.ethereum.trie.MerklePatriciaTrie;
 import tech.pegasys.pantheon.ethereum.worldstate.DefaultMutableWorldState;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateSnapshot;
 import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class WorldStateArchive {
   private final WorldStateStorage storage;
   private static final Hash EMPTY_ROOT_HASH = Hash.wrap(MerklePatriciaTrie.EMPTY_TRIE_ROOT_HASH);
+  // Most reads target the same recent root, so the last snapshot handed out is shared.
+  private final AtomicReference<WorldStateSnapshot> latestSnapshot = new AtomicReference<>();
 
   public WorldStateArchive(final WorldStateStorage storage) {
     this.storage = storage;
   }
 
   public WorldState get(final Hash rootHash) {
-    return getMutable(rootHash);
+    return getSnapshot(rootHash);
+  }
+
+  /**
+   * Returns an immutable view of the world state at the given root that can be shared between
+   * threads. Consecutive requests for the same root return the same snapshot, so concurrent
+   * readers share the trie nodes it has loaded.
+   *
+   * @param rootHash the root of the requested world state
+   * @return a snapshot of the world state at {@code rootHash}
+   */
+  public WorldStateSnapshot getSnapshot(final Hash rootHash) {
+    final WorldStateSnapshot current = latestSnapshot.get();
+    if (current != null && current.rootHash().equals(rootHash)) {
+      return current;
+    }
+    final WorldStateSnapshot snapshot = new WorldStateSnapshot(rootHash, storage);
+    latestSnapshot.set(snapshot);
+    return snapshot;
   }
 
   public MutableWorldState getMutable(final Hash rootHash) {
@@ -42,4 +67,22 @@ public class WorldStateArchive {
   public MutableWorldState getMutable() {
     return getMutable(EMPTY_ROOT_HASH);
   }
+
+  /**
+   * Checks whether the root node of the world state with the given root is stored.
+   *
+   * @param rootHash the root of the world state
+   * @return true if the world state root is in storage or the world state is empty
+   */
+  public boolean isWorldStateAvailable(final Hash rootHash) {
+    return rootHash.equals(EMPTY_ROOT_HASH) || storage.getNodeData(rootHash).isPresent();
+  }
+
+  public Optional<BytesValue> getNodeData(final Hash hash) {
+    return storage.getNodeData(hash);
+  }
+
+  public WorldStateStorage getStorage() {
+    return storage;
+  }
 }
@@ -13,6 +13,7 @@
 package tech.pegasys.pantheon.ethereum.mainnet;
 
 import static org.apache.logging.log4j.LogManager.getLogger;
+import static tech.pegasys.pantheon.metrics.MetricCategory.BLOCKCHAIN;
 
 import tech.pegasys.pantheon.ethereum.ProtocolContext;
 import tech.pegasys.pantheon.ethereum.chain.MutableBlockchain;
@@ -21,6 +22,11 @@ import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.core.BlockImporter;
 import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
 import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.metrics.OperationTimer.TimingContext;
 
 import java.util.List;
 import java.util.Optional;
@@ -36,6 +42,10 @@ public class MainnetBlockImporter<C> implements BlockImporter<C> {
 
   private final BlockProcessor blockProcessor;
 
+  // Protocol schedules are built before the node's metrics system exists, so the metrics are
+  // created on the first import rather than in the constructor.
+  private volatile ImportMetrics metrics;
+
   public MainnetBlockImporter(
       final BlockHeaderValidator<C> blockHeaderValidator,
       final BlockBodyValidator<C> blockBodyValidator,
@@ -51,6 +61,20 @@ public class MainnetBlockImporter<C> implements BlockImporter<C> {
       final Block block,
       final HeaderValidationMode headerValidationMode,
       final HeaderValidationMode ommerValidationMode) {
+    final boolean imported;
+    final ImportMetrics metrics = metrics(context);
+    try (final TimingContext ignored = metrics.fullImportTimer.startTimer()) {
+      imported = doImportBlock(context, block, headerValidationMode, ommerValidationMode);
+    }
+    metrics.recordImportResult(imported);
+    return imported;
+  }
+
+  private boolean doImportBlock(
+      final ProtocolContext<C> context,
+      final Block block,
+      final HeaderValidationMode headerValidationMode,
+      final HeaderValidationMode ommerValidationMode) {
     final BlockHeader header = block.getHeader();
 
     final Optional<BlockHeader> maybeParentHeader =
@@ -94,6 +118,20 @@ public class MainnetBlockImporter<C> implements BlockImporter<C> {
       final Block block,
       final List<TransactionReceipt> receipts,
       final HeaderValidationMode headerValidationMode) {
+    final boolean imported;
+    final ImportMetrics metrics = metrics(context);
+    try (final TimingContext ignored = metrics.fastImportTimer.startTimer()) {
+      imported = doFastImportBlock(context, block, receipts, headerValidationMode);
+    }
+    metrics.recordImportResult(imported);
+    return imported;
+  }
+
+  private boolean doFastImportBlock(
+      final ProtocolContext<C> context,
+      final Block block,
+      final List<TransactionReceipt> receipts,
+      final HeaderValidationMode headerValidationMode) {
     final BlockHeader header = block.getHeader();
 
     if (!blockHeaderValidator.validateHeader(header, context, headerValidationMode)) {
@@ -109,4 +147,41 @@ public class MainnetBlockImporter<C> implements BlockImporter<C> {
 
     return true;
   }
+
+  private ImportMetrics metrics(final ProtocolContext<C> context) {
+    final MetricsSystem metricsSystem = context.getMetricsSystem();
+    ImportMetrics current = metrics;
+    if (current == null || current.metricsSystem != metricsSystem) {
+      current = new ImportMetrics(metricsSystem);
+      metrics = current;
+    }
+    return current;
+  }
+
+  private static class ImportMetrics {
+    private final MetricsSystem metricsSystem;
+    private final OperationTimer fullImportTimer;
+    private final OperationTimer fastImportTimer;
+    private final Counter importedCounter;
+    private final Counter failedCounter;
+
+    private ImportMetrics(final MetricsSystem metricsSystem) {
+      this.metricsSystem = metricsSystem;
+      final LabelledMetric<OperationTimer> importTimer =
+          metricsSystem.createLabelledTimer(
+              BLOCKCHAIN, "block_import_seconds", "Time taken to import a block", "mode");
+      fullImportTimer = importTimer.labels("full");
+      fastImportTimer = importTimer.labels("fast");
+      importedCounter =
+          metricsSystem.createCounter(
+              BLOCKCHAIN, "blocks_imported_total", "Number of blocks imported");
+      failedCounter =
+          metricsSystem.createCounter(
+              BLOCKCHAIN, "block_import_failures_total", "Number of blocks that failed to import");
+    }
+
+    private void recordImportResult(final boolean imported) {
+      (imported ? importedCounter : failedCounter).inc();
+    }
+  }
 }
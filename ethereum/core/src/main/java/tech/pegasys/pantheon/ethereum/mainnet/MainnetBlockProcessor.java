@@ -106,6 +106,7 @@ public class MainnetBlockProcessor implements BlockProcessor {
 
     long gasUsed = 0;
     final List<TransactionReceipt> receipts = new ArrayList<>();
+    final BlockHashLookup blockHashLookup = new BlockHashLookup(blockHeader, blockchain);
 
     for (final Transaction transaction : transactions) {
       final long remainingGasBudget = blockHeader.getGasLimit() - gasUsed;
@@ -118,7 +119,6 @@ public class MainnetBlockProcessor implements BlockProcessor {
       }
 
       final WorldUpdater worldStateUpdater = worldState.updater();
-      final BlockHashLookup blockHashLookup = new BlockHashLookup(blockHeader, blockchain);
       final Address miningBeneficiary =
           miningBeneficiaryCalculator.calculateBeneficiary(blockHeader);
       final TransactionProcessor.Result result =
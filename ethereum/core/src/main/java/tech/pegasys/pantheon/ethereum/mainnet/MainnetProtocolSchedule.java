@@ -12,6 +12,8 @@
  */
 package tech.pegasys.pantheon.ethereum.mainnet;
 
+import tech.pegasys.pantheon.ethereum.vm.CodeCache;
+
 import io.vertx.core.json.JsonObject;
 
 /** Provides {@link ProtocolSpec} lookups for mainnet hard forks. */
@@ -46,8 +48,41 @@ public class MainnetProtocolSchedule {
       final long byzantiumBlockNumber,
       final long constantinopleBlockNumber,
       final int chainId) {
+    return create(
+        homesteadBlockNumber,
+        daoBlockNumber,
+        tangerineWhistleBlockNumber,
+        spuriousDragonBlockNumber,
+        byzantiumBlockNumber,
+        constantinopleBlockNumber,
+        chainId,
+        new CodeCache(CodeCache.DEFAULT_MAXIMUM_SIZE_IN_BYTES));
+  }
+
+  /**
+   * Creates a mainnet protocol schedule with milestones starting at the specified block numbers
+   *
+   * @param homesteadBlockNumber Block number at which to start the homestead fork
+   * @param daoBlockNumber Block number at which to start the dao fork
+   * @param tangerineWhistleBlockNumber Block number at which to start the tangerine whistle fork
+   * @param spuriousDragonBlockNumber Block number at which to start the spurious dragon fork
+   * @param byzantiumBlockNumber Block number at which to start the byzantium fork
+   * @param constantinopleBlockNumber Block number at which to start the constantinople fork
+   * @param chainId ID of the blockchain
+   * @param codeCache Cache of analysed contract code used by every milestone
+   * @return MainnetProtocolSchedule return newly instantiated protocol schedule
+   */
+  public static ProtocolSchedule<Void> create(
+      final long homesteadBlockNumber,
+      final long daoBlockNumber,
+      final long tangerineWhistleBlockNumber,
+      final long spuriousDragonBlockNumber,
+      final long byzantiumBlockNumber,
+      final long constantinopleBlockNumber,
+      final int chainId,
+      final CodeCache codeCache) {
 
-    final MutableProtocolSchedule<Void> protocolSchedule = new MutableProtocolSchedule<>();
+    final MutableProtocolSchedule<Void> protocolSchedule = new MutableProtocolSchedule<>(codeCache);
     protocolSchedule.putMilestone(0, MainnetProtocolSpecs.frontier(protocolSchedule));
     final ProtocolSpec<Void> homestead = MainnetProtocolSpecs.homestead(protocolSchedule);
     protocolSchedule.putMilestone(homesteadBlockNumber, homestead);
@@ -93,6 +128,19 @@ public class MainnetProtocolSchedule {
    * @return A configured mainnet protocol schedule
    */
   public static ProtocolSchedule<Void> fromConfig(final JsonObject config) {
+    return fromConfig(config, new CodeCache(CodeCache.DEFAULT_MAXIMUM_SIZE_IN_BYTES));
+  }
+
+  /**
+   * Create a Mainnet protocol schedule from a config object
+   *
+   * @param config {@link JsonObject} containing the config options for the milestone starting
+   *     points
+   * @param codeCache Cache of analysed contract code used by every milestone
+   * @return A configured mainnet protocol schedule
+   */
+  public static ProtocolSchedule<Void> fromConfig(
+      final JsonObject config, final CodeCache codeCache) {
     final long homesteadBlockNumber =
         config.getLong("homesteadBlock", DEFAULT_HOMESTEAD_BLOCK_NUMBER);
     final long daoBlockNumber = config.getLong("daoForkBlock", DEFAULT_DAO_BLOCK_NUMBER);
@@ -112,6 +160,7 @@ public class MainnetProtocolSchedule {
         spuriousDragonBlockNumber,
         byzantiumBlockNumber,
         constantinopleBlockNumber,
-        chainId);
+        chainId,
+        codeCache);
   }
 }
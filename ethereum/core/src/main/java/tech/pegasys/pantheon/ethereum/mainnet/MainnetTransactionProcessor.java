@@ -16,6 +16,7 @@ import tech.pegasys.pantheon.ethereum.chain.Blockchain;
 import tech.pegasys.pantheon.ethereum.core.Account;
 import tech.pegasys.pantheon.ethereum.core.Address;
 import tech.pegasys.pantheon.ethereum.core.Gas;
+import tech.pegasys.pantheon.ethereum.core.JournaledWorldUpdater;
 import tech.pegasys.pantheon.ethereum.core.LogSeries;
 import tech.pegasys.pantheon.ethereum.core.MutableAccount;
 import tech.pegasys.pantheon.ethereum.core.ProcessableBlockHeader;
@@ -25,6 +26,7 @@ import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
 import tech.pegasys.pantheon.ethereum.mainnet.TransactionValidator.TransactionInvalidReason;
 import tech.pegasys.pantheon.ethereum.vm.BlockHashLookup;
 import tech.pegasys.pantheon.ethereum.vm.Code;
+import tech.pegasys.pantheon.ethereum.vm.CodeCache;
 import tech.pegasys.pantheon.ethereum.vm.GasCalculator;
 import tech.pegasys.pantheon.ethereum.vm.MessageFrame;
 import tech.pegasys.pantheon.ethereum.vm.OperationTracer;
@@ -49,6 +51,8 @@ public class MainnetTransactionProcessor implements TransactionProcessor {
 
   private final AbstractMessageProcessor messageCallProcessor;
 
+  private final CodeCache codeCache;
+
   public static class Result implements TransactionProcessor.Result {
 
     private final Status status;
@@ -127,11 +131,13 @@ public class MainnetTransactionProcessor implements TransactionProcessor {
       final TransactionValidator transactionValidator,
       final AbstractMessageProcessor contractCreationProcessor,
       final AbstractMessageProcessor messageCallProcessor,
+      final CodeCache codeCache,
       final boolean clearEmptyAccounts) {
     this.gasCalculator = gasCalculator;
     this.transactionValidator = transactionValidator;
     this.contractCreationProcessor = contractCreationProcessor;
     this.messageCallProcessor = messageCallProcessor;
+    this.codeCache = codeCache;
     this.clearEmptyAccounts = clearEmptyAccounts;
   }
 
@@ -198,7 +204,7 @@ public class MainnetTransactionProcessor implements TransactionProcessor {
               .type(MessageFrame.Type.CONTRACT_CREATION)
               .messageFrameStack(messageFrameStack)
               .blockchain(blockchain)
-              .worldState(worldUpdater.updater())
+              .worldState(new JournaledWorldUpdater(worldUpdater))
               .initialGas(gasAvailable)
               .address(contractAddress)
               .originator(senderAddress)
@@ -214,6 +220,7 @@ public class MainnetTransactionProcessor implements TransactionProcessor {
               .completer(c -> {})
               .miningBeneficiary(miningBenficiary)
               .blockHashLookup(blockHashLookup)
+              .codeCache(codeCache)
               .build();
 
     } else {
@@ -225,7 +232,7 @@ public class MainnetTransactionProcessor implements TransactionProcessor {
               .type(MessageFrame.Type.MESSAGE_CALL)
               .messageFrameStack(messageFrameStack)
               .blockchain(blockchain)
-              .worldState(worldUpdater.updater())
+              .worldState(new JournaledWorldUpdater(worldUpdater))
               .initialGas(gasAvailable)
               .address(to)
               .originator(senderAddress)
@@ -235,12 +242,13 @@ public class MainnetTransactionProcessor implements TransactionProcessor {
               .sender(senderAddress)
               .value(transaction.getValue())
               .apparentValue(transaction.getValue())
-              .code(new Code(contract != null ? contract.getCode() : BytesValue.EMPTY))
+              .code(codeCache.getCode(contract))
               .blockHeader(blockHeader)
               .depth(0)
               .completer(c -> {})
               .miningBeneficiary(miningBenficiary)
               .blockHashLookup(blockHashLookup)
+              .codeCache(codeCache)
               .build();
     }
 
@@ -12,7 +12,12 @@
  */
 package tech.pegasys.pantheon.ethereum.mainnet;
 
+import tech.pegasys.pantheon.ethereum.vm.CodeCache;
+
 public interface ProtocolSchedule<C> {
 
   ProtocolSpec<C> getByBlockNumber(long number);
+
+  /** @return The cache of analysed contract code shared by every spec in this schedule. */
+  CodeCache getCodeCache();
 }
@@ -12,10 +12,10 @@
  */
 package tech.pegasys.pantheon.ethereum.mainnet.precompiles;
 
+import tech.pegasys.pantheon.crypto.Keccak256;
 import tech.pegasys.pantheon.crypto.SECP256K1.PublicKey;
 import tech.pegasys.pantheon.crypto.SECP256K1.Signature;
 import tech.pegasys.pantheon.ethereum.core.Gas;
-import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.ethereum.mainnet.AbstractPrecompiledContract;
 import tech.pegasys.pantheon.ethereum.vm.GasCalculator;
 import tech.pegasys.pantheon.util.bytes.Bytes32;
@@ -75,9 +75,9 @@ public class ECRECPrecompiledContract extends AbstractPrecompiledContract {
         return Bytes32.ZERO;
       }
 
-      final Bytes32 hashed = Hash.hash(recovered.get().getEncodedBytes());
       final MutableBytes32 result = MutableBytes32.create();
-      hashed.slice(12).copyTo(result, 12);
+      Keccak256.hash(recovered.get().getEncodedBytes(), result);
+      result.mutableSlice(0, 12).clear();
       return result;
     } catch (final IllegalArgumentException e) {
       return Bytes32.ZERO;
@@ -19,6 +19,7 @@ import tech.pegasys.pantheon.ethereum.vm.operations.BlockHashOperation;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * Calculates and caches block hashes by number following the chain for a specific branch. This is
@@ -26,18 +27,24 @@ import java.util.Map;
  * the block being imported is on a fork.
  *
  * <p>A new BlockHashCache must be created for each block being processed but should be reused for
- * all transactions within that block.
+ * all transactions within that block. When the block builds on one of the most recent canonical
+ * blocks, hashes are served from the blockchain's record of recent canonical hashes instead of
+ * walking back through parent headers.
  */
 public class BlockHashLookup {
 
   private ProcessableBlockHeader searchStartHeader;
   private final Blockchain blockchain;
+  private final long parentNumber;
+  private final Hash parentHash;
   private final Map<Long, Hash> hashByNumber = new HashMap<>();
 
   public BlockHashLookup(final ProcessableBlockHeader currentBlock, final Blockchain blockchain) {
     this.searchStartHeader = currentBlock;
     this.blockchain = blockchain;
-    hashByNumber.put(currentBlock.getNumber() - 1, currentBlock.getParentHash());
+    this.parentNumber = currentBlock.getNumber() - 1;
+    this.parentHash = currentBlock.getParentHash();
+    hashByNumber.put(parentNumber, parentHash);
   }
 
   public Hash getBlockHash(final long blockNumber) {
@@ -45,6 +52,15 @@ public class BlockHashLookup {
     if (cachedHash != null) {
       return cachedHash;
     }
+    if (blockNumber < parentNumber) {
+      // When building on a recent canonical block, the blockchain already knows our ancestors.
+      final Optional<Hash> recentHash =
+          blockchain.getRecentAncestorHash(parentNumber, parentHash, blockNumber);
+      if (recentHash.isPresent()) {
+        hashByNumber.put(blockNumber, recentHash.get());
+        return recentHash.get();
+      }
+    }
     while (searchStartHeader != null && searchStartHeader.getNumber() - 1 > blockNumber) {
       searchStartHeader = blockchain.getBlockHeader(searchStartHeader.getParentHash()).orElse(null);
       if (searchStartHeader != null) {
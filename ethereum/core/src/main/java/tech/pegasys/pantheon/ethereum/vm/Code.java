@@ -13,6 +13,7 @@
 package tech.pegasys.pantheon.ethereum.vm;
 
 import tech.pegasys.pantheon.ethereum.vm.operations.JumpDestOperation;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
@@ -20,14 +21,24 @@ import java.util.BitSet;
 
 import com.google.common.base.MoreObjects;
 
-/** Represents EVM code associated with an account. */
+/**
+ * Represents EVM code associated with an account.
+ *
+ * <p>The code is analysed at most once: valid jump destinations and the immediates of every PUSH
+ * operation are decoded together the first time either is needed, or up front when the code is
+ * loaded through a {@link CodeCache}. The analysis only depends on the PUSH opcodes, whose sizes
+ * are the same in every fork, so analysed code can be shared between EVMs and threads.
+ */
 public class Code {
 
+  private static final int PUSH1_OPCODE = 0x60;
+  private static final int PUSH32_OPCODE = 0x7f;
+
   /** The bytes representing the code. */
   private final BytesValue bytes;
 
-  /** Used to cache valid jump destinations. */
-  private BitSet validJumpDestinations;
+  /** Used to cache the jump destinations and push immediates. */
+  private volatile Analysis analysis;
 
   /**
    * Public constructor.
@@ -71,28 +82,51 @@ public class Code {
   /**
    * Determine whether a specified destination is a valid jump target.
    *
-   * @param evm the EVM executing this code
    * @param destination The destination we're checking for validity.
    * @return Whether or not this location is a valid jump destination.
    */
-  public boolean isValidJumpDestination(final EVM evm, final UInt256 destination) {
+  public boolean isValidJumpDestination(final UInt256 destination) {
     if (!destination.fitsInt()) return false;
 
     final int jumpDestination = destination.toInt();
     if (jumpDestination > getSize()) return false;
 
-    if (validJumpDestinations == null) {
-      // Calculate valid jump destinations
-      validJumpDestinations = new BitSet(getSize());
-      evm.forEachOperation(
-          this,
-          (final Operation op, final Integer offset) -> {
-            if (op.getOpcode() == JumpDestOperation.OPCODE) {
-              validJumpDestinations.set(offset);
-            }
-          });
+    return analyse().validJumpDestinations.get(jumpDestination);
+  }
+
+  /**
+   * Returns the value pushed by the PUSH operation at the given offset, right-aligned and padded
+   * with zeros where the code ends before the immediate does.
+   *
+   * @param offset the offset of a PUSH operation in this code
+   * @return the value to push, or {@code null} if there is no PUSH operation at {@code offset}
+   */
+  public Bytes32 getPushValue(final int offset) {
+    final Bytes32[] pushValues = analyse().pushValues;
+    return offset < pushValues.length ? pushValues[offset] : null;
+  }
+
+  /**
+   * Decodes the jump destinations and push immediates of this code if that has not happened yet.
+   * Concurrent callers may both decode the code, but they produce identical results.
+   */
+  Analysis analyse() {
+    Analysis result = analysis;
+    if (result == null) {
+      result = new Analysis(bytes);
+      analysis = result;
     }
-    return validJumpDestinations.get(jumpDestination);
+    return result;
+  }
+
+  /**
+   * Estimates the memory used by this code once analysed, which is dominated by the decoded push
+   * immediates rather than by the bytecode itself.
+   *
+   * @return the estimated size in bytes of the code and its analysis
+   */
+  int getAnalysedSizeInBytes() {
+    return getSize() + analyse().sizeInBytes;
   }
 
   public BytesValue getBytes() {
@@ -103,4 +137,41 @@ public class Code {
   public String toString() {
     return MoreObjects.toStringHelper(this).add("bytes", bytes).toString();
   }
+
+  static final class Analysis {
+    private static final int REFERENCE_SIZE = 8;
+    // A Bytes32 wrapper and the 32 byte array it wraps, including object headers.
+    private static final int PUSH_VALUE_SIZE = 72;
+
+    private final BitSet validJumpDestinations;
+    private final Bytes32[] pushValues;
+    private final int sizeInBytes;
+
+    private Analysis(final BytesValue bytes) {
+      final int size = bytes.size();
+      validJumpDestinations = new BitSet(size);
+      pushValues = new Bytes32[size];
+
+      int pushCount = 0;
+      int pc = 0;
+      while (pc < size) {
+        final int opcode = bytes.get(pc) & 0xff;
+        if (opcode == JumpDestOperation.OPCODE) {
+          validJumpDestinations.set(pc);
+        } else if (opcode >= PUSH1_OPCODE && opcode <= PUSH32_OPCODE) {
+          final int length = opcode - PUSH1_OPCODE + 1;
+          final int copyLength = Math.min(length, size - pc - 1);
+          final byte[] value = new byte[Bytes32.SIZE];
+          for (int i = 0; i < copyLength; i++) {
+            value[Bytes32.SIZE - length + i] = bytes.get(pc + 1 + i);
+          }
+          pushValues[pc] = Bytes32.wrap(value);
+          pushCount++;
+          pc += length;
+        }
+        pc++;
+      }
+      sizeInBytes = size / Byte.SIZE + size * REFERENCE_SIZE + pushCount * PUSH_VALUE_SIZE;
+    }
+  }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.ethereum.core.Account;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.function.Supplier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A concurrent cache of analysed {@link Code}, keyed by code hash, so that the code of frequently
+ * called contracts is loaded and analysed once rather than for every message call.
+ *
+ * <p>Code is content-addressed, so cached entries never become stale. The analysis held by {@link
+ * Code} does not depend on the fork being executed, so a single cache is shared by every EVM of a
+ * protocol schedule. The cache is bounded by the estimated memory used by the bytecode and its
+ * analysis, which holds a decoded value for every PUSH operation. The least recently used code is
+ * evicted first.
+ */
+public class CodeCache {
+
+  public static final long DEFAULT_MAXIMUM_SIZE_IN_BYTES = 128 * 1024 * 1024;
+
+  private final Cache<Hash, Code> cache;
+
+  /**
+   * Create a cache.
+   *
+   * @param maximumSizeInBytes The maximum estimated size of the code and analysis held by this
+   *     cache.
+   */
+  public CodeCache(final long maximumSizeInBytes) {
+    checkArgument(maximumSizeInBytes > 0, "Cache size must be positive");
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maximumSizeInBytes)
+            .weigher((Hash hash, Code code) -> code.getAnalysedSizeInBytes())
+            .recordStats()
+            .build();
+  }
+
+  /**
+   * Create a cache that reports its hits and misses to the given metrics system.
+   *
+   * @param maximumSizeInBytes The maximum estimated size of the code and analysis held by this
+   *     cache.
+   * @param metricsSystem The metrics system the cache statistics are reported to.
+   */
+  public CodeCache(final long maximumSizeInBytes, final MetricsSystem metricsSystem) {
+    this(maximumSizeInBytes);
+    metricsSystem.createGauge(
+        MetricCategory.WORLD_STATE,
+        "code_cache_hits",
+        "Number of contract code lookups answered from the cache",
+        this::getHitCount);
+    metricsSystem.createGauge(
+        MetricCategory.WORLD_STATE,
+        "code_cache_misses",
+        "Number of contract code lookups that loaded and analysed the code",
+        this::getMissCount);
+    metricsSystem.createGauge(
+        MetricCategory.WORLD_STATE,
+        "code_cache_hit_ratio",
+        "Fraction of contract code lookups answered from the cache",
+        this::getHitRate);
+  }
+
+  /**
+   * Returns the analysed code of an account, loading it only if it is not already cached.
+   *
+   * @param account The account whose code is executed, or {@code null} if it does not exist.
+   * @return The analysed code of the account, or empty code if there is no account.
+   */
+  public Code getCode(final Account account) {
+    return account == null ? new Code() : getCode(account.getCodeHash(), account::getCode);
+  }
+
+  /**
+   * Returns the analysed code with the given hash.
+   *
+   * @param codeHash The hash of the code.
+   * @param codeLoader Supplies the code if it is not already cached.
+   * @return The analysed code.
+   */
+  public Code getCode(final Hash codeHash, final Supplier<BytesValue> codeLoader) {
+    final Code cached = cache.getIfPresent(codeHash);
+    if (cached != null) {
+      return cached;
+    }
+    // Concurrent misses may both load the code, but they produce equivalent entries.
+    final Code code = new Code(codeLoader.get());
+    code.analyse();
+    cache.put(codeHash, code);
+    return code;
+  }
+
+  /** @return The number of lookups that were answered from the cache. */
+  public long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  /** @return The number of lookups that had to load and analyse the code. */
+  public long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  /** @return The fraction of lookups that were answered from the cache. */
+  public double getHitRate() {
+    return cache.stats().hitRate();
+  }
+
+  /** @return The number of entries in the cache. */
+  public long size() {
+    return cache.size();
+  }
+
+  /** Discards every cached entry. */
+  public void clear() {
+    cache.invalidateAll();
+  }
+}
@@ -19,6 +19,7 @@ import tech.pegasys.pantheon.ethereum.core.Gas;
 import tech.pegasys.pantheon.ethereum.vm.MessageFrame.State;
 import tech.pegasys.pantheon.ethereum.vm.ehalt.ExceptionalHaltException;
 import tech.pegasys.pantheon.ethereum.vm.ehalt.ExceptionalHaltManager;
+import tech.pegasys.pantheon.ethereum.vm.ehalt.StackOverflowExceptionalHaltPredicate;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.util.EnumSet;
@@ -31,18 +32,44 @@ public class EVM {
   private static final Logger LOG = getLogger();
 
   private static final int STOP_OPCODE = 0x00;
+  private static final int INVALID_OPCODE = 0xfe;
+  private static final int NUM_OPCODES = 256;
+
   private final OperationRegistry operations;
   private final Operation invalidOperation;
 
+  // Per-opcode dispatch and stack bounds, resolved once so the untraced loop needs neither registry
+  // lookups with defaulting nor a fresh EnumSet of halt reasons for every executed opcode.
+  private final Operation[] operationsByOpcode = new Operation[NUM_OPCODES];
+  private final int[] minStackSize = new int[NUM_OPCODES];
+  private final int[] maxStackSize = new int[NUM_OPCODES];
+
   public EVM(final OperationRegistry operations, final Operation invalidOperation) {
     this.operations = operations;
     this.invalidOperation = invalidOperation;
+    for (int opcode = 0; opcode < NUM_OPCODES; opcode++) {
+      final Operation operation = operations.getOrDefault((byte) opcode, invalidOperation);
+      operationsByOpcode[opcode] = operation;
+      // The invalid operation always halts, so give it a stack bound no frame can satisfy.
+      minStackSize[opcode] =
+          operation.getOpcode() == INVALID_OPCODE
+              ? Integer.MAX_VALUE
+              : operation.getStackItemsConsumed();
+      maxStackSize[opcode] =
+          StackOverflowExceptionalHaltPredicate.MAX_STACK_SIZE - operation.getStackSizeChange();
+    }
   }
 
   public void runToHalt(final MessageFrame frame, final OperationTracer operationTracer)
       throws ExceptionalHaltException {
-    while (frame.getState() == MessageFrame.State.CODE_EXECUTING) {
-      executeNextOperation(frame, operationTracer);
+    if (operationTracer == OperationTracer.NO_TRACING) {
+      while (frame.getState() == MessageFrame.State.CODE_EXECUTING) {
+        executeNextOperationUntraced(frame);
+      }
+    } else {
+      while (frame.getState() == MessageFrame.State.CODE_EXECUTING) {
+        executeNextOperation(frame, operationTracer);
+      }
     }
   }
 
@@ -68,13 +95,61 @@ public class EVM {
         currentGasCost,
         () -> {
           checkForExceptionalHalt(frame);
-          logState(frame, currentGasCost);
+          logState(frame, currentGasCost.orElse(null));
           decrementRemainingGas(frame, currentGasCost);
           frame.getCurrentOperation().execute(frame);
           incrementProgramCounter(frame);
         });
   }
 
+  /**
+   * Executes the next operation without a tracer. Produces the same halt reasons and state changes
+   * as {@link #executeNextOperation(MessageFrame, OperationTracer)}, but the common case of an
+   * operation that does not halt allocates nothing beyond what the operation itself allocates.
+   * Whenever a halt is detected the full set of reasons is re-evaluated through {@link
+   * ExceptionalHaltManager} so the reported reasons are unchanged.
+   */
+  private void executeNextOperationUntraced(final MessageFrame frame)
+      throws ExceptionalHaltException {
+    final int opcode = opcodeAtOffset(frame.getCode(), frame.getPC());
+    final Operation operation = operationsByOpcode[opcode];
+    frame.setCurrentOperation(operation);
+
+    final int stackSize = frame.stackSize();
+    if (stackSize < minStackSize[opcode] || stackSize > maxStackSize[opcode]) {
+      haltWithAllReasons(frame);
+    }
+
+    final Gas cost;
+    try {
+      cost = operation.cost(frame);
+    } catch (final IllegalArgumentException e) {
+      // Gas overflow, reported as insufficient gas by the halt predicates.
+      haltWithAllReasons(frame);
+      return;
+    }
+    if (cost != null && !frame.hasRemainingGas(cost)) {
+      haltWithAllReasons(frame);
+    }
+    final EnumSet<ExceptionalHaltReason> noReasons = frame.getExceptionalHaltReasons();
+    if (operation.exceptionalHaltCondition(frame, noReasons, this).isPresent()) {
+      haltWithAllReasons(frame);
+    }
+
+    logState(frame, cost);
+    if (cost == null) {
+      throw new IllegalStateException("Gas overflow detected");
+    }
+    frame.decrementRemainingGas(cost);
+    operation.execute(frame);
+    incrementProgramCounter(frame);
+  }
+
+  private void haltWithAllReasons(final MessageFrame frame) throws ExceptionalHaltException {
+    evaluateExceptionalHaltReasons(frame);
+    checkForExceptionalHalt(frame);
+  }
+
   private void evaluateExceptionalHaltReasons(final MessageFrame frame) {
     final EnumSet<ExceptionalHaltReason> haltReasons =
         ExceptionalHaltManager.evaluateAll(frame, this);
@@ -118,13 +193,15 @@ public class EVM {
     }
   }
 
-  private static void logState(final MessageFrame frame, final Optional<Gas> currentGasCost) {
+  private static void logState(final MessageFrame frame, final Gas currentGasCost) {
     if (LOG.isTraceEnabled()) {
       final StringBuilder builder = new StringBuilder();
       builder.append("Depth: ").append(frame.getMessageStackDepth()).append("\n");
       builder.append("Operation: ").append(frame.getCurrentOperation().getName()).append("\n");
       builder.append("PC: ").append(frame.getPC()).append("\n");
-      currentGasCost.ifPresent(gas -> builder.append("Gas cost: ").append(gas).append("\n"));
+      if (currentGasCost != null) {
+        builder.append("Gas cost: ").append(currentGasCost).append("\n");
+      }
       builder.append("Gas Remaining: ").append(frame.getRemainingGas()).append("\n");
       builder.append("Depth: ").append(frame.getMessageStackDepth()).append("\n");
       builder.append("Stack:");
@@ -144,4 +221,14 @@ public class EVM {
 
     return operations.getOrDefault(bytecode.get(offset), invalidOperation);
   }
+
+  private static int opcodeAtOffset(final Code code, final int offset) {
+    final BytesValue bytecode = code.getBytes();
+    // Running off the end of the code behaves as an implicit STOP.
+    if (offset >= bytecode.size()) {
+      return STOP_OPCODE;
+    }
+
+    return bytecode.get(offset) & 0xff;
+  }
 }
@@ -12,8 +12,8 @@
  */
 package tech.pegasys.pantheon.ethereum.vm.operations;
 
+import tech.pegasys.pantheon.crypto.Keccak256;
 import tech.pegasys.pantheon.ethereum.core.Gas;
-import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.ethereum.vm.AbstractOperation;
 import tech.pegasys.pantheon.ethereum.vm.GasCalculator;
 import tech.pegasys.pantheon.ethereum.vm.MessageFrame;
@@ -40,6 +40,6 @@ public class Sha3Operation extends AbstractOperation {
     final UInt256 length = frame.popStackItem().asUInt256();
 
     final BytesValue bytes = frame.readMemory(from, length);
-    frame.pushStackItem(Hash.hash(bytes));
+    frame.pushStackItem(Keccak256.hash(bytes));
   }
 }
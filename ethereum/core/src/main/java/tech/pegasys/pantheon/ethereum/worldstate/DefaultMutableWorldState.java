@@ -24,7 +24,9 @@ import tech.pegasys.pantheon.ethereum.rlp.RLP;
 import tech.pegasys.pantheon.ethereum.rlp.RLPException;
 import tech.pegasys.pantheon.ethereum.rlp.RLPInput;
 import tech.pegasys.pantheon.ethereum.trie.MerklePatriciaTrie;
+import tech.pegasys.pantheon.ethereum.trie.NodeLoader;
 import tech.pegasys.pantheon.ethereum.trie.StoredMerklePatriciaTrie;
+import tech.pegasys.pantheon.ethereum.worldstate.FlatStateCache.CachedAccount;
 import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.uint.UInt256;
@@ -32,10 +34,12 @@ import tech.pegasys.pantheon.util.uint.UInt256;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.stream.Stream;
@@ -48,6 +52,13 @@ public class DefaultMutableWorldState implements MutableWorldState {
   private final Map<Address, BytesValue> updatedAccountCode = new HashMap<>();
   private final WorldStateStorage worldStateStorage;
 
+  // Changes not yet persisted, tracked so the flat state cache can be updated on persist.
+  private final Map<Address, CachedAccount> pendingAccounts = new HashMap<>();
+  private final Set<Address> pendingClearedStorage = new HashSet<>();
+  private final Map<Address, Map<UInt256, UInt256>> pendingStorage = new HashMap<>();
+  // The root of this world state as of its creation or last persist.
+  private Hash persistedRootHash;
+
   public DefaultMutableWorldState(final WorldStateStorage storage) {
     this(MerklePatriciaTrie.EMPTY_TRIE_ROOT_HASH, storage);
   }
@@ -56,6 +67,7 @@ public class DefaultMutableWorldState implements MutableWorldState {
       final Bytes32 rootHash, final WorldStateStorage worldStateStorage) {
     this.worldStateStorage = worldStateStorage;
     this.accountStateTrie = newAccountStateTrie(rootHash);
+    this.persistedRootHash = Hash.wrap(rootHash);
   }
 
   public DefaultMutableWorldState(final WorldState worldState) {
@@ -69,16 +81,24 @@ public class DefaultMutableWorldState implements MutableWorldState {
     final DefaultMutableWorldState other = (DefaultMutableWorldState) worldState;
     this.worldStateStorage = other.worldStateStorage;
     this.accountStateTrie = newAccountStateTrie(other.accountStateTrie.getRootHash());
+    this.persistedRootHash = rootHash();
   }
 
   private MerklePatriciaTrie<Bytes32, BytesValue> newAccountStateTrie(final Bytes32 rootHash) {
-    return new StoredMerklePatriciaTrie<>(
-        worldStateStorage::getAccountStateTrieNode, rootHash, b -> b, b -> b);
+    return newTrie(worldStateStorage::getAccountStateTrieNode, rootHash);
   }
 
   private MerklePatriciaTrie<Bytes32, BytesValue> newAccountStorageTrie(final Bytes32 rootHash) {
-    return new StoredMerklePatriciaTrie<>(
-        worldStateStorage::getAccountStorageTrieNode, rootHash, b -> b, b -> b);
+    return newTrie(worldStateStorage::getAccountStorageTrieNode, rootHash);
+  }
+
+  private MerklePatriciaTrie<Bytes32, BytesValue> newTrie(
+      final NodeLoader nodeLoader, final Bytes32 rootHash) {
+    return worldStateStorage
+        .getTrieNodeCache()
+        .<MerklePatriciaTrie<Bytes32, BytesValue>>map(
+            cache -> new StoredMerklePatriciaTrie<>(nodeLoader, rootHash, b -> b, b -> b, cache))
+        .orElseGet(() -> new StoredMerklePatriciaTrie<>(nodeLoader, rootHash, b -> b, b -> b));
   }
 
   @Override
@@ -93,11 +113,43 @@ public class DefaultMutableWorldState implements MutableWorldState {
 
   @Override
   public Account get(final Address address) {
+    return loadAccount(address);
+  }
+
+  private AccountState loadAccount(final Address address) {
+    final Optional<FlatStateCache> flatStateCache = flatStateCacheFor(address);
+    if (flatStateCache.isPresent()) {
+      final Optional<CachedAccount> cached =
+          flatStateCache.get().getAccount(persistedRootHash, address);
+      if (cached.isPresent()) {
+        return cached.get().exists() ? new AccountState(address, cached.get()) : null;
+      }
+    }
+
     final Hash addressHash = Hash.hash(address);
-    return accountStateTrie
-        .get(Hash.hash(address))
-        .map(bytes -> deserializeAccount(address, addressHash, bytes))
-        .orElse(null);
+    final AccountState account =
+        accountStateTrie
+            .get(addressHash)
+            .map(bytes -> deserializeAccount(address, addressHash, bytes))
+            .orElse(null);
+    flatStateCache.ifPresent(
+        cache ->
+            cache.putAccount(
+                persistedRootHash,
+                address,
+                account == null ? CachedAccount.ABSENT : account.toCachedAccount()));
+    return account;
+  }
+
+  /**
+   * The flat state cache only holds values of the last persisted state, so it can't be used for
+   * accounts this world state has modified since.
+   */
+  private Optional<FlatStateCache> flatStateCacheFor(final Address address) {
+    if (pendingAccounts.containsKey(address)) {
+      return Optional.empty();
+    }
+    return worldStateStorage.getFlatStateCache();
   }
 
   private AccountState deserializeAccount(
@@ -112,7 +164,8 @@ public class DefaultMutableWorldState implements MutableWorldState {
 
     in.leaveList();
 
-    return new AccountState(address, addressHash, nonce, balance, storageRoot, codeHash);
+    return new AccountState(
+        address, addressHash, nonce, balance, storageRoot, codeHash, persistedRootHash);
   }
 
   private static BytesValue serializeAccount(
@@ -178,6 +231,43 @@ public class DefaultMutableWorldState implements MutableWorldState {
 
     // Push changes to underlying storage
     updater.commit();
+
+    final Hash newRootHash = rootHash();
+    worldStateStorage
+        .getFlatStateCache()
+        .ifPresent(
+            cache ->
+                cache.onPersist(
+                    persistedRootHash,
+                    newRootHash,
+                    pendingAccounts,
+                    pendingClearedStorage,
+                    pendingStorage));
+    pendingAccounts.clear();
+    pendingClearedStorage.clear();
+    pendingStorage.clear();
+    persistedRootHash = newRootHash;
+  }
+
+  private void trackDeletedAccount(final Address address) {
+    pendingAccounts.put(address, CachedAccount.ABSENT);
+    pendingClearedStorage.add(address);
+    pendingStorage.remove(address);
+  }
+
+  private void trackUpdatedAccount(
+      final Address address,
+      final CachedAccount account,
+      final boolean storageCleared,
+      final Map<UInt256, UInt256> updatedStorage) {
+    pendingAccounts.put(address, account);
+    if (storageCleared) {
+      pendingClearedStorage.add(address);
+      pendingStorage.remove(address);
+    }
+    if (!updatedStorage.isEmpty()) {
+      pendingStorage.computeIfAbsent(address, a -> new HashMap<>()).putAll(updatedStorage);
+    }
   }
 
   // An immutable class that represents an individual account as stored in
@@ -191,6 +281,8 @@ public class DefaultMutableWorldState implements MutableWorldState {
     private final Wei balance;
     private final Hash storageRoot;
     private final Hash codeHash;
+    // The persisted world state root this account was read from.
+    private final Hash worldStateRoot;
 
     // Lazily initialized since we don't always access storage.
     private volatile MerklePatriciaTrie<Bytes32, BytesValue> storageTrie;
@@ -201,7 +293,8 @@ public class DefaultMutableWorldState implements MutableWorldState {
         final long nonce,
         final Wei balance,
         final Hash storageRoot,
-        final Hash codeHash) {
+        final Hash codeHash,
+        final Hash worldStateRoot) {
 
       this.address = address;
       this.addressHash = addressHash;
@@ -209,6 +302,22 @@ public class DefaultMutableWorldState implements MutableWorldState {
       this.balance = balance;
       this.storageRoot = storageRoot;
       this.codeHash = codeHash;
+      this.worldStateRoot = worldStateRoot;
+    }
+
+    private AccountState(final Address address, final CachedAccount cached) {
+      this(
+          address,
+          cached.getAddressHash(),
+          cached.getNonce(),
+          cached.getBalance(),
+          cached.getStorageRoot(),
+          cached.getCodeHash(),
+          persistedRootHash);
+    }
+
+    private CachedAccount toCachedAccount() {
+      return new CachedAccount(addressHash, nonce, balance, storageRoot, codeHash);
     }
 
     private MerklePatriciaTrie<Bytes32, BytesValue> storageTrie() {
@@ -267,11 +376,22 @@ public class DefaultMutableWorldState implements MutableWorldState {
 
     @Override
     public UInt256 getStorageValue(final UInt256 key) {
-      final Optional<BytesValue> val = storageTrie().get(Hash.hash(key.getBytes()));
-      if (!val.isPresent()) {
-        return UInt256.ZERO;
+      final Optional<FlatStateCache> flatStateCache = flatStateCacheFor(address);
+      if (flatStateCache.isPresent()) {
+        final Optional<UInt256> cached =
+            flatStateCache.get().getStorageValue(worldStateRoot, address, key);
+        if (cached.isPresent()) {
+          return cached.get();
+        }
       }
-      return convertToUInt256(val.get());
+
+      final UInt256 value =
+          storageTrie()
+              .get(Hash.hash(key.getBytes()))
+              .map(this::convertToUInt256)
+              .orElse(UInt256.ZERO);
+      flatStateCache.ifPresent(cache -> cache.putStorageValue(worldStateRoot, address, key, value));
+      return value;
     }
 
     @Override
@@ -318,13 +438,7 @@ public class DefaultMutableWorldState implements MutableWorldState {
 
     @Override
     protected AccountState getForMutation(final Address address) {
-      final DefaultMutableWorldState wrapped = wrappedWorldView();
-      final Hash addressHash = Hash.hash(address);
-      return wrapped
-          .accountStateTrie
-          .get(addressHash)
-          .map(bytes -> wrapped.deserializeAccount(address, addressHash, bytes))
-          .orElse(null);
+      return wrappedWorldView().loadAccount(address);
     }
 
     @Override
@@ -347,6 +461,7 @@ public class DefaultMutableWorldState implements MutableWorldState {
         wrapped.accountStateTrie.remove(addressHash);
         wrapped.updatedStorageTries.remove(address);
         wrapped.updatedAccountCode.remove(address);
+        wrapped.trackDeletedAccount(address);
       }
 
       for (final UpdateTrackingAccount<AccountState> updated : updatedAccounts()) {
@@ -389,6 +504,16 @@ public class DefaultMutableWorldState implements MutableWorldState {
             serializeAccount(updated.getNonce(), updated.getBalance(), codeHash, storageRoot);
 
         wrapped.accountStateTrie.put(updated.getAddressHash(), account);
+        wrapped.trackUpdatedAccount(
+            updated.getAddress(),
+            new CachedAccount(
+                updated.getAddressHash(),
+                updated.getNonce(),
+                updated.getBalance(),
+                storageRoot,
+                codeHash),
+            freshState,
+            updatedStorage);
       }
     }
   }
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A flat address to account and (address, slot) to value cache for the most recently persisted
+ * world state, allowing hot accounts and storage slots to be read without descending the tries.
+ *
+ * <p>Every entry belongs to the state root the cache currently reflects. Reads and writes made
+ * against any other state root are ignored. When a world state derived from the cached root is
+ * persisted, the cache is updated in place with the accounts and slots it modified and moves to
+ * the new root. Persisting any other world state discards the cached entries.
+ */
+public class FlatStateCache {
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Cache<Address, CachedAccount> accounts;
+  private final Cache<StorageSlotKey, UInt256> storage;
+  private Hash stateRoot;
+
+  public FlatStateCache(final long maximumAccounts, final long maximumStorageSlots) {
+    checkArgument(maximumAccounts > 0, "Account cache size must be positive");
+    checkArgument(maximumStorageSlots > 0, "Storage cache size must be positive");
+    this.accounts = CacheBuilder.newBuilder().maximumSize(maximumAccounts).build();
+    this.storage = CacheBuilder.newBuilder().maximumSize(maximumStorageSlots).build();
+  }
+
+  Optional<CachedAccount> getAccount(final Hash stateRoot, final Address address) {
+    lock.readLock().lock();
+    try {
+      if (!stateRoot.equals(this.stateRoot)) {
+        return Optional.empty();
+      }
+      return Optional.ofNullable(accounts.getIfPresent(address));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  void putAccount(final Hash stateRoot, final Address address, final CachedAccount account) {
+    lock.readLock().lock();
+    try {
+      if (stateRoot.equals(this.stateRoot)) {
+        accounts.put(address, account);
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  Optional<UInt256> getStorageValue(
+      final Hash stateRoot, final Address address, final UInt256 key) {
+    lock.readLock().lock();
+    try {
+      if (!stateRoot.equals(this.stateRoot)) {
+        return Optional.empty();
+      }
+      return Optional.ofNullable(storage.getIfPresent(new StorageSlotKey(address, key)));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  void putStorageValue(
+      final Hash stateRoot, final Address address, final UInt256 key, final UInt256 value) {
+    lock.readLock().lock();
+    try {
+      if (stateRoot.equals(this.stateRoot)) {
+        storage.put(new StorageSlotKey(address, key), value);
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Moves the cache to a newly persisted state root.
+   *
+   * @param parentStateRoot the state root the persisted changes were applied to
+   * @param newStateRoot the state root after the changes were applied
+   * @param updatedAccounts the accounts created, modified or deleted by the changes
+   * @param clearedStorage the accounts whose storage was cleared by the changes, before any of the
+   *     {@code updatedStorage} were applied
+   * @param updatedStorage the storage slots written by the changes, by account
+   */
+  void onPersist(
+      final Hash parentStateRoot,
+      final Hash newStateRoot,
+      final Map<Address, CachedAccount> updatedAccounts,
+      final Set<Address> clearedStorage,
+      final Map<Address, Map<UInt256, UInt256>> updatedStorage) {
+    lock.writeLock().lock();
+    try {
+      if (!parentStateRoot.equals(stateRoot)) {
+        accounts.invalidateAll();
+        storage.invalidateAll();
+      } else if (!clearedStorage.isEmpty()) {
+        storage.asMap().keySet().removeIf(slot -> clearedStorage.contains(slot.address));
+      }
+      accounts.putAll(updatedAccounts);
+      updatedStorage.forEach(
+          (address, slots) ->
+              slots.forEach((key, value) -> storage.put(new StorageSlotKey(address, key), value)));
+      stateRoot = newStateRoot;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** The decoded state of an account, or the fact that no account exists at an address. */
+  static class CachedAccount {
+    static final CachedAccount ABSENT = new CachedAccount(null, 0, null, null, null);
+
+    private final Hash addressHash;
+    private final long nonce;
+    private final Wei balance;
+    private final Hash storageRoot;
+    private final Hash codeHash;
+
+    CachedAccount(
+        final Hash addressHash,
+        final long nonce,
+        final Wei balance,
+        final Hash storageRoot,
+        final Hash codeHash) {
+      this.addressHash = addressHash;
+      this.nonce = nonce;
+      this.balance = balance;
+      this.storageRoot = storageRoot;
+      this.codeHash = codeHash;
+    }
+
+    boolean exists() {
+      return this != ABSENT;
+    }
+
+    Hash getAddressHash() {
+      return addressHash;
+    }
+
+    long getNonce() {
+      return nonce;
+    }
+
+    Wei getBalance() {
+      return balance;
+    }
+
+    Hash getStorageRoot() {
+      return storageRoot;
+    }
+
+    Hash getCodeHash() {
+      return codeHash;
+    }
+  }
+
+  private static class StorageSlotKey {
+    private final Address address;
+    private final UInt256 key;
+
+    private StorageSlotKey(final Address address, final UInt256 key) {
+      this.address = address;
+      this.key = key;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof StorageSlotKey)) {
+        return false;
+      }
+      final StorageSlotKey that = (StorageSlotKey) other;
+      return address.equals(that.address) && key.equals(that.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(address, key);
+    }
+  }
+}
@@ -13,18 +13,100 @@
 package tech.pegasys.pantheon.ethereum.worldstate;
 
 import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.trie.TrieNodeCache;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
 import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage.Entry;
+import tech.pegasys.pantheon.util.Subscribers;
 import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public class KeyValueStorageWorldStateStorage implements WorldStateStorage {
 
+  public static final long DEFAULT_TRIE_NODE_CACHE_SIZE_IN_BYTES = 64L * 1024 * 1024;
+  public static final long DEFAULT_FLAT_STATE_CACHE_ACCOUNTS = 100_000;
+  public static final long DEFAULT_FLAT_STATE_CACHE_STORAGE_SLOTS = 500_000;
+  private static final int PRUNE_BATCH_SIZE = 1000;
+
   private final KeyValueStorage keyValueStorage;
+  private final Optional<TrieNodeCache<BytesValue>> trieNodeCache;
+  private final Optional<FlatStateCache> flatStateCache;
+  private final Subscribers<NodesAddedListener> nodeAddedListeners = new Subscribers<>();
+  // Held for reading while an updater commits and notifies listeners, and for writing while pruned
+  // keys are checked and removed or a listener is added, so neither sees a partial commit.
+  private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
 
   public KeyValueStorageWorldStateStorage(final KeyValueStorage keyValueStorage) {
     this.keyValueStorage = keyValueStorage;
+    this.trieNodeCache = Optional.empty();
+    this.flatStateCache = Optional.empty();
+  }
+
+  /**
+   * Create a world state storage that keeps recently read trie nodes, and the accounts and storage
+   * slots of the most recently persisted world state, in memory.
+   *
+   * @param keyValueStorage the underlying storage
+   * @param metricsSystem the metrics system to report trie node cache statistics to
+   * @param trieNodeCacheSizeInBytes the maximum total encoded size of the cached trie nodes
+   * @param flatStateCacheAccounts the maximum number of cached accounts
+   * @param flatStateCacheStorageSlots the maximum number of cached storage slots
+   */
+  public KeyValueStorageWorldStateStorage(
+      final KeyValueStorage keyValueStorage,
+      final MetricsSystem metricsSystem,
+      final long trieNodeCacheSizeInBytes,
+      final long flatStateCacheAccounts,
+      final long flatStateCacheStorageSlots) {
+    this.keyValueStorage = keyValueStorage;
+    final TrieNodeCache<BytesValue> nodeCache = new TrieNodeCache<>(trieNodeCacheSizeInBytes);
+    this.trieNodeCache = Optional.of(nodeCache);
+    this.flatStateCache =
+        Optional.of(new FlatStateCache(flatStateCacheAccounts, flatStateCacheStorageSlots));
+
+    metricsSystem.createGauge(
+        MetricCategory.WORLD_STATE,
+        "trie_node_cache_hits",
+        "Number of trie node lookups answered from memory",
+        nodeCache::getHitCount);
+    metricsSystem.createGauge(
+        MetricCategory.WORLD_STATE,
+        "trie_node_cache_misses",
+        "Number of trie node lookups loaded from storage",
+        nodeCache::getMissCount);
+    metricsSystem.createGauge(
+        MetricCategory.WORLD_STATE,
+        "trie_node_cache_hit_ratio",
+        "Fraction of trie node lookups answered from memory",
+        nodeCache::getHitRate);
+  }
+
+  /**
+   * Create a world state storage with the default cache sizes.
+   *
+   * @param keyValueStorage the underlying storage
+   * @param metricsSystem the metrics system to report trie node cache statistics to
+   * @return a world state storage with trie node and flat state caches enabled
+   */
+  public static KeyValueStorageWorldStateStorage withDefaultCaches(
+      final KeyValueStorage keyValueStorage, final MetricsSystem metricsSystem) {
+    return new KeyValueStorageWorldStateStorage(
+        keyValueStorage,
+        metricsSystem,
+        DEFAULT_TRIE_NODE_CACHE_SIZE_IN_BYTES,
+        DEFAULT_FLAT_STATE_CACHE_ACCOUNTS,
+        DEFAULT_FLAT_STATE_CACHE_STORAGE_SLOTS);
   }
 
   @Override
@@ -42,37 +124,134 @@ public class KeyValueStorageWorldStateStorage implements WorldStateStorage {
     return keyValueStorage.get(nodeHash);
   }
 
+  @Override
+  public Optional<BytesValue> getNodeData(final Bytes32 hash) {
+    return keyValueStorage.get(hash);
+  }
+
+  @Override
+  public Optional<TrieNodeCache<BytesValue>> getTrieNodeCache() {
+    return trieNodeCache;
+  }
+
+  @Override
+  public Optional<FlatStateCache> getFlatStateCache() {
+    return flatStateCache;
+  }
+
   @Override
   public Updater updater() {
-    return new Updater(keyValueStorage.getStartTransaction());
+    return new Updater(
+        keyValueStorage.getStartTransaction(), nodeAddedListeners, commitLock.readLock());
+  }
+
+  @Override
+  public long prune(final Predicate<BytesValue> inUseCheck) {
+    long prunedCount = 0;
+    try (final Stream<Entry> entries = keyValueStorage.entries()) {
+      final List<BytesValue> batch = new ArrayList<>(PRUNE_BATCH_SIZE);
+      final Iterator<Entry> iterator = entries.iterator();
+      while (iterator.hasNext()) {
+        final BytesValue key = iterator.next().getKey();
+        if (!inUseCheck.test(key)) {
+          batch.add(key);
+          if (batch.size() == PRUNE_BATCH_SIZE) {
+            prunedCount += removeAll(batch, inUseCheck);
+          }
+        }
+      }
+      prunedCount += removeAll(batch, inUseCheck);
+    }
+    return prunedCount;
+  }
+
+  private int removeAll(final List<BytesValue> keys, final Predicate<BytesValue> inUseCheck) {
+    if (keys.isEmpty()) {
+      return 0;
+    }
+    int removedCount = 0;
+    final Lock lock = commitLock.writeLock();
+    lock.lock();
+    try {
+      // A key may have been written again since it was checked, so it is checked again while no
+      // updater can commit.
+      final KeyValueStorage.Transaction transaction = keyValueStorage.getStartTransaction();
+      for (final BytesValue key : keys) {
+        if (!inUseCheck.test(key)) {
+          transaction.remove(key);
+          removedCount++;
+        }
+      }
+      transaction.commit();
+    } finally {
+      lock.unlock();
+    }
+    keys.clear();
+    return removedCount;
+  }
+
+  @Override
+  public long addNodeAddedListener(final NodesAddedListener listener) {
+    final Lock lock = commitLock.writeLock();
+    lock.lock();
+    try {
+      return nodeAddedListeners.subscribe(listener);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void removeNodeAddedListener(final long listenerId) {
+    nodeAddedListeners.unsubscribe(listenerId);
   }
 
   public static class Updater implements WorldStateStorage.Updater {
 
     private final KeyValueStorage.Transaction transaction;
+    private final Subscribers<NodesAddedListener> nodeAddedListeners;
+    private final Lock commitLock;
+    private final List<Bytes32> addedNodes = new ArrayList<>();
 
-    public Updater(final KeyValueStorage.Transaction transaction) {
+    public Updater(
+        final KeyValueStorage.Transaction transaction,
+        final Subscribers<NodesAddedListener> nodeAddedListeners,
+        final Lock commitLock) {
       this.transaction = transaction;
+      this.nodeAddedListeners = nodeAddedListeners;
+      this.commitLock = commitLock;
     }
 
     @Override
     public void putCode(final BytesValue code) {
-      transaction.put(Hash.hash(code), code);
+      final Hash codeHash = Hash.hash(code);
+      addedNodes.add(codeHash);
+      transaction.put(codeHash, code);
     }
 
     @Override
     public void putAccountStateTrieNode(final Bytes32 nodeHash, final BytesValue node) {
+      addedNodes.add(nodeHash);
       transaction.put(nodeHash, node);
     }
 
     @Override
     public void putAccountStorageTrieNode(final Bytes32 nodeHash, final BytesValue node) {
+      addedNodes.add(nodeHash);
       transaction.put(nodeHash, node);
     }
 
     @Override
     public void commit() {
-      transaction.commit();
+      // Listeners are notified under the same lock as the commit, so a concurrent prune sees the
+      // new nodes before it can remove them again.
+      commitLock.lock();
+      try {
+        transaction.commit();
+        nodeAddedListeners.forEach(listener -> listener.onNodesAdded(addedNodes));
+      } finally {
+        commitLock.unlock();
+      }
     }
 
     @Override
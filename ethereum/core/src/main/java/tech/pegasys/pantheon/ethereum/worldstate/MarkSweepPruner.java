@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.ethereum.rlp.RLPInput;
+import tech.pegasys.pantheon.ethereum.trie.TrieNodeDecoder;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Removes world state data that is unreachable from a set of retained state roots.
+ *
+ * <p>A pruning cycle consists of a call to {@link #prepare()}, one call to {@link #mark(Hash)} per
+ * retained state root, a call to {@link #sweep()} and finally a call to {@link #cleanup()}. Nodes
+ * written to storage while a cycle is in progress are always retained, so blocks can continue to be
+ * imported concurrently.
+ *
+ * <p>The set of marked nodes is held in memory for the duration of a cycle, up to a configured
+ * maximum number of nodes. A cycle that would mark more nodes than that, or that finds a node
+ * missing from a retained state, must not be swept.
+ */
+public class MarkSweepPruner {
+  private static final Logger LOG = LogManager.getLogger();
+
+  // Roughly 2GB of hashes and set entries.
+  public static final long DEFAULT_MAXIMUM_MARKED_NODES = 20_000_000;
+
+  private final WorldStateStorage worldStateStorage;
+  private final long maximumMarkedNodes;
+  private final Set<Bytes32> markedNodes = new HashSet<>();
+  private final Set<Bytes32> addedNodes = ConcurrentHashMap.newKeySet();
+  private Optional<Long> nodeAddedListenerId = Optional.empty();
+
+  public MarkSweepPruner(final WorldStateStorage worldStateStorage) {
+    this(worldStateStorage, DEFAULT_MAXIMUM_MARKED_NODES);
+  }
+
+  public MarkSweepPruner(final WorldStateStorage worldStateStorage, final long maximumMarkedNodes) {
+    checkArgument(maximumMarkedNodes > 0, "Maximum marked nodes must be positive");
+    this.worldStateStorage = worldStateStorage;
+    this.maximumMarkedNodes = maximumMarkedNodes;
+  }
+
+  /** Starts a pruning cycle, tracking every node written to storage until {@link #cleanup()}. */
+  public void prepare() {
+    markedNodes.clear();
+    addedNodes.clear();
+    if (!nodeAddedListenerId.isPresent()) {
+      nodeAddedListenerId = Optional.of(worldStateStorage.addNodeAddedListener(addedNodes::addAll));
+    }
+  }
+
+  /**
+   * Marks every trie node and contract code reachable from the given state root as in use.
+   *
+   * @param stateRoot the root of a world state to retain
+   * @return false if the state is incomplete or too large to mark, in which case the cycle must not
+   *     be swept
+   */
+  public boolean mark(final Hash stateRoot) {
+    return markTrie(stateRoot, this::markAccount);
+  }
+
+  /**
+   * Removes every node and contract code that was not marked or written during this cycle.
+   *
+   * @return the number of entries removed
+   */
+  public long sweep() {
+    return worldStateStorage.prune(key -> markedNodes.contains(key) || addedNodes.contains(key));
+  }
+
+  /** Ends the current pruning cycle, whether or not it was swept. */
+  public void cleanup() {
+    nodeAddedListenerId.ifPresent(worldStateStorage::removeNodeAddedListener);
+    nodeAddedListenerId = Optional.empty();
+    markedNodes.clear();
+    addedNodes.clear();
+  }
+
+  private boolean markTrie(final Bytes32 rootHash, final Predicate<BytesValue> valueMarker) {
+    if (rootHash.equals(Hash.EMPTY_TRIE_HASH)) {
+      return true;
+    }
+    final Deque<Bytes32> pendingNodes = new ArrayDeque<>();
+    pendingNodes.push(rootHash);
+    while (!pendingNodes.isEmpty()) {
+      final Bytes32 nodeHash = pendingNodes.pop();
+      if (!markedNodes.add(nodeHash)) {
+        // Already visited, along with everything below it
+        continue;
+      }
+      if (markedNodes.size() > maximumMarkedNodes) {
+        LOG.warn("More than {} world state nodes are in use, unable to prune.", maximumMarkedNodes);
+        return false;
+      }
+      final Optional<BytesValue> node = worldStateStorage.getNodeData(nodeHash);
+      if (!node.isPresent()) {
+        LOG.debug("Trie node {} is missing from storage, unable to prune.", nodeHash);
+        return false;
+      }
+      final List<BytesValue> values = new ArrayList<>();
+      TrieNodeDecoder.decode(node.get(), pendingNodes::push, values::add);
+      for (final BytesValue value : values) {
+        if (!valueMarker.test(value)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private boolean markAccount(final BytesValue account) {
+    // Accounts are encoded as [nonce, balance, storageRoot, codeHash]
+    final RLPInput in = RLP.input(account);
+    in.enterList();
+    in.skipNext();
+    in.skipNext();
+    final Hash storageRoot = Hash.wrap(in.readBytes32());
+    final Hash codeHash = Hash.wrap(in.readBytes32());
+    in.leaveList();
+
+    if (!codeHash.equals(Hash.EMPTY)) {
+      markedNodes.add(codeHash);
+    }
+    return markTrie(storageRoot, value -> true);
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedEvent;
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Periodically removes world state that is no longer reachable from the most recent canonical
+ * blocks. A pruning cycle is started in the background each time the chain head has advanced by
+ * the configured number of retained blocks since the previous cycle, so storage holds at most
+ * twice that many blocks' worth of state.
+ *
+ * <p>States of blocks older than the retained window become unavailable, so reorganisations deeper
+ * than the window can no longer be imported.
+ *
+ * <p>The pruner must only be started once the world state of new blocks is stored as they are
+ * imported, i.e. after any fast sync has completed. A cycle is abandoned without removing anything
+ * if any retained state is not completely stored.
+ */
+public class Pruner {
+  private static final Logger LOG = LogManager.getLogger();
+
+  private final MarkSweepPruner pruningStrategy;
+  private final Blockchain blockchain;
+  private final ExecutorService executorService;
+  private final long blocksRetained;
+  private final AtomicBoolean pruningInProgress = new AtomicBoolean(false);
+  // Non-canonical blocks are retained too, so that a shallow reorganisation can still be imported.
+  private final Queue<BlockHeader> forkHeaders = new ConcurrentLinkedQueue<>();
+  private volatile long lastPrunedBlockNumber;
+  private Optional<Long> blockAddedObserverId = Optional.empty();
+
+  public Pruner(
+      final MarkSweepPruner pruningStrategy,
+      final Blockchain blockchain,
+      final ExecutorService executorService,
+      final PrunerConfiguration configuration) {
+    this.pruningStrategy = pruningStrategy;
+    this.blockchain = blockchain;
+    this.executorService = executorService;
+    this.blocksRetained = configuration.getBlocksRetained();
+  }
+
+  public void start() {
+    LOG.info("Pruning world state, retaining the last {} blocks.", blocksRetained);
+    lastPrunedBlockNumber = blockchain.getChainHeadBlockNumber();
+    blockAddedObserverId =
+        Optional.of(blockchain.observeBlockAdded((event, chain) -> handleNewBlock(event)));
+  }
+
+  public void stop() {
+    blockAddedObserverId.ifPresent(blockchain::removeObserver);
+    executorService.shutdownNow();
+    try {
+      executorService.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (final InterruptedException e) {
+      LOG.error("Interrupted while waiting for pruning to stop.");
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void handleNewBlock(final BlockAddedEvent event) {
+    if (!event.isNewCanonicalHead()) {
+      forkHeaders.add(event.getBlock().getHeader());
+      return;
+    }
+    final long chainHeadNumber = event.getBlock().getHeader().getNumber();
+    if (chainHeadNumber - lastPrunedBlockNumber < blocksRetained) {
+      return;
+    }
+    if (pruningInProgress.compareAndSet(false, true)) {
+      lastPrunedBlockNumber = chainHeadNumber;
+      // Nodes are tracked from before the next block is imported, as its state is only reachable
+      // from the chain once the block has been added.
+      pruningStrategy.prepare();
+      executorService.execute(
+          () -> {
+            try {
+              prune(chainHeadNumber);
+            } catch (final RuntimeException e) {
+              LOG.error("Failed to prune world state.", e);
+            } finally {
+              pruningInProgress.set(false);
+            }
+          });
+    }
+  }
+
+  private void prune(final long chainHeadNumber) {
+    final long oldestRetainedBlock = Math.max(0, chainHeadNumber - blocksRetained + 1);
+    LOG.debug(
+        "Pruning world state, retaining blocks {} to {}.", oldestRetainedBlock, chainHeadNumber);
+    try {
+      for (long blockNumber = oldestRetainedBlock; blockNumber <= chainHeadNumber; blockNumber++) {
+        if (Thread.currentThread().isInterrupted()) {
+          return;
+        }
+        final Optional<BlockHeader> header = blockchain.getBlockHeader(blockNumber);
+        if (!header.isPresent() || !pruningStrategy.mark(header.get().getStateRoot())) {
+          LOG.warn(
+              "World state of block {} is not completely stored, skipping pruning.", blockNumber);
+          return;
+        }
+      }
+      forkHeaders.removeIf(header -> header.getNumber() < oldestRetainedBlock);
+      for (final BlockHeader header : forkHeaders) {
+        if (!pruningStrategy.mark(header.getStateRoot())) {
+          LOG.warn(
+              "World state of fork block {} is not completely stored, skipping pruning.",
+              header.getHash());
+          return;
+        }
+      }
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+
+      final long prunedCount = pruningStrategy.sweep();
+      LOG.info(
+          "Pruned {} world state entries, retaining blocks {} to {}.",
+          prunedCount,
+          oldestRetainedBlock,
+          chainHeadNumber);
+    } finally {
+      pruningStrategy.cleanup();
+    }
+  }
+}
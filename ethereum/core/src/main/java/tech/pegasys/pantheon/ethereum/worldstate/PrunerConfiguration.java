@@ -0,0 +1,41 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+public class PrunerConfiguration {
+  public static final long DEFAULT_BLOCKS_RETAINED = 1024;
+
+  private final boolean enabled;
+  private final long blocksRetained;
+
+  public PrunerConfiguration(final boolean enabled, final long blocksRetained) {
+    checkArgument(blocksRetained > 0, "At least one block's state must be retained");
+    this.enabled = enabled;
+    this.blocksRetained = blocksRetained;
+  }
+
+  public static PrunerConfiguration disabled() {
+    return new PrunerConfiguration(false, DEFAULT_BLOCKS_RETAINED);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** @return The number of most recent canonical blocks whose world state is kept. */
+  public long getBlocksRetained() {
+    return blocksRetained;
+  }
+}
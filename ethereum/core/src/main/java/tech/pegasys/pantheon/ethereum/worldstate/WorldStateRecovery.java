@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.BlockBody;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
+import tech.pegasys.pantheon.ethereum.mainnet.BlockProcessor;
+import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Restores the world state of the chain head when it was not written to storage before the node
+ * stopped, as can happen when world state is written by {@link WriteBehindWorldStateStorage}.
+ * Because updates are written in order, the most recent ancestor whose state root is in storage
+ * has a complete world state, and the blocks after it are executed again on top of that state.
+ *
+ * <p>The node can't run without the world state of its chain head, so if it can't be restored an
+ * exception is thrown rather than starting with it missing.
+ */
+public final class WorldStateRecovery {
+  private static final Logger LOG = LogManager.getLogger();
+
+  private WorldStateRecovery() {}
+
+  /**
+   * Ensures the world state of the chain head is available.
+   *
+   * @param blockchain the local blockchain
+   * @param worldStateArchive the world state archive to restore missing state into
+   * @param protocolSchedule the protocol schedule used to execute the missing blocks
+   * @param <C> the consensus algorithm context
+   * @throws IllegalStateException if the world state can't be restored
+   */
+  public static <C> void recoverChainHeadWorldState(
+      final Blockchain blockchain,
+      final WorldStateArchive worldStateArchive,
+      final ProtocolSchedule<C> protocolSchedule) {
+    final Deque<BlockHeader> missingHeaders = new ArrayDeque<>();
+    BlockHeader header = blockchain.getChainHeadHeader();
+    while (!worldStateArchive.isWorldStateAvailable(header.getStateRoot())) {
+      if (header.getNumber() == BlockHeader.GENESIS_BLOCK_NUMBER) {
+        throw new IllegalStateException(
+            "World state for chain head "
+                + blockchain.getChainHeadBlockNumber()
+                + " is missing and no ancestor has it.");
+      }
+      missingHeaders.push(header);
+      final BlockHeader child = header;
+      header =
+          blockchain
+              .getBlockHeader(header.getParentHash())
+              .orElseThrow(
+                  () ->
+                      new IllegalStateException(
+                          "Unable to restore world state, parent of block "
+                              + child.getNumber()
+                              + " is missing."));
+    }
+    if (missingHeaders.isEmpty()) {
+      return;
+    }
+
+    LOG.info(
+        "Restoring world state of the last {} blocks, which was not written before shutdown.",
+        missingHeaders.size());
+    final MutableWorldState worldState = worldStateArchive.getMutable(header.getStateRoot());
+    for (final BlockHeader missingHeader : missingHeaders) {
+      final BlockBody body =
+          blockchain
+              .getBlockBody(missingHeader.getHash())
+              .orElseThrow(
+                  () ->
+                      new IllegalStateException(
+                          "Missing body for block " + missingHeader.getNumber()));
+      final BlockProcessor blockProcessor =
+          protocolSchedule.getByBlockNumber(missingHeader.getNumber()).getBlockProcessor();
+      final BlockProcessor.Result result =
+          blockProcessor.processBlock(
+              blockchain, worldState, missingHeader, body.getTransactions(), body.getOmmers());
+      if (!result.isSuccessful() || !worldState.rootHash().equals(missingHeader.getStateRoot())) {
+        throw new IllegalStateException(
+            "Failed to restore world state for block " + missingHeader.getNumber());
+      }
+    }
+  }
+}
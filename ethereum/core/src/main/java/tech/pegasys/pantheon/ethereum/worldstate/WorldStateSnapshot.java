@@ -0,0 +1,297 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import tech.pegasys.pantheon.ethereum.core.AbstractWorldUpdater;
+import tech.pegasys.pantheon.ethereum.core.Account;
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.core.WorldState;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.ethereum.rlp.RLPInput;
+import tech.pegasys.pantheon.ethereum.trie.MerklePatriciaTrie;
+import tech.pegasys.pantheon.ethereum.trie.NodeLoader;
+import tech.pegasys.pantheon.ethereum.trie.StoredMerklePatriciaTrie;
+import tech.pegasys.pantheon.ethereum.worldstate.FlatStateCache.CachedAccount;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * An immutable, thread-safe view of the world state at a given root.
+ *
+ * <p>A single snapshot can be read by many threads at once, all of them sharing the trie nodes it
+ * has loaded. Transactions can be executed against it through {@link #updater()}, which buffers
+ * changes in memory on top of the snapshot; those changes are never written to storage.
+ */
+public class WorldStateSnapshot implements WorldState {
+
+  private final Hash rootHash;
+  private final WorldStateStorage worldStateStorage;
+  private final MerklePatriciaTrie<Bytes32, BytesValue> accountStateTrie;
+
+  public WorldStateSnapshot(final Hash rootHash, final WorldStateStorage worldStateStorage) {
+    this.rootHash = rootHash;
+    this.worldStateStorage = worldStateStorage;
+    // The trie is only ever read, so its root never changes.
+    this.accountStateTrie = newTrie(worldStateStorage::getAccountStateTrieNode, rootHash);
+  }
+
+  private MerklePatriciaTrie<Bytes32, BytesValue> newTrie(
+      final NodeLoader nodeLoader, final Bytes32 rootHash) {
+    return worldStateStorage
+        .getTrieNodeCache()
+        .<MerklePatriciaTrie<Bytes32, BytesValue>>map(
+            cache -> new StoredMerklePatriciaTrie<>(nodeLoader, rootHash, b -> b, b -> b, cache))
+        .orElseGet(() -> new StoredMerklePatriciaTrie<>(nodeLoader, rootHash, b -> b, b -> b));
+  }
+
+  @Override
+  public Hash rootHash() {
+    return rootHash;
+  }
+
+  @Override
+  public Account get(final Address address) {
+    final Optional<FlatStateCache> flatStateCache = worldStateStorage.getFlatStateCache();
+    if (flatStateCache.isPresent()) {
+      final Optional<CachedAccount> cached = flatStateCache.get().getAccount(rootHash, address);
+      if (cached.isPresent()) {
+        return cached.get().exists() ? new SnapshotAccount(address, cached.get()) : null;
+      }
+    }
+
+    final Hash addressHash = Hash.hash(address);
+    final SnapshotAccount account =
+        accountStateTrie
+            .get(addressHash)
+            .map(bytes -> deserializeAccount(address, addressHash, bytes))
+            .orElse(null);
+    flatStateCache.ifPresent(
+        cache ->
+            cache.putAccount(
+                rootHash, address, account == null ? CachedAccount.ABSENT : account.cached));
+    return account;
+  }
+
+  private SnapshotAccount deserializeAccount(
+      final Address address, final Hash addressHash, final BytesValue encoded) {
+    final RLPInput in = RLP.input(encoded);
+    in.enterList();
+
+    final long nonce = in.readLongScalar();
+    final Wei balance = in.readUInt256Scalar(Wei::wrap);
+    final Hash storageRoot = Hash.wrap(in.readBytes32());
+    final Hash codeHash = Hash.wrap(in.readBytes32());
+
+    in.leaveList();
+
+    return new SnapshotAccount(
+        address, new CachedAccount(addressHash, nonce, balance, storageRoot, codeHash));
+  }
+
+  /**
+   * Creates an updater that buffers changes on top of this snapshot. Committing the updater has no
+   * effect on the snapshot, so the updater and its changes are discarded once execution is done.
+   *
+   * <p>Unlike the snapshot itself, the returned updater must only be used by a single thread.
+   *
+   * @return a new updater on top of this snapshot.
+   */
+  public WorldUpdater updater() {
+    return new OverlayUpdater(this);
+  }
+
+  /**
+   * Not supported. The account trie can be walked with {@code entriesFrom}, but it is keyed by the
+   * hash of each address and the addresses themselves are not stored, so the accounts can't be
+   * recreated from it.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public Stream<Account> accounts() {
+    throw new UnsupportedOperationException(
+        "Accounts can't be listed because account addresses are not stored, only their hashes.");
+  }
+
+  @Override
+  public int hashCode() {
+    return rootHash.hashCode();
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (!(other instanceof WorldStateSnapshot)) {
+      return false;
+    }
+    return rootHash.equals(((WorldStateSnapshot) other).rootHash);
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "[" + rootHash + "]";
+  }
+
+  private class SnapshotAccount implements Account {
+
+    private final Address address;
+    private final CachedAccount cached;
+
+    // Lazily initialized since we don't always access storage.
+    private volatile MerklePatriciaTrie<Bytes32, BytesValue> storageTrie;
+
+    private SnapshotAccount(final Address address, final CachedAccount cached) {
+      this.address = address;
+      this.cached = cached;
+    }
+
+    private MerklePatriciaTrie<Bytes32, BytesValue> storageTrie() {
+      MerklePatriciaTrie<Bytes32, BytesValue> trie = storageTrie;
+      if (trie == null) {
+        trie = newTrie(worldStateStorage::getAccountStorageTrieNode, cached.getStorageRoot());
+        storageTrie = trie;
+      }
+      return trie;
+    }
+
+    @Override
+    public Address getAddress() {
+      return address;
+    }
+
+    @Override
+    public Hash getAddressHash() {
+      return cached.getAddressHash();
+    }
+
+    @Override
+    public long getNonce() {
+      return cached.getNonce();
+    }
+
+    @Override
+    public Wei getBalance() {
+      return cached.getBalance();
+    }
+
+    @Override
+    public BytesValue getCode() {
+      // No code is common, save the KV-store lookup.
+      if (cached.getCodeHash().equals(Hash.EMPTY)) {
+        return BytesValue.EMPTY;
+      }
+      return worldStateStorage.getCode(cached.getCodeHash()).orElse(BytesValue.EMPTY);
+    }
+
+    @Override
+    public boolean hasCode() {
+      return !getCode().isEmpty();
+    }
+
+    @Override
+    public Hash getCodeHash() {
+      return cached.getCodeHash();
+    }
+
+    @Override
+    public UInt256 getStorageValue(final UInt256 key) {
+      final Optional<FlatStateCache> flatStateCache = worldStateStorage.getFlatStateCache();
+      if (flatStateCache.isPresent()) {
+        final Optional<UInt256> cachedValue =
+            flatStateCache.get().getStorageValue(rootHash, address, key);
+        if (cachedValue.isPresent()) {
+          return cachedValue.get();
+        }
+      }
+
+      final UInt256 value =
+          storageTrie()
+              .get(Hash.hash(key.getBytes()))
+              .map(WorldStateSnapshot::convertToUInt256)
+              .orElse(UInt256.ZERO);
+      flatStateCache.ifPresent(cache -> cache.putStorageValue(rootHash, address, key, value));
+      return value;
+    }
+
+    @Override
+    public UInt256 getOriginalStorageValue(final UInt256 key) {
+      return getStorageValue(key);
+    }
+
+    @Override
+    public NavigableMap<Bytes32, UInt256> storageEntriesFrom(
+        final Bytes32 startKeyHash, final int limit) {
+      final NavigableMap<Bytes32, UInt256> storageEntries = new TreeMap<>();
+      storageTrie()
+          .entriesFrom(startKeyHash, limit)
+          .forEach((key, value) -> storageEntries.put(key, convertToUInt256(value)));
+      return storageEntries;
+    }
+
+    @Override
+    public String toString() {
+      final StringBuilder builder = new StringBuilder();
+      builder.append("SnapshotAccount").append("{");
+      builder.append("address=").append(getAddress()).append(", ");
+      builder.append("nonce=").append(getNonce()).append(", ");
+      builder.append("balance=").append(getBalance()).append(", ");
+      builder.append("storageRoot=").append(cached.getStorageRoot()).append(", ");
+      builder.append("codeHash=").append(getCodeHash());
+      return builder.append("}").toString();
+    }
+  }
+
+  private static UInt256 convertToUInt256(final BytesValue value) {
+    final RLPInput in = RLP.input(value);
+    return in.readUInt256Scalar();
+  }
+
+  private static class OverlayUpdater extends AbstractWorldUpdater<WorldStateSnapshot, Account> {
+
+    private OverlayUpdater(final WorldStateSnapshot world) {
+      super(world);
+    }
+
+    @Override
+    protected Account getForMutation(final Address address) {
+      return wrappedWorldView().get(address);
+    }
+
+    @Override
+    public Collection<Account> getTouchedAccounts() {
+      return new ArrayList<>(updatedAccounts());
+    }
+
+    @Override
+    public void revert() {
+      deletedAccounts().clear();
+      updatedAccounts().clear();
+    }
+
+    @Override
+    public void commit() {
+      // The snapshot is immutable: committed changes stay buffered in this updater, where they
+      // remain visible until it is discarded.
+    }
+  }
+}
@@ -13,10 +13,13 @@
 package tech.pegasys.pantheon.ethereum.worldstate;
 
 import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.trie.TrieNodeCache;
 import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 public interface WorldStateStorage {
 
@@ -26,8 +29,60 @@ public interface WorldStateStorage {
 
   Optional<BytesValue> getAccountStorageTrieNode(Bytes32 nodeHash);
 
+  /**
+   * Retrieves the raw value stored under the given hash, which may be either a trie node or a
+   * contract's code. This is the lookup used to answer {@code GetNodeData} requests.
+   *
+   * @param hash the hash of the requested node or code
+   * @return the stored value, if present
+   */
+  Optional<BytesValue> getNodeData(Bytes32 hash);
+
+  /**
+   * Returns the cache of decoded trie nodes shared by every world state reading from this storage.
+   * Both the account trie and the account storage tries store raw bytes, so a single cache serves
+   * both.
+   *
+   * @return the shared trie node cache, if this storage has one
+   */
+  default Optional<TrieNodeCache<BytesValue>> getTrieNodeCache() {
+    return Optional.empty();
+  }
+
+  /**
+   * Returns the flat account and storage cache for the most recently persisted world state.
+   *
+   * @return the flat state cache, if this storage has one
+   */
+  default Optional<FlatStateCache> getFlatStateCache() {
+    return Optional.empty();
+  }
+
   Updater updater();
 
+  /**
+   * Removes every stored trie node and contract code that is no longer in use.
+   *
+   * @param inUseCheck returns true for the keys that must be retained
+   * @return the number of entries removed
+   */
+  long prune(Predicate<BytesValue> inUseCheck);
+
+  /**
+   * Adds a listener that is notified of the hashes of the nodes and code written by each {@link
+   * Updater}, once they are committed.
+   *
+   * @param listener the listener to notify
+   * @return the listener ID that can be used to remove it later
+   */
+  long addNodeAddedListener(NodesAddedListener listener);
+
+  void removeNodeAddedListener(long listenerId);
+
+  interface NodesAddedListener {
+    void onNodesAdded(Collection<Bytes32> nodeHashes);
+  }
+
   interface Updater {
 
     void putCode(BytesValue code);
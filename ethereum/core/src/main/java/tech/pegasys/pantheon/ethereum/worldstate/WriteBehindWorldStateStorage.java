@@ -0,0 +1,282 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.trie.TrieNodeCache;
+import tech.pegasys.pantheon.util.Subscribers;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A world state storage that writes committed updates to the underlying storage on a background
+ * thread. Once a world state has been persisted its nodes are immediately readable from memory, so
+ * the next block can be executed against it while the previous block's nodes are still being
+ * written.
+ *
+ * <p>Updates are written in the order they were committed, so if an update has reached the
+ * underlying storage every earlier update has too. At most the configured number of updates are
+ * held in memory; committing beyond that blocks until the writer catches up. Updates that were
+ * still pending when the process stopped are lost, which leaves the chain head ahead of the
+ * persisted world state. {@link WorldStateRecovery} restores that state on startup.
+ */
+public class WriteBehindWorldStateStorage implements WorldStateStorage {
+  private static final Logger LOG = LogManager.getLogger();
+
+  private final WorldStateStorage storage;
+  private final ExecutorService writerExecutor;
+  private final Semaphore pendingUpdatePermits;
+  private final Map<Bytes32, BytesValue> pendingValues = new ConcurrentHashMap<>();
+  private final Subscribers<NodesAddedListener> nodeAddedListeners = new Subscribers<>();
+  // Held for reading while an update is committed and for writing while a listener is added, so a
+  // new listener is never added part way through notifying the others of a commit.
+  private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+  private final AtomicReference<RuntimeException> writeFailure = new AtomicReference<>();
+
+  /**
+   * Create a write-behind storage with its own writer thread.
+   *
+   * @param storage the storage that updates are eventually written to
+   * @param maxPendingUpdates the maximum number of committed updates not yet written to storage
+   */
+  public WriteBehindWorldStateStorage(
+      final WorldStateStorage storage, final int maxPendingUpdates) {
+    this(
+        storage,
+        maxPendingUpdates,
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat(WriteBehindWorldStateStorage.class.getSimpleName() + "-Writer")
+                .build()));
+  }
+
+  /**
+   * Create a write-behind storage.
+   *
+   * @param storage the storage that updates are eventually written to
+   * @param maxPendingUpdates the maximum number of committed updates not yet written to storage
+   * @param writerExecutor a single threaded executor used to write updates in commit order
+   */
+  public WriteBehindWorldStateStorage(
+      final WorldStateStorage storage,
+      final int maxPendingUpdates,
+      final ExecutorService writerExecutor) {
+    checkArgument(maxPendingUpdates > 0, "At least one pending update must be allowed");
+    this.storage = storage;
+    this.writerExecutor = writerExecutor;
+    this.pendingUpdatePermits = new Semaphore(maxPendingUpdates);
+  }
+
+  @Override
+  public Optional<BytesValue> getCode(final Hash codeHash) {
+    final BytesValue pendingValue = pendingValues.get(codeHash);
+    return pendingValue != null ? Optional.of(pendingValue) : storage.getCode(codeHash);
+  }
+
+  @Override
+  public Optional<BytesValue> getAccountStateTrieNode(final Bytes32 nodeHash) {
+    final BytesValue pendingValue = pendingValues.get(nodeHash);
+    return pendingValue != null
+        ? Optional.of(pendingValue)
+        : storage.getAccountStateTrieNode(nodeHash);
+  }
+
+  @Override
+  public Optional<BytesValue> getAccountStorageTrieNode(final Bytes32 nodeHash) {
+    final BytesValue pendingValue = pendingValues.get(nodeHash);
+    return pendingValue != null
+        ? Optional.of(pendingValue)
+        : storage.getAccountStorageTrieNode(nodeHash);
+  }
+
+  @Override
+  public Optional<BytesValue> getNodeData(final Bytes32 hash) {
+    final BytesValue pendingValue = pendingValues.get(hash);
+    return pendingValue != null ? Optional.of(pendingValue) : storage.getNodeData(hash);
+  }
+
+  @Override
+  public Optional<TrieNodeCache<BytesValue>> getTrieNodeCache() {
+    return storage.getTrieNodeCache();
+  }
+
+  @Override
+  public Optional<FlatStateCache> getFlatStateCache() {
+    return storage.getFlatStateCache();
+  }
+
+  @Override
+  public Updater updater() {
+    return new Updater();
+  }
+
+  @Override
+  public long prune(final Predicate<BytesValue> inUseCheck) {
+    // Pending nodes are reported to listeners when they are committed here, so a concurrent
+    // pruning cycle has already marked them by the time they reach the underlying storage.
+    return storage.prune(inUseCheck);
+  }
+
+  @Override
+  public long addNodeAddedListener(final NodesAddedListener listener) {
+    final Lock lock = commitLock.writeLock();
+    lock.lock();
+    try {
+      return nodeAddedListeners.subscribe(listener);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void removeNodeAddedListener(final long listenerId) {
+    nodeAddedListeners.unsubscribe(listenerId);
+  }
+
+  /** Blocks until every update committed so far has been written to the underlying storage. */
+  public void flush() {
+    try {
+      writerExecutor.submit(() -> {}).get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while flushing world state", e);
+    } catch (final ExecutionException e) {
+      throw new IllegalStateException("Failed to flush world state", e.getCause());
+    }
+    checkWriteFailure();
+  }
+
+  /** Writes every pending update to the underlying storage and stops the writer thread. */
+  public void close() {
+    try {
+      flush();
+    } finally {
+      writerExecutor.shutdown();
+      try {
+        writerExecutor.awaitTermination(10, TimeUnit.SECONDS);
+      } catch (final InterruptedException e) {
+        LOG.error("Interrupted while waiting for world state writer to stop.");
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void checkWriteFailure() {
+    final RuntimeException failure = writeFailure.get();
+    if (failure != null) {
+      throw new IllegalStateException("Failed to write world state to storage", failure);
+    }
+  }
+
+  private void write(
+      final List<Consumer<WorldStateStorage.Updater>> operations,
+      final Map<Bytes32, BytesValue> values) {
+    try {
+      // Once a write has failed later updates are dropped, so storage never holds a state whose
+      // parent nodes are missing.
+      if (writeFailure.get() != null) {
+        return;
+      }
+      final WorldStateStorage.Updater updater = storage.updater();
+      operations.forEach(operation -> operation.accept(updater));
+      updater.commit();
+      values.keySet().forEach(pendingValues::remove);
+    } catch (final RuntimeException e) {
+      LOG.error("Failed to write world state to storage.", e);
+      writeFailure.compareAndSet(null, e);
+    } finally {
+      pendingUpdatePermits.release();
+    }
+  }
+
+  private class Updater implements WorldStateStorage.Updater {
+
+    private final List<Consumer<WorldStateStorage.Updater>> operations = new ArrayList<>();
+    private final Map<Bytes32, BytesValue> values = new HashMap<>();
+
+    @Override
+    public void putCode(final BytesValue code) {
+      operations.add(updater -> updater.putCode(code));
+      values.put(Hash.hash(code), code);
+    }
+
+    @Override
+    public void putAccountStateTrieNode(final Bytes32 nodeHash, final BytesValue node) {
+      operations.add(updater -> updater.putAccountStateTrieNode(nodeHash, node));
+      values.put(nodeHash, node);
+    }
+
+    @Override
+    public void putAccountStorageTrieNode(final Bytes32 nodeHash, final BytesValue node) {
+      operations.add(updater -> updater.putAccountStorageTrieNode(nodeHash, node));
+      values.put(nodeHash, node);
+    }
+
+    @Override
+    public void commit() {
+      checkWriteFailure();
+      try {
+        pendingUpdatePermits.acquire();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting to write world state", e);
+      }
+      final Lock lock = commitLock.readLock();
+      lock.lock();
+      try {
+        pendingValues.putAll(values);
+        // Listeners are notified before the update is handed to the writer, so a concurrent prune
+        // of the underlying storage sees the new nodes before they can reach it.
+        final List<Bytes32> addedNodes = new ArrayList<>(values.keySet());
+        nodeAddedListeners.forEach(listener -> listener.onNodesAdded(addedNodes));
+        writerExecutor.execute(() -> write(operations, values));
+      } catch (final RuntimeException e) {
+        pendingUpdatePermits.release();
+        throw e;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public void rollback() {
+      operations.clear();
+      values.clear();
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.pegasys.pantheon.ethereum.core.InMemoryWorldState.createInMemoryWorldStateArchive;
+
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class JournaledWorldUpdaterTest {
+
+  private static final Address ADDRESS1 =
+      Address.fromHexString("0xa94f5374fce5edbc8e2a8697c15331677e6ebf0b");
+  private static final Address ADDRESS2 =
+      Address.fromHexString("0x095e7baea6a6c7c4c2dfeb977efac326af552d87");
+
+  private MutableWorldState worldState;
+  private WorldUpdater transactionUpdater;
+  private JournaledWorldUpdater updater;
+
+  @Before
+  public void setUp() {
+    worldState = createInMemoryWorldStateArchive().getMutable();
+    final WorldUpdater genesis = worldState.updater();
+    final MutableAccount account = genesis.createAccount(ADDRESS1, 1, Wei.of(100));
+    account.setStorageValue(UInt256.of(1), UInt256.of(10));
+    genesis.commit();
+    worldState.persist();
+
+    transactionUpdater = worldState.updater();
+    updater = new JournaledWorldUpdater(transactionUpdater);
+  }
+
+  @Test
+  public void nestedChangesAreVisibleImmediately() {
+    final WorldUpdater child = updater.updater();
+    child.getMutable(ADDRESS1).setBalance(Wei.of(50));
+    child.createAccount(ADDRESS2).setStorageValue(UInt256.of(2), UInt256.of(20));
+
+    assertThat(updater.get(ADDRESS1).getBalance()).isEqualTo(Wei.of(50));
+    assertThat(updater.get(ADDRESS2).getStorageValue(UInt256.of(2))).isEqualTo(UInt256.of(20));
+    assertThat(transactionUpdater.get(ADDRESS2)).isNull();
+  }
+
+  @Test
+  public void revertUndoesOnlyChangesMadeSinceCheckpoint() {
+    final WorldUpdater child = updater.updater();
+    child.getMutable(ADDRESS1).setNonce(2);
+
+    final WorldUpdater grandChild = child.updater();
+    final MutableAccount account = grandChild.getMutable(ADDRESS1);
+    account.setNonce(3);
+    account.setBalance(Wei.of(1));
+    account.setStorageValue(UInt256.of(1), UInt256.of(11));
+    account.setCode(BytesValue.of(1, 2, 3));
+    grandChild.createAccount(ADDRESS2);
+    grandChild.revert();
+
+    final Account reverted = child.get(ADDRESS1);
+    assertThat(reverted.getNonce()).isEqualTo(2);
+    assertThat(reverted.getBalance()).isEqualTo(Wei.of(100));
+    assertThat(reverted.getStorageValue(UInt256.of(1))).isEqualTo(UInt256.of(10));
+    assertThat(reverted.getCode()).isEqualTo(BytesValue.EMPTY);
+    assertThat(child.get(ADDRESS2)).isNull();
+  }
+
+  @Test
+  public void revertOfParentUndoesCommittedChild() {
+    final WorldUpdater child = updater.updater();
+    final WorldUpdater grandChild = child.updater();
+    grandChild.getMutable(ADDRESS1).clearStorage();
+    grandChild.deleteAccount(ADDRESS1);
+    grandChild.commit();
+    assertThat(child.get(ADDRESS1)).isNull();
+
+    child.revert();
+    assertThat(updater.get(ADDRESS1).getStorageValue(UInt256.of(1))).isEqualTo(UInt256.of(10));
+  }
+
+  @Test
+  public void touchedAccountsAreScopedToCheckpoint() {
+    updater.getMutable(ADDRESS1);
+    final WorldUpdater child = updater.updater();
+    assertThat(child.getTouchedAccounts()).isEmpty();
+
+    child.createAccount(ADDRESS2);
+    assertThat(child.getTouchedAccounts()).extracting(Account::getAddress).containsOnly(ADDRESS2);
+
+    child.getMutable(ADDRESS1);
+    assertThat(child.getTouchedAccounts())
+        .extracting(Account::getAddress)
+        .containsOnly(ADDRESS1, ADDRESS2);
+
+    child.deleteAccount(ADDRESS2);
+    assertThat(child.getTouchedAccounts()).extracting(Account::getAddress).containsOnly(ADDRESS1);
+  }
+
+  @Test
+  public void revertedReadsAreNotTouched() {
+    final WorldUpdater child = updater.updater();
+    child.getMutable(ADDRESS1);
+    child.revert();
+
+    assertThat(updater.getTouchedAccounts()).isEmpty();
+    updater.commit();
+    assertThat(transactionUpdater.getTouchedAccounts()).isEmpty();
+  }
+
+  @Test
+  public void commitPushesChangesToWrappedUpdater() {
+    final WorldUpdater child = updater.updater();
+    final MutableAccount account = child.getMutable(ADDRESS1);
+    account.incrementNonce();
+    account.setStorageValue(UInt256.of(2), UInt256.of(20));
+    child.createAccount(ADDRESS2, 0, Wei.of(5)).setCode(BytesValue.of(7));
+    child.commit();
+    updater.commit();
+    transactionUpdater.commit();
+    worldState.persist();
+
+    final Account updated = worldState.get(ADDRESS1);
+    assertThat(updated.getNonce()).isEqualTo(2);
+    assertThat(updated.getStorageValue(UInt256.of(1))).isEqualTo(UInt256.of(10));
+    assertThat(updated.getStorageValue(UInt256.of(2))).isEqualTo(UInt256.of(20));
+    final Account created = worldState.get(ADDRESS2);
+    assertThat(created.getBalance()).isEqualTo(Wei.of(5));
+    assertThat(created.getCode()).isEqualTo(BytesValue.of(7));
+  }
+
+  @Test
+  public void commitPushesDeletionsToWrappedUpdater() {
+    updater.deleteAccount(ADDRESS1);
+    updater.commit();
+    transactionUpdater.commit();
+    worldState.persist();
+
+    assertThat(worldState.get(ADDRESS1)).isNull();
+  }
+}
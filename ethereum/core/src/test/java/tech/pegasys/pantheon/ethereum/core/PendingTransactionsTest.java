@@ -316,6 +316,71 @@ public class PendingTransactionsTest {
         .containsExactly(transaction4, transaction1, transaction2, transaction3);
   }
 
+  @Test
+  public void shouldPrioritizeTransactionsWithHigherGasPrice() {
+    final Transaction cheapTransaction = transactionWithNonceSenderAndGasPrice(0, KEYS1, 1);
+    final Transaction expensiveTransaction = transactionWithNonceSenderAndGasPrice(0, KEYS2, 10);
+
+    transactions.addRemoteTransaction(expensiveTransaction);
+    transactions.addRemoteTransaction(cheapTransaction);
+
+    final List<Transaction> iterationOrder = new ArrayList<>();
+    transactions.selectTransactions(
+        transaction -> {
+          iterationOrder.add(transaction);
+          return TransactionSelectionResult.CONTINUE;
+        });
+
+    assertThat(iterationOrder).containsExactly(expensiveTransaction, cheapTransaction);
+  }
+
+  @Test
+  public void shouldDropTransactionWithLowestGasPriceWhenLimitExceeded() {
+    final Transaction cheapestTransaction = transactionWithNonceSenderAndGasPrice(0, KEYS2, 1);
+    transactions.addRemoteTransaction(cheapestTransaction);
+    for (int i = 1; i <= MAX_TRANSACTIONS; i++) {
+      transactions.addRemoteTransaction(transactionWithNonceSenderAndGasPrice(i, KEYS1, 10));
+    }
+
+    assertThat(transactions.size()).isEqualTo(MAX_TRANSACTIONS);
+    assertTransactionNotPending(cheapestTransaction);
+  }
+
+  @Test
+  public void shouldNotSelectTransactionsAfterANonceGap() {
+    final Transaction transaction1 = transactionWithNonceAndSender(0, KEYS1);
+    final Transaction transaction2 = transactionWithNonceAndSender(2, KEYS1);
+    transactions.addRemoteTransaction(transaction1);
+    transactions.addRemoteTransaction(transaction2);
+
+    final List<Transaction> iterationOrder = new ArrayList<>();
+    transactions.selectTransactions(
+        transaction -> {
+          iterationOrder.add(transaction);
+          return TransactionSelectionResult.CONTINUE;
+        });
+
+    assertThat(iterationOrder).containsExactly(transaction1);
+    assertTransactionPending(transaction2);
+  }
+
+  @Test
+  public void shouldAllowTransactionsToBeAddedDuringSelection() {
+    final Transaction transaction1 = transactionWithNonceAndSender(0, KEYS1);
+    final Transaction transaction2 = transactionWithNonceAndSender(1, KEYS1);
+    transactions.addRemoteTransaction(transaction1);
+
+    final List<Transaction> iterationOrder = new ArrayList<>();
+    transactions.selectTransactions(
+        transaction -> {
+          iterationOrder.add(transaction);
+          transactions.addRemoteTransaction(transaction2);
+          return TransactionSelectionResult.CONTINUE;
+        });
+
+    assertThat(iterationOrder).containsExactly(transaction1, transaction2);
+  }
+
   private void assertMaximumNonceForSender(final Address sender1, final int i) {
     assertThat(transactions.getNextNonceForSender(sender1)).isEqualTo(OptionalLong.of(i));
   }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.testutil.BlockDataGenerator;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingBlockchainStorageTest {
+
+  private final BlockDataGenerator generator = new BlockDataGenerator();
+  private final Block block = generator.block();
+  private final Hash blockHash = block.getHash();
+
+  private final BlockchainStorage storage = mock(BlockchainStorage.class);
+  private final BlockchainStorage.Updater storageUpdater = mock(BlockchainStorage.Updater.class);
+  private final CachingBlockchainStorage cachingStorage =
+      new CachingBlockchainStorage(storage, new NoOpMetricsSystem());
+
+  @Before
+  public void setUp() {
+    when(storage.updater()).thenReturn(storageUpdater);
+  }
+
+  @Test
+  public void shouldReadHeaderFromStorageOnce() {
+    when(storage.getBlockHeader(blockHash)).thenReturn(Optional.of(block.getHeader()));
+
+    assertThat(cachingStorage.getBlockHeader(blockHash)).contains(block.getHeader());
+    assertThat(cachingStorage.getBlockHeader(blockHash)).contains(block.getHeader());
+
+    verify(storage, times(1)).getBlockHeader(blockHash);
+  }
+
+  @Test
+  public void shouldNotCacheMissingHeader() {
+    when(storage.getBlockHeader(blockHash)).thenReturn(Optional.empty());
+
+    assertThat(cachingStorage.getBlockHeader(blockHash)).isEmpty();
+    assertThat(cachingStorage.getBlockHeader(blockHash)).isEmpty();
+
+    verify(storage, times(2)).getBlockHeader(blockHash);
+  }
+
+  @Test
+  public void shouldCacheBlockDataWhenCommitted() {
+    final BlockchainStorage.Updater updater = cachingStorage.updater();
+    updater.putBlockHeader(blockHash, block.getHeader());
+    updater.putBlockBody(blockHash, block.getBody());
+    updater.putBlockHash(block.getHeader().getNumber(), blockHash);
+    updater.commit();
+
+    assertThat(cachingStorage.getBlockHeader(blockHash)).contains(block.getHeader());
+    assertThat(cachingStorage.getBlockBody(blockHash)).contains(block.getBody());
+    assertThat(cachingStorage.getBlockHash(block.getHeader().getNumber())).contains(blockHash);
+
+    verify(storageUpdater).commit();
+    verify(storage, never()).getBlockHeader(blockHash);
+    verify(storage, never()).getBlockBody(blockHash);
+    verify(storage, never()).getBlockHash(block.getHeader().getNumber());
+  }
+
+  @Test
+  public void shouldNotCacheBlockDataWhenRolledBack() {
+    when(storage.getBlockHeader(blockHash)).thenReturn(Optional.empty());
+
+    final BlockchainStorage.Updater updater = cachingStorage.updater();
+    updater.putBlockHeader(blockHash, block.getHeader());
+    updater.rollback();
+
+    assertThat(cachingStorage.getBlockHeader(blockHash)).isEmpty();
+    verify(storageUpdater).rollback();
+  }
+
+  @Test
+  public void shouldUpdateCanonicalBlockHashesOnReorg() {
+    final long blockNumber = block.getHeader().getNumber();
+    final Hash forkHash = generator.block().getHash();
+    when(storage.getBlockHash(blockNumber)).thenReturn(Optional.of(blockHash));
+    when(storage.getBlockHash(blockNumber + 1)).thenReturn(Optional.of(blockHash));
+    assertThat(cachingStorage.getBlockHash(blockNumber)).contains(blockHash);
+    assertThat(cachingStorage.getBlockHash(blockNumber + 1)).contains(blockHash);
+
+    final BlockchainStorage.Updater updater = cachingStorage.updater();
+    updater.putBlockHash(blockNumber, forkHash);
+    updater.removeBlockHash(blockNumber + 1);
+    updater.commit();
+    when(storage.getBlockHash(blockNumber + 1)).thenReturn(Optional.empty());
+
+    assertThat(cachingStorage.getBlockHash(blockNumber)).contains(forkHash);
+    assertThat(cachingStorage.getBlockHash(blockNumber + 1)).isEmpty();
+  }
+}
@@ -319,6 +319,33 @@ public class DefaultMutableBlockchainTest {
     for (int i = commonAncestor + 1; i < originalChainLength; i++) {
       assertThat(blockchain.blockIsOnCanonicalChain(chain.get(i).getHash())).isFalse();
     }
+    // Recent block hashes should follow the new chain.
+    final Hash newHeadHash = forkBlocks.get(1).getHash();
+    assertThat(blockchain.getRecentAncestorHash(forkStart + 1, newHeadHash, forkStart))
+        .contains(forkBlocks.get(0).getHash());
+    assertThat(blockchain.getRecentAncestorHash(forkStart + 1, newHeadHash, 0))
+        .contains(chain.get(0).getHash());
+    assertThat(blockchain.getRecentAncestorHash(originalChainLength - 1, originalHead.getHash(), 0))
+        .isEmpty();
+  }
+
+  @Test
+  public void recentAncestorHashesAreLoadedForExistingChain() {
+    final BlockDataGenerator gen = new BlockDataGenerator();
+    final List<Block> chain = gen.blockSequence(4);
+    final KeyValueStorage kvStore = new InMemoryKeyValueStorage();
+    final DefaultMutableBlockchain blockchain =
+        new DefaultMutableBlockchain(chain.get(0), kvStore, MainnetBlockHashFunction::createHash);
+    for (int i = 1; i < chain.size(); i++) {
+      blockchain.appendBlock(chain.get(i), gen.receipts(chain.get(i)));
+    }
+
+    final DefaultMutableBlockchain reloaded =
+        new DefaultMutableBlockchain(chain.get(0), kvStore, MainnetBlockHashFunction::createHash);
+    final Hash headHash = chain.get(3).getHash();
+    for (int i = 0; i < chain.size(); i++) {
+      assertThat(reloaded.getRecentAncestorHash(3, headHash, i)).contains(chain.get(i).getHash());
+    }
   }
 
   @Test
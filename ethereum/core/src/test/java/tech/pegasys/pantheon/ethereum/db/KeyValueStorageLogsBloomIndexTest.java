@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.chain.BlockAddedEvent;
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.LogsBloomFilter;
+import tech.pegasys.pantheon.ethereum.mainnet.MainnetBlockHashFunction;
+import tech.pegasys.pantheon.ethereum.testutil.BlockDataGenerator;
+import tech.pegasys.pantheon.ethereum.testutil.BlockDataGenerator.BlockOptions;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class KeyValueStorageLogsBloomIndexTest {
+
+  private static final int SECTION_SIZE = 8;
+  private static final int CONFIRMATIONS = 2;
+
+  private final BlockDataGenerator gen = new BlockDataGenerator(1);
+  private List<Block> chain;
+  private DefaultMutableBlockchain blockchain;
+  private KeyValueStorageLogsBloomIndex index;
+  private final List<Runnable> tasks = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    chain = gen.blockSequence(20);
+    blockchain =
+        new DefaultMutableBlockchain(
+            chain.get(0), new InMemoryKeyValueStorage(), MainnetBlockHashFunction::createHash);
+    for (int i = 1; i < chain.size(); i++) {
+      blockchain.appendBlock(chain.get(i), gen.receipts(chain.get(i)));
+    }
+    index =
+        new KeyValueStorageLogsBloomIndex(
+            new InMemoryKeyValueStorage(), blockchain, SECTION_SIZE, CONFIRMATIONS, tasks::add);
+  }
+
+  @Test
+  public void indexesAllConfirmedSectionsInBackgroundWhenChainHeadIsAdded() {
+    final BlockAddedEvent event =
+        BlockAddedEvent.createForHeadAdvancement(chain.get(chain.size() - 1));
+    index.onBlockAdded(event, blockchain);
+    index.onBlockAdded(event, blockchain);
+    assertThat(tasks).hasSize(1);
+    assertThat(index.isSectionIndexed(0)).isFalse();
+
+    tasks.remove(0).run();
+    assertThat(index.isSectionIndexed(0)).isTrue();
+    assertThat(index.isSectionIndexed(1)).isTrue();
+    assertThat(index.isSectionIndexed(2)).isFalse();
+
+    index.onBlockAdded(event, blockchain);
+    assertThat(tasks).hasSize(1);
+  }
+
+  @Test
+  public void doesNotScheduleIndexingBeforeFirstSectionIsConfirmed() {
+    index.onBlockAdded(
+        BlockAddedEvent.createForHeadAdvancement(chain.get(SECTION_SIZE + CONFIRMATIONS - 2)),
+        blockchain);
+
+    assertThat(tasks).isEmpty();
+  }
+
+  @Test
+  public void indexesOneConfirmedSectionPerCall() {
+    assertThat(index.isSectionIndexed(0)).isFalse();
+
+    index.indexCompletedSections();
+    assertThat(index.isSectionIndexed(0)).isTrue();
+    assertThat(index.isSectionIndexed(1)).isFalse();
+
+    index.indexCompletedSections();
+    index.indexCompletedSections();
+    assertThat(index.isSectionIndexed(1)).isTrue();
+    // Blocks 16 to 23 are incomplete and not yet confirmed
+    assertThat(index.isSectionIndexed(2)).isFalse();
+  }
+
+  @Test
+  public void indexedBitsMatchHeaderBlooms() {
+    index.indexCompletedSections();
+    index.indexCompletedSections();
+
+    for (long section = 0; section < 2; section++) {
+      for (int bit = 0; bit < LogsBloomFilter.BIT_SIZE; bit++) {
+        final BitSet blocks = index.getBlocksWithBloomBit(section, bit);
+        for (int offset = 0; offset < SECTION_SIZE; offset++) {
+          final BlockHeader header =
+              blockchain.getBlockHeader(section * SECTION_SIZE + offset).get();
+          assertThat(blocks.get(offset)).isEqualTo(header.getLogsBloom().isBitSet(bit));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void sectionIsReindexedAfterReorg() {
+    index.indexCompletedSections();
+    index.indexCompletedSections();
+    assertThat(index.isSectionIndexed(1)).isTrue();
+
+    // Replace blocks 11 onwards with a heavier fork
+    Block parent = chain.get(10);
+    for (int i = 11; i < chain.size(); i++) {
+      final BlockOptions options =
+          new BlockOptions()
+              .setParentHash(parent.getHash())
+              .setBlockNumber(i)
+              .setDifficulty(chain.get(i).getHeader().getDifficulty().plus(10L));
+      final Block forkBlock = gen.block(options);
+      blockchain.appendBlock(forkBlock, gen.receipts(forkBlock));
+      parent = forkBlock;
+    }
+    assertThat(blockchain.getChainHeadHash()).isEqualTo(parent.getHash());
+
+    assertThat(index.isSectionIndexed(0)).isTrue();
+    assertThat(index.isSectionIndexed(1)).isFalse();
+
+    index.indexCompletedSections();
+    assertThat(index.isSectionIndexed(1)).isTrue();
+    final BlockHeader forkHeader = blockchain.getBlockHeader(12).get();
+    for (int bit = 0; bit < LogsBloomFilter.BIT_SIZE; bit++) {
+      assertThat(index.getBlocksWithBloomBit(1, bit).get(4))
+          .isEqualTo(forkHeader.getLogsBloom().isBitSet(bit));
+    }
+  }
+}
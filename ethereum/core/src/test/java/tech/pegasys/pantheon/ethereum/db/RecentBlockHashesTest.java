@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.db;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import org.junit.Test;
+
+public class RecentBlockHashesTest {
+
+  private final RecentBlockHashes recentBlockHashes = new RecentBlockHashes(4);
+
+  @Test
+  public void emptyBufferKnowsNoBlocks() {
+    assertThat(recentBlockHashes.contains(0, hash(0))).isFalse();
+    assertThat(recentBlockHashes.getAncestorHash(0, hash(0), 0)).isEmpty();
+  }
+
+  @Test
+  public void resolvesAncestorsOfTrackedBlocks() {
+    appendRange(0, 3);
+
+    assertThat(recentBlockHashes.getAncestorHash(3, hash(3), 0)).contains(hash(0));
+    assertThat(recentBlockHashes.getAncestorHash(2, hash(2), 1)).contains(hash(1));
+    assertThat(recentBlockHashes.getAncestorHash(2, hash(2), 3)).isEmpty();
+    assertThat(recentBlockHashes.getAncestorHash(3, hash(42), 0)).isEmpty();
+  }
+
+  @Test
+  public void oldestHashesAreEvictedOnceFull() {
+    appendRange(0, 5);
+
+    assertThat(recentBlockHashes.contains(1, hash(1))).isFalse();
+    assertThat(recentBlockHashes.getAncestorHash(5, hash(5), 1)).isEmpty();
+    assertThat(recentBlockHashes.getAncestorHash(5, hash(5), 2)).contains(hash(2));
+  }
+
+  @Test
+  public void rewindDropsLaterBlocks() {
+    appendRange(0, 3);
+    recentBlockHashes.rewind(1);
+    recentBlockHashes.append(2, hash(20));
+
+    assertThat(recentBlockHashes.contains(3, hash(3))).isFalse();
+    assertThat(recentBlockHashes.contains(2, hash(2))).isFalse();
+    assertThat(recentBlockHashes.getAncestorHash(2, hash(20), 0)).contains(hash(0));
+  }
+
+  @Test
+  public void rewindPastOldestBlockEmptiesBuffer() {
+    appendRange(0, 9);
+    recentBlockHashes.rewind(3);
+    recentBlockHashes.append(4, hash(40));
+
+    assertThat(recentBlockHashes.contains(3, hash(3))).isFalse();
+    assertThat(recentBlockHashes.getAncestorHash(4, hash(40), 4)).contains(hash(40));
+  }
+
+  @Test
+  public void nonContiguousAppendRestartsBuffer() {
+    appendRange(0, 3);
+    recentBlockHashes.append(10, hash(10));
+
+    assertThat(recentBlockHashes.contains(3, hash(3))).isFalse();
+    assertThat(recentBlockHashes.contains(10, hash(10))).isTrue();
+  }
+
+  private void appendRange(final int from, final int to) {
+    for (int i = from; i <= to; i++) {
+      recentBlockHashes.append(i, hash(i));
+    }
+  }
+
+  private static Hash hash(final int value) {
+    return Hash.hash(BytesValue.of(value));
+  }
+}
@@ -13,6 +13,7 @@
 package tech.pegasys.pantheon.ethereum.vm;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -103,9 +104,26 @@ public class BlockHashLookupTest {
     verify(blockchain).getBlockHeader(headers[CURRENT_BLOCK_NUMBER - 1].getHash());
     verify(blockchain).getBlockHeader(headers[CURRENT_BLOCK_NUMBER - 2].getHash());
     verify(blockchain).getBlockHeader(headers[CURRENT_BLOCK_NUMBER - 3].getHash());
+    verify(blockchain)
+        .getRecentAncestorHash(
+            CURRENT_BLOCK_NUMBER - 1,
+            headers[CURRENT_BLOCK_NUMBER - 1].getHash(),
+            CURRENT_BLOCK_NUMBER - 4);
     verifyNoMoreInteractions(blockchain);
   }
 
+  @Test
+  public void shouldUseRecentAncestorHashesFromBlockchain() {
+    final Hash parentHash = headers[CURRENT_BLOCK_NUMBER - 1].getHash();
+    when(blockchain.getRecentAncestorHash(CURRENT_BLOCK_NUMBER - 1, parentHash, 10))
+        .thenReturn(Optional.of(headers[10].getHash()));
+
+    assertHashForBlockNumber(10);
+    assertHashForBlockNumber(10);
+    verify(blockchain).getRecentAncestorHash(CURRENT_BLOCK_NUMBER - 1, parentHash, 10);
+    verify(blockchain, never()).getBlockHeader(any(Hash.class));
+  }
+
   private void assertHashForBlockNumber(final int blockNumber) {
     assertThat(lookup.getBlockHash(blockNumber)).isEqualTo(headers[blockNumber].getHash());
   }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.vm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class CodeCacheTest {
+
+  // PUSH1 0x5b, JUMPDEST, PUSH2 with only one of its two immediate bytes present.
+  private static final BytesValue CODE = BytesValue.fromHexString("0x605b5b6102");
+
+  private final CodeCache cache = new CodeCache(1024);
+
+  @Test
+  public void shouldReuseAnalysedCodeForTheSameHash() {
+    final AtomicInteger loads = new AtomicInteger();
+    final Code first =
+        cache.getCode(
+            Hash.hash(CODE),
+            () -> {
+              loads.incrementAndGet();
+              return CODE;
+            });
+    final Code second =
+        cache.getCode(
+            Hash.hash(CODE),
+            () -> {
+              loads.incrementAndGet();
+              return CODE;
+            });
+
+    assertThat(second).isSameAs(first);
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+    assertThat(cache.getHitRate()).isEqualTo(0.5);
+  }
+
+  @Test
+  public void shouldNotTreatPushDataAsJumpDestination() {
+    final Code code = cache.getCode(Hash.hash(CODE), () -> CODE);
+
+    assertThat(code.isValidJumpDestination(UInt256.of(1))).isFalse();
+    assertThat(code.isValidJumpDestination(UInt256.of(2))).isTrue();
+  }
+
+  @Test
+  public void shouldDecodePushImmediates() {
+    final Code code = cache.getCode(Hash.hash(CODE), () -> CODE);
+
+    assertThat(code.getPushValue(0)).isEqualTo(Bytes32.fromHexString("0x5b"));
+    assertThat(code.getPushValue(2)).isNull();
+    assertThat(code.getPushValue(3)).isEqualTo(Bytes32.fromHexString("0x0200"));
+  }
+
+  @Test
+  public void shouldWeighDecodedPushValues() {
+    // 100 PUSH1 operations: the bytecode alone fits in the cache but its analysis does not.
+    final StringBuilder hex = new StringBuilder("0x");
+    for (int i = 0; i < 100; i++) {
+      hex.append("6000");
+    }
+    final BytesValue pushes = BytesValue.fromHexString(hex.toString());
+
+    cache.getCode(Hash.hash(pushes), () -> pushes);
+    cache.getCode(Hash.hash(pushes), () -> pushes);
+
+    assertThat(cache.getMissCount()).isEqualTo(2);
+  }
+}
@@ -123,6 +123,59 @@ public class MemoryTest {
     assertThat(memory.getWord(UInt256.of(64))).isEqualTo(WORD3);
   }
 
+  @Test
+  public void shouldSetAndGetWordsSpanningWordBoundaries() {
+    memory.setWord(UInt256.of(17), WORD1);
+    memory.setWord(UInt256.of(49), WORD2);
+    assertThat(memory.getWord(UInt256.of(17))).isEqualTo(WORD1);
+    assertThat(memory.getWord(UInt256.of(49))).isEqualTo(WORD2);
+    assertThat(memory.getBytes(UInt256.of(17), UInt256.of(64)))
+        .isEqualTo(BytesValues.concatenate(WORD1, WORD2));
+    assertThat(memory.getActiveWords()).isEqualTo(UInt256.of(3));
+  }
+
+  @Test
+  public void shouldExpandActiveWordsToCoverAccessedBytes() {
+    assertThat(memory.getBytes(UInt256.of(100), UInt256.of(1))).isEqualTo(BytesValue.of(0));
+    assertThat(memory.getActiveWords()).isEqualTo(UInt256.of(4));
+    assertThat(memory.getActiveBytes()).isEqualTo(128);
+
+    memory.setByte(UInt256.of(4095), (byte) 7);
+    assertThat(memory.getActiveWords()).isEqualTo(UInt256.of(128));
+    assertThat(memory.getBytes(UInt256.of(4094), UInt256.of(2))).isEqualTo(BytesValue.of(0, 7));
+  }
+
+  @Test
+  public void shouldNotExpandMemoryForZeroLengthAccess() {
+    assertThat(memory.getBytes(UInt256.of(1000), UInt256.ZERO)).isEqualTo(BytesValue.EMPTY);
+    memory.clearBytes(UInt256.of(1000), UInt256.ZERO);
+    assertThat(memory.getActiveWords()).isEqualTo(UInt256.ZERO);
+  }
+
+  @Test
+  public void shouldReturnCopiesOfMemory() {
+    memory.setWord(UInt256.ZERO, WORD1);
+    final BytesValue bytes = memory.getBytes(UInt256.ZERO, UInt256.of(32));
+    final Bytes32 word = memory.getWord(UInt256.ZERO);
+
+    memory.setWord(UInt256.ZERO, WORD2);
+
+    assertThat(bytes).isEqualTo(WORD1);
+    assertThat(word).isEqualTo(WORD1);
+  }
+
+  @Test
+  public void shouldBeEqualToMemoryWithSameContents() {
+    final Memory other = new Memory();
+    memory.setWord(UInt256.of(5), WORD1);
+    other.setBytes(UInt256.of(5), UInt256.of(32), WORD1);
+    assertThat(memory).isEqualTo(other);
+    assertThat(memory.hashCode()).isEqualTo(other.hashCode());
+
+    other.setByte(UInt256.ZERO, (byte) 1);
+    assertThat(memory).isNotEqualTo(other);
+  }
+
   private static Bytes32 fillBytes32(final long value) {
     return Bytes32.fromHexString(Strings.repeat(Long.toString(value), 64));
   }
@@ -26,6 +26,8 @@ import tech.pegasys.pantheon.ethereum.core.Wei;
 import tech.pegasys.pantheon.ethereum.core.WorldState;
 import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
 import tech.pegasys.pantheon.ethereum.trie.MerklePatriciaTrie;
+import tech.pegasys.pantheon.ethereum.trie.TrieNodeCache;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
 import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
 import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
 import tech.pegasys.pantheon.util.bytes.Bytes32;
@@ -555,4 +557,73 @@ public class DefaultMutableWorldStateTest {
   private Hash hash(final UInt256 key) {
     return Hash.hash(key.getBytes());
   }
+
+  @Test
+  public void flatStateCache_servesPersistedStateWithoutTrieLookups() {
+    final WorldStateStorage storage =
+        KeyValueStorageWorldStateStorage.withDefaultCaches(
+            new InMemoryKeyValueStorage(), new NoOpMetricsSystem());
+    final MutableWorldState worldState = new DefaultMutableWorldState(storage);
+    final WorldUpdater updater = worldState.updater();
+    final MutableAccount account = updater.createAccount(ADDRESS);
+    account.setBalance(Wei.of(100000));
+    account.setStorageValue(UInt256.ONE, UInt256.of(2));
+    updater.commit();
+    worldState.persist();
+
+    final TrieNodeCache<BytesValue> trieNodeCache = storage.getTrieNodeCache().get();
+    final long trieLookups = trieNodeCache.getHitCount() + trieNodeCache.getMissCount();
+
+    final MutableWorldState headState =
+        new DefaultMutableWorldState(worldState.rootHash(), storage);
+    assertEquals(Wei.of(100000), headState.get(ADDRESS).getBalance());
+    assertEquals(UInt256.of(2), headState.get(ADDRESS).getStorageValue(UInt256.ONE));
+    assertEquals(trieLookups, trieNodeCache.getHitCount() + trieNodeCache.getMissCount());
+  }
+
+  @Test
+  public void flatStateCache_tracksPersistedChanges() {
+    final WorldStateStorage storage =
+        KeyValueStorageWorldStateStorage.withDefaultCaches(
+            new InMemoryKeyValueStorage(), new NoOpMetricsSystem());
+    final MutableWorldState worldState = new DefaultMutableWorldState(storage);
+    WorldUpdater updater = worldState.updater();
+    MutableAccount account = updater.createAccount(ADDRESS);
+    account.setBalance(Wei.of(100000));
+    account.setStorageValue(UInt256.ONE, UInt256.of(2));
+    updater.commit();
+    worldState.persist();
+    final Hash firstRoot = worldState.rootHash();
+
+    // Read through the cache, then modify and persist a child state
+    final MutableWorldState child = new DefaultMutableWorldState(firstRoot, storage);
+    assertEquals(UInt256.of(2), child.get(ADDRESS).getStorageValue(UInt256.ONE));
+    updater = child.updater();
+    account = updater.getMutable(ADDRESS);
+    account.setBalance(Wei.of(200000));
+    account.setStorageValue(UInt256.ONE, UInt256.ZERO);
+    updater.commit();
+    assertEquals(Wei.of(200000), child.get(ADDRESS).getBalance());
+    assertEquals(UInt256.ZERO, child.get(ADDRESS).getStorageValue(UInt256.ONE));
+    child.persist();
+    final Hash secondRoot = child.rootHash();
+
+    final MutableWorldState head = new DefaultMutableWorldState(secondRoot, storage);
+    assertEquals(Wei.of(200000), head.get(ADDRESS).getBalance());
+    assertEquals(UInt256.ZERO, head.get(ADDRESS).getStorageValue(UInt256.ONE));
+
+    // Older states are still read from the tries
+    final MutableWorldState parent = new DefaultMutableWorldState(firstRoot, storage);
+    assertEquals(Wei.of(100000), parent.get(ADDRESS).getBalance());
+    assertEquals(UInt256.of(2), parent.get(ADDRESS).getStorageValue(UInt256.ONE));
+
+    // Persisting a sibling state must not leave stale values behind
+    updater = parent.updater();
+    updater.deleteAccount(ADDRESS);
+    updater.commit();
+    parent.persist();
+    assertNull(new DefaultMutableWorldState(parent.rootHash(), storage).get(ADDRESS));
+    final MutableWorldState secondHead = new DefaultMutableWorldState(secondRoot, storage);
+    assertEquals(Wei.of(200000), secondHead.get(ADDRESS).getBalance());
+  }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Test;
+
+public class KeyValueStorageWorldStateStorageTest {
+
+  private final WorldStateStorage storage =
+      new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage());
+
+  @Test
+  public void listenersAreNotifiedOnceNodesAreCommitted() {
+    final BytesValue node = BytesValue.of(1, 2, 3);
+    final Bytes32 nodeHash = Hash.hash(node);
+    final List<Optional<BytesValue>> storedWhenNotified = new ArrayList<>();
+    storage.addNodeAddedListener(
+        nodeHashes ->
+            nodeHashes.forEach(hash -> storedWhenNotified.add(storage.getNodeData(hash))));
+
+    final WorldStateStorage.Updater updater = storage.updater();
+    updater.putAccountStateTrieNode(nodeHash, node);
+    assertThat(storedWhenNotified).isEmpty();
+    updater.commit();
+
+    assertThat(storedWhenNotified).containsExactly(Optional.of(node));
+  }
+
+  @Test
+  public void keysInUseAgainWhenRemovedAreRetained() {
+    final BytesValue node = BytesValue.of(1, 2, 3);
+    final Bytes32 nodeHash = Hash.hash(node);
+    final WorldStateStorage.Updater updater = storage.updater();
+    updater.putAccountStateTrieNode(nodeHash, node);
+    updater.commit();
+
+    // The first check finds the key unused, but it is in use again by the time it is removed.
+    final int[] checks = {0};
+    final long prunedCount = storage.prune(key -> checks[0]++ > 0);
+
+    assertThat(prunedCount).isEqualTo(0);
+    assertThat(storage.getNodeData(nodeHash)).contains(node);
+  }
+
+  @Test
+  public void unusedKeysAreRemoved() {
+    final BytesValue retainedNode = BytesValue.of(1, 2, 3);
+    final BytesValue unusedNode = BytesValue.of(4, 5, 6);
+    final WorldStateStorage.Updater updater = storage.updater();
+    updater.putAccountStateTrieNode(Hash.hash(retainedNode), retainedNode);
+    updater.putAccountStateTrieNode(Hash.hash(unusedNode), unusedNode);
+    updater.commit();
+
+    final long prunedCount = storage.prune(key -> key.equals(Hash.hash(retainedNode)));
+
+    assertThat(prunedCount).isEqualTo(1);
+    assertThat(storage.getNodeData(Hash.hash(retainedNode))).contains(retainedNode);
+    assertThat(storage.getNodeData(Hash.hash(unusedNode))).isEmpty();
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.MutableAccount;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import org.junit.Test;
+
+public class MarkSweepPrunerTest {
+
+  private final KeyValueStorage keyValueStorage = new InMemoryKeyValueStorage();
+  private final WorldStateStorage worldStateStorage =
+      new KeyValueStorageWorldStateStorage(keyValueStorage);
+  private final MarkSweepPruner pruner = new MarkSweepPruner(worldStateStorage);
+
+  @Test
+  public void removesStateThatIsOnlyReachableFromUnretainedRoots() {
+    final Hash firstRoot = persistState(Hash.EMPTY_TRIE_HASH, 0, 10);
+    final Hash secondRoot = persistState(firstRoot, 5, 10);
+    final long entriesBeforePruning = keyValueStorage.entries().count();
+
+    pruner.prepare();
+    pruner.mark(secondRoot);
+    final long prunedCount = pruner.sweep();
+    pruner.cleanup();
+
+    assertThat(prunedCount).isGreaterThan(0);
+    assertThat(keyValueStorage.entries().count()).isEqualTo(entriesBeforePruning - prunedCount);
+    assertThat(worldStateStorage.getNodeData(firstRoot)).isEmpty();
+    assertStateIsComplete(secondRoot, 5, 10);
+  }
+
+  @Test
+  public void retainsEverythingReachableFromRetainedRoots() {
+    final Hash firstRoot = persistState(Hash.EMPTY_TRIE_HASH, 0, 10);
+    final Hash secondRoot = persistState(firstRoot, 5, 10);
+
+    pruner.prepare();
+    pruner.mark(firstRoot);
+    pruner.mark(secondRoot);
+    assertThat(pruner.sweep()).isEqualTo(0);
+    pruner.cleanup();
+
+    assertStateIsComplete(firstRoot, 0, 10);
+    assertStateIsComplete(secondRoot, 5, 10);
+  }
+
+  @Test
+  public void markFailsWhenStateIsIncomplete() {
+    final Hash firstRoot = persistState(Hash.EMPTY_TRIE_HASH, 0, 10);
+    final Hash secondRoot = persistState(firstRoot, 5, 10);
+
+    pruner.prepare();
+    pruner.mark(secondRoot);
+    pruner.sweep();
+    pruner.cleanup();
+
+    pruner.prepare();
+    assertThat(pruner.mark(firstRoot)).isFalse();
+    pruner.cleanup();
+  }
+
+  @Test
+  public void markFailsWhenMoreNodesThanMaximumAreInUse() {
+    final Hash stateRoot = persistState(Hash.EMPTY_TRIE_HASH, 0, 10);
+    final MarkSweepPruner boundedPruner = new MarkSweepPruner(worldStateStorage, 5);
+
+    boundedPruner.prepare();
+    assertThat(boundedPruner.mark(stateRoot)).isFalse();
+    boundedPruner.cleanup();
+
+    pruner.prepare();
+    assertThat(pruner.mark(stateRoot)).isTrue();
+    pruner.cleanup();
+  }
+
+  @Test
+  public void retainsNodesWrittenDuringPruning() {
+    final Hash firstRoot = persistState(Hash.EMPTY_TRIE_HASH, 0, 10);
+
+    pruner.prepare();
+    final Hash secondRoot = persistState(firstRoot, 5, 10);
+    pruner.mark(firstRoot);
+    pruner.sweep();
+    pruner.cleanup();
+
+    assertStateIsComplete(secondRoot, 5, 10);
+  }
+
+  private Hash persistState(final Hash parentRoot, final int firstUpdated, final int count) {
+    final MutableWorldState worldState =
+        new DefaultMutableWorldState(parentRoot, worldStateStorage);
+    final WorldUpdater updater = worldState.updater();
+    for (int i = firstUpdated; i < firstUpdated + count; i++) {
+      final MutableAccount account = updater.getOrCreate(address(i));
+      account.setBalance(Wei.of(i + firstUpdated));
+      account.setStorageValue(UInt256.of(i), UInt256.of(firstUpdated + 1));
+      account.setCode(BytesValue.of(i, firstUpdated));
+    }
+    updater.commit();
+    worldState.persist();
+    return worldState.rootHash();
+  }
+
+  private void assertStateIsComplete(
+      final Hash stateRoot, final int firstUpdated, final int count) {
+    final MutableWorldState worldState = new DefaultMutableWorldState(stateRoot, worldStateStorage);
+    for (int i = firstUpdated; i < firstUpdated + count; i++) {
+      assertThat(worldState.get(address(i)).getBalance()).isEqualTo(Wei.of(i + firstUpdated));
+      assertThat(worldState.get(address(i)).getStorageValue(UInt256.of(i)))
+          .isEqualTo(UInt256.of(firstUpdated + 1));
+      assertThat(worldState.get(address(i)).getCode()).isEqualTo(BytesValue.of(i, firstUpdated));
+    }
+  }
+
+  private static Address address(final int i) {
+    return Address.fromHexString(String.format("%040x", i + 1));
+  }
+}
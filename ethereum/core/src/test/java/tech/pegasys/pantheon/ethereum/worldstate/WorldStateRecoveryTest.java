@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.BlockBody;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.BlockHeaderTestFixture;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
+import tech.pegasys.pantheon.ethereum.mainnet.BlockProcessor;
+import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
+import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSpec;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class WorldStateRecoveryTest {
+
+  private static final Address ADDRESS = Address.fromHexString(String.format("%040x", 1));
+
+  private final WorldStateArchive worldStateArchive =
+      new WorldStateArchive(new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage()));
+  private final Blockchain blockchain = mock(Blockchain.class);
+  private final BlockProcessor blockProcessor = mock(BlockProcessor.class);
+  private final List<BlockHeader> headers = new ArrayList<>();
+
+  @SuppressWarnings("unchecked")
+  private final ProtocolSchedule<Void> protocolSchedule = mock(ProtocolSchedule.class);
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    final ProtocolSpec<Void> protocolSpec = mock(ProtocolSpec.class);
+    when(protocolSchedule.getByBlockNumber(anyLong())).thenReturn(protocolSpec);
+    when(protocolSpec.getBlockProcessor()).thenReturn(blockProcessor);
+    // Each block sets the balance of a single account to the block number.
+    when(blockProcessor.processBlock(any(), any(), any(), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              final MutableWorldState worldState = invocation.getArgument(1);
+              final BlockHeader header = invocation.getArgument(2);
+              setBalance(worldState, header.getNumber());
+              worldState.persist();
+              return successfulResult();
+            });
+  }
+
+  @Test
+  public void doesNothingWhenChainHeadStateIsAvailable() {
+    createChain(3, 3);
+
+    WorldStateRecovery.recoverChainHeadWorldState(blockchain, worldStateArchive, protocolSchedule);
+
+    verify(blockProcessor, never()).processBlock(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  public void executesBlocksAfterLatestAvailableState() {
+    createChain(5, 2);
+
+    WorldStateRecovery.recoverChainHeadWorldState(blockchain, worldStateArchive, protocolSchedule);
+
+    final Hash chainHeadStateRoot = headers.get(5).getStateRoot();
+    assertThat(worldStateArchive.getNodeData(chainHeadStateRoot)).isPresent();
+    assertThat(worldStateArchive.getMutable(chainHeadStateRoot).get(ADDRESS).getBalance())
+        .isEqualTo(Wei.of(5));
+  }
+
+  @Test
+  public void failsWhenParentIsMissing() {
+    createChain(5, 2);
+    when(blockchain.getBlockHeader(headers.get(3).getHash())).thenReturn(Optional.empty());
+
+    assertThatThrownBy(
+            () ->
+                WorldStateRecovery.recoverChainHeadWorldState(
+                    blockchain, worldStateArchive, protocolSchedule))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("parent of block 4 is missing");
+  }
+
+  @Test
+  public void failsWhenNoAncestorHasState() {
+    createChain(5, -1);
+
+    assertThatThrownBy(
+            () ->
+                WorldStateRecovery.recoverChainHeadWorldState(
+                    blockchain, worldStateArchive, protocolSchedule))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("no ancestor has it");
+  }
+
+  @Test
+  public void failsWhenExecutedStateDoesNotMatch() {
+    createChain(5, 2);
+    when(blockProcessor.processBlock(any(), any(), any(), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              setBalance(invocation.getArgument(1), 100);
+              return successfulResult();
+            });
+
+    assertThatThrownBy(
+            () ->
+                WorldStateRecovery.recoverChainHeadWorldState(
+                    blockchain, worldStateArchive, protocolSchedule))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("block 3");
+  }
+
+  /**
+   * Creates a chain whose blocks up to and including {@code lastStoredBlock} have their world state
+   * in the archive.
+   */
+  private void createChain(final int chainHeadNumber, final int lastStoredBlock) {
+    // State roots are computed in separate storage, so only the stored states are in the archive.
+    final WorldStateArchive scratchArchive =
+        new WorldStateArchive(new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage()));
+    final BlockHeaderTestFixture headerFixture = new BlockHeaderTestFixture();
+    Hash parentHash = Hash.EMPTY;
+    for (int number = 0; number <= chainHeadNumber; number++) {
+      final MutableWorldState worldState =
+          (number <= lastStoredBlock ? worldStateArchive : scratchArchive).getMutable();
+      setBalance(worldState, number);
+      worldState.persist();
+      final BlockHeader header =
+          headerFixture
+              .number(number)
+              .parentHash(parentHash)
+              .stateRoot(worldState.rootHash())
+              .buildHeader();
+      headers.add(header);
+      when(blockchain.getBlockHeader(header.getHash())).thenReturn(Optional.of(header));
+      when(blockchain.getBlockBody(header.getHash()))
+          .thenReturn(Optional.of(new BlockBody(emptyList(), emptyList())));
+      parentHash = header.getHash();
+    }
+    when(blockchain.getChainHeadHeader()).thenReturn(headers.get(chainHeadNumber));
+    when(blockchain.getChainHeadBlockNumber()).thenReturn((long) chainHeadNumber);
+  }
+
+  private static void setBalance(final MutableWorldState worldState, final long balance) {
+    final WorldUpdater updater = worldState.updater();
+    updater.getOrCreate(ADDRESS).setBalance(Wei.of(balance));
+    updater.commit();
+  }
+
+  private static BlockProcessor.Result successfulResult() {
+    final BlockProcessor.Result result = mock(BlockProcessor.Result.class);
+    when(result.isSuccessful()).thenReturn(true);
+    return result;
+  }
+}
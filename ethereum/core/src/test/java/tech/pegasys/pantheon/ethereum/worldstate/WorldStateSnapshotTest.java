@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.MutableAccount;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class WorldStateSnapshotTest {
+
+  private static final int ACCOUNT_COUNT = 50;
+
+  private final WorldStateStorage worldStateStorage =
+      new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage());
+  private final WorldStateArchive worldStateArchive = new WorldStateArchive(worldStateStorage);
+
+  @Test
+  public void readsPersistedState() {
+    final Hash stateRoot = persistState();
+
+    final WorldStateSnapshot snapshot = worldStateArchive.getSnapshot(stateRoot);
+
+    assertThat(snapshot.rootHash()).isEqualTo(stateRoot);
+    assertThat(snapshot.get(address(3)).getBalance()).isEqualTo(Wei.of(3));
+    assertThat(snapshot.get(address(3)).getStorageValue(UInt256.of(3))).isEqualTo(UInt256.of(4));
+    assertThat(snapshot.get(address(ACCOUNT_COUNT))).isNull();
+  }
+
+  @Test
+  public void sharesSnapshotForTheSameRoot() {
+    final Hash stateRoot = persistState();
+
+    assertThat(worldStateArchive.getSnapshot(stateRoot))
+        .isSameAs(worldStateArchive.getSnapshot(stateRoot));
+  }
+
+  @Test
+  public void updaterChangesAreNotVisibleInSnapshot() {
+    final WorldStateSnapshot snapshot = worldStateArchive.getSnapshot(persistState());
+
+    final WorldUpdater updater = snapshot.updater();
+    updater.getMutable(address(1)).setBalance(Wei.of(100));
+    updater.createAccount(address(ACCOUNT_COUNT), 0, Wei.of(5));
+    updater.commit();
+
+    assertThat(updater.get(address(1)).getBalance()).isEqualTo(Wei.of(100));
+    assertThat(updater.get(address(ACCOUNT_COUNT)).getBalance()).isEqualTo(Wei.of(5));
+    assertThat(snapshot.get(address(1)).getBalance()).isEqualTo(Wei.of(1));
+    assertThat(snapshot.get(address(ACCOUNT_COUNT))).isNull();
+  }
+
+  @Test
+  public void supportsConcurrentReaders() throws Exception {
+    final WorldStateSnapshot snapshot = worldStateArchive.getSnapshot(persistState());
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<Boolean>> results = new ArrayList<>();
+      for (int thread = 0; thread < 8; thread++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < ACCOUNT_COUNT; i++) {
+                    if (!snapshot.get(address(i)).getBalance().equals(Wei.of(i))
+                        || !snapshot
+                            .get(address(i))
+                            .getStorageValue(UInt256.of(i))
+                            .equals(UInt256.of(i + 1))) {
+                      return false;
+                    }
+                  }
+                  return true;
+                }));
+      }
+      for (final Future<Boolean> result : results) {
+        assertThat(result.get()).isTrue();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Hash persistState() {
+    final MutableWorldState worldState = worldStateArchive.getMutable();
+    final WorldUpdater updater = worldState.updater();
+    for (int i = 0; i < ACCOUNT_COUNT; i++) {
+      final MutableAccount account = updater.getOrCreate(address(i));
+      account.setBalance(Wei.of(i));
+      account.setStorageValue(UInt256.of(i), UInt256.of(i + 1));
+    }
+    updater.commit();
+    worldState.persist();
+    return worldState.rootHash();
+  }
+
+  private static Address address(final int i) {
+    return Address.fromHexString(String.format("%040x", i + 1));
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.worldstate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.MutableAccount;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.services.kvstore.InMemoryKeyValueStorage;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class WriteBehindWorldStateStorageTest {
+
+  private final WorldStateStorage persistedStorage =
+      new KeyValueStorageWorldStateStorage(new InMemoryKeyValueStorage());
+  private final ExecutorService writerExecutor = Executors.newSingleThreadExecutor();
+  private final WriteBehindWorldStateStorage writeBehindStorage =
+      new WriteBehindWorldStateStorage(persistedStorage, 2, writerExecutor);
+
+  @After
+  public void tearDown() {
+    writeBehindStorage.close();
+  }
+
+  @Test
+  public void persistedStateIsReadableBeforeItIsWritten() {
+    final CountDownLatch writerBlocked = blockWriter();
+
+    final Hash firstRoot = persistState(Hash.EMPTY_TRIE_HASH, 1);
+    final Hash secondRoot = persistState(firstRoot, 2);
+
+    assertThat(persistedStorage.getNodeData(firstRoot)).isEmpty();
+    assertThat(writeBehindStorage.getNodeData(firstRoot)).isPresent();
+    assertBalance(secondRoot, 2);
+
+    writerBlocked.countDown();
+    writeBehindStorage.flush();
+
+    assertThat(persistedStorage.getNodeData(firstRoot)).isPresent();
+    assertThat(persistedStorage.getNodeData(secondRoot)).isPresent();
+  }
+
+  @Test
+  public void flushedStateIsReadableFromUnderlyingStorage() {
+    final Hash stateRoot = persistState(Hash.EMPTY_TRIE_HASH, 1);
+
+    writeBehindStorage.flush();
+
+    final MutableWorldState worldState = new DefaultMutableWorldState(stateRoot, persistedStorage);
+    assertThat(worldState.get(address()).getBalance()).isEqualTo(Wei.of(1));
+  }
+
+  @Test
+  public void commitWaitsWhileTooManyUpdatesArePending() throws Exception {
+    final CountDownLatch writerBlocked = blockWriter();
+    final Hash firstRoot = persistState(Hash.EMPTY_TRIE_HASH, 1);
+    final Hash secondRoot = persistState(firstRoot, 2);
+
+    final CompletableFuture<Hash> thirdRoot =
+        CompletableFuture.supplyAsync(() -> persistState(secondRoot, 3));
+    Thread.sleep(100);
+    assertThat(thirdRoot).isNotDone();
+
+    writerBlocked.countDown();
+    assertBalance(thirdRoot.get(10, TimeUnit.SECONDS), 3);
+  }
+
+  @Test
+  public void writeFailureIsReportedAndLaterUpdatesAreRejected() {
+    final WorldStateStorage failingStorage = mock(WorldStateStorage.class);
+    final WorldStateStorage.Updater failingUpdater = mock(WorldStateStorage.Updater.class);
+    when(failingStorage.updater()).thenReturn(failingUpdater);
+    doThrow(new RuntimeException("Disk full")).when(failingUpdater).commit();
+    final WriteBehindWorldStateStorage storage =
+        new WriteBehindWorldStateStorage(failingStorage, 2, Executors.newSingleThreadExecutor());
+
+    final Hash stateRoot = persistState(storage, Hash.EMPTY_TRIE_HASH, 1);
+
+    assertThatThrownBy(storage::flush)
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("Failed to write world state to storage");
+    assertThatThrownBy(() -> persistState(storage, stateRoot, 2))
+        .isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(storage::close).isInstanceOf(IllegalStateException.class);
+  }
+
+  private CountDownLatch blockWriter() {
+    final CountDownLatch writerBlocked = new CountDownLatch(1);
+    writerExecutor.execute(
+        () -> {
+          try {
+            writerBlocked.await();
+          } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    return writerBlocked;
+  }
+
+  private Hash persistState(final Hash parentRoot, final long balance) {
+    return persistState(writeBehindStorage, parentRoot, balance);
+  }
+
+  private static Hash persistState(
+      final WorldStateStorage storage, final Hash parentRoot, final long balance) {
+    final MutableWorldState worldState = new DefaultMutableWorldState(parentRoot, storage);
+    final WorldUpdater updater = worldState.updater();
+    final MutableAccount account = updater.getOrCreate(address());
+    account.setBalance(Wei.of(balance));
+    updater.commit();
+    worldState.persist();
+    return worldState.rootHash();
+  }
+
+  private void assertBalance(final Hash stateRoot, final long balance) {
+    final MutableWorldState worldState =
+        new DefaultMutableWorldState(stateRoot, writeBehindStorage);
+    assertThat(worldState.get(address()).getBalance()).isEqualTo(Wei.of(balance));
+  }
+
+  private static Address address() {
+    return Address.fromHexString(String.format("%040x", 1));
+  }
+}
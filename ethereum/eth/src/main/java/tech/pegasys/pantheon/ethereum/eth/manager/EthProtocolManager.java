@@ -13,13 +13,16 @@
 package tech.pegasys.pantheon.ethereum.eth.manager;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static tech.pegasys.pantheon.metrics.MetricCategory.NETWORK;
 
 import tech.pegasys.pantheon.ethereum.chain.Blockchain;
 import tech.pegasys.pantheon.ethereum.chain.MinedBlockObserver;
 import tech.pegasys.pantheon.ethereum.core.Block;
 import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
 import tech.pegasys.pantheon.ethereum.eth.EthProtocol;
 import tech.pegasys.pantheon.ethereum.eth.messages.EthPV62;
+import tech.pegasys.pantheon.ethereum.eth.messages.EthPV63;
 import tech.pegasys.pantheon.ethereum.eth.messages.NewBlockMessage;
 import tech.pegasys.pantheon.ethereum.eth.messages.StatusMessage;
 import tech.pegasys.pantheon.ethereum.p2p.api.Message;
@@ -30,6 +33,12 @@ import tech.pegasys.pantheon.ethereum.p2p.api.ProtocolManager;
 import tech.pegasys.pantheon.ethereum.p2p.wire.Capability;
 import tech.pegasys.pantheon.ethereum.p2p.wire.messages.DisconnectMessage.DisconnectReason;
 import tech.pegasys.pantheon.ethereum.rlp.RLPException;
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.metrics.OperationTimer.TimingContext;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.util.Arrays;
@@ -62,13 +71,34 @@ public class EthProtocolManager implements ProtocolManager, MinedBlockObserver {
   private final boolean fastSyncEnabled;
   private List<Capability> supportedCapabilities;
   private final Blockchain blockchain;
+  private final LabelledMetric<Counter> messagesReceived;
+  private final LabelledMetric<OperationTimer> messageProcessingTimer;
 
   EthProtocolManager(
       final Blockchain blockchain,
+      final WorldStateArchive worldStateArchive,
       final int networkId,
       final boolean fastSyncEnabled,
       final int requestLimit,
       final EthScheduler scheduler) {
+    this(
+        blockchain,
+        worldStateArchive,
+        networkId,
+        fastSyncEnabled,
+        requestLimit,
+        scheduler,
+        new NoOpMetricsSystem());
+  }
+
+  EthProtocolManager(
+      final Blockchain blockchain,
+      final WorldStateArchive worldStateArchive,
+      final int networkId,
+      final boolean fastSyncEnabled,
+      final int requestLimit,
+      final EthScheduler scheduler,
+      final MetricsSystem metricsSystem) {
     this.networkId = networkId;
 
     this.scheduler = scheduler;
@@ -83,24 +113,64 @@ public class EthProtocolManager implements ProtocolManager, MinedBlockObserver {
     ethContext = new EthContext(getSupportedProtocol(), ethPeers, ethMessages, scheduler);
 
     // Set up request handlers
-    new EthServer(blockchain, ethMessages, requestLimit);
+    new EthServer(blockchain, worldStateArchive, ethMessages, requestLimit);
+
+    messagesReceived =
+        metricsSystem.createLabelledCounter(
+            NETWORK,
+            "eth_messages_received_total",
+            "Number of eth protocol messages received from peers",
+            "message");
+    messageProcessingTimer =
+        metricsSystem.createLabelledTimer(
+            NETWORK,
+            "eth_message_processing_seconds",
+            "Time taken to validate and dispatch eth protocol messages",
+            "message");
+    metricsSystem.createGauge(
+        NETWORK, "eth_peers", "Number of connected eth protocol peers", ethPeers::peerCount);
   }
 
   EthProtocolManager(
       final Blockchain blockchain,
+      final WorldStateArchive worldStateArchive,
       final int networkId,
       final boolean fastSyncEnabled,
       final int workers,
       final int requestLimit) {
-    this(blockchain, networkId, fastSyncEnabled, requestLimit, new EthScheduler(workers));
+    this(
+        blockchain,
+        worldStateArchive,
+        networkId,
+        fastSyncEnabled,
+        requestLimit,
+        new EthScheduler(workers));
   }
 
   public EthProtocolManager(
       final Blockchain blockchain,
+      final WorldStateArchive worldStateArchive,
       final int networkId,
       final boolean fastSyncEnabled,
       final int workers) {
-    this(blockchain, networkId, fastSyncEnabled, workers, DEFAULT_REQUEST_LIMIT);
+    this(blockchain, worldStateArchive, networkId, fastSyncEnabled, workers, DEFAULT_REQUEST_LIMIT);
+  }
+
+  public EthProtocolManager(
+      final Blockchain blockchain,
+      final WorldStateArchive worldStateArchive,
+      final int networkId,
+      final boolean fastSyncEnabled,
+      final int workers,
+      final MetricsSystem metricsSystem) {
+    this(
+        blockchain,
+        worldStateArchive,
+        networkId,
+        fastSyncEnabled,
+        DEFAULT_REQUEST_LIMIT,
+        new EthScheduler(workers),
+        metricsSystem);
   }
 
   public EthContext ethContext() {
@@ -151,6 +221,14 @@ public class EthProtocolManager implements ProtocolManager, MinedBlockObserver {
       return;
     }
 
+    final String messageName = EthPV63.messageName(message.getData().getCode());
+    messagesReceived.labels(messageName).inc();
+    try (final TimingContext ignored = messageProcessingTimer.labels(messageName).startTimer()) {
+      handleMessage(peer, message);
+    }
+  }
+
+  private void handleMessage(final EthPeer peer, final Message message) {
     // Handle STATUS processing
     if (message.getData().getCode() == EthPV62.STATUS) {
       handleStatusMessage(peer, message.getData());
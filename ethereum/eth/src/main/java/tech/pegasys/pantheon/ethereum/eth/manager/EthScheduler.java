@@ -43,6 +43,7 @@ public class EthScheduler {
 
   protected final ExecutorService workerExecutor;
   protected final ScheduledExecutorService scheduler;
+  protected final ExecutorService computationExecutor;
 
   EthScheduler(final int workerCount) {
     this(
@@ -56,13 +57,21 @@ public class EthScheduler {
             new ThreadFactoryBuilder()
                 .setDaemon(true)
                 .setNameFormat(EthScheduler.class.getSimpleName() + "Timer")
+                .build()),
+        Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder()
+                .setNameFormat(EthScheduler.class.getSimpleName() + "-Computation")
                 .build()));
   }
 
   protected EthScheduler(
-      final ExecutorService workerExecutor, final ScheduledExecutorService scheduler) {
+      final ExecutorService workerExecutor,
+      final ScheduledExecutorService scheduler,
+      final ExecutorService computationExecutor) {
     this.workerExecutor = workerExecutor;
     this.scheduler = scheduler;
+    this.computationExecutor = computationExecutor;
   }
 
   public <T> CompletableFuture<T> scheduleWorkerTask(final Supplier<CompletableFuture<T>> future) {
@@ -95,6 +104,27 @@ public class EthScheduler {
     return workerExecutor.submit(command);
   }
 
+  /**
+   * Runs a CPU-bound computation on the pool reserved for such work, which is sized to the number
+   * of available processors. Computations must not block.
+   *
+   * @param computation the computation to run
+   * @param <T> the type of the computed value
+   * @return a future completed with the result of the computation
+   */
+  public <T> CompletableFuture<T> scheduleComputationTask(final Supplier<T> computation) {
+    final CompletableFuture<T> promise = new CompletableFuture<>();
+    computationExecutor.submit(
+        () -> {
+          try {
+            promise.complete(computation.get());
+          } catch (final Throwable t) {
+            promise.completeExceptionally(t);
+          }
+        });
+    return promise;
+  }
+
   public CompletableFuture<Void> scheduleFutureTask(
       final Runnable command, final Duration duration) {
     final CompletableFuture<Void> promise = new CompletableFuture<>();
@@ -181,6 +211,7 @@ public class EthScheduler {
       LOG.trace("Stopping " + getClass().getSimpleName());
       workerExecutor.shutdown();
       scheduler.shutdown();
+      computationExecutor.shutdown();
       shutdown.countDown();
     } else {
       LOG.trace("Attempted to stop already stopped " + getClass().getSimpleName());
@@ -199,6 +230,12 @@ public class EthScheduler {
       scheduler.shutdownNow();
       scheduler.awaitTermination(2L, TimeUnit.MINUTES);
     }
+    if (!computationExecutor.awaitTermination(2L, TimeUnit.MINUTES)) {
+      LOG.error(
+          "{} computation executor did not shutdown cleanly.", this.getClass().getSimpleName());
+      computationExecutor.shutdownNow();
+      computationExecutor.awaitTermination(2L, TimeUnit.MINUTES);
+    }
     LOG.trace("{} stopped.", this.getClass().getSimpleName());
   }
 
@@ -25,6 +25,37 @@ public final class EthPV63 {
 
   public static final int RECEIPTS = 0x10;
 
+  public static String messageName(final int code) {
+    switch (code) {
+      case EthPV62.STATUS:
+        return "Status";
+      case EthPV62.NEW_BLOCK_HASHES:
+        return "NewBlockHashes";
+      case EthPV62.TRANSACTIONS:
+        return "Transactions";
+      case EthPV62.GET_BLOCK_HEADERS:
+        return "GetBlockHeaders";
+      case EthPV62.BLOCK_HEADERS:
+        return "BlockHeaders";
+      case EthPV62.GET_BLOCK_BODIES:
+        return "GetBlockBodies";
+      case EthPV62.BLOCK_BODIES:
+        return "BlockBodies";
+      case EthPV62.NEW_BLOCK:
+        return "NewBlock";
+      case GET_NODE_DATA:
+        return "GetNodeData";
+      case NODE_DATA:
+        return "NodeData";
+      case GET_RECEIPTS:
+        return "GetReceipts";
+      case RECEIPTS:
+        return "Receipts";
+      default:
+        return "Unknown";
+    }
+  }
+
   private EthPV63() {
     // Holder for constants only
   }
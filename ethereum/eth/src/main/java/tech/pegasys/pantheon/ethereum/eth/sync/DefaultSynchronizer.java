@@ -16,11 +16,14 @@ import tech.pegasys.pantheon.ethereum.ProtocolContext;
 import tech.pegasys.pantheon.ethereum.core.SyncStatus;
 import tech.pegasys.pantheon.ethereum.core.Synchronizer;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.FastSyncStateStorage;
 import tech.pegasys.pantheon.ethereum.eth.sync.state.PendingBlocks;
 import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncState;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 
+import java.nio.file.Path;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.logging.log4j.LogManager;
@@ -29,18 +32,22 @@ import org.apache.logging.log4j.Logger;
 public class DefaultSynchronizer<C> implements Synchronizer {
 
   private static final Logger LOG = LogManager.getLogger();
+  public static final String FAST_SYNC_FOLDER = "fastsync";
 
   private final SyncState syncState;
   private final AtomicBoolean started = new AtomicBoolean(false);
   private final BlockPropagationManager<C> blockPropagationManager;
   private final Downloader<C> downloader;
+  private final Optional<FastSyncDownloader<C>> fastSyncDownloader;
+  private final CompletableFuture<Void> fullSyncStarted = new CompletableFuture<>();
 
   public DefaultSynchronizer(
       final SynchronizerConfiguration syncConfig,
       final ProtocolSchedule<C> protocolSchedule,
       final ProtocolContext<C> protocolContext,
       final EthContext ethContext,
-      final SyncState syncState) {
+      final SyncState syncState,
+      final Path dataDirectory) {
     this.syncState = syncState;
     this.blockPropagationManager =
         new BlockPropagationManager<>(
@@ -55,8 +62,17 @@ public class DefaultSynchronizer<C> implements Synchronizer {
 
     ChainHeadTracker.trackChainHeadForPeers(
         ethContext, protocolSchedule, protocolContext.getBlockchain(), syncConfig);
-    if (syncConfig.syncMode().equals(SyncMode.FAST)) {
+    final FastSyncStateStorage fastSyncStateStorage =
+        new FastSyncStateStorage(dataDirectory.resolve(FAST_SYNC_FOLDER));
+    if (syncConfig.syncMode().equals(SyncMode.FAST)
+        || fastSyncStateStorage.isFastSyncInProgress()) {
       LOG.info("Fast sync enabled.");
+      this.fastSyncDownloader =
+          Optional.of(
+              new FastSyncDownloader<>(
+                  syncConfig, protocolSchedule, protocolContext, ethContext, fastSyncStateStorage));
+    } else {
+      this.fastSyncDownloader = Optional.empty();
     }
   }
 
@@ -64,13 +80,44 @@ public class DefaultSynchronizer<C> implements Synchronizer {
   public void start() {
     if (started.compareAndSet(false, true)) {
       LOG.info("Starting synchronizer.");
-      blockPropagationManager.start();
-      downloader.start();
+      if (fastSyncDownloader.isPresent()) {
+        fastSyncDownloader
+            .get()
+            .start()
+            .whenComplete(
+                (r, t) -> {
+                  if (t != null) {
+                    // Fast sync retries with a new pivot until it succeeds, so this only happens
+                    // when it was cancelled. The chain head may have no world state to build on.
+                    LOG.error("Fast sync stopped before completing, not starting full sync.", t);
+                    return;
+                  }
+                  startFullSync();
+                });
+      } else {
+        startFullSync();
+      }
     } else {
       throw new IllegalStateException("Attempt to start an already started synchronizer.");
     }
   }
 
+  private void startFullSync() {
+    fullSyncStarted.complete(null);
+    blockPropagationManager.start();
+    downloader.start();
+  }
+
+  /**
+   * Runs the given action once any fast sync has completed, from when every imported block's world
+   * state is stored.
+   *
+   * @param action the action to run
+   */
+  public void whenFullSyncStarted(final Runnable action) {
+    fullSyncStarted.thenRun(action);
+  }
+
   @Override
   public Optional<SyncStatus> getSyncStatus() {
     if (!started.get()) {
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync;
+
+import tech.pegasys.pantheon.ethereum.ProtocolContext;
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.BlockImporter;
+import tech.pegasys.pantheon.ethereum.core.TransactionReceipt;
+import tech.pegasys.pantheon.ethereum.eth.manager.AbstractPeerTask.PeerTaskResult;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.FastSyncState;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.FastSyncStateStorage;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.CompleteBlocksTask;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.GetHeadersFromPeerByNumberTask;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.GetReceiptsFromPeerTask;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.WaitForPeerTask;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.WaitForPeersTask;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.exceptions.InvalidBlockException;
+import tech.pegasys.pantheon.ethereum.eth.sync.worldstate.WorldStateDownloader;
+import tech.pegasys.pantheon.ethereum.mainnet.HeaderValidationMode;
+import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
+import tech.pegasys.pantheon.ethereum.mainnet.ScheduleBasedBlockHashFunction;
+import tech.pegasys.pantheon.util.ExceptionUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Brings an empty node up to date without executing historical transactions. A pivot block a
+ * configurable distance behind the best peer's chain head is chosen, its world state is downloaded
+ * node-by-node, and the chain up to the pivot is imported using the receipts supplied by peers.
+ * Once complete, the regular {@link Downloader} takes over from the pivot block.
+ *
+ * @param <C> the consensus algorithm context
+ */
+public class FastSyncDownloader<C> {
+  private static final Logger LOG = LogManager.getLogger();
+
+  private final SynchronizerConfiguration config;
+  private final ProtocolSchedule<C> protocolSchedule;
+  private final ProtocolContext<C> protocolContext;
+  private final EthContext ethContext;
+  private final FastSyncState fastSyncState;
+  private final FastSyncStateStorage fastSyncStateStorage;
+  private final WorldStateDownloader worldStateDownloader;
+
+  FastSyncDownloader(
+      final SynchronizerConfiguration config,
+      final ProtocolSchedule<C> protocolSchedule,
+      final ProtocolContext<C> protocolContext,
+      final EthContext ethContext,
+      final FastSyncStateStorage fastSyncStateStorage) {
+    this.config = config;
+    this.protocolSchedule = protocolSchedule;
+    this.protocolContext = protocolContext;
+    this.ethContext = ethContext;
+    this.fastSyncState = new FastSyncState(config);
+    this.fastSyncStateStorage = fastSyncStateStorage;
+    this.worldStateDownloader =
+        new WorldStateDownloader(
+            ethContext,
+            protocolContext.getWorldStateArchive().getStorage(),
+            config.worldStateHashCountPerRequest(),
+            config.worldStateRequestParallelism());
+  }
+
+  /**
+   * Runs fast sync to completion. If the world state or chain can't be downloaded for the selected
+   * pivot block, the stored pivot is discarded and fast sync starts again from a new one.
+   *
+   * @return a future that completes once the world state and chain up to the pivot block have been
+   *     downloaded, or immediately if the network is not far enough ahead to make fast sync useful
+   *     and the world state of the chain head is already stored
+   */
+  public CompletableFuture<Void> start() {
+    return WaitForPeersTask.create(ethContext, 1).run().thenCompose(r -> attemptFastSync());
+  }
+
+  private CompletableFuture<Void> attemptFastSync() {
+    return selectPivotBlock()
+        .thenCompose(
+            maybePivot -> {
+              if (!maybePivot.isPresent()) {
+                LOG.info("Chain is not far enough behind the network to fast sync.");
+                return CompletableFuture.<Void>completedFuture(null);
+              }
+              final BlockHeader pivot = maybePivot.get();
+              return worldStateDownloader
+                  .run(pivot)
+                  .thenCompose(r -> importChainToPivot(pivot))
+                  .thenRun(
+                      () -> {
+                        fastSyncStateStorage.clear();
+                        LOG.info("Fast sync completed at block {}.", pivot.getNumber());
+                      });
+            })
+        .handle(
+            (r, t) -> {
+              if (t == null) {
+                return CompletableFuture.<Void>completedFuture(null);
+              }
+              final Throwable rootCause = ExceptionUtils.rootCause(t);
+              if (rootCause instanceof CancellationException) {
+                return FastSyncDownloader.<Void>failedFuture(rootCause);
+              }
+              LOG.warn("Fast sync failed, selecting a new pivot block: {}", rootCause.getMessage());
+              fastSyncStateStorage.clear();
+              return ethContext
+                  .getScheduler()
+                  .scheduleFutureTask(() -> attemptFastSync(), Duration.ofSeconds(5));
+            })
+        .thenCompose(future -> future);
+  }
+
+  private CompletableFuture<Optional<BlockHeader>> selectPivotBlock() {
+    final Optional<BlockHeader> storedPivot =
+        fastSyncStateStorage.loadPivotBlockHeader(
+            ScheduleBasedBlockHashFunction.create(protocolSchedule));
+    if (storedPivot.isPresent()) {
+      LOG.info("Resuming fast sync at pivot block {}.", storedPivot.get().getNumber());
+      fastSyncState.setPivotBlockHeader(storedPivot.get());
+      return CompletableFuture.completedFuture(storedPivot);
+    }
+
+    final Optional<EthPeer> maybeBestPeer = ethContext.getEthPeers().bestPeer();
+    final long bestPeerHeight =
+        maybeBestPeer.map(peer -> peer.chainState().getEstimatedHeight()).orElse(0L);
+    if (bestPeerHeight == 0) {
+      // We don't know how far ahead our peers are yet
+      return waitForPeerAndThenSelectPivotBlock();
+    }
+
+    fastSyncState.setFastSyncChainTarget(bestPeerHeight);
+    final long pivotBlockNumber = fastSyncState.pivot();
+    final BlockHeader chainHead = protocolContext.getBlockchain().getChainHeadHeader();
+    if (pivotBlockNumber <= chainHead.getNumber()) {
+      if (protocolContext.getWorldStateArchive().isWorldStateAvailable(chainHead.getStateRoot())) {
+        return CompletableFuture.completedFuture(Optional.empty());
+      }
+      // Blocks were imported by an earlier attempt without their world state, so full sync can't
+      // continue from the chain head. Wait for the network to move far enough ahead to pivot.
+      return waitForPeerAndThenSelectPivotBlock();
+    }
+
+    return GetHeadersFromPeerByNumberTask.forSingleNumber(
+            protocolSchedule, ethContext, pivotBlockNumber)
+        .assignPeer(maybeBestPeer.get())
+        .run()
+        .handle((result, error) -> result)
+        .thenCompose(
+            result -> {
+              if (result == null || result.getResult().isEmpty()) {
+                return waitForPeerAndThenSelectPivotBlock();
+              }
+              final BlockHeader pivot = result.getResult().get(0);
+              LOG.info(
+                  "Selected block {} ({}) as fast sync pivot.", pivot.getNumber(), pivot.getHash());
+              fastSyncState.setPivotBlockHeader(pivot);
+              fastSyncStateStorage.storePivotBlockHeader(pivot);
+              return CompletableFuture.completedFuture(Optional.of(pivot));
+            });
+  }
+
+  private CompletableFuture<Optional<BlockHeader>> waitForPeerAndThenSelectPivotBlock() {
+    return ethContext
+        .getScheduler()
+        .timeout(WaitForPeerTask.create(ethContext), Duration.ofSeconds(5))
+        .handle((r, t) -> r)
+        .thenCompose(r -> selectPivotBlock());
+  }
+
+  private CompletableFuture<Void> importChainToPivot(final BlockHeader pivot) {
+    final long chainHead = protocolContext.getBlockchain().getChainHeadBlockNumber();
+    if (chainHead >= pivot.getNumber()) {
+      final BlockHeader chainHeadHeader = protocolContext.getBlockchain().getChainHeadHeader();
+      if (!chainHeadHeader.getHash().equals(pivot.getHash())) {
+        return failedFuture(
+            new InvalidBlockException(
+                "Imported chain does not match fast sync pivot",
+                chainHeadHeader.getNumber(),
+                chainHeadHeader.getHash()));
+      }
+      return CompletableFuture.completedFuture(null);
+    }
+
+    final int segmentSize =
+        (int) Math.min(config.downloaderChainSegmentSize(), pivot.getNumber() - chainHead);
+    return importChainSegment(chainHead + 1, segmentSize)
+        .handle(
+            (r, t) -> {
+              if (t != null) {
+                final Throwable rootCause = ExceptionUtils.rootCause(t);
+                if (rootCause instanceof CancellationException) {
+                  return failedFuture(rootCause);
+                }
+                LOG.debug("Failed to import chain segment during fast sync, retrying.", t);
+                return ethContext
+                    .getScheduler()
+                    .scheduleFutureTask(() -> importChainToPivot(pivot), Duration.ofSeconds(2));
+              }
+              return importChainToPivot(pivot);
+            })
+        .thenCompose(future -> future);
+  }
+
+  private CompletableFuture<Void> importChainSegment(
+      final long firstBlockNumber, final int segmentSize) {
+    return GetHeadersFromPeerByNumberTask.startingAtNumber(
+            protocolSchedule, ethContext, firstBlockNumber, segmentSize)
+        .run()
+        .thenApply(PeerTaskResult::getResult)
+        .thenCompose(
+            headers ->
+                CompleteBlocksTask.forHeaders(protocolSchedule, ethContext, headers)
+                    .run()
+                    .thenCompose(
+                        blocks ->
+                            downloadReceipts(headers, new HashMap<>())
+                                .thenAccept(receipts -> importBlocks(blocks, receipts))));
+  }
+
+  private CompletableFuture<Map<BlockHeader, List<TransactionReceipt>>> downloadReceipts(
+      final List<BlockHeader> headers,
+      final Map<BlockHeader, List<TransactionReceipt>> receipts) {
+    final List<BlockHeader> remainingHeaders =
+        headers
+            .stream()
+            .filter(header -> !receipts.containsKey(header))
+            .collect(Collectors.toList());
+    if (remainingHeaders.isEmpty()) {
+      return CompletableFuture.completedFuture(receipts);
+    }
+    return GetReceiptsFromPeerTask.forHeaders(ethContext, remainingHeaders)
+        .run()
+        .thenCompose(
+            result -> {
+              if (result.getResult().isEmpty()) {
+                return failedFuture(
+                    new IllegalStateException("Peer returned no matching receipts."));
+              }
+              receipts.putAll(result.getResult());
+              return downloadReceipts(headers, receipts);
+            });
+  }
+
+  private void importBlocks(
+      final List<Block> blocks, final Map<BlockHeader, List<TransactionReceipt>> receipts) {
+    for (final Block block : blocks) {
+      final BlockHeader header = block.getHeader();
+      final BlockImporter<C> blockImporter =
+          protocolSchedule.getByBlockNumber(header.getNumber()).getBlockImporter();
+      if (!blockImporter.fastImportBlock(
+          protocolContext, block, receipts.get(header), HeaderValidationMode.LIGHT)) {
+        throw new InvalidBlockException(
+            "Failed to import block during fast sync", header.getNumber(), header.getHash());
+      }
+    }
+  }
+
+  private static <T> CompletableFuture<T> failedFuture(final Throwable error) {
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(error);
+    return future;
+  }
+}
@@ -30,10 +30,15 @@ public class SynchronizerConfiguration {
   // TODO: Determine reasonable defaults here
   public static int DEFAULT_PIVOT_DISTANCE_FROM_HEAD = 500;
   public static float DEFAULT_FULL_VALIDATION_RATE = .1f;
+  public static int DEFAULT_WORLD_STATE_HASH_COUNT_PER_REQUEST = 384;
+  public static int DEFAULT_WORLD_STATE_REQUEST_PARALLELISM = 10;
+  public static int DEFAULT_WORLD_STATE_WRITE_BEHIND_BLOCKS = 0;
 
   // Fast sync config
   private final int fastSyncPivotDistance;
   private final float fastSyncFullValidationRate;
+  private final int worldStateHashCountPerRequest;
+  private final int worldStateRequestParallelism;
 
   // Block propagation config
   private final Range<Long> blockPropagationRange;
@@ -53,10 +58,15 @@ public class SynchronizerConfiguration {
   private final int maxTrailingPeers;
   private final int downloaderParallelism;
 
+  // Block import config
+  private final int worldStateWriteBehindBlocks;
+
   private SynchronizerConfiguration(
       final SyncMode requestedSyncMode,
       final int fastSyncPivotDistance,
       final float fastSyncFullValidationRate,
+      final int worldStateHashCountPerRequest,
+      final int worldStateRequestParallelism,
       final Range<Long> blockPropagationRange,
       final Optional<SyncMode> syncMode,
       final long downloaderChangeTargetThresholdByHeight,
@@ -67,10 +77,13 @@ public class SynchronizerConfiguration {
       final int downloaderChainSegmentSize,
       final long trailingPeerBlocksBehindThreshold,
       final int maxTrailingPeers,
-      final int downloaderParallelism) {
+      final int downloaderParallelism,
+      final int worldStateWriteBehindBlocks) {
     this.requestedSyncMode = requestedSyncMode;
     this.fastSyncPivotDistance = fastSyncPivotDistance;
     this.fastSyncFullValidationRate = fastSyncFullValidationRate;
+    this.worldStateHashCountPerRequest = worldStateHashCountPerRequest;
+    this.worldStateRequestParallelism = worldStateRequestParallelism;
     this.blockPropagationRange = blockPropagationRange;
     this.syncMode = syncMode;
     this.downloaderChangeTargetThresholdByHeight = downloaderChangeTargetThresholdByHeight;
@@ -82,6 +95,7 @@ public class SynchronizerConfiguration {
     this.trailingPeerBlocksBehindThreshold = trailingPeerBlocksBehindThreshold;
     this.maxTrailingPeers = maxTrailingPeers;
     this.downloaderParallelism = downloaderParallelism;
+    this.worldStateWriteBehindBlocks = worldStateWriteBehindBlocks;
   }
 
   /**
@@ -112,6 +126,8 @@ public class SynchronizerConfiguration {
         requestedSyncMode,
         fastSyncPivotDistance,
         fastSyncFullValidationRate,
+        worldStateHashCountPerRequest,
+        worldStateRequestParallelism,
         blockPropagationRange,
         Optional.of(actualSyncMode),
         downloaderChangeTargetThresholdByHeight,
@@ -122,7 +138,8 @@ public class SynchronizerConfiguration {
         downloaderChainSegmentSize,
         trailingPeerBlocksBehindThreshold,
         maxTrailingPeers,
-        downloaderParallelism);
+        downloaderParallelism,
+        worldStateWriteBehindBlocks);
   }
 
   public static Builder builder() {
@@ -214,9 +231,41 @@ public class SynchronizerConfiguration {
     return fastSyncFullValidationRate;
   }
 
+  /**
+   * The maximum number of trie node or code hashes to request from a peer in a single {@code
+   * GetNodeData} message while downloading world state.
+   *
+   * @return the number of hashes per world state request.
+   */
+  public int worldStateHashCountPerRequest() {
+    return worldStateHashCountPerRequest;
+  }
+
+  /**
+   * The maximum number of world state requests to have outstanding at once.
+   *
+   * @return the number of world state requests to send in parallel.
+   */
+  public int worldStateRequestParallelism() {
+    return worldStateRequestParallelism;
+  }
+
+  /**
+   * The maximum number of imported blocks whose world state may still be waiting to be written to
+   * storage while later blocks are executed. Zero means world state is written as each block is
+   * imported.
+   *
+   * @return the number of blocks whose world state may be written in the background.
+   */
+  public int worldStateWriteBehindBlocks() {
+    return worldStateWriteBehindBlocks;
+  }
+
   public static class Builder {
     private int fastSyncPivotDistance = DEFAULT_PIVOT_DISTANCE_FROM_HEAD;
     private float fastSyncFullValidationRate = DEFAULT_FULL_VALIDATION_RATE;
+    private int worldStateHashCountPerRequest = DEFAULT_WORLD_STATE_HASH_COUNT_PER_REQUEST;
+    private int worldStateRequestParallelism = DEFAULT_WORLD_STATE_REQUEST_PARALLELISM;
     private SyncMode syncMode = SyncMode.FULL;
     private Range<Long> blockPropagationRange = Range.closed(-10L, 30L);
     private long downloaderChangeTargetThresholdByHeight = 20L;
@@ -228,6 +277,7 @@ public class SynchronizerConfiguration {
     private long trailingPeerBlocksBehindThreshold;
     private int maxTrailingPeers = Integer.MAX_VALUE;
     private int downloaderParallelism = 2;
+    private int worldStateWriteBehindBlocks = DEFAULT_WORLD_STATE_WRITE_BEHIND_BLOCKS;
 
     public Builder fastSyncPivotDistance(final int distance) {
       fastSyncPivotDistance = distance;
@@ -239,6 +289,16 @@ public class SynchronizerConfiguration {
       return this;
     }
 
+    public Builder worldStateHashCountPerRequest(final int worldStateHashCountPerRequest) {
+      this.worldStateHashCountPerRequest = worldStateHashCountPerRequest;
+      return this;
+    }
+
+    public Builder worldStateRequestParallelism(final int worldStateRequestParallelism) {
+      this.worldStateRequestParallelism = worldStateRequestParallelism;
+      return this;
+    }
+
     public Builder syncMode(final SyncMode mode) {
       this.syncMode = mode;
       return this;
@@ -299,11 +359,20 @@ public class SynchronizerConfiguration {
       return this;
     }
 
+    public Builder worldStateWriteBehindBlocks(final int worldStateWriteBehindBlocks) {
+      checkArgument(
+          worldStateWriteBehindBlocks >= 0, "World state write behind blocks must not be negative.");
+      this.worldStateWriteBehindBlocks = worldStateWriteBehindBlocks;
+      return this;
+    }
+
     public SynchronizerConfiguration build() {
       return new SynchronizerConfiguration(
           syncMode,
           fastSyncPivotDistance,
           fastSyncFullValidationRate,
+          worldStateHashCountPerRequest,
+          worldStateRequestParallelism,
           blockPropagationRange,
           Optional.empty(),
           downloaderChangeTargetThresholdByHeight,
@@ -314,7 +383,8 @@ public class SynchronizerConfiguration {
           downloaderChainSegmentSize,
           trailingPeerBlocksBehindThreshold,
           maxTrailingPeers,
-          downloaderParallelism);
+          downloaderParallelism,
+          worldStateWriteBehindBlocks);
     }
   }
 }
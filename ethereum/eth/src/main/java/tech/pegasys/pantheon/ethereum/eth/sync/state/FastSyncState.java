@@ -12,10 +12,14 @@
  */
 package tech.pegasys.pantheon.ethereum.eth.sync.state;
 
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
 
+import java.util.Optional;
+
 public final class FastSyncState {
   private long fastSyncTargetBlockNumber = -1;
+  private Optional<BlockHeader> pivotBlockHeader = Optional.empty();
 
   private final SynchronizerConfiguration config;
 
@@ -36,4 +40,18 @@ public final class FastSyncState {
   public long pivot() {
     return Math.max(fastSyncTargetBlockNumber - config.fastSyncPivotDistance(), 0);
   }
+
+  /**
+   * Registers the header of the block whose world state is being downloaded.
+   *
+   * @param pivotBlockHeader the header of the pivot block
+   */
+  public void setPivotBlockHeader(final BlockHeader pivotBlockHeader) {
+    this.pivotBlockHeader = Optional.of(pivotBlockHeader);
+  }
+
+  /** @return the header of the pivot block, once it has been retrieved */
+  public Optional<BlockHeader> getPivotBlockHeader() {
+    return pivotBlockHeader;
+  }
 }
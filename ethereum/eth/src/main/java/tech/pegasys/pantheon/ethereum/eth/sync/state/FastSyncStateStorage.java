@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.state;
+
+import tech.pegasys.pantheon.ethereum.core.BlockHashFunction;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Persists the pivot block chosen for fast sync, so that an interrupted fast sync resumes against
+ * the same world state after a restart instead of choosing a new pivot.
+ */
+public class FastSyncStateStorage {
+  private static final String PIVOT_BLOCK_HEADER_FILENAME = "pivotBlockHeader.rlp";
+
+  private final Path pivotBlockHeaderFile;
+
+  public FastSyncStateStorage(final Path fastSyncDataDir) {
+    this.pivotBlockHeaderFile = fastSyncDataDir.resolve(PIVOT_BLOCK_HEADER_FILENAME);
+  }
+
+  public boolean isFastSyncInProgress() {
+    return Files.isRegularFile(pivotBlockHeaderFile);
+  }
+
+  public Optional<BlockHeader> loadPivotBlockHeader(final BlockHashFunction blockHashFunction) {
+    if (!isFastSyncInProgress()) {
+      return Optional.empty();
+    }
+    try {
+      final BytesValue rlp = BytesValue.wrap(Files.readAllBytes(pivotBlockHeaderFile));
+      return Optional.of(BlockHeader.readFrom(RLP.input(rlp), blockHashFunction));
+    } catch (final IOException e) {
+      throw new IllegalStateException(
+          "Unable to read fast sync pivot block header from " + pivotBlockHeaderFile, e);
+    }
+  }
+
+  public void storePivotBlockHeader(final BlockHeader pivotBlockHeader) {
+    try {
+      Files.createDirectories(pivotBlockHeaderFile.getParent());
+      Files.write(pivotBlockHeaderFile, RLP.encode(pivotBlockHeader::writeTo).extractArray());
+    } catch (final IOException e) {
+      throw new IllegalStateException(
+          "Unable to store fast sync pivot block header to " + pivotBlockHeaderFile, e);
+    }
+  }
+
+  public void clear() {
+    try {
+      Files.deleteIfExists(pivotBlockHeaderFile);
+    } catch (final IOException e) {
+      throw new IllegalStateException(
+          "Unable to remove fast sync pivot block header " + pivotBlockHeaderFile, e);
+    }
+  }
+}
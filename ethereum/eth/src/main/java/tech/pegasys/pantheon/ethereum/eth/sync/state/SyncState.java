@@ -21,6 +21,7 @@ import tech.pegasys.pantheon.util.Subscribers;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class SyncState {
   private static final long SYNC_TOLERANCE = 5;
@@ -31,6 +32,7 @@ public class SyncState {
   private boolean lastInSync = true;
   private final Subscribers<InSyncListener> inSyncListeners = new Subscribers<>();
   private Optional<SyncTarget> syncTarget = Optional.empty();
+  private final CompletableFuture<Void> syncTargetReached = new CompletableFuture<>();
   private long chainHeightListenerId;
 
   public SyncState(final Blockchain blockchain, final EthPeers ethPeers) {
@@ -49,6 +51,16 @@ public class SyncState {
     inSyncListeners.subscribe(observer);
   }
 
+  /**
+   * Runs the given action once the chain head first comes within sync tolerance of a sync target,
+   * i.e. once the node has caught up with the network after starting.
+   *
+   * @param action the action to run
+   */
+  public void whenSyncTargetReached(final Runnable action) {
+    syncTargetReached.thenRun(action);
+  }
+
   public SyncStatus syncStatus() {
     return new SyncStatus(startingBlock(), chainHeadNumber(), bestChainHeight());
   }
@@ -119,6 +131,9 @@ public class SyncState {
 
   private synchronized void checkInSync() {
     final boolean currentSyncStatus = isInSync();
+    if (currentSyncStatus && syncTarget.isPresent()) {
+      syncTargetReached.complete(null);
+    }
     if (lastInSync != currentSyncStatus) {
       lastInSync = currentSyncStatus;
       inSyncListeners.forEach(c -> c.onSyncStatusChanged(currentSyncStatus));
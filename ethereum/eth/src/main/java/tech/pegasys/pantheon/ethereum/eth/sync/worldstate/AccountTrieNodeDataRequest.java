@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.worldstate;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.ethereum.rlp.RLPInput;
+import tech.pegasys.pantheon.ethereum.trie.TrieNodeDecoder;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+class AccountTrieNodeDataRequest extends NodeDataRequest {
+
+  AccountTrieNodeDataRequest(final Hash hash) {
+    super(hash);
+  }
+
+  @Override
+  public Optional<BytesValue> getExistingData(final WorldStateStorage worldStateStorage) {
+    return worldStateStorage.getAccountStateTrieNode(getHash());
+  }
+
+  @Override
+  public void persist(final WorldStateStorage.Updater updater) {
+    updater.putAccountStateTrieNode(getHash(), getData());
+  }
+
+  @Override
+  public List<NodeDataRequest> getChildRequests() {
+    final List<NodeDataRequest> childRequests = new ArrayList<>();
+    TrieNodeDecoder.decode(
+        getData(),
+        childHash -> childRequests.add(createAccountTrieNodeRequest(Hash.wrap(childHash))),
+        account -> addAccountRequests(account, childRequests));
+    return childRequests;
+  }
+
+  private static void addAccountRequests(
+      final BytesValue account, final List<NodeDataRequest> childRequests) {
+    // Accounts are encoded as [nonce, balance, storageRoot, codeHash]
+    final RLPInput in = RLP.input(account);
+    in.enterList();
+    in.skipNext();
+    in.skipNext();
+    final Hash storageRoot = Hash.wrap(in.readBytes32());
+    final Hash codeHash = Hash.wrap(in.readBytes32());
+    in.leaveList();
+
+    if (!storageRoot.equals(Hash.EMPTY_TRIE_HASH)) {
+      childRequests.add(createStorageTrieNodeRequest(storageRoot));
+    }
+    if (!codeHash.equals(Hash.EMPTY)) {
+      childRequests.add(createCodeRequest(codeHash));
+    }
+  }
+}
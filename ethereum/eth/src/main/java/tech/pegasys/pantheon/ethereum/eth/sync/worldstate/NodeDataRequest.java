@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.worldstate;
+
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.List;
+import java.util.Optional;
+
+/** A single trie node or piece of contract code to be fetched by hash during world state sync. */
+public abstract class NodeDataRequest {
+
+  private final Hash hash;
+  private BytesValue data;
+
+  protected NodeDataRequest(final Hash hash) {
+    this.hash = hash;
+  }
+
+  public static NodeDataRequest createAccountTrieNodeRequest(final Hash hash) {
+    return new AccountTrieNodeDataRequest(hash);
+  }
+
+  public static NodeDataRequest createStorageTrieNodeRequest(final Hash hash) {
+    return new StorageTrieNodeDataRequest(hash);
+  }
+
+  public static NodeDataRequest createCodeRequest(final Hash hash) {
+    return new CodeNodeDataRequest(hash);
+  }
+
+  public Hash getHash() {
+    return hash;
+  }
+
+  public BytesValue getData() {
+    return data;
+  }
+
+  public NodeDataRequest setData(final BytesValue data) {
+    this.data = data;
+    return this;
+  }
+
+  /**
+   * Looks up the data for this request in local storage, so that a previously interrupted download
+   * does not need to fetch it again.
+   *
+   * @param worldStateStorage the storage to look in
+   * @return the data for this request, if it has already been stored
+   */
+  public abstract Optional<BytesValue> getExistingData(WorldStateStorage worldStateStorage);
+
+  /**
+   * Writes the data for this request to storage.
+   *
+   * @param updater the updater to write to
+   */
+  public abstract void persist(WorldStateStorage.Updater updater);
+
+  /**
+   * Returns the requests for everything directly referenced by this request's data. May only be
+   * called once the data has been set.
+   *
+   * @return the child requests
+   */
+  public abstract List<NodeDataRequest> getChildRequests();
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.worldstate;
+
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.eth.manager.AbstractPeerTask.PeerTaskResult;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
+import tech.pegasys.pantheon.ethereum.eth.manager.exceptions.MaxRetriesReachedException;
+import tech.pegasys.pantheon.ethereum.eth.manager.exceptions.NoAvailablePeersException;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.GetNodeDataFromPeerTask;
+import tech.pegasys.pantheon.ethereum.eth.sync.tasks.WaitForPeerTask;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
+import tech.pegasys.pantheon.util.ExceptionUtils;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Downloads the complete world state (account trie, storage tries and contract code) for a given
+ * block header by requesting node data from peers and writing it directly to {@link
+ * WorldStateStorage}.
+ *
+ * <p>The trie is walked depth-first so that the number of pending requests stays proportional to
+ * the depth of the trie rather than its width. Nodes that are already present in storage are not
+ * requested again, which allows an interrupted download to resume where it left off.
+ *
+ * <p>Peers only serve recent state, so if they repeatedly return none of the requested nodes the
+ * download fails, allowing the caller to choose a more recent block instead.
+ */
+public class WorldStateDownloader {
+  private static final Logger LOG = LogManager.getLogger();
+  static final int MAX_CONSECUTIVE_EMPTY_RESPONSES = 5;
+  private static final Duration EMPTY_RESPONSE_RETRY_DELAY = Duration.ofSeconds(2);
+
+  private enum Status {
+    IDLE,
+    RUNNING,
+    DONE
+  }
+
+  private final EthContext ethContext;
+  private final WorldStateStorage worldStateStorage;
+  private final int hashCountPerRequest;
+  private final int maxOutstandingRequests;
+
+  private final Deque<NodeDataRequest> pendingRequests = new ArrayDeque<>();
+  private int outstandingRequests = 0;
+  private long downloadedNodeCount = 0;
+  private int consecutiveEmptyResponses = 0;
+  private Status status = Status.IDLE;
+  private BlockHeader header;
+  private CompletableFuture<Void> future;
+
+  public WorldStateDownloader(
+      final EthContext ethContext,
+      final WorldStateStorage worldStateStorage,
+      final int hashCountPerRequest,
+      final int maxOutstandingRequests) {
+    this.ethContext = ethContext;
+    this.worldStateStorage = worldStateStorage;
+    this.hashCountPerRequest = hashCountPerRequest;
+    this.maxOutstandingRequests = maxOutstandingRequests;
+  }
+
+  /**
+   * Downloads the world state referenced by the given header.
+   *
+   * @param header the header whose state root should be downloaded
+   * @return a future that completes once every node reachable from the state root is stored
+   */
+  public synchronized CompletableFuture<Void> run(final BlockHeader header) {
+    if (status == Status.RUNNING) {
+      throw new IllegalStateException(
+          "Cannot run an already running " + this.getClass().getSimpleName());
+    }
+    final Hash stateRoot = header.getStateRoot();
+    LOG.info(
+        "Downloading world state from peers for block {} ({}).", header.getNumber(), stateRoot);
+
+    this.header = header;
+    this.status = Status.RUNNING;
+    this.future = new CompletableFuture<>();
+    this.downloadedNodeCount = 0;
+    this.consecutiveEmptyResponses = 0;
+    pendingRequests.clear();
+    if (!stateRoot.equals(Hash.EMPTY_TRIE_HASH)) {
+      pendingRequests.push(NodeDataRequest.createAccountTrieNodeRequest(stateRoot));
+    }
+    requestNodeData();
+    return future;
+  }
+
+  private synchronized void requestNodeData() {
+    while (status == Status.RUNNING
+        && outstandingRequests < maxOutstandingRequests
+        && !pendingRequests.isEmpty()) {
+      final List<NodeDataRequest> batch = nextBatch();
+      if (!batch.isEmpty()) {
+        outstandingRequests++;
+        final CompletableFuture<Void> downloadFuture = future;
+        sendRequests(batch)
+            .whenComplete(
+                (nodeData, error) -> {
+                  if (error != null) {
+                    handleFailedBatch(downloadFuture, batch, error);
+                  } else {
+                    handleResponse(downloadFuture, batch, nodeData);
+                  }
+                });
+      }
+    }
+    if (status == Status.RUNNING && outstandingRequests == 0 && pendingRequests.isEmpty()) {
+      LOG.info("Finished downloading world state ({} nodes downloaded).", downloadedNodeCount);
+      status = Status.DONE;
+      future.complete(null);
+    }
+  }
+
+  /**
+   * Collects the next set of hashes to request from the network. Requests whose data is already in
+   * storage are resolved locally, queueing their children instead.
+   */
+  private List<NodeDataRequest> nextBatch() {
+    final List<NodeDataRequest> batch = new ArrayList<>(hashCountPerRequest);
+    while (batch.size() < hashCountPerRequest && !pendingRequests.isEmpty()) {
+      final NodeDataRequest request = pendingRequests.pop();
+      final Optional<BytesValue> existingData = request.getExistingData(worldStateStorage);
+      if (existingData.isPresent()) {
+        request.setData(existingData.get());
+        queueChildRequests(request);
+      } else {
+        batch.add(request);
+      }
+    }
+    return batch;
+  }
+
+  private CompletableFuture<Map<Hash, BytesValue>> sendRequests(
+      final List<NodeDataRequest> batch) {
+    final List<Hash> hashes =
+        batch.stream().map(NodeDataRequest::getHash).distinct().collect(Collectors.toList());
+    return GetNodeDataFromPeerTask.forHashes(ethContext, hashes, header.getNumber())
+        .run()
+        .thenApply(PeerTaskResult::getResult);
+  }
+
+  private synchronized void handleResponse(
+      final CompletableFuture<Void> downloadFuture,
+      final List<NodeDataRequest> batch,
+      final Map<Hash, BytesValue> nodeData) {
+    if (!isCurrentDownload(downloadFuture)) {
+      onRequestRetry();
+      return;
+    }
+    if (nodeData.isEmpty()) {
+      handleEmptyResponse(batch);
+      return;
+    }
+
+    outstandingRequests--;
+    consecutiveEmptyResponses = 0;
+    final WorldStateStorage.Updater updater = worldStateStorage.updater();
+    for (final NodeDataRequest request : batch) {
+      final BytesValue data = nodeData.get(request.getHash());
+      if (data == null) {
+        // Peer didn't have this node, ask again later
+        pendingRequests.push(request);
+        continue;
+      }
+      request.setData(data);
+      request.persist(updater);
+      queueChildRequests(request);
+      downloadedNodeCount++;
+    }
+    updater.commit();
+
+    requestNodeData();
+  }
+
+  private void handleEmptyResponse(final List<NodeDataRequest> batch) {
+    batch.forEach(pendingRequests::push);
+    consecutiveEmptyResponses++;
+    if (consecutiveEmptyResponses >= MAX_CONSECUTIVE_EMPTY_RESPONSES) {
+      outstandingRequests--;
+      LOG.info(
+          "Peers returned no world state nodes for block {} after {} requests, giving up.",
+          header.getNumber(),
+          consecutiveEmptyResponses);
+      status = Status.DONE;
+      future.completeExceptionally(new MaxRetriesReachedException());
+      return;
+    }
+    LOG.debug("Peer returned no world state nodes, retrying after a delay.");
+    ethContext.getScheduler().scheduleFutureTask(this::onRequestRetry, EMPTY_RESPONSE_RETRY_DELAY);
+  }
+
+  private synchronized void handleFailedBatch(
+      final CompletableFuture<Void> downloadFuture,
+      final List<NodeDataRequest> batch,
+      final Throwable error) {
+    if (!isCurrentDownload(downloadFuture)) {
+      onRequestRetry();
+      return;
+    }
+    batch.forEach(pendingRequests::push);
+    if (ExceptionUtils.rootCause(error) instanceof NoAvailablePeersException) {
+      LOG.debug("No peers available to request world state from, wait for peer.");
+      ethContext
+          .getScheduler()
+          .timeout(WaitForPeerTask.create(ethContext), Duration.ofSeconds(5))
+          .whenComplete((r, t) -> onRequestRetry());
+    } else {
+      LOG.debug("Failed to download world state nodes, retrying: {}", error.getMessage());
+      onRequestRetry();
+    }
+  }
+
+  private synchronized void onRequestRetry() {
+    outstandingRequests--;
+    requestNodeData();
+  }
+
+  /**
+   * Checks that a response belongs to the download in progress, rather than one that has already
+   * finished or failed.
+   */
+  private boolean isCurrentDownload(final CompletableFuture<Void> downloadFuture) {
+    return status == Status.RUNNING && downloadFuture == future;
+  }
+
+  private void queueChildRequests(final NodeDataRequest request) {
+    request.getChildRequests().forEach(pendingRequests::push);
+  }
+}
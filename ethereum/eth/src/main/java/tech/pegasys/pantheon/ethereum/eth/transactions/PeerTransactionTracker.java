@@ -61,7 +61,8 @@ class PeerTransactionTracker implements DisconnectCallback {
     return seenTransactions.computeIfAbsent(peer, key -> createTransactionsSet());
   }
 
-  private boolean hasPeerSeenTransaction(final EthPeer peer, final Transaction transaction) {
+  public synchronized boolean hasPeerSeenTransaction(
+      final EthPeer peer, final Transaction transaction) {
     final Set<Hash> seenTransactionsForPeer = seenTransactions.get(peer);
     return seenTransactionsForPeer != null && seenTransactionsForPeer.contains(transaction.hash());
   }
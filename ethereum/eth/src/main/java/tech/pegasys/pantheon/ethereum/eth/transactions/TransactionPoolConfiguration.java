@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.transactions;
+
+public class TransactionPoolConfiguration {
+
+  private final boolean journalRemoteTransactions;
+
+  public TransactionPoolConfiguration(final boolean journalRemoteTransactions) {
+    this.journalRemoteTransactions = journalRemoteTransactions;
+  }
+
+  public static TransactionPoolConfiguration createDefault() {
+    return new TransactionPoolConfiguration(false);
+  }
+
+  /**
+   * @return true if transactions received from peers are written to the transaction pool journal
+   *     as well as locally submitted ones.
+   */
+  public boolean isJournalRemoteTransactions() {
+    return journalRemoteTransactions;
+  }
+}
@@ -26,7 +26,8 @@ public class TransactionPoolFactory {
       final ProtocolContext<?> protocolContext,
       final EthContext ethContext) {
     final PendingTransactions pendingTransactions =
-        new PendingTransactions(PendingTransactions.MAX_PENDING_TRANSACTIONS);
+        new PendingTransactions(
+            PendingTransactions.MAX_PENDING_TRANSACTIONS, protocolContext.getMetricsSystem());
 
     final PeerTransactionTracker transactionTracker = new PeerTransactionTracker();
     final TransactionsMessageSender transactionsMessageSender =
@@ -42,7 +43,12 @@ public class TransactionPoolFactory {
     final TransactionsMessageHandler transactionsMessageHandler =
         new TransactionsMessageHandler(
             ethContext.getScheduler(),
-            new TransactionsMessageProcessor(transactionTracker, transactionPool));
+            new TransactionsMessageProcessor(
+                transactionTracker,
+                transactionPool,
+                pendingTransactions,
+                ethContext.getScheduler(),
+                protocolContext.getMetricsSystem()));
 
     ethContext.getEthMessages().subscribe(EthPV62.TRANSACTIONS, transactionsMessageHandler);
     protocolContext.getBlockchain().observeBlockAdded(transactionPool);
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.transactions;
+
+import tech.pegasys.pantheon.ethereum.core.PendingTransactionListener;
+import tech.pegasys.pantheon.ethereum.core.PendingTransactions;
+import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.core.TransactionPool;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthScheduler;
+import tech.pegasys.pantheon.ethereum.rlp.BytesValueRLPInput;
+import tech.pegasys.pantheon.ethereum.rlp.BytesValueRLPOutput;
+import tech.pegasys.pantheon.ethereum.rlp.RLPException;
+import tech.pegasys.pantheon.ethereum.rlp.RLPInput;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Persists pending transactions to an append-only file so they survive a restart.
+ *
+ * <p>Transactions added to the pool are only queued by the listener callback; a background thread
+ * appends them to the journal in batches, so adding a transaction never waits on disk. Each record
+ * is an RLP list of a flag marking local transactions and the transaction itself. Remote
+ * transactions are only journaled when configured to, as they can be fetched from peers again.
+ *
+ * <p>The journal is periodically rewritten from the current pool contents, dropping records of
+ * transactions that have since been mined, replaced or evicted. On startup the journal is replayed
+ * into the transaction pool, with senders recovered in parallel, before new records are written.
+ */
+public class TransactionPoolJournal implements PendingTransactionListener {
+  private static final Logger LOG = LogManager.getLogger();
+
+  public static final String JOURNAL_FILE_NAME = "transactions.rlp";
+  private static final long FLUSH_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(1);
+  private static final long COMPACTION_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+  private static final int SENDER_RECOVERY_BATCH_SIZE = 32;
+
+  private final Path journalFile;
+  private final boolean journalRemoteTransactions;
+  private final TransactionPool transactionPool;
+  private final PendingTransactions pendingTransactions;
+  private final EthScheduler scheduler;
+  private final ScheduledExecutorService executorService;
+  private final Queue<Transaction> unwrittenTransactions = new ConcurrentLinkedQueue<>();
+
+  public TransactionPoolJournal(
+      final Path journalFile,
+      final TransactionPoolConfiguration configuration,
+      final TransactionPool transactionPool,
+      final EthScheduler scheduler) {
+    this.journalFile = journalFile;
+    this.journalRemoteTransactions = configuration.isJournalRemoteTransactions();
+    this.transactionPool = transactionPool;
+    this.pendingTransactions = transactionPool.getPendingTransactions();
+    this.scheduler = scheduler;
+    this.executorService =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat(TransactionPoolJournal.class.getSimpleName() + "-%d")
+                .build());
+  }
+
+  /**
+   * Replays the journal into the transaction pool, rewrites it with the transactions that were
+   * accepted and starts journaling transactions added from now on.
+   */
+  public void start() {
+    replay();
+    compact();
+    transactionPool.addTransactionListener(this);
+    executorService.scheduleWithFixedDelay(
+        this::flushSafely, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    executorService.scheduleWithFixedDelay(
+        this::compactSafely,
+        COMPACTION_INTERVAL_MILLIS,
+        COMPACTION_INTERVAL_MILLIS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  public void stop() {
+    executorService.shutdownNow();
+    try {
+      executorService.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (final InterruptedException e) {
+      LOG.error("Interrupted while waiting for the transaction journal to stop.");
+      Thread.currentThread().interrupt();
+    }
+    flushSafely();
+  }
+
+  @Override
+  public void onTransactionAdded(final Transaction transaction) {
+    unwrittenTransactions.add(transaction);
+  }
+
+  @VisibleForTesting
+  void replay() {
+    final List<Transaction> localTransactions = new ArrayList<>();
+    final List<Transaction> remoteTransactions = new ArrayList<>();
+    final BytesValue journal;
+    try {
+      if (!Files.exists(journalFile)) {
+        return;
+      }
+      // The journal holds at most the contents of the pool, so it is read in one go.
+      journal = BytesValue.wrap(Files.readAllBytes(journalFile));
+    } catch (final IOException e) {
+      LOG.error("Unable to read transaction journal " + journalFile, e);
+      return;
+    }
+    try {
+      int offset = 0;
+      while (offset < journal.size()) {
+        // Records follow each other rather than being nested in a list, so each is read from an
+        // input starting at its own offset.
+        final RLPInput record = new BytesValueRLPInput(journal.slice(offset), true).readAsRlp();
+        offset += record.raw().size();
+        readRecord(record, localTransactions, remoteTransactions);
+      }
+    } catch (final RLPException e) {
+      // A record may have been partially written when the node stopped.
+      LOG.warn("Ignoring unreadable transaction journal entries in {}", journalFile);
+    }
+
+    recoverSenders(localTransactions);
+    recoverSenders(remoteTransactions);
+    localTransactions.sort(Comparator.comparingLong(Transaction::getNonce));
+    localTransactions.forEach(transactionPool::addLocalTransaction);
+    transactionPool.addRemoteTransactions(remoteTransactions);
+    LOG.info(
+        "Replayed {} local and {} remote transactions from the transaction journal.",
+        localTransactions.size(),
+        remoteTransactions.size());
+  }
+
+  private static void readRecord(
+      final RLPInput rlp,
+      final List<Transaction> localTransactions,
+      final List<Transaction> remoteTransactions) {
+    rlp.enterList();
+    final boolean local = rlp.readIntScalar() != 0;
+    final Transaction transaction = Transaction.readFrom(rlp);
+    rlp.leaveList();
+    (local ? localTransactions : remoteTransactions).add(transaction);
+  }
+
+  private void recoverSenders(final Collection<Transaction> transactions) {
+    final List<CompletableFuture<Void>> batches = new ArrayList<>();
+    for (final List<Transaction> batch :
+        Iterables.partition(transactions, SENDER_RECOVERY_BATCH_SIZE)) {
+      batches.add(
+          scheduler.scheduleComputationTask(
+              () -> {
+                batch.forEach(TransactionPoolJournal::recoverSender);
+                return null;
+              }));
+    }
+    CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).join();
+  }
+
+  private static void recoverSender(final Transaction transaction) {
+    try {
+      transaction.getSender();
+    } catch (final RuntimeException e) {
+      // Transactions with invalid signatures are rejected by the transaction validator.
+      LOG.trace("Unable to recover sender for transaction {}", transaction.hash());
+    }
+  }
+
+  @VisibleForTesting
+  synchronized void flush() throws IOException {
+    final BytesValueRLPOutput out = new BytesValueRLPOutput();
+    boolean hasRecords = false;
+    Transaction transaction;
+    while ((transaction = unwrittenTransactions.poll()) != null) {
+      // Skip transactions that already left the pool; compaction would drop them anyway.
+      final boolean local = pendingTransactions.isLocalTransaction(transaction.hash());
+      if (local
+          || (journalRemoteTransactions
+              && pendingTransactions.getTransactionByHash(transaction.hash()).isPresent())) {
+        writeRecord(out, local, transaction);
+        hasRecords = true;
+      }
+    }
+    if (hasRecords) {
+      try (final OutputStream journal =
+          Files.newOutputStream(
+              journalFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+        journal.write(out.encoded().extractArray());
+      }
+    }
+  }
+
+  @VisibleForTesting
+  synchronized void compact() {
+    // Anything still queued is part of the pool contents written below.
+    unwrittenTransactions.clear();
+    final List<Transaction> localTransactions = pendingTransactions.getLocalTransactions();
+    final List<Transaction> remoteTransactions =
+        journalRemoteTransactions
+            ? pendingTransactions.getRemoteTransactions()
+            : Collections.emptyList();
+    final BytesValueRLPOutput out = new BytesValueRLPOutput();
+    localTransactions.forEach(transaction -> writeRecord(out, true, transaction));
+    remoteTransactions.forEach(transaction -> writeRecord(out, false, transaction));
+    final byte[] records =
+        localTransactions.isEmpty() && remoteTransactions.isEmpty()
+            ? new byte[0]
+            : out.encoded().extractArray();
+
+    final Path compactedFile = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+    try {
+      Files.write(compactedFile, records);
+      Files.move(
+          compactedFile,
+          journalFile,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (final IOException e) {
+      LOG.error("Unable to compact transaction journal " + journalFile, e);
+    }
+  }
+
+  private static void writeRecord(
+      final BytesValueRLPOutput out, final boolean local, final Transaction transaction) {
+    out.startList();
+    out.writeIntScalar(local ? 1 : 0);
+    transaction.writeTo(out);
+    out.endList();
+  }
+
+  private void flushSafely() {
+    try {
+      flush();
+    } catch (final IOException | RuntimeException e) {
+      LOG.error("Unable to write to transaction journal " + journalFile, e);
+    }
+  }
+
+  private void compactSafely() {
+    try {
+      compact();
+    } catch (final RuntimeException e) {
+      LOG.error("Unable to compact transaction journal " + journalFile, e);
+    }
+  }
+}
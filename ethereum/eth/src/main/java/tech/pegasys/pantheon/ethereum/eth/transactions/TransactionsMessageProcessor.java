@@ -14,29 +14,69 @@ package tech.pegasys.pantheon.ethereum.eth.transactions;
 
 import static org.apache.logging.log4j.LogManager.getLogger;
 
+import tech.pegasys.pantheon.ethereum.core.PendingTransactions;
 import tech.pegasys.pantheon.ethereum.core.Transaction;
 import tech.pegasys.pantheon.ethereum.core.TransactionPool;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthScheduler;
 import tech.pegasys.pantheon.ethereum.eth.messages.TransactionsMessage;
 import tech.pegasys.pantheon.ethereum.p2p.wire.messages.DisconnectMessage.DisconnectReason;
 import tech.pegasys.pantheon.ethereum.rlp.RLPException;
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.metrics.OperationTimer.TimingContext;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import org.apache.logging.log4j.Logger;
 
 class TransactionsMessageProcessor {
 
   private static final Logger LOG = getLogger();
+  private static final int SENDER_RECOVERY_BATCH_SIZE = 32;
+
   private final PeerTransactionTracker transactionTracker;
   private final TransactionPool transactionPool;
+  private final PendingTransactions pendingTransactions;
+  private final EthScheduler scheduler;
+  private final Counter alreadyKnownCounter;
+  private final Counter sendersRecoveredCounter;
+  private final OperationTimer senderRecoveryTimer;
 
   public TransactionsMessageProcessor(
-      final PeerTransactionTracker transactionTracker, final TransactionPool transactionPool) {
+      final PeerTransactionTracker transactionTracker,
+      final TransactionPool transactionPool,
+      final PendingTransactions pendingTransactions,
+      final EthScheduler scheduler,
+      final MetricsSystem metricsSystem) {
     this.transactionTracker = transactionTracker;
     this.transactionPool = transactionPool;
+    this.pendingTransactions = pendingTransactions;
+    this.scheduler = scheduler;
+    this.alreadyKnownCounter =
+        metricsSystem.createCounter(
+            MetricCategory.TRANSACTION_POOL,
+            "transactions_already_known_total",
+            "Number of received transactions skipped because they were already known");
+    this.sendersRecoveredCounter =
+        metricsSystem.createCounter(
+            MetricCategory.TRANSACTION_POOL,
+            "senders_recovered_total",
+            "Number of received transactions whose sender was recovered");
+    this.senderRecoveryTimer =
+        metricsSystem.createTimer(
+            MetricCategory.TRANSACTION_POOL,
+            "sender_recovery_seconds",
+            "Time taken to recover the senders of a transactions message");
   }
 
   void processTransactionsMessage(
@@ -47,8 +87,19 @@ class TransactionsMessageProcessor {
       final Iterator<Transaction> readTransactions =
           transactionsMessage.transactions(Transaction::readFrom);
       final Set<Transaction> transactions = Sets.newHashSet(readTransactions);
+      final Set<Transaction> newTransactions =
+          transactions
+              .stream()
+              .filter(transaction -> !isKnownTransaction(peer, transaction))
+              .collect(Collectors.toSet());
       transactionTracker.markTransactionsAsSeen(peer, transactions);
-      transactionPool.addRemoteTransactions(transactions);
+      alreadyKnownCounter.inc(transactions.size() - newTransactions.size());
+      if (newTransactions.isEmpty()) {
+        return;
+      }
+
+      recoverSenders(newTransactions);
+      transactionPool.addRemoteTransactions(newTransactions);
     } catch (final RLPException ex) {
       if (peer != null) {
         peer.disconnect(DisconnectReason.BREACH_OF_PROTOCOL);
@@ -57,4 +108,40 @@ class TransactionsMessageProcessor {
       transactionsMessage.release();
     }
   }
+
+  private boolean isKnownTransaction(final EthPeer peer, final Transaction transaction) {
+    return transactionTracker.hasPeerSeenTransaction(peer, transaction)
+        || pendingTransactions.getTransactionByHash(transaction.hash()).isPresent();
+  }
+
+  /**
+   * Recovers the sender of each transaction in parallel batches on the scheduler's computation
+   * pool. The recovered sender is cached by the transaction, so validation in the transaction pool
+   * no longer performs signature recovery one transaction at a time.
+   */
+  private void recoverSenders(final Set<Transaction> transactions) {
+    try (final TimingContext ignored = senderRecoveryTimer.startTimer()) {
+      final List<CompletableFuture<Void>> batches = new ArrayList<>();
+      for (final List<Transaction> batch :
+          Iterables.partition(transactions, SENDER_RECOVERY_BATCH_SIZE)) {
+        batches.add(
+            scheduler.scheduleComputationTask(
+                () -> {
+                  batch.forEach(TransactionsMessageProcessor::recoverSender);
+                  return null;
+                }));
+      }
+      CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).join();
+    }
+    sendersRecoveredCounter.inc(transactions.size());
+  }
+
+  private static void recoverSender(final Transaction transaction) {
+    try {
+      transaction.getSender();
+    } catch (final RuntimeException e) {
+      // Transactions with invalid signatures are rejected by the transaction validator.
+      LOG.trace("Unable to recover sender for transaction {}", transaction.hash());
+    }
+  }
 }
@@ -92,6 +92,27 @@ public class EthSchedulerTest {
     verify(future, times(1)).cancel(eq(false));
   }
 
+  @Test
+  public void scheduleComputationTask_completesWithComputedValue() {
+    final CompletableFuture<String> result = ethScheduler.scheduleComputationTask(() -> "bla");
+
+    assertThat(result.isDone()).isTrue();
+    assertThat(result.join()).isEqualTo("bla");
+  }
+
+  @Test
+  public void scheduleComputationTask_completesExceptionallyWhenComputationFails() {
+    final CompletableFuture<String> result =
+        ethScheduler.scheduleComputationTask(
+            () -> {
+              throw new IllegalStateException("whoops");
+            });
+
+    assertThat(result.isDone()).isTrue();
+    assertThat(result.isCompletedExceptionally()).isTrue();
+    assertThatThrownBy(result::get).hasCauseInstanceOf(IllegalStateException.class);
+  }
+
   @Test
   public void scheduleFutureTask_completesWhenScheduledTaskCompletes() {
     final CompletableFuture<Object> future = new CompletableFuture<>();
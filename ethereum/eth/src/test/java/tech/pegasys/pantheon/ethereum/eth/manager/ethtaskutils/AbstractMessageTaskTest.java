@@ -16,6 +16,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import tech.pegasys.pantheon.ethereum.ProtocolContext;
 import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthContext;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManager;
@@ -43,6 +44,7 @@ public abstract class AbstractMessageTaskTest<T, R> {
   protected static Blockchain blockchain;
   protected static ProtocolSchedule<Void> protocolSchedule;
   protected static ProtocolContext<Void> protocolContext;
+  protected static WorldStateArchive worldStateArchive;
   protected EthProtocolManager ethProtocolManager;
   protected EthContext ethContext;
   protected AtomicBoolean peersDoTimeout;
@@ -55,6 +57,7 @@ public abstract class AbstractMessageTaskTest<T, R> {
     blockchain = blockchainSetupUtil.getBlockchain();
     protocolSchedule = blockchainSetupUtil.getProtocolSchedule();
     protocolContext = blockchainSetupUtil.getProtocolContext();
+    worldStateArchive = blockchainSetupUtil.getWorldArchive();
     assert (blockchainSetupUtil.getMaxBlockNumber() >= 20L);
   }
 
@@ -64,7 +67,9 @@ public abstract class AbstractMessageTaskTest<T, R> {
     peerCountToTimeout = new AtomicInteger(0);
     ethProtocolManager =
         EthProtocolManagerTestUtil.create(
-            blockchain, () -> peerCountToTimeout.getAndDecrement() > 0 || peersDoTimeout.get());
+            blockchain,
+            worldStateArchive,
+            () -> peerCountToTimeout.getAndDecrement() > 0 || peersDoTimeout.get());
     ethContext = ethProtocolManager.ethContext();
   }
 
@@ -78,7 +83,8 @@ public abstract class AbstractMessageTaskTest<T, R> {
   @Test
   public void completesWhenPeersAreResponsive() throws ExecutionException, InterruptedException {
     // Setup a responsive peer
-    final Responder responder = RespondingEthPeer.blockchainResponder(blockchain);
+    final Responder responder =
+        RespondingEthPeer.blockchainResponder(blockchain, worldStateArchive);
     final RespondingEthPeer respondingPeer =
         EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 1000);
 
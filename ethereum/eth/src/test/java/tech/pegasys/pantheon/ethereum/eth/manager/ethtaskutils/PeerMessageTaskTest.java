@@ -42,7 +42,8 @@ public abstract class PeerMessageTaskTest<T> extends AbstractMessageTaskTest<T,
   public void completesWhenPeerReturnsPartialResult()
       throws ExecutionException, InterruptedException {
     // Setup a partially responsive peer
-    final Responder responder = RespondingEthPeer.partialResponder(blockchain, protocolSchedule);
+    final Responder responder =
+        RespondingEthPeer.partialResponder(blockchain, worldStateArchive, protocolSchedule);
     final RespondingEthPeer respondingEthPeer =
         EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 1000);
 
@@ -14,6 +14,7 @@ package tech.pegasys.pantheon.ethereum.eth.sync.state;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -100,6 +101,36 @@ public class SyncStateTest {
     verify(inSyncListener).onSyncStatusChanged(true);
   }
 
+  @Test
+  public void shouldNotifyWhenSyncTargetIsReached() {
+    final Runnable action = mock(Runnable.class);
+    syncState.whenSyncTargetReached(action);
+    setupOutOfSyncState();
+    verify(action, never()).run();
+
+    when(blockchain.getChainHeadBlockNumber()).thenReturn(TARGET_SYNC_NUMBER);
+    blockAddedObserver.onBlockAdded(
+        BlockAddedEvent.createForHeadAdvancement(
+            new Block(
+                targetBlockHeader(),
+                new BlockBody(Collections.emptyList(), Collections.emptyList()))),
+        blockchain);
+
+    verify(action).run();
+  }
+
+  @Test
+  public void shouldNotNotifySyncTargetReachedWhenSyncTargetIsCleared() {
+    final Runnable action = mock(Runnable.class);
+    syncState.whenSyncTargetReached(action);
+    setupOutOfSyncState();
+
+    syncState.clearSyncTarget();
+
+    assertThat(syncState.isInSync()).isTrue();
+    verify(action, never()).run();
+  }
+
   private void setupOutOfSyncState() {
     final BlockHeader bestBlockHeader = targetBlockHeader();
     peerChainHead.update(bestBlockHeader);
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.sync.worldstate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.pegasys.pantheon.ethereum.core.InMemoryWorldState.createInMemoryWorldStateArchive;
+
+import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.core.Account;
+import tech.pegasys.pantheon.ethereum.core.Address;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.BlockHeaderTestFixture;
+import tech.pegasys.pantheon.ethereum.core.Hash;
+import tech.pegasys.pantheon.ethereum.core.MutableAccount;
+import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.Wei;
+import tech.pegasys.pantheon.ethereum.core.WorldState;
+import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
+import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManager;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManagerTestUtil;
+import tech.pegasys.pantheon.ethereum.eth.manager.RespondingEthPeer;
+import tech.pegasys.pantheon.ethereum.eth.manager.RespondingEthPeer.Responder;
+import tech.pegasys.pantheon.ethereum.eth.manager.ethtaskutils.BlockchainSetupUtil;
+import tech.pegasys.pantheon.ethereum.eth.messages.EthPV63;
+import tech.pegasys.pantheon.ethereum.eth.messages.GetNodeDataMessage;
+import tech.pegasys.pantheon.ethereum.p2p.api.MessageData;
+import tech.pegasys.pantheon.ethereum.p2p.wire.messages.DisconnectMessage.DisconnectReason;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+import tech.pegasys.pantheon.util.uint.UInt256;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WorldStateDownloaderTest {
+
+  private static final int ACCOUNT_COUNT = 50;
+
+  private Blockchain blockchain;
+  private WorldStateArchive remoteWorldStateArchive;
+  private BlockHeader header;
+  private List<Address> addresses;
+
+  @Before
+  public void setup() {
+    final BlockchainSetupUtil<Void> blockchainSetupUtil = BlockchainSetupUtil.forTesting();
+    blockchain = blockchainSetupUtil.getBlockchain();
+
+    remoteWorldStateArchive = createInMemoryWorldStateArchive();
+    final MutableWorldState worldState = remoteWorldStateArchive.getMutable();
+    final WorldUpdater updater = worldState.updater();
+    addresses = new ArrayList<>();
+    for (int i = 0; i < ACCOUNT_COUNT; i++) {
+      final Address address = Address.fromHexString(Integer.toHexString(i + 1));
+      final MutableAccount account = updater.createAccount(address, i, Wei.of(1000 + i));
+      if (i % 3 == 0) {
+        account.setCode(BytesValue.of(0x60, i, 0x60, 0x00, 0x55));
+        for (int j = 0; j < 20; j++) {
+          account.setStorageValue(UInt256.of(j), UInt256.of(i * 100 + j + 1));
+        }
+      }
+      addresses.add(address);
+    }
+    updater.commit();
+    worldState.persist();
+
+    header = new BlockHeaderTestFixture().number(10).stateRoot(worldState.rootHash()).buildHeader();
+  }
+
+  @Test
+  public void downloadsCompleteWorldState() {
+    final EthProtocolManager ethProtocolManager = EthProtocolManagerTestUtil.create(blockchain);
+    final RespondingEthPeer peer = EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 100);
+    final WorldStateArchive localWorldStateArchive = createInMemoryWorldStateArchive();
+    final WorldStateDownloader downloader =
+        new WorldStateDownloader(
+            ethProtocolManager.ethContext(), localWorldStateArchive.getStorage(), 10, 2);
+
+    final CompletableFuture<Void> future = downloader.run(header);
+    final Responder responder =
+        RespondingEthPeer.blockchainResponder(blockchain, remoteWorldStateArchive);
+    peer.respondWhile(responder, () -> !future.isDone());
+
+    assertThat(future.isDone()).isTrue();
+    assertThat(future.isCompletedExceptionally()).isFalse();
+    assertWorldStateMatches(localWorldStateArchive.get(header.getStateRoot()));
+  }
+
+  @Test
+  public void resumesWithoutRequestingStoredNodesAgain() {
+    final WorldStateArchive localWorldStateArchive = createInMemoryWorldStateArchive();
+    final Responder responder =
+        RespondingEthPeer.blockchainResponder(blockchain, remoteWorldStateArchive);
+
+    // Download part of the world state, then abandon the download
+    final EthProtocolManager firstEthProtocolManager =
+        EthProtocolManagerTestUtil.create(blockchain);
+    final RespondingEthPeer firstPeer =
+        EthProtocolManagerTestUtil.createPeer(firstEthProtocolManager, 100);
+    new WorldStateDownloader(
+            firstEthProtocolManager.ethContext(), localWorldStateArchive.getStorage(), 10, 1)
+        .run(header);
+    firstPeer.respondTimes(responder, 2);
+    assertThat(localWorldStateArchive.getNodeData(header.getStateRoot())).isPresent();
+
+    // Start again against the same storage
+    final EthProtocolManager ethProtocolManager = EthProtocolManagerTestUtil.create(blockchain);
+    final RespondingEthPeer peer = EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 100);
+    final WorldStateDownloader downloader =
+        new WorldStateDownloader(
+            ethProtocolManager.ethContext(), localWorldStateArchive.getStorage(), 10, 1);
+    final CompletableFuture<Void> future = downloader.run(header);
+
+    final MessageData firstRequest = peer.peekNextOutgoingRequest().get();
+    assertThat(firstRequest.getCode()).isEqualTo(EthPV63.GET_NODE_DATA);
+    final List<Hash> requestedHashes =
+        Lists.newArrayList(GetNodeDataMessage.readFrom(firstRequest).hashes());
+    assertThat(requestedHashes).doesNotContain(header.getStateRoot());
+
+    peer.respondWhile(responder, () -> !future.isDone());
+
+    assertThat(future.isDone()).isTrue();
+    assertThat(future.isCompletedExceptionally()).isFalse();
+    assertWorldStateMatches(localWorldStateArchive.get(header.getStateRoot()));
+  }
+
+  @Test
+  public void failsWhenPeersRepeatedlyReturnNoNodes() {
+    final EthProtocolManager ethProtocolManager = EthProtocolManagerTestUtil.create(blockchain);
+    final RespondingEthPeer peer = EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 100);
+    final WorldStateDownloader downloader =
+        new WorldStateDownloader(
+            ethProtocolManager.ethContext(), createInMemoryWorldStateArchive().getStorage(), 10, 2);
+
+    final CompletableFuture<Void> future = downloader.run(header);
+    final int responseCount = respondWhileNotDone(peer, RespondingEthPeer.emptyResponder(), future);
+
+    assertThat(future.isCompletedExceptionally()).isTrue();
+    assertThat(responseCount).isEqualTo(WorldStateDownloader.MAX_CONSECUTIVE_EMPTY_RESPONSES);
+    assertThat(peer.hasOutstandingRequests()).isFalse();
+  }
+
+  @Test
+  public void canRunAgainAfterPeersReturnedNoNodes() {
+    final EthProtocolManager ethProtocolManager = EthProtocolManagerTestUtil.create(blockchain);
+    final RespondingEthPeer peer = EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 100);
+    final WorldStateArchive localWorldStateArchive = createInMemoryWorldStateArchive();
+    final WorldStateDownloader downloader =
+        new WorldStateDownloader(
+            ethProtocolManager.ethContext(), localWorldStateArchive.getStorage(), 10, 2);
+
+    final CompletableFuture<Void> failedFuture = downloader.run(header);
+    respondWhileNotDone(peer, RespondingEthPeer.emptyResponder(), failedFuture);
+    assertThat(failedFuture.isCompletedExceptionally()).isTrue();
+
+    // The first peer was disconnected for its useless responses
+    ethProtocolManager.handleDisconnect(
+        peer.getPeerConnection(), DisconnectReason.USELESS_PEER, false);
+    final RespondingEthPeer newPeer =
+        EthProtocolManagerTestUtil.createPeer(ethProtocolManager, 100);
+    final CompletableFuture<Void> future = downloader.run(header);
+    final Responder responder =
+        RespondingEthPeer.blockchainResponder(blockchain, remoteWorldStateArchive);
+    newPeer.respondWhile(responder, () -> !future.isDone());
+
+    assertThat(future.isDone()).isTrue();
+    assertThat(future.isCompletedExceptionally()).isFalse();
+    assertWorldStateMatches(localWorldStateArchive.get(header.getStateRoot()));
+  }
+
+  @Test
+  public void completesImmediatelyForEmptyWorldState() {
+    final EthProtocolManager ethProtocolManager = EthProtocolManagerTestUtil.create(blockchain);
+    final WorldStateDownloader downloader =
+        new WorldStateDownloader(
+            ethProtocolManager.ethContext(), createInMemoryWorldStateArchive().getStorage(), 10, 2);
+
+    final BlockHeader emptyStateHeader =
+        new BlockHeaderTestFixture().stateRoot(Hash.EMPTY_TRIE_HASH).buildHeader();
+    final CompletableFuture<Void> future = downloader.run(emptyStateHeader);
+    assertThat(future.isDone()).isTrue();
+    assertThat(future.isCompletedExceptionally()).isFalse();
+  }
+
+  private int respondWhileNotDone(
+      final RespondingEthPeer peer, final Responder responder, final CompletableFuture<?> future) {
+    int responseCount = 0;
+    while (!future.isDone() && peer.respond(responder)) {
+      responseCount++;
+    }
+    return responseCount;
+  }
+
+  private void assertWorldStateMatches(final WorldState localWorldState) {
+    final WorldState remoteWorldState = remoteWorldStateArchive.get(header.getStateRoot());
+    for (final Address address : addresses) {
+      final Account expected = remoteWorldState.get(address);
+      final Account actual = localWorldState.get(address);
+      assertThat(actual.getNonce()).isEqualTo(expected.getNonce());
+      assertThat(actual.getBalance()).isEqualTo(expected.getBalance());
+      assertThat(actual.getCode()).isEqualTo(expected.getCode());
+      for (int j = 0; j < 20; j++) {
+        assertThat(actual.getStorageValue(UInt256.of(j)))
+            .isEqualTo(expected.getStorageValue(UInt256.of(j)));
+      }
+    }
+  }
+}
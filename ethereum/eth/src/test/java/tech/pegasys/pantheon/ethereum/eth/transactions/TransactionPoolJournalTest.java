@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.eth.transactions;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import tech.pegasys.pantheon.ethereum.core.PendingTransactions;
+import tech.pegasys.pantheon.ethereum.core.Transaction;
+import tech.pegasys.pantheon.ethereum.core.TransactionPool;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthScheduler;
+import tech.pegasys.pantheon.ethereum.testutil.BlockDataGenerator;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TransactionPoolJournalTest {
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  private final PendingTransactions pendingTransactions = mock(PendingTransactions.class);
+  private final EthScheduler scheduler = mock(EthScheduler.class);
+
+  private final BlockDataGenerator generator = new BlockDataGenerator();
+  private final Transaction localTransaction = generator.transaction();
+  private final Transaction remoteTransaction = generator.transaction();
+
+  private Path journalFile;
+
+  @Before
+  public void setUp() throws IOException {
+    journalFile = folder.newFolder().toPath().resolve(TransactionPoolJournal.JOURNAL_FILE_NAME);
+    when(scheduler.scheduleComputationTask(any()))
+        .thenAnswer(
+            invocation ->
+                CompletableFuture.completedFuture(((Supplier<?>) invocation.getArgument(0)).get()));
+    when(pendingTransactions.isLocalTransaction(localTransaction.hash())).thenReturn(true);
+    when(pendingTransactions.getTransactionByHash(localTransaction.hash()))
+        .thenReturn(Optional.of(localTransaction));
+    when(pendingTransactions.getTransactionByHash(remoteTransaction.hash()))
+        .thenReturn(Optional.of(remoteTransaction));
+  }
+
+  @Test
+  public void shouldReplayJournaledLocalTransactions() throws IOException {
+    final TransactionPoolJournal journal = createJournal(false);
+    journal.onTransactionAdded(localTransaction);
+    journal.onTransactionAdded(remoteTransaction);
+    journal.flush();
+
+    final TransactionPool restartedPool = replay(false);
+
+    verify(restartedPool).addLocalTransaction(localTransaction);
+    verify(restartedPool).addRemoteTransactions(emptyList());
+  }
+
+  @Test
+  public void shouldReplayJournaledRemoteTransactionsWhenEnabled() throws IOException {
+    final TransactionPoolJournal journal = createJournal(true);
+    journal.onTransactionAdded(localTransaction);
+    journal.onTransactionAdded(remoteTransaction);
+    journal.flush();
+
+    final TransactionPool restartedPool = replay(true);
+
+    verify(restartedPool).addLocalTransaction(localTransaction);
+    verify(restartedPool).addRemoteTransactions(singletonList(remoteTransaction));
+  }
+
+  @Test
+  public void shouldDropTransactionsNoLongerPendingWhenCompacted() throws IOException {
+    final TransactionPoolJournal journal = createJournal(true);
+    journal.onTransactionAdded(localTransaction);
+    journal.onTransactionAdded(remoteTransaction);
+    journal.flush();
+
+    when(pendingTransactions.getLocalTransactions()).thenReturn(emptyList());
+    when(pendingTransactions.getRemoteTransactions()).thenReturn(singletonList(remoteTransaction));
+    journal.compact();
+
+    final TransactionPool restartedPool = replay(true);
+
+    verify(restartedPool, never()).addLocalTransaction(any());
+    verify(restartedPool).addRemoteTransactions(singletonList(remoteTransaction));
+  }
+
+  @Test
+  public void shouldReplayRecordsBeforeTruncatedRecord() throws IOException {
+    final TransactionPoolJournal journal = createJournal(true);
+    journal.onTransactionAdded(localTransaction);
+    journal.flush();
+    journal.onTransactionAdded(remoteTransaction);
+    journal.flush();
+
+    try (final RandomAccessFile file = new RandomAccessFile(journalFile.toFile(), "rw")) {
+      file.setLength(file.length() - 10);
+    }
+
+    final TransactionPool restartedPool = replay(true);
+
+    verify(restartedPool).addLocalTransaction(localTransaction);
+    verify(restartedPool).addRemoteTransactions(emptyList());
+  }
+
+  @Test
+  public void shouldNotReplayWhenJournalDoesNotExist() {
+    final TransactionPool restartedPool = replay(true);
+
+    verify(restartedPool, never()).addLocalTransaction(any());
+    verify(restartedPool, never()).addRemoteTransactions(any());
+  }
+
+  private TransactionPoolJournal createJournal(final boolean journalRemoteTransactions) {
+    final TransactionPool transactionPool = mock(TransactionPool.class);
+    when(transactionPool.getPendingTransactions()).thenReturn(pendingTransactions);
+    return new TransactionPoolJournal(
+        journalFile,
+        new TransactionPoolConfiguration(journalRemoteTransactions),
+        transactionPool,
+        scheduler);
+  }
+
+  private TransactionPool replay(final boolean journalRemoteTransactions) {
+    final TransactionPool transactionPool = mock(TransactionPool.class);
+    when(transactionPool.getPendingTransactions()).thenReturn(mock(PendingTransactions.class));
+    new TransactionPoolJournal(
+            journalFile,
+            new TransactionPoolConfiguration(journalRemoteTransactions),
+            transactionPool,
+            scheduler)
+        .replay();
+    return transactionPool;
+  }
+}
@@ -13,22 +13,34 @@
 package tech.pegasys.pantheon.ethereum.eth.transactions;
 
 import static java.util.Arrays.asList;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import tech.pegasys.pantheon.ethereum.core.PendingTransactions;
 import tech.pegasys.pantheon.ethereum.core.Transaction;
 import tech.pegasys.pantheon.ethereum.core.TransactionPool;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthPeer;
+import tech.pegasys.pantheon.ethereum.eth.manager.EthScheduler;
 import tech.pegasys.pantheon.ethereum.eth.messages.TransactionsMessage;
 import tech.pegasys.pantheon.ethereum.testutil.BlockDataGenerator;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import com.google.common.collect.ImmutableSet;
+import org.junit.Before;
 import org.junit.Test;
 
 public class TransactionsMessageProcessorTest {
 
   private final TransactionPool transactionPool = mock(TransactionPool.class);
   private final PeerTransactionTracker transactionTracker = mock(PeerTransactionTracker.class);
+  private final PendingTransactions pendingTransactions = new PendingTransactions(10);
+  private final EthScheduler scheduler = mock(EthScheduler.class);
   private final EthPeer peer1 = mock(EthPeer.class);
 
   private final BlockDataGenerator generator = new BlockDataGenerator();
@@ -37,7 +49,20 @@ public class TransactionsMessageProcessorTest {
   private final Transaction transaction3 = generator.transaction();
 
   private final TransactionsMessageProcessor messageHandler =
-      new TransactionsMessageProcessor(transactionTracker, transactionPool);
+      new TransactionsMessageProcessor(
+          transactionTracker,
+          transactionPool,
+          pendingTransactions,
+          scheduler,
+          new NoOpMetricsSystem());
+
+  @Before
+  public void setUp() {
+    when(scheduler.scheduleComputationTask(any()))
+        .thenAnswer(
+            invocation ->
+                CompletableFuture.completedFuture(((Supplier<?>) invocation.getArgument(0)).get()));
+  }
 
   @Test
   public void shouldMarkAllReceivedTransactionsAsSeen() {
@@ -56,4 +81,46 @@ public class TransactionsMessageProcessorTest {
     verify(transactionPool)
         .addRemoteTransactions(ImmutableSet.of(transaction1, transaction2, transaction3));
   }
+
+  @Test
+  public void shouldRecoverSendersOnComputationPool() {
+    messageHandler.processTransactionsMessage(
+        peer1, TransactionsMessage.create(asList(transaction1, transaction2, transaction3)));
+
+    verify(scheduler).scheduleComputationTask(any());
+  }
+
+  @Test
+  public void shouldSkipTransactionsAlreadySeenFromPeer() {
+    when(transactionTracker.hasPeerSeenTransaction(peer1, transaction1)).thenReturn(true);
+
+    messageHandler.processTransactionsMessage(
+        peer1, TransactionsMessage.create(asList(transaction1, transaction2, transaction3)));
+
+    verify(transactionTracker)
+        .markTransactionsAsSeen(peer1, ImmutableSet.of(transaction1, transaction2, transaction3));
+    verify(transactionPool).addRemoteTransactions(ImmutableSet.of(transaction2, transaction3));
+  }
+
+  @Test
+  public void shouldSkipTransactionsAlreadyPending() {
+    pendingTransactions.addRemoteTransaction(transaction2);
+
+    messageHandler.processTransactionsMessage(
+        peer1, TransactionsMessage.create(asList(transaction1, transaction2, transaction3)));
+
+    verify(transactionPool).addRemoteTransactions(ImmutableSet.of(transaction1, transaction3));
+  }
+
+  @Test
+  public void shouldNotRecoverSendersWhenAllTransactionsAreKnown() {
+    pendingTransactions.addRemoteTransaction(transaction1);
+    pendingTransactions.addRemoteTransaction(transaction2);
+
+    messageHandler.processTransactionsMessage(
+        peer1, TransactionsMessage.create(asList(transaction1, transaction2)));
+
+    verify(scheduler, never()).scheduleComputationTask(any());
+    verify(transactionPool, never()).addRemoteTransactions(any());
+  }
 }
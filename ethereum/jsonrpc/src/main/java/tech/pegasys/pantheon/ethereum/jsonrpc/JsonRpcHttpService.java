@@ -14,6 +14,7 @@ package tech.pegasys.pantheon.ethereum.jsonrpc;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.stream.Collectors.toList;
+import static tech.pegasys.pantheon.metrics.MetricCategory.RPC;
 import static tech.pegasys.pantheon.util.NetworkUtility.urlForSocketAddress;
 
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.JsonRpcRequest;
@@ -25,6 +26,11 @@ import tech.pegasys.pantheon.ethereum.jsonrpc.internal.response.JsonRpcErrorResp
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.response.JsonRpcNoResponse;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.response.JsonRpcResponse;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.response.JsonRpcResponseType;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.metrics.OperationTimer.TimingContext;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
 import tech.pegasys.pantheon.util.NetworkUtility;
 
 import java.net.BindException;
@@ -69,6 +75,7 @@ public class JsonRpcHttpService {
   private final JsonRpcConfiguration config;
   private final Map<String, JsonRpcMethod> jsonRpcMethods;
   private final Path dataDir;
+  private final LabelledMetric<OperationTimer> requestTimer;
 
   private HttpServer httpServer;
 
@@ -77,11 +84,23 @@ public class JsonRpcHttpService {
       final Path dataDir,
       final JsonRpcConfiguration config,
       final Map<String, JsonRpcMethod> methods) {
+    this(vertx, dataDir, config, methods, new NoOpMetricsSystem());
+  }
+
+  public JsonRpcHttpService(
+      final Vertx vertx,
+      final Path dataDir,
+      final JsonRpcConfiguration config,
+      final Map<String, JsonRpcMethod> methods,
+      final MetricsSystem metricsSystem) {
     this.dataDir = dataDir;
     validateConfig(config);
     this.config = config;
     this.vertx = vertx;
     this.jsonRpcMethods = methods;
+    this.requestTimer =
+        metricsSystem.createLabelledTimer(
+            RPC, "request_seconds", "Time taken to process JSON-RPC requests", "method");
   }
 
   private void validateConfig(final JsonRpcConfiguration config) {
@@ -327,7 +346,7 @@ public class JsonRpcHttpService {
     }
 
     // Generate response
-    try {
+    try (final TimingContext ignored = requestTimer.labels(request.getMethod()).startTimer()) {
       return method.response(request);
     } catch (final InvalidJsonRpcParameters e) {
       LOG.debug(e);
@@ -12,13 +12,18 @@
  */
 package tech.pegasys.pantheon.ethereum.jsonrpc.internal.filter;
 
+import tech.pegasys.pantheon.ethereum.chain.LogsBloomIndex;
 import tech.pegasys.pantheon.ethereum.core.Address;
 import tech.pegasys.pantheon.ethereum.core.Log;
 import tech.pegasys.pantheon.ethereum.core.LogTopic;
+import tech.pegasys.pantheon.ethereum.core.LogsBloomFilter;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.parameters.TopicsParameter;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
 
@@ -26,10 +31,20 @@ public class LogsQuery {
 
   private final List<Address> queryAddresses;
   private final List<List<LogTopic>> queryTopics;
+  // Each entry must be matched by at least one of its alternatives, wildcards are left out.
+  private final List<List<LogsBloomFilter>> bloomCriteria = Lists.newArrayList();
 
   private LogsQuery(final List<Address> addresses, final List<List<LogTopic>> topics) {
     this.queryAddresses = addresses;
     this.queryTopics = topics;
+    if (!addresses.isEmpty()) {
+      bloomCriteria.add(toBlooms(addresses));
+    }
+    for (final List<LogTopic> alternatives : topics) {
+      if (!alternatives.isEmpty() && !alternatives.contains(null)) {
+        bloomCriteria.add(toBlooms(alternatives));
+      }
+    }
   }
 
   public boolean matches(final Log log) {
@@ -67,6 +82,63 @@ public class LogsQuery {
     return false;
   }
 
+  /**
+   * Checks a block's logs bloom to determine whether it could contain logs matching this query.
+   *
+   * @param bloom The logs bloom of the block.
+   * @return false if the block definitely contains no matching logs.
+   */
+  public boolean couldMatch(final LogsBloomFilter bloom) {
+    return bloomCriteria
+        .stream()
+        .allMatch(alternatives -> alternatives.stream().anyMatch(bloom::couldContain));
+  }
+
+  /**
+   * Uses a logs bloom index to find the blocks in a section that could contain logs matching this
+   * query.
+   *
+   * @param index The logs bloom index.
+   * @param section The indexed section to search.
+   * @return The offsets within the section of blocks whose logs bloom matches this query.
+   */
+  public BitSet candidateBlocks(final LogsBloomIndex index, final long section) {
+    final BitSet candidates = new BitSet(index.getSectionSize());
+    candidates.set(0, index.getSectionSize());
+    for (final List<LogsBloomFilter> alternatives : bloomCriteria) {
+      final BitSet matchingAnyAlternative = new BitSet(index.getSectionSize());
+      for (final LogsBloomFilter alternative : alternatives) {
+        matchingAnyAlternative.or(blocksMatchingBloom(index, section, alternative));
+      }
+      candidates.and(matchingAnyAlternative);
+    }
+    return candidates;
+  }
+
+  private BitSet blocksMatchingBloom(
+      final LogsBloomIndex index, final long section, final LogsBloomFilter bloom) {
+    final BitSet blocks = new BitSet(index.getSectionSize());
+    blocks.set(0, index.getSectionSize());
+    for (int bit = 0; bit < LogsBloomFilter.BIT_SIZE; bit++) {
+      if (bloom.isBitSet(bit)) {
+        blocks.and(index.getBlocksWithBloomBit(section, bit));
+      }
+    }
+    return blocks;
+  }
+
+  private static List<LogsBloomFilter> toBlooms(final List<? extends BytesValue> values) {
+    return values
+        .stream()
+        .map(
+            value -> {
+              final LogsBloomFilter bloom = new LogsBloomFilter();
+              bloom.insertBytes(value);
+              return bloom;
+            })
+        .collect(Collectors.toList());
+  }
+
   public static class Builder {
     private final List<Address> queryAddresses = Lists.newArrayList();
     private final List<List<LogTopic>> queryTopics = Lists.newArrayList();
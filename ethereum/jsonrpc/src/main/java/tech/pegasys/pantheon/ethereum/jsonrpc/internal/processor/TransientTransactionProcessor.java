@@ -17,7 +17,6 @@ import tech.pegasys.pantheon.ethereum.chain.Blockchain;
 import tech.pegasys.pantheon.ethereum.core.Account;
 import tech.pegasys.pantheon.ethereum.core.Address;
 import tech.pegasys.pantheon.ethereum.core.BlockHeader;
-import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
 import tech.pegasys.pantheon.ethereum.core.Transaction;
 import tech.pegasys.pantheon.ethereum.core.Wei;
 import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
@@ -26,6 +25,7 @@ import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSpec;
 import tech.pegasys.pantheon.ethereum.mainnet.TransactionProcessor;
 import tech.pegasys.pantheon.ethereum.vm.BlockHashLookup;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateSnapshot;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.util.Optional;
@@ -66,14 +66,68 @@ public class TransientTransactionProcessor {
     if (header == null) {
       return Optional.empty();
     }
-    final MutableWorldState worldState = worldStateArchive.getMutable(header.getStateRoot());
+    final WorldStateSnapshot worldState = worldStateArchive.getSnapshot(header.getStateRoot());
+    final long gasLimit =
+        callParams.getGasLimit() >= 0 ? callParams.getGasLimit() : header.getGasLimit();
+
+    return Optional.of(process(callParams, gasLimit, header, worldState));
+  }
+
+  /**
+   * Estimates the lowest gas limit with which a call succeeds.
+   *
+   * <p>The call is first executed with the full gas limit. If the gas it used is enough when given
+   * as the limit, that is the estimate. Otherwise (for instance when the called contract checks the
+   * remaining gas) the lowest working limit is found by binary search. Every execution runs on a
+   * throwaway overlay of the same world state snapshot.
+   *
+   * @param callParams the call to estimate; its gas limit, or the block gas limit if absent, is the
+   *     upper bound of the estimate
+   * @param blockNumber the block whose world state the call executes against
+   * @return the gas estimate, or empty if the block is unknown
+   */
+  public Optional<Long> estimateGas(final CallParameter callParams, final long blockNumber) {
+    final BlockHeader header = blockchain.getBlockHeader(blockNumber).orElse(null);
+    if (header == null) {
+      return Optional.empty();
+    }
+    final WorldStateSnapshot worldState = worldStateArchive.getSnapshot(header.getStateRoot());
+    final long maxGasLimit =
+        callParams.getGasLimit() >= 0 ? callParams.getGasLimit() : header.getGasLimit();
 
+    final TransientTransactionProcessingResult firstResult =
+        process(callParams, maxGasLimit, header, worldState);
+    final long gasUsed = firstResult.getGasEstimate();
+    if (!firstResult.isSuccessful() || gasUsed >= maxGasLimit) {
+      return Optional.of(gasUsed);
+    }
+    if (process(callParams, gasUsed, header, worldState).isSuccessful()) {
+      return Optional.of(gasUsed);
+    }
+
+    // The call fails with the gas it used, and succeeds with the maximum.
+    long failingGasLimit = gasUsed;
+    long succeedingGasLimit = maxGasLimit;
+    while (succeedingGasLimit - failingGasLimit > 1) {
+      final long gasLimit = failingGasLimit + (succeedingGasLimit - failingGasLimit) / 2;
+      if (process(callParams, gasLimit, header, worldState).isSuccessful()) {
+        succeedingGasLimit = gasLimit;
+      } else {
+        failingGasLimit = gasLimit;
+      }
+    }
+    return Optional.of(succeedingGasLimit);
+  }
+
+  private TransientTransactionProcessingResult process(
+      final CallParameter callParams,
+      final long gasLimit,
+      final BlockHeader header,
+      final WorldStateSnapshot worldState) {
     final Address senderAddress =
         callParams.getFrom() != null ? callParams.getFrom() : DEFAULT_FROM;
     final Account sender = worldState.get(senderAddress);
     final long nonce = sender != null ? sender.getNonce() : 0L;
-    final long gasLimit =
-        callParams.getGasLimit() >= 0 ? callParams.getGasLimit() : header.getGasLimit();
     final Wei gasPrice = callParams.getGasPrice() != null ? callParams.getGasPrice() : Wei.ZERO;
     final Wei value = callParams.getValue() != null ? callParams.getValue() : Wei.ZERO;
     final BytesValue payload =
@@ -93,8 +147,7 @@ public class TransientTransactionProcessor {
 
     final ProtocolSpec<?> protocolSpec = protocolSchedule.getByBlockNumber(header.getNumber());
 
-    final TransactionProcessor transactionProcessor =
-        protocolSchedule.getByBlockNumber(header.getNumber()).getTransactionProcessor();
+    final TransactionProcessor transactionProcessor = protocolSpec.getTransactionProcessor();
     final TransactionProcessor.Result result =
         transactionProcessor.processTransaction(
             blockchain,
@@ -104,6 +157,6 @@ public class TransientTransactionProcessor {
             protocolSpec.getMiningBeneficiaryCalculator().calculateBeneficiary(header),
             new BlockHashLookup(header, blockchain));
 
-    return Optional.of(new TransientTransactionProcessingResult(transaction, result));
+    return new TransientTransactionProcessingResult(transaction, result);
   }
 }
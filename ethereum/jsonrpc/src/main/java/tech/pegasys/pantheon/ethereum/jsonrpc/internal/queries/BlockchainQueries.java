@@ -15,6 +15,7 @@ package tech.pegasys.pantheon.ethereum.jsonrpc.internal.queries;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import tech.pegasys.pantheon.ethereum.chain.Blockchain;
+import tech.pegasys.pantheon.ethereum.chain.LogsBloomIndex;
 import tech.pegasys.pantheon.ethereum.chain.TransactionLocation;
 import tech.pegasys.pantheon.ethereum.core.Account;
 import tech.pegasys.pantheon.ethereum.core.Address;
@@ -32,6 +33,7 @@ import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -536,37 +538,74 @@ public class BlockchainQueries {
     if (fromBlockNumber > toBlockNumber || toBlockNumber > headBlockNumber()) {
       return Lists.newArrayList();
     }
-    List<LogWithMetadata> matchingLogs = Lists.newArrayList();
-    for (long blockNumber = fromBlockNumber; blockNumber <= toBlockNumber; blockNumber++) {
-      final Hash blockhash = blockchain.getBlockHashByNumber(blockNumber).get();
-      final boolean logHasBeenRemoved = !blockchain.blockIsOnCanonicalChain(blockhash);
-      final List<TransactionReceipt> receipts = blockchain.getTxReceipts(blockhash).get();
-      final List<Transaction> transaction =
-          blockchain.getBlockBody(blockhash).get().getTransactions();
-      matchingLogs =
-          generateLogWithMetadata(
-              receipts,
-              blockNumber,
-              query,
-              blockhash,
-              matchingLogs,
-              transaction,
-              logHasBeenRemoved);
+    final Optional<LogsBloomIndex> bloomIndex = blockchain.getLogsBloomIndex();
+    final List<LogWithMetadata> matchingLogs = Lists.newArrayList();
+    long blockNumber = fromBlockNumber;
+    while (blockNumber <= toBlockNumber) {
+      if (bloomIndex.isPresent()) {
+        final LogsBloomIndex index = bloomIndex.get();
+        final long section = blockNumber / index.getSectionSize();
+        if (index.isSectionIndexed(section)) {
+          final long sectionEnd =
+              Math.min((section + 1) * index.getSectionSize() - 1, toBlockNumber);
+          appendMatchingLogsInSection(index, section, blockNumber, sectionEnd, query, matchingLogs);
+          blockNumber = sectionEnd + 1;
+          continue;
+        }
+      }
+      appendMatchingLogs(blockNumber, query, matchingLogs);
+      blockNumber++;
     }
     return matchingLogs;
   }
 
   public List<LogWithMetadata> matchingLogs(final Hash blockhash, final LogsQuery query) {
     final List<LogWithMetadata> matchingLogs = Lists.newArrayList();
+    final BlockHeader header = blockchain.getBlockHeader(blockhash).get();
+    if (!query.couldMatch(header.getLogsBloom())) {
+      return matchingLogs;
+    }
     final List<TransactionReceipt> receipts = blockchain.getTxReceipts(blockhash).get();
     final List<Transaction> transaction =
         blockchain.getBlockBody(blockhash).get().getTransactions();
-    final long number = blockchain.getBlockHeader(blockhash).get().getNumber();
+    final long number = header.getNumber();
     final boolean logHasBeenRemoved = !blockchain.blockIsOnCanonicalChain(blockhash);
     return generateLogWithMetadata(
         receipts, number, query, blockhash, matchingLogs, transaction, logHasBeenRemoved);
   }
 
+  private void appendMatchingLogsInSection(
+      final LogsBloomIndex index,
+      final long section,
+      final long fromBlockNumber,
+      final long toBlockNumber,
+      final LogsQuery query,
+      final List<LogWithMetadata> matchingLogs) {
+    final long sectionStart = section * index.getSectionSize();
+    final BitSet candidates = query.candidateBlocks(index, section);
+    for (int offset = candidates.nextSetBit((int) (fromBlockNumber - sectionStart));
+        offset >= 0 && sectionStart + offset <= toBlockNumber;
+        offset = candidates.nextSetBit(offset + 1)) {
+      appendMatchingLogs(sectionStart + offset, query, matchingLogs);
+    }
+  }
+
+  private void appendMatchingLogs(
+      final long blockNumber, final LogsQuery query, final List<LogWithMetadata> matchingLogs) {
+    final BlockHeader header = blockchain.getBlockHeader(blockNumber).get();
+    if (!query.couldMatch(header.getLogsBloom())) {
+      // The bloom filter rules out any matching logs without reading receipts or the body
+      return;
+    }
+    final Hash blockhash = header.getHash();
+    final boolean logHasBeenRemoved = !blockchain.blockIsOnCanonicalChain(blockhash);
+    final List<TransactionReceipt> receipts = blockchain.getTxReceipts(blockhash).get();
+    final List<Transaction> transaction =
+        blockchain.getBlockBody(blockhash).get().getTransactions();
+    generateLogWithMetadata(
+        receipts, blockNumber, query, blockhash, matchingLogs, transaction, logHasBeenRemoved);
+  }
+
   private List<LogWithMetadata> generateLogWithMetadata(
       final List<TransactionReceipt> receipts,
       final long number,
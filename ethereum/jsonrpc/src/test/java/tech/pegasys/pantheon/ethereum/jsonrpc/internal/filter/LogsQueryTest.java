@@ -17,6 +17,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import tech.pegasys.pantheon.ethereum.core.Address;
 import tech.pegasys.pantheon.ethereum.core.Log;
 import tech.pegasys.pantheon.ethereum.core.LogTopic;
+import tech.pegasys.pantheon.ethereum.core.LogsBloomFilter;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.util.ArrayList;
@@ -414,4 +415,64 @@ public class LogsQueryTest {
 
     assertThat(query.matches(log)).isTrue();
   }
+
+  @Test
+  public void bloomContainingAddressAndTopicsCouldMatch() {
+    final Address address = Address.fromHexString("0x1111111111111111111111111111111111111111");
+    final LogTopic topic =
+        LogTopic.fromHexString(
+            "0xaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+    final LogTopic otherTopic =
+        LogTopic.fromHexString(
+            "0xbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbb");
+    final LogsQuery query =
+        new LogsQuery.Builder()
+            .address(address)
+            .topics(Lists.<List<LogTopic>>newArrayList(Lists.newArrayList(otherTopic, topic)))
+            .build();
+
+    final LogsBloomFilter bloom =
+        LogsBloomFilter.compute(
+            Lists.newArrayList(new Log(address, BytesValue.EMPTY, Lists.newArrayList(topic))));
+
+    assertThat(query.couldMatch(bloom)).isTrue();
+  }
+
+  @Test
+  public void bloomMissingTopicCannotMatch() {
+    final Address address = Address.fromHexString("0x1111111111111111111111111111111111111111");
+    final LogTopic topic =
+        LogTopic.fromHexString(
+            "0xaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa");
+    final LogsQuery query =
+        new LogsQuery.Builder()
+            .address(address)
+            .topics(Lists.<List<LogTopic>>newArrayList(Lists.newArrayList(topic)))
+            .build();
+
+    final LogsBloomFilter bloom =
+        LogsBloomFilter.compute(
+            Lists.newArrayList(new Log(address, BytesValue.EMPTY, new ArrayList<>())));
+
+    assertThat(query.couldMatch(bloom)).isFalse();
+  }
+
+  @Test
+  public void wildcardTopicsIgnoredWhenCheckingBloom() {
+    final Address address = Address.fromHexString("0x1111111111111111111111111111111111111111");
+    final List<LogTopic> wildcard = new ArrayList<>();
+    wildcard.add(null);
+    final LogsQuery query =
+        new LogsQuery.Builder()
+            .address(address)
+            .topics(Lists.<List<LogTopic>>newArrayList(wildcard))
+            .build();
+
+    final LogsBloomFilter bloom =
+        LogsBloomFilter.compute(
+            Lists.newArrayList(new Log(address, BytesValue.EMPTY, new ArrayList<>())));
+
+    assertThat(query.couldMatch(bloom)).isTrue();
+    assertThat(new LogsQuery.Builder().build().couldMatch(LogsBloomFilter.empty())).isTrue();
+  }
 }
@@ -16,6 +16,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -25,18 +26,21 @@ import tech.pegasys.pantheon.ethereum.core.Account;
 import tech.pegasys.pantheon.ethereum.core.Address;
 import tech.pegasys.pantheon.ethereum.core.BlockHeader;
 import tech.pegasys.pantheon.ethereum.core.Hash;
-import tech.pegasys.pantheon.ethereum.core.MutableWorldState;
+import tech.pegasys.pantheon.ethereum.core.LogSeries;
 import tech.pegasys.pantheon.ethereum.core.Transaction;
 import tech.pegasys.pantheon.ethereum.core.Wei;
 import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.parameters.CallParameter;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.processor.TransientTransactionProcessingResult;
 import tech.pegasys.pantheon.ethereum.jsonrpc.internal.processor.TransientTransactionProcessor;
+import tech.pegasys.pantheon.ethereum.mainnet.MainnetTransactionProcessor;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSpec;
 import tech.pegasys.pantheon.ethereum.mainnet.TransactionProcessor;
 import tech.pegasys.pantheon.ethereum.mainnet.TransactionProcessor.Result;
 import tech.pegasys.pantheon.ethereum.mainnet.TransactionProcessor.Result.Status;
+import tech.pegasys.pantheon.ethereum.mainnet.ValidationResult;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateSnapshot;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.util.Optional;
@@ -61,7 +65,7 @@ public class TransientTransactionProcessorTest {
 
   @Mock private Blockchain blockchain;
   @Mock private WorldStateArchive worldStateArchive;
-  @Mock private MutableWorldState worldState;
+  @Mock private WorldStateSnapshot worldState;
   @Mock private ProtocolSchedule<?> protocolSchedule;
   @Mock private ProtocolSpec protocolSpec;
   @Mock private TransactionProcessor transactionProcessor;
@@ -187,16 +191,47 @@ public class TransientTransactionProcessorTest {
     verifyTransactionWasProcessed(expectedTransaction);
   }
 
+  @Test
+  public void shouldEstimateGasUsedWhenItIsEnoughToSucceed() {
+    final CallParameter callParameter = callParameter(100_000L);
+
+    mockBlockchainForBlockHeader(Hash.ZERO, 1L);
+    mockWorldStateForAbsentAccount(Hash.ZERO);
+    mockProcessorForRequiredGas(1L, 21_000L, 21_000L);
+
+    assertThat(transientTransactionProcessor.estimateGas(callParameter, 1L)).contains(21_000L);
+    verify(transactionProcessor, times(2))
+        .processTransaction(any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  public void shouldSearchForLowestSucceedingGasLimitWhenGasUsedIsNotEnough() {
+    final CallParameter callParameter = callParameter(100_000L);
+
+    mockBlockchainForBlockHeader(Hash.ZERO, 1L);
+    mockWorldStateForAbsentAccount(Hash.ZERO);
+    mockProcessorForRequiredGas(1L, 30_000L, 35_123L);
+
+    assertThat(transientTransactionProcessor.estimateGas(callParameter, 1L)).contains(35_123L);
+  }
+
+  @Test
+  public void shouldReturnEmptyEstimateWhenBlockDoesNotExist() {
+    when(blockchain.getBlockHeader(eq(1L))).thenReturn(Optional.empty());
+
+    assertThat(transientTransactionProcessor.estimateGas(callParameter(), 1L)).isEmpty();
+  }
+
   private void mockWorldStateForAccount(
       final Hash stateRoot, final Address address, final long nonce) {
     final Account account = mock(Account.class);
     when(account.getNonce()).thenReturn(nonce);
-    when(worldStateArchive.getMutable(eq(stateRoot))).thenReturn(worldState);
+    when(worldStateArchive.getSnapshot(eq(stateRoot))).thenReturn(worldState);
     when(worldState.get(eq(address))).thenReturn(account);
   }
 
   private void mockWorldStateForAbsentAccount(final Hash stateRoot) {
-    when(worldStateArchive.getMutable(eq(stateRoot))).thenReturn(worldState);
+    when(worldStateArchive.getSnapshot(eq(stateRoot))).thenReturn(worldState);
     when(worldState.get(any())).thenReturn(null);
   }
 
@@ -232,6 +267,23 @@ public class TransientTransactionProcessorTest {
         .thenReturn(result);
   }
 
+  private void mockProcessorForRequiredGas(
+      final long blockNumber, final long gasUsed, final long gasRequired) {
+    when(protocolSchedule.getByBlockNumber(eq(blockNumber))).thenReturn(protocolSpec);
+    when(protocolSpec.getTransactionProcessor()).thenReturn(transactionProcessor);
+    when(protocolSpec.getMiningBeneficiaryCalculator()).thenReturn(BlockHeader::getCoinbase);
+    when(transactionProcessor.processTransaction(any(), any(), any(), any(), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              final long gasLimit = invocation.<Transaction>getArgument(3).getGasLimit();
+              final long gasRemaining = Math.max(gasLimit - gasUsed, 0L);
+              return gasLimit >= gasRequired
+                  ? MainnetTransactionProcessor.Result.successful(
+                      LogSeries.empty(), gasRemaining, BytesValue.EMPTY, ValidationResult.valid())
+                  : MainnetTransactionProcessor.Result.failed(0L, ValidationResult.valid());
+            });
+  }
+
   private void verifyTransactionWasProcessed(final Transaction expectedTransaction) {
     verify(transactionProcessor)
         .processTransaction(any(), any(), any(), eq(expectedTransaction), any(), any());
@@ -240,4 +292,8 @@ public class TransientTransactionProcessorTest {
   private CallParameter callParameter() {
     return new CallParameter("0x0", "0x0", "0x0", "0x0", "0x0", "");
   }
+
+  private CallParameter callParameter(final long gasLimit) {
+    return new CallParameter("0x0", "0x0", Long.toString(gasLimit), "0x0", "0x0", "");
+  }
 }
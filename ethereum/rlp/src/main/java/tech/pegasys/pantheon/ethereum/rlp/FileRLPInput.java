@@ -17,57 +17,101 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import tech.pegasys.pantheon.util.bytes.Bytes32;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
-import tech.pegasys.pantheon.util.bytes.BytesValues;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 
-/** An {@link RLPInput} that reads RLP encoded data from a {@link File}. */
+/**
+ * An {@link RLPInput} that reads RLP encoded data from a {@link File}.
+ *
+ * <p>The file is accessed through read-only memory mapped windows rather than individual reads, so
+ * decoding does not cost a system call per byte. Only one window is mapped at a time and windows
+ * are re-mapped as the input moves through the file, which keeps files larger than the 2GB limit
+ * of a single mapping readable. Fixed width values are read directly from the mapping; byte slices
+ * are copied out with a single bulk read as decoded values typically outlive the current window.
+ */
 public class FileRLPInput extends AbstractRLPInput {
 
+  private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+  private static final int PAGE_SIZE = 4096;
+
   // The RLP encoded data.
   private final FileChannel file;
+  private final long fileSize;
+  private final int windowSize;
+
+  // The currently mapped region of the file.
+  private ByteBuffer window;
+  private long windowStart;
+  private long windowEnd;
 
   public FileRLPInput(final FileChannel file, final boolean lenient) throws IOException {
+    this(file, lenient, DEFAULT_WINDOW_SIZE);
+  }
+
+  FileRLPInput(final FileChannel file, final boolean lenient, final int windowSize)
+      throws IOException {
     super(lenient);
     checkNotNull(file);
     checkArgument(file.isOpen());
+    checkArgument(windowSize > 0, "Window size must be positive");
     this.file = file;
+    this.fileSize = file.size();
+    this.windowSize = windowSize;
 
-    init(file.size(), false);
+    init(fileSize, false);
+  }
+
+  /**
+   * Returns the mapped window containing {@code length} bytes from {@code offset}, mapping a new
+   * window if the current one does not cover that range.
+   */
+  private ByteBuffer windowFor(final long offset, final int length) {
+    if (window == null || offset < windowStart || offset + length > windowEnd) {
+      final long start = offset - (offset % PAGE_SIZE);
+      final long mappedLength =
+          Math.min(Math.max(windowSize, offset - start + length), fileSize - start);
+      try {
+        window = file.map(MapMode.READ_ONLY, start, mappedLength);
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      windowStart = start;
+      windowEnd = start + mappedLength;
+    }
+    return window;
+  }
+
+  private int positionInWindow(final long offset) {
+    return (int) (offset - windowStart);
+  }
+
+  private byte[] copyBytes(final long offset, final int length) {
+    final ByteBuffer buffer = windowFor(offset, length).duplicate();
+    buffer.position(positionInWindow(offset));
+    final byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
   }
 
   @Override
   protected byte inputByte(final long offset) {
-    try {
-      final ByteBuffer buf = ByteBuffer.wrap(new byte[1]);
-
-      file.read(buf, offset);
-      final byte b = buf.get(0);
-      return b;
-    } catch (final IOException e) {
-      throw new RuntimeException(e);
-    }
+    return windowFor(offset, 1).get(positionInWindow(offset));
   }
 
   @Override
   protected BytesValue inputSlice(final long offset, final int length) {
-    try {
-      final byte[] bytes = new byte[length];
-      final ByteBuffer buf = ByteBuffer.wrap(bytes);
-      file.read(buf, offset);
-      return BytesValue.of(bytes);
-    } catch (final IOException e) {
-      throw new RuntimeException(e);
-    }
+    return BytesValue.wrap(copyBytes(offset, length));
   }
 
   @Override
   protected Bytes32 inputSlice32(final long offset) {
-    return Bytes32.wrap(inputSlice(offset, 32), 0);
+    return Bytes32.wrap(copyBytes(offset, Bytes32.SIZE));
   }
 
   @Override
@@ -77,17 +121,17 @@ public class FileRLPInput extends AbstractRLPInput {
 
   @Override
   protected BigInteger getUnsignedBigInteger(final long offset, final int length) {
-    return BytesValues.asUnsignedBigInteger(inputSlice(offset, length));
+    return new BigInteger(1, copyBytes(offset, length));
   }
 
   @Override
   protected int getInt(final long offset) {
-    return inputSlice(offset, Integer.BYTES).getInt(0);
+    return windowFor(offset, Integer.BYTES).getInt(positionInWindow(offset));
   }
 
   @Override
   protected long getLong(final long offset) {
-    return inputSlice(offset, Long.BYTES).getLong(0);
+    return windowFor(offset, Long.BYTES).getLong(positionInWindow(offset));
   }
 
   @Override
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.rlp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileRLPInputTest {
+
+  private static final int ITEM_COUNT = 200;
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  private static BytesValue payload(final int i) {
+    final byte[] bytes = new byte[i % 97 + 1];
+    for (int j = 0; j < bytes.length; j++) {
+      bytes[j] = (byte) (i + j);
+    }
+    return BytesValue.wrap(bytes);
+  }
+
+  private static Bytes32 hash(final int i) {
+    final byte[] bytes = new byte[Bytes32.SIZE];
+    bytes[0] = (byte) i;
+    bytes[31] = (byte) (i >> 8);
+    return Bytes32.wrap(bytes);
+  }
+
+  private Path writeItems() throws IOException {
+    final BytesValueRLPOutput out = new BytesValueRLPOutput();
+    out.writeLongScalar(ITEM_COUNT);
+    for (int i = 0; i < ITEM_COUNT; i++) {
+      out.startList();
+      out.writeBytesValue(payload(i));
+      out.writeLongScalar(i * 1_000_003L);
+      out.writeInt(i);
+      out.writeLong(-i);
+      out.writeBytesValue(hash(i));
+      out.writeBigIntegerScalar(BigInteger.valueOf(i + 1).shiftLeft(100));
+      out.endList();
+    }
+    final Path file = folder.newFile().toPath();
+    Files.write(file, out.encoded().extractArray());
+    return file;
+  }
+
+  private static void readItem(final FileRLPInput in, final int i) {
+    in.enterList();
+    assertEquals(payload(i), in.readBytesValue());
+    assertEquals(i * 1_000_003L, in.readLongScalar());
+    assertEquals(i, in.readInt());
+    assertEquals(-i, in.readLong());
+    assertEquals(hash(i), in.readBytes32());
+    assertEquals(BigInteger.valueOf(i + 1).shiftLeft(100), in.readBigIntegerScalar());
+    in.leaveList();
+  }
+
+  private void readsEveryItem(final FileRLPInput in) {
+    assertEquals(ITEM_COUNT, in.readLongScalar());
+    for (int i = 0; i < ITEM_COUNT; i++) {
+      readItem(in, i);
+    }
+    assertTrue(in.isDone());
+  }
+
+  @Test
+  public void readsItemsWithDefaultWindow() throws IOException {
+    try (final FileChannel channel = FileChannel.open(writeItems(), StandardOpenOption.READ)) {
+      readsEveryItem(new FileRLPInput(channel, false));
+    }
+  }
+
+  @Test
+  public void readsItemsSpanningWindowBoundaries() throws IOException {
+    final Path file = writeItems();
+    for (final int windowSize : new int[] {7, 4096}) {
+      try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        readsEveryItem(new FileRLPInput(channel, false, windowSize));
+      }
+    }
+  }
+
+  @Test
+  public void seeksToPreviouslyRecordedOffsets() throws IOException {
+    try (final FileChannel channel = FileChannel.open(writeItems(), StandardOpenOption.READ)) {
+      final FileRLPInput in = new FileRLPInput(channel, false, 4096);
+      in.readLongScalar();
+      final List<Long> offsets = new ArrayList<>();
+      for (int i = 0; i < ITEM_COUNT; i++) {
+        offsets.add(in.currentOffset());
+        in.skipNext();
+      }
+      assertTrue(in.isDone());
+
+      for (int i = ITEM_COUNT - 1; i >= 0; i -= 13) {
+        in.setTo(offsets.get(i));
+        readItem(in, i);
+      }
+    }
+  }
+}
@@ -21,7 +21,9 @@ import java.util.Optional;
 class StoredNode<V> implements Node<V> {
   private final StoredNodeFactory<V> nodeFactory;
   private final Bytes32 hash;
-  private Node<V> loaded;
+  // Stored nodes may be shared by threads reading the same trie. Loading is idempotent, so racing
+  // loads are harmless as long as the loaded node is safely published.
+  private volatile Node<V> loaded;
 
   StoredNode(final StoredNodeFactory<V> nodeFactory, final Bytes32 hash) {
     this.nodeFactory = nodeFactory;
@@ -86,11 +88,16 @@ class StoredNode<V> implements Node<V> {
   }
 
   private Node<V> load() {
-    if (loaded == null) {
-      loaded = nodeFactory.retrieve(hash);
+    final Node<V> current = loaded;
+    if (current != null) {
+      return current;
     }
 
-    return loaded;
+    final Node<V> node = nodeFactory.retrieve(hash);
+    if (nodeFactory.retainsLoadedNodes()) {
+      loaded = node;
+    }
+    return node;
   }
 
   @Override
@@ -33,14 +33,37 @@ class StoredNodeFactory<V> implements NodeFactory<V> {
   private final NodeLoader nodeLoader;
   private final Function<V, BytesValue> valueSerializer;
   private final Function<BytesValue, V> valueDeserializer;
+  private final Optional<TrieNodeCache<V>> nodeCache;
 
   StoredNodeFactory(
       final NodeLoader nodeLoader,
       final Function<V, BytesValue> valueSerializer,
       final Function<BytesValue, V> valueDeserializer) {
+    this(nodeLoader, valueSerializer, valueDeserializer, Optional.empty());
+  }
+
+  StoredNodeFactory(
+      final NodeLoader nodeLoader,
+      final Function<V, BytesValue> valueSerializer,
+      final Function<BytesValue, V> valueDeserializer,
+      final Optional<TrieNodeCache<V>> nodeCache) {
     this.nodeLoader = nodeLoader;
     this.valueSerializer = valueSerializer;
     this.valueDeserializer = valueDeserializer;
+    this.nodeCache = nodeCache;
+  }
+
+  /**
+   * Whether {@link StoredNode}s created by this factory should hold on to the node they load.
+   *
+   * <p>When nodes are served from a shared cache they must not retain their loaded children,
+   * otherwise a single cached node could pin an arbitrarily large part of the trie in memory,
+   * bypassing the cache's size bound.
+   *
+   * @return True if stored nodes should retain the node they load.
+   */
+  boolean retainsLoadedNodes() {
+    return !nodeCache.isPresent();
   }
 
   @Override
@@ -88,6 +111,12 @@ class StoredNodeFactory<V> implements NodeFactory<V> {
   }
 
   public Node<V> retrieve(final Bytes32 hash) throws MerkleStorageException {
+    if (nodeCache.isPresent()) {
+      final Optional<Node<V>> cachedNode = nodeCache.get().get(hash);
+      if (cachedNode.isPresent()) {
+        return cachedNode.get();
+      }
+    }
     return nodeLoader
         .getNode(hash)
         .map(
@@ -96,6 +125,7 @@ class StoredNodeFactory<V> implements NodeFactory<V> {
               // recalculating the node.hash() is expensive, so we only do this as an assertion
               assert (hash.equals(node.getHash()))
                   : "Node hash " + node.getHash() + " not equal to expected " + hash;
+              nodeCache.ifPresent(cache -> cache.put(hash, node, rlp.size()));
               return node;
             })
         .orElseThrow(() -> new MerkleStorageException("Missing value for hash " + hash));
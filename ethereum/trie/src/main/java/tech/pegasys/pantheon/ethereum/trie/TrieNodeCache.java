@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.trie;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+
+import java.util.Optional;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A concurrent cache of decoded trie nodes, keyed by node hash, that can be shared between every
+ * {@link StoredMerklePatriciaTrie} reading from the same storage.
+ *
+ * <p>Because nodes are content-addressed a cached entry can never become stale, so no
+ * invalidation is required when the trie is updated. The cache is bounded by the total size of the
+ * encoded nodes it holds; the in-memory footprint of the decoded nodes is proportional to, but
+ * larger than, this bound. The least recently used nodes are evicted first.
+ *
+ * <p>Tries using a shared cache must use equivalent value serializers and deserializers, since a
+ * decoded node retains those of the trie that first loaded it.
+ *
+ * @param <V> The type of values stored by the tries sharing this cache.
+ */
+public class TrieNodeCache<V> {
+
+  private final Cache<Bytes32, CachedNode<V>> cache;
+
+  /**
+   * Create a cache.
+   *
+   * @param maximumSizeInBytes The maximum total size of the encoded nodes held by this cache.
+   */
+  public TrieNodeCache(final long maximumSizeInBytes) {
+    checkArgument(maximumSizeInBytes > 0, "Cache size must be positive");
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumWeight(maximumSizeInBytes)
+            .weigher((Bytes32 hash, CachedNode<V> entry) -> entry.size)
+            .recordStats()
+            .build();
+  }
+
+  Optional<Node<V>> get(final Bytes32 hash) {
+    final CachedNode<V> entry = cache.getIfPresent(hash);
+    return entry == null ? Optional.empty() : Optional.of(entry.node);
+  }
+
+  void put(final Bytes32 hash, final Node<V> node, final int encodedSize) {
+    cache.put(hash, new CachedNode<>(node, encodedSize));
+  }
+
+  /** @return The number of node lookups that were answered from the cache. */
+  public long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  /** @return The number of node lookups that had to be loaded from storage. */
+  public long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  /** @return The fraction of node lookups that were answered from the cache. */
+  public double getHitRate() {
+    return cache.stats().hitRate();
+  }
+
+  /** @return The approximate number of nodes currently held in the cache. */
+  public long size() {
+    return cache.size();
+  }
+
+  /** Removes every node from the cache. */
+  public void clear() {
+    cache.invalidateAll();
+  }
+
+  private static class CachedNode<V> {
+    private final Node<V> node;
+    private final int size;
+
+    private CachedNode(final Node<V> node, final int size) {
+      this.node = node;
+      this.size = size;
+    }
+  }
+}
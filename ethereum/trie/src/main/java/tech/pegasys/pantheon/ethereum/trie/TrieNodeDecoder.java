@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.trie;
+
+import static java.lang.String.format;
+
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.ethereum.rlp.RLPException;
+import tech.pegasys.pantheon.ethereum.rlp.RLPInput;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.function.Consumer;
+
+/**
+ * Decodes a single, standalone trie node without needing access to the rest of the trie.
+ *
+ * <p>This is used when a trie is reconstructed node-by-node (for instance, when downloading world
+ * state from the network): every hash-referenced child and every value reachable from the node
+ * (including values held by children that are embedded inline) is reported to the supplied
+ * consumers.
+ */
+public class TrieNodeDecoder {
+
+  private TrieNodeDecoder() {}
+
+  /**
+   * Decodes the supplied node.
+   *
+   * @param nodeRlp the RLP encoding of the node
+   * @param childHashConsumer receives the hash of every child node that is stored separately
+   * @param valueConsumer receives every value held by the node or its embedded children
+   * @throws MerkleStorageException if the node cannot be decoded
+   */
+  public static void decode(
+      final BytesValue nodeRlp,
+      final Consumer<Bytes32> childHashConsumer,
+      final Consumer<BytesValue> valueConsumer) {
+    try {
+      decode(RLP.input(nodeRlp), childHashConsumer, valueConsumer);
+    } catch (final RLPException | IllegalArgumentException ex) {
+      throw new MerkleStorageException("Invalid trie node RLP " + nodeRlp, ex);
+    }
+  }
+
+  private static void decode(
+      final RLPInput nodeRlp,
+      final Consumer<Bytes32> childHashConsumer,
+      final Consumer<BytesValue> valueConsumer) {
+    final int nodesCount = nodeRlp.enterList();
+    switch (nodesCount) {
+      case 1:
+        nodeRlp.skipNext();
+        break;
+
+      case 2:
+        final BytesValue path = CompactEncoding.decode(nodeRlp.readBytesValue());
+        final int size = path.size();
+        if (size > 0 && path.get(size - 1) == CompactEncoding.LEAF_TERMINATOR) {
+          valueConsumer.accept(nodeRlp.readBytesValue());
+        } else {
+          decodeChild(nodeRlp, childHashConsumer, valueConsumer);
+        }
+        break;
+
+      case (BranchNode.RADIX + 1):
+        for (int i = 0; i < BranchNode.RADIX; ++i) {
+          if (nodeRlp.nextIsNull()) {
+            nodeRlp.skipNext();
+          } else {
+            decodeChild(nodeRlp, childHashConsumer, valueConsumer);
+          }
+        }
+        if (nodeRlp.nextIsNull()) {
+          nodeRlp.skipNext();
+        } else {
+          valueConsumer.accept(nodeRlp.readBytesValue());
+        }
+        break;
+
+      default:
+        throw new MerkleStorageException(format("Invalid trie node list size %s", nodesCount));
+    }
+    nodeRlp.leaveList();
+  }
+
+  private static void decodeChild(
+      final RLPInput nodeRlp,
+      final Consumer<Bytes32> childHashConsumer,
+      final Consumer<BytesValue> valueConsumer) {
+    if (nodeRlp.nextIsList()) {
+      // Nodes whose encoding is shorter than a hash are embedded in their parent.
+      decode(nodeRlp, childHashConsumer, valueConsumer);
+    } else {
+      childHashConsumer.accept(nodeRlp.readBytes32());
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.trie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.pegasys.pantheon.crypto.Hash.keccak256;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrieNodeCacheTest {
+  private final Map<Bytes32, BytesValue> storage = new HashMap<>();
+  private final AtomicInteger storageReads = new AtomicInteger();
+  private Bytes32 rootHash;
+
+  @Before
+  public void setup() {
+    final StoredMerklePatriciaTrie<Bytes32, BytesValue> trie =
+        new StoredMerklePatriciaTrie<>(this::loadNode, Function.identity(), Function.identity());
+    for (int i = 0; i < 100; i++) {
+      trie.put(key(i), BytesValue.of(i, 1, 2, 3));
+    }
+    trie.commit(storage::put);
+    rootHash = trie.getRootHash();
+  }
+
+  @Test
+  public void triesSharingACacheLoadEachNodeFromStorageOnce() {
+    final TrieNodeCache<BytesValue> cache = new TrieNodeCache<>(1024 * 1024);
+
+    final StoredMerklePatriciaTrie<Bytes32, BytesValue> first = cachedTrie(cache);
+    for (int i = 0; i < 100; i++) {
+      assertThat(first.get(key(i))).contains(BytesValue.of(i, 1, 2, 3));
+    }
+    final int readsAfterFirstPass = storageReads.get();
+    assertThat(readsAfterFirstPass).isEqualTo(storage.size());
+    assertThat(cache.getMissCount()).isEqualTo(readsAfterFirstPass);
+
+    final StoredMerklePatriciaTrie<Bytes32, BytesValue> second = cachedTrie(cache);
+    for (int i = 0; i < 100; i++) {
+      assertThat(second.get(key(i))).contains(BytesValue.of(i, 1, 2, 3));
+    }
+    assertThat(storageReads.get()).isEqualTo(readsAfterFirstPass);
+    assertThat(cache.getMissCount()).isEqualTo(readsAfterFirstPass);
+    assertThat(cache.getHitCount()).isGreaterThan(0);
+  }
+
+  @Test
+  public void cacheIsBoundedByEncodedNodeSize() {
+    final TrieNodeCache<BytesValue> cache = new TrieNodeCache<>(600);
+
+    final StoredMerklePatriciaTrie<Bytes32, BytesValue> trie = cachedTrie(cache);
+    for (int i = 0; i < 100; i++) {
+      assertThat(trie.get(key(i))).contains(BytesValue.of(i, 1, 2, 3));
+    }
+
+    assertThat(cache.size()).isLessThan(storage.size());
+  }
+
+  @Test
+  public void updatesDoNotAffectCachedNodes() {
+    final TrieNodeCache<BytesValue> cache = new TrieNodeCache<>(1024 * 1024);
+
+    final StoredMerklePatriciaTrie<Bytes32, BytesValue> updated = cachedTrie(cache);
+    updated.put(key(1), BytesValue.of(9));
+    updated.remove(key(2));
+    assertThat(updated.getRootHash()).isNotEqualTo(rootHash);
+
+    final StoredMerklePatriciaTrie<Bytes32, BytesValue> original = cachedTrie(cache);
+    assertThat(original.get(key(1))).contains(BytesValue.of(1, 1, 2, 3));
+    assertThat(original.get(key(2))).contains(BytesValue.of(2, 1, 2, 3));
+    assertThat(original.getRootHash()).isEqualTo(rootHash);
+  }
+
+  private StoredMerklePatriciaTrie<Bytes32, BytesValue> cachedTrie(
+      final TrieNodeCache<BytesValue> cache) {
+    return new StoredMerklePatriciaTrie<>(
+        this::loadNode, rootHash, Function.identity(), Function.identity(), cache);
+  }
+
+  private Optional<BytesValue> loadNode(final Bytes32 hash) {
+    storageReads.incrementAndGet();
+    return Optional.ofNullable(storage.get(hash));
+  }
+
+  private static Bytes32 key(final int i) {
+    return keccak256(BytesValue.of(i));
+  }
+}
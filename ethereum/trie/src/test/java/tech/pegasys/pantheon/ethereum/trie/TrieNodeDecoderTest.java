@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.ethereum.trie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static tech.pegasys.pantheon.crypto.Hash.keccak256;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+public class TrieNodeDecoderTest {
+
+  @Test
+  public void walksEveryStoredNodeAndValueFromTheRoot() {
+    final Map<Bytes32, BytesValue> storage = new HashMap<>();
+    final StoredMerklePatriciaTrie<Bytes32, BytesValue> trie =
+        new StoredMerklePatriciaTrie<>(
+            hash -> Optional.ofNullable(storage.get(hash)),
+            Function.identity(),
+            Function.identity());
+
+    final Set<BytesValue> expectedValues = new HashSet<>();
+    for (int i = 0; i < 500; i++) {
+      final BytesValue value = BytesValue.of(i % 256, 1, 2, 3);
+      trie.put(keccak256(BytesValue.of(i >> 8, i & 0xff)), value);
+      expectedValues.add(value);
+    }
+    trie.commit(storage::put);
+
+    final Set<Bytes32> visitedNodes = new HashSet<>();
+    final List<BytesValue> values = new ArrayList<>();
+    final Deque<Bytes32> pending = new ArrayDeque<>();
+    pending.push(trie.getRootHash());
+    while (!pending.isEmpty()) {
+      final Bytes32 hash = pending.pop();
+      visitedNodes.add(hash);
+      TrieNodeDecoder.decode(storage.get(hash), pending::push, values::add);
+    }
+
+    assertThat(visitedNodes).isEqualTo(storage.keySet());
+    assertThat(values).hasSize(500);
+    assertThat(new HashSet<>(values)).isEqualTo(expectedValues);
+  }
+
+  @Test
+  public void reportsValuesOfEmbeddedNodes() {
+    final Map<Bytes32, BytesValue> storage = new HashMap<>();
+    final StoredMerklePatriciaTrie<BytesValue, BytesValue> trie =
+        new StoredMerklePatriciaTrie<>(
+            hash -> Optional.ofNullable(storage.get(hash)),
+            Function.identity(),
+            Function.identity());
+    trie.put(BytesValue.of(1), BytesValue.of(1));
+    trie.put(BytesValue.of(2), BytesValue.of(2));
+    trie.commit(storage::put);
+
+    final List<Bytes32> childHashes = new ArrayList<>();
+    final List<BytesValue> values = new ArrayList<>();
+    TrieNodeDecoder.decode(storage.get(trie.getRootHash()), childHashes::add, values::add);
+
+    assertThat(childHashes).isEmpty();
+    assertThat(values).containsExactlyInAnyOrder(BytesValue.of(1), BytesValue.of(2));
+  }
+
+  @Test(expected = MerkleStorageException.class)
+  public void throwsOnMalformedNode() {
+    TrieNodeDecoder.decode(BytesValue.of(1, 2, 3), hash -> {}, value -> {});
+  }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.metrics;
+
+/**
+ * Groups related metrics. The category forms part of every metric name so that metrics from
+ * different subsystems never collide.
+ */
+public enum MetricCategory {
+  BLOCKCHAIN("blockchain"),
+  NETWORK("network"),
+  ROCKSDB("rocksdb"),
+  RPC("rpc"),
+  TRANSACTION_POOL("transaction_pool"),
+  WORLD_STATE("world_state");
+
+  private final String name;
+
+  MetricCategory(final String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Creates and tracks the metrics reported by a node.
+ *
+ * <p>Creating a metric with the same category and name as an existing metric returns the existing
+ * metric. Creating a metric still involves a lookup, so components should create their metrics
+ * once and hold on to them.
+ */
+public interface MetricsSystem {
+
+  default Counter createCounter(
+      final MetricCategory category, final String name, final String help) {
+    return createLabelledCounter(category, name, help).labels();
+  }
+
+  LabelledMetric<Counter> createLabelledCounter(
+      MetricCategory category, String name, String help, String... labelNames);
+
+  default OperationTimer createTimer(
+      final MetricCategory category, final String name, final String help) {
+    return createLabelledTimer(category, name, help).labels();
+  }
+
+  LabelledMetric<OperationTimer> createLabelledTimer(
+      MetricCategory category, String name, String help, String... labelNames);
+
+  /**
+   * Creates a gauge whose value is read from the supplier each time metrics are reported.
+   *
+   * @param category the metric category
+   * @param name the metric name
+   * @param help a description of the metric
+   * @param valueSupplier supplies the current value of the gauge
+   */
+  void createGauge(
+      MetricCategory category, String name, String help, DoubleSupplier valueSupplier);
+}
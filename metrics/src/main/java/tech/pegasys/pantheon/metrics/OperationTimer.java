@@ -0,0 +1,38 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.metrics;
+
+/** Records how long an operation takes. */
+public interface OperationTimer {
+
+  TimingContext startTimer();
+
+  /**
+   * A single timed operation. Closing the context stops the timer, which allows it to be used with
+   * try-with-resources.
+   */
+  interface TimingContext extends AutoCloseable {
+
+    /**
+     * Stops the timer and records the elapsed time.
+     *
+     * @return the elapsed time in seconds
+     */
+    double stopTimer();
+
+    @Override
+    default void close() {
+      stopTimer();
+    }
+  }
+}
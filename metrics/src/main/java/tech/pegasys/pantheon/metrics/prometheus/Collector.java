@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.metrics.prometheus;
+
+/**
+ * A named metric that can write itself out in the Prometheus text exposition format.
+ *
+ * @see <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">Exposition
+ *     formats</a>
+ */
+abstract class Collector {
+
+  private final String name;
+  private final String help;
+
+  Collector(final String name, final String help) {
+    this.name = name;
+    this.help = help;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  abstract String getType();
+
+  abstract void writeSamples(StringBuilder out);
+
+  void writeTo(final StringBuilder out) {
+    out.append("# HELP ").append(name).append(' ');
+    appendEscaped(out, help, false);
+    out.append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(getType()).append('\n');
+    writeSamples(out);
+  }
+
+  static void writeSample(
+      final StringBuilder out,
+      final String name,
+      final String[] labelNames,
+      final String[] labelValues,
+      final String extraLabelName,
+      final String extraLabelValue,
+      final String value) {
+    out.append(name);
+    if (labelNames.length > 0 || extraLabelName != null) {
+      out.append('{');
+      for (int i = 0; i < labelNames.length; i++) {
+        appendLabel(out, labelNames[i], labelValues[i]);
+        out.append(',');
+      }
+      if (extraLabelName != null) {
+        appendLabel(out, extraLabelName, extraLabelValue);
+      } else {
+        out.setLength(out.length() - 1);
+      }
+      out.append('}');
+    }
+    out.append(' ').append(value).append('\n');
+  }
+
+  static String formatDouble(final double value) {
+    if (value == Double.POSITIVE_INFINITY) {
+      return "+Inf";
+    } else if (value == Double.NEGATIVE_INFINITY) {
+      return "-Inf";
+    }
+    return Double.toString(value);
+  }
+
+  private static void appendLabel(final StringBuilder out, final String name, final String value) {
+    out.append(name).append("=\"");
+    appendEscaped(out, value, true);
+    out.append('"');
+  }
+
+  private static void appendEscaped(
+      final StringBuilder out, final String text, final boolean escapeQuotes) {
+    for (int i = 0; i < text.length(); i++) {
+      final char c = text.charAt(i);
+      if (c == '\\') {
+        out.append("\\\\");
+      } else if (c == '\n') {
+        out.append("\\n");
+      } else if (c == '"' && escapeQuotes) {
+        out.append("\\\"");
+      } else {
+        out.append(c);
+      }
+    }
+  }
+}
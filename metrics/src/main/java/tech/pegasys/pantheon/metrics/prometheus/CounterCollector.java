@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.metrics.prometheus;
+
+import tech.pegasys.pantheon.metrics.Counter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+class CounterCollector extends LabelledCollector<Counter> {
+
+  CounterCollector(final String name, final String help, final String[] labelNames) {
+    super(name, help, labelNames);
+  }
+
+  @Override
+  String getType() {
+    return "counter";
+  }
+
+  @Override
+  Counter createChild() {
+    return new LongAdderCounter();
+  }
+
+  @Override
+  void writeChild(
+      final StringBuilder out,
+      final String[] labelNames,
+      final String[] labels,
+      final Counter child) {
+    final long value = ((LongAdderCounter) child).count.sum();
+    writeSample(out, getName(), labelNames, labels, null, null, Long.toString(value));
+  }
+
+  private static class LongAdderCounter implements Counter {
+    private final LongAdder count = new LongAdder();
+
+    @Override
+    public void inc() {
+      count.increment();
+    }
+
+    @Override
+    public void inc(final long amount) {
+      count.add(amount);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.metrics.prometheus;
+
+import java.util.function.DoubleSupplier;
+
+class GaugeCollector extends Collector {
+
+  private final DoubleSupplier valueSupplier;
+
+  GaugeCollector(final String name, final String help, final DoubleSupplier valueSupplier) {
+    super(name, help);
+    this.valueSupplier = valueSupplier;
+  }
+
+  @Override
+  String getType() {
+    return "gauge";
+  }
+
+  @Override
+  void writeSamples(final StringBuilder out) {
+    writeSample(
+        out,
+        getName(),
+        new String[0],
+        new String[0],
+        null,
+        null,
+        formatDouble(valueSupplier.getAsDouble()));
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.metrics.prometheus;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A collector that holds one child metric for each distinct combination of label values.
+ *
+ * @param <T> the type of child metric
+ */
+abstract class LabelledCollector<T> extends Collector implements LabelledMetric<T> {
+
+  private final String[] labelNames;
+  private final Map<List<String>, T> children = new ConcurrentHashMap<>();
+
+  LabelledCollector(final String name, final String help, final String[] labelNames) {
+    super(name, help);
+    this.labelNames = labelNames.clone();
+  }
+
+  @Override
+  public T labels(final String... labels) {
+    checkArgument(
+        labels.length == labelNames.length,
+        "Metric %s requires %s label values but %s were supplied",
+        getName(),
+        labelNames.length,
+        labels.length);
+    return children.computeIfAbsent(Arrays.asList(labels.clone()), key -> createChild());
+  }
+
+  abstract T createChild();
+
+  abstract void writeChild(StringBuilder out, String[] labelNames, String[] labels, T child);
+
+  @Override
+  void writeSamples(final StringBuilder out) {
+    children.forEach(
+        (labels, child) -> writeChild(out, labelNames, labels.toArray(new String[0]), child));
+  }
+}
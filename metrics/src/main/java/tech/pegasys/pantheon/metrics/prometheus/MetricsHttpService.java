@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.metrics.prometheus;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.util.NetworkUtility;
+
+import java.net.BindException;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.concurrent.CompletableFuture;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/** Serves the node's metrics over HTTP so that they can be scraped by Prometheus. */
+public class MetricsHttpService {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private static final InetSocketAddress EMPTY_SOCKET_ADDRESS = new InetSocketAddress("0.0.0.0", 0);
+  private static final String METRICS_PATH = "/metrics";
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private final Vertx vertx;
+  private final MetricsConfiguration config;
+  private final PrometheusMetricsSystem metricsSystem;
+
+  private HttpServer httpServer;
+
+  public MetricsHttpService(
+      final Vertx vertx, final MetricsConfiguration config, final MetricsSystem metricsSystem) {
+    validateConfig(config);
+    checkArgument(
+        metricsSystem instanceof PrometheusMetricsSystem,
+        "Metrics can only be served from a PrometheusMetricsSystem.");
+    this.vertx = vertx;
+    this.config = config;
+    this.metricsSystem = (PrometheusMetricsSystem) metricsSystem;
+  }
+
+  private void validateConfig(final MetricsConfiguration config) {
+    checkArgument(
+        config.getPort() == 0 || NetworkUtility.isValidPort(config.getPort()),
+        "Invalid port configuration.");
+    checkArgument(config.getHost() != null, "Required host is not configured.");
+  }
+
+  public CompletableFuture<?> start() {
+    LOG.info("Starting metrics service on {}:{}", config.getHost(), config.getPort());
+    httpServer =
+        vertx.createHttpServer(
+            new HttpServerOptions().setHost(config.getHost()).setPort(config.getPort()));
+
+    final CompletableFuture<?> resultFuture = new CompletableFuture<>();
+    httpServer
+        .requestHandler(this::handleRequest)
+        .listen(
+            res -> {
+              if (!res.failed()) {
+                resultFuture.complete(null);
+                LOG.info(
+                    "Metrics service started and listening on {}:{}",
+                    config.getHost(),
+                    httpServer.actualPort());
+                return;
+              }
+              httpServer = null;
+              final Throwable cause = res.cause();
+              if (cause instanceof BindException || cause instanceof SocketException) {
+                resultFuture.completeExceptionally(
+                    new RuntimeException(
+                        String.format(
+                            "Failed to bind metrics listener to %s:%s: %s",
+                            config.getHost(), config.getPort(), cause.getMessage())));
+                return;
+              }
+              resultFuture.completeExceptionally(cause);
+            });
+
+    return resultFuture;
+  }
+
+  public CompletableFuture<?> stop() {
+    if (httpServer == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    final CompletableFuture<?> resultFuture = new CompletableFuture<>();
+    httpServer.close(
+        res -> {
+          if (res.failed()) {
+            resultFuture.completeExceptionally(res.cause());
+          } else {
+            httpServer = null;
+            resultFuture.complete(null);
+          }
+        });
+    return resultFuture;
+  }
+
+  public InetSocketAddress socketAddress() {
+    if (httpServer == null) {
+      return EMPTY_SOCKET_ADDRESS;
+    }
+    return new InetSocketAddress(config.getHost(), httpServer.actualPort());
+  }
+
+  private void handleRequest(final HttpServerRequest request) {
+    final HttpServerResponse response = request.response();
+    if (request.method() != HttpMethod.GET || !METRICS_PATH.equals(request.path())) {
+      response.setStatusCode(404).end();
+      return;
+    }
+
+    // Gauges may need to take locks to read their value, so keep rendering off the event loop
+    vertx.<String>executeBlocking(
+        future -> future.complete(metricsSystem.render()),
+        false,
+        res -> {
+          if (res.failed()) {
+            LOG.error("Failed to render metrics", res.cause());
+            response.setStatusCode(500).end();
+            return;
+          }
+          response.putHeader("Content-Type", CONTENT_TYPE);
+          response.end(res.result());
+        });
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.metrics.prometheus;
+
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.MetricCategory;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+
+/**
+ * A {@link MetricsSystem} that keeps every metric in memory and reports them in the Prometheus text
+ * exposition format. Counters and timers are backed by {@code LongAdder} so that recording from
+ * many threads does not contend on a single value.
+ */
+public class PrometheusMetricsSystem implements MetricsSystem {
+
+  private static final String METRIC_NAME_PREFIX = "pantheon_";
+
+  private final Map<String, Collector> collectors = new ConcurrentSkipListMap<>();
+
+  /**
+   * Creates the metrics system to use for a node.
+   *
+   * @param config the metrics configuration
+   * @return a {@link PrometheusMetricsSystem} if metrics are enabled, otherwise a {@link
+   *     NoOpMetricsSystem}
+   */
+  public static MetricsSystem init(final MetricsConfiguration config) {
+    return config.isEnabled() ? new PrometheusMetricsSystem() : new NoOpMetricsSystem();
+  }
+
+  @Override
+  public LabelledMetric<Counter> createLabelledCounter(
+      final MetricCategory category,
+      final String name,
+      final String help,
+      final String... labelNames) {
+    return register(
+        category,
+        name,
+        CounterCollector.class,
+        metricName -> new CounterCollector(metricName, help, labelNames));
+  }
+
+  @Override
+  public LabelledMetric<OperationTimer> createLabelledTimer(
+      final MetricCategory category,
+      final String name,
+      final String help,
+      final String... labelNames) {
+    return register(
+        category,
+        name,
+        TimerCollector.class,
+        metricName -> new TimerCollector(metricName, help, labelNames));
+  }
+
+  @Override
+  public void createGauge(
+      final MetricCategory category,
+      final String name,
+      final String help,
+      final DoubleSupplier valueSupplier) {
+    register(
+        category,
+        name,
+        GaugeCollector.class,
+        metricName -> new GaugeCollector(metricName, help, valueSupplier));
+  }
+
+  /**
+   * Renders the current value of every metric.
+   *
+   * @return the metrics in the Prometheus text exposition format
+   */
+  public String render() {
+    final StringBuilder out = new StringBuilder();
+    collectors.values().forEach(collector -> collector.writeTo(out));
+    return out.toString();
+  }
+
+  private <T extends Collector> T register(
+      final MetricCategory category,
+      final String name,
+      final Class<T> type,
+      final Function<String, T> collectorFactory) {
+    final String metricName = METRIC_NAME_PREFIX + category.getName() + "_" + name;
+    final Collector collector = collectors.computeIfAbsent(metricName, collectorFactory);
+    if (!type.isInstance(collector)) {
+      throw new IllegalArgumentException(
+          "Metric " + metricName + " is already registered as a " + collector.getType());
+    }
+    return type.cast(collector);
+  }
+}
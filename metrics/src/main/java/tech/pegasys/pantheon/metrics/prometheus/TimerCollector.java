@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.metrics.prometheus;
+
+import tech.pegasys.pantheon.metrics.OperationTimer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Reports operation timings as a histogram with fixed latency buckets, measured in seconds. */
+class TimerCollector extends LabelledCollector<OperationTimer> {
+
+  private static final double[] BUCKETS = {
+    0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+  };
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  TimerCollector(final String name, final String help, final String[] labelNames) {
+    super(name, help, labelNames);
+  }
+
+  @Override
+  String getType() {
+    return "histogram";
+  }
+
+  @Override
+  OperationTimer createChild() {
+    return new HistogramTimer();
+  }
+
+  @Override
+  void writeChild(
+      final StringBuilder out,
+      final String[] labelNames,
+      final String[] labels,
+      final OperationTimer child) {
+    final HistogramTimer timer = (HistogramTimer) child;
+    // Read the count first so that the cumulative buckets never exceed it
+    final long count = timer.count.sum();
+    long cumulativeCount = 0;
+    for (int i = 0; i < BUCKETS.length; i++) {
+      cumulativeCount += timer.buckets[i].sum();
+      writeSample(
+          out,
+          getName() + "_bucket",
+          labelNames,
+          labels,
+          "le",
+          formatDouble(BUCKETS[i]),
+          Long.toString(Math.min(cumulativeCount, count)));
+    }
+    writeSample(
+        out, getName() + "_bucket", labelNames, labels, "le", "+Inf", Long.toString(count));
+    writeSample(
+        out, getName() + "_sum", labelNames, labels, null, null, formatDouble(timer.sum.sum()));
+    writeSample(out, getName() + "_count", labelNames, labels, null, null, Long.toString(count));
+  }
+
+  private static class HistogramTimer implements OperationTimer {
+    private final LongAdder[] buckets = new LongAdder[BUCKETS.length];
+    private final DoubleAdder sum = new DoubleAdder();
+    private final LongAdder count = new LongAdder();
+
+    private HistogramTimer() {
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new LongAdder();
+      }
+    }
+
+    @Override
+    public TimingContext startTimer() {
+      final long startTime = System.nanoTime();
+      return () -> {
+        final double elapsed = (System.nanoTime() - startTime) / NANOS_PER_SECOND;
+        observe(elapsed);
+        return elapsed;
+      };
+    }
+
+    private void observe(final double seconds) {
+      for (int i = 0; i < BUCKETS.length; i++) {
+        if (seconds <= BUCKETS[i]) {
+          buckets[i].increment();
+          break;
+        }
+      }
+      sum.add(seconds);
+      count.increment();
+    }
+  }
+}
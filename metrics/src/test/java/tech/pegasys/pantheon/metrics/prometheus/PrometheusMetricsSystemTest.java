@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.metrics.prometheus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static tech.pegasys.pantheon.metrics.MetricCategory.BLOCKCHAIN;
+import static tech.pegasys.pantheon.metrics.MetricCategory.RPC;
+
+import tech.pegasys.pantheon.metrics.Counter;
+import tech.pegasys.pantheon.metrics.LabelledMetric;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.metrics.OperationTimer.TimingContext;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+
+import org.junit.Test;
+
+public class PrometheusMetricsSystemTest {
+
+  private final PrometheusMetricsSystem metricsSystem = new PrometheusMetricsSystem();
+
+  @Test
+  public void shouldRenderCounters() {
+    final Counter counter = metricsSystem.createCounter(BLOCKCHAIN, "imports_total", "Imports");
+    counter.inc();
+    counter.inc(4);
+
+    assertThat(metricsSystem.render())
+        .isEqualTo(
+            "# HELP pantheon_blockchain_imports_total Imports\n"
+                + "# TYPE pantheon_blockchain_imports_total counter\n"
+                + "pantheon_blockchain_imports_total 5\n");
+  }
+
+  @Test
+  public void shouldReturnExistingMetricWhenCreatedTwice() {
+    final Counter counter1 = metricsSystem.createCounter(BLOCKCHAIN, "imports_total", "Imports");
+    final Counter counter2 = metricsSystem.createCounter(BLOCKCHAIN, "imports_total", "Imports");
+
+    assertThat(counter1).isSameAs(counter2);
+  }
+
+  @Test
+  public void shouldTrackLabelledCountersSeparately() {
+    final LabelledMetric<Counter> counter =
+        metricsSystem.createLabelledCounter(RPC, "requests_total", "Requests", "method");
+    counter.labels("eth_call").inc();
+    counter.labels("eth_call").inc();
+    counter.labels("net_\"version\"").inc();
+
+    assertThat(metricsSystem.render())
+        .contains("pantheon_rpc_requests_total{method=\"eth_call\"} 2\n")
+        .contains("pantheon_rpc_requests_total{method=\"net_\\\"version\\\"\"} 1\n");
+  }
+
+  @Test
+  public void shouldRejectWrongNumberOfLabels() {
+    final LabelledMetric<Counter> counter =
+        metricsSystem.createLabelledCounter(RPC, "requests_total", "Requests", "method");
+
+    assertThatThrownBy(() -> counter.labels("eth_call", "extra"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void shouldRejectMetricRegisteredWithDifferentType() {
+    metricsSystem.createCounter(BLOCKCHAIN, "imports", "Imports");
+
+    assertThatThrownBy(() -> metricsSystem.createTimer(BLOCKCHAIN, "imports", "Imports"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  public void shouldRenderTimersAsHistograms() {
+    final OperationTimer timer =
+        metricsSystem.createLabelledTimer(RPC, "request_seconds", "Latency", "method").labels("a");
+    final TimingContext context = timer.startTimer();
+    final double elapsed = context.stopTimer();
+
+    assertThat(elapsed).isGreaterThanOrEqualTo(0);
+    assertThat(metricsSystem.render())
+        .contains("# TYPE pantheon_rpc_request_seconds histogram\n")
+        .contains("pantheon_rpc_request_seconds_bucket{method=\"a\",le=\"10.0\"} 1\n")
+        .contains("pantheon_rpc_request_seconds_bucket{method=\"a\",le=\"+Inf\"} 1\n")
+        .contains("pantheon_rpc_request_seconds_count{method=\"a\"} 1\n");
+  }
+
+  @Test
+  public void shouldReadGaugeValueWhenRendered() {
+    final int[] value = {1};
+    metricsSystem.createGauge(BLOCKCHAIN, "height", "Height", () -> value[0]);
+    value[0] = 7;
+
+    assertThat(metricsSystem.render()).contains("pantheon_blockchain_height 7.0\n");
+  }
+
+  @Test
+  public void shouldUseNoOpMetricsSystemWhenDisabled() {
+    final MetricsConfiguration config = MetricsConfiguration.createDefault();
+    assertThat(PrometheusMetricsSystem.init(config)).isInstanceOf(NoOpMetricsSystem.class);
+
+    config.setEnabled(true);
+    assertThat(PrometheusMetricsSystem.init(config)).isInstanceOf(PrometheusMetricsSystem.class);
+  }
+}
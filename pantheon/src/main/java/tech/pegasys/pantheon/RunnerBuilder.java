@@ -54,6 +54,8 @@ import tech.pegasys.pantheon.ethereum.p2p.netty.NettyP2PNetwork;
 import tech.pegasys.pantheon.ethereum.p2p.peers.PeerBlacklist;
 import tech.pegasys.pantheon.ethereum.p2p.wire.Capability;
 import tech.pegasys.pantheon.ethereum.p2p.wire.SubProtocol;
+import tech.pegasys.pantheon.metrics.prometheus.MetricsConfiguration;
+import tech.pegasys.pantheon.metrics.prometheus.MetricsHttpService;
 
 import java.nio.file.Path;
 import java.util.Collection;
@@ -78,6 +80,7 @@ public class RunnerBuilder {
       final int maxPeers,
       final JsonRpcConfiguration jsonRpcConfiguration,
       final WebSocketConfiguration webSocketConfiguration,
+      final MetricsConfiguration metricsConfiguration,
       final Path dataDir) {
 
     Preconditions.checkNotNull(pantheonController);
@@ -159,7 +162,13 @@ public class RunnerBuilder {
               jsonRpcConfiguration.getRpcApis(),
               filterManager);
       jsonRpcHttpService =
-          Optional.of(new JsonRpcHttpService(vertx, dataDir, jsonRpcConfiguration, jsonRpcMethods));
+          Optional.of(
+              new JsonRpcHttpService(
+                  vertx,
+                  dataDir,
+                  jsonRpcConfiguration,
+                  jsonRpcMethods,
+                  context.getMetricsSystem()));
     }
 
     Optional<WebSocketService> webSocketService = Optional.empty();
@@ -194,8 +203,21 @@ public class RunnerBuilder {
                   vertx, webSocketConfiguration, subscriptionManager, webSocketsJsonRpcMethods));
     }
 
+    Optional<MetricsHttpService> metricsService = Optional.empty();
+    if (metricsConfiguration.isEnabled()) {
+      metricsService =
+          Optional.of(
+              new MetricsHttpService(vertx, metricsConfiguration, context.getMetricsSystem()));
+    }
+
     return new Runner(
-        vertx, networkRunner, jsonRpcHttpService, webSocketService, pantheonController, dataDir);
+        vertx,
+        networkRunner,
+        jsonRpcHttpService,
+        webSocketService,
+        metricsService,
+        pantheonController,
+        dataDir);
   }
 
   private FilterManager createFilterManager(
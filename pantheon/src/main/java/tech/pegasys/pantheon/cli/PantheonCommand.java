@@ -24,14 +24,19 @@ import tech.pegasys.pantheon.ethereum.core.Address;
 import tech.pegasys.pantheon.ethereum.core.MiningParameters;
 import tech.pegasys.pantheon.ethereum.core.Wei;
 import tech.pegasys.pantheon.ethereum.eth.sync.SyncMode;
-import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
 import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration.Builder;
+import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
+import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPoolConfiguration;
 import tech.pegasys.pantheon.ethereum.jsonrpc.JsonRpcConfiguration;
 import tech.pegasys.pantheon.ethereum.jsonrpc.RpcApi;
 import tech.pegasys.pantheon.ethereum.jsonrpc.RpcApis;
 import tech.pegasys.pantheon.ethereum.jsonrpc.websocket.WebSocketConfiguration;
 import tech.pegasys.pantheon.ethereum.p2p.peers.DefaultPeer;
 import tech.pegasys.pantheon.ethereum.util.InvalidConfigurationException;
+import tech.pegasys.pantheon.ethereum.worldstate.PrunerConfiguration;
+import tech.pegasys.pantheon.metrics.prometheus.MetricsConfiguration;
+import tech.pegasys.pantheon.metrics.prometheus.PrometheusMetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.RocksDbConfiguration;
 import tech.pegasys.pantheon.util.BlockImporter;
 import tech.pegasys.pantheon.util.BlockchainImporter;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
@@ -54,7 +59,6 @@ import com.google.common.net.HostAndPort;
 import io.vertx.core.Vertx;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.config.Configurator;
-import picocli.CommandLine;
 import picocli.CommandLine.AbstractParseResultHandler;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.DefaultExceptionHandler;
@@ -62,6 +66,7 @@ import picocli.CommandLine.ExecutionException;
 import picocli.CommandLine.ITypeConverter;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.ParameterException;
+import picocli.CommandLine;
 
 @SuppressWarnings("FieldCanBeLocal") // because Picocli injected fields report false positives
 @Command(
@@ -354,6 +359,78 @@ public class PantheonCommand implements Runnable {
   )
   private final BytesValue extraData = DEFAULT_EXTRA_DATA;
 
+  @Option(
+    names = {"--pruning-enabled"},
+    description =
+        "set to remove world state that is no longer needed from the database "
+            + "(default: ${DEFAULT-VALUE})"
+  )
+  private final Boolean isPruningEnabled = false;
+
+  @Option(
+    names = {"--pruning-blocks-retained"},
+    paramLabel = MANDATORY_INTEGER_FORMAT_HELP,
+    description =
+        "the number of recent blocks for which the world state is kept when pruning "
+            + "(default: ${DEFAULT-VALUE})",
+    arity = "1"
+  )
+  private final Long pruningBlocksRetained = PrunerConfiguration.DEFAULT_BLOCKS_RETAINED;
+
+  @Option(
+    names = {"--world-state-write-behind-blocks"},
+    paramLabel = MANDATORY_INTEGER_FORMAT_HELP,
+    description =
+        "the number of imported blocks whose world state may be written to the database in the "
+            + "background while later blocks are executed, 0 to write it synchronously "
+            + "(default: ${DEFAULT-VALUE})",
+    arity = "1"
+  )
+  private final Integer worldStateWriteBehindBlocks =
+      SynchronizerConfiguration.DEFAULT_WORLD_STATE_WRITE_BEHIND_BLOCKS;
+
+  @Option(
+    names = {"--tx-pool-journal-remote-enabled"},
+    description =
+        "set to also keep transactions received from peers in the transaction pool journal, "
+            + "so they are restored after a restart (default: ${DEFAULT-VALUE})"
+  )
+  private final Boolean isJournalRemoteTransactionsEnabled = false;
+
+  @Option(
+    names = {"--rocksdb-transactions-enabled"},
+    description =
+        "set to commit database writes through RocksDB pessimistic transactions rather than "
+            + "write batches (default: ${DEFAULT-VALUE})"
+  )
+  private final Boolean isRocksDbTransactionsEnabled = false;
+
+  @Option(
+    names = {"--rocksdb-write-ahead-log-disabled-during-sync"},
+    description =
+        "set to skip the RocksDB write-ahead log until the node first catches up with a peer, "
+            + "writes made before then may be lost if the node crashes "
+            + "(default: ${DEFAULT-VALUE})"
+  )
+  private final Boolean isWriteAheadLogDisabledDuringSync = false;
+
+  @Option(
+    names = {"--metrics-enabled"},
+    description =
+        "Set if the metrics service should be started for Prometheus to scrape "
+            + "(default: ${DEFAULT-VALUE})"
+  )
+  private final Boolean isMetricsEnabled = false;
+
+  @Option(
+    names = {"--metrics-listen"},
+    paramLabel = MANDATORY_HOST_AND_PORT_FORMAT_HELP,
+    description = "Host and port for the metrics service to listen on (default: ${DEFAULT-VALUE})",
+    arity = "1"
+  )
+  private final HostAndPort metricsHostAndPort =
+      getDefaultHostAndPort(MetricsConfiguration.DEFAULT_METRICS_PORT);
+
   public PantheonCommand(
       final BlockImporter blockImporter,
       final BlockchainImporter blockchainImporter,
@@ -418,7 +495,8 @@ public class PantheonCommand implements Runnable {
         maxPeers,
         p2pHostAndPort,
         jsonRpcConfiguration(),
-        webSocketConfiguration());
+        webSocketConfiguration(),
+        metricsConfiguration());
   }
 
   PantheonController<?, ?> buildController() {
@@ -429,7 +507,11 @@ public class PantheonCommand implements Runnable {
           ethNetworkConfig(),
           syncWithOttoman,
           new MiningParameters(coinbase, minTransactionGasPrice, extraData, isMiningEnabled),
-          isDevMode);
+          isDevMode,
+          prunerConfiguration(),
+          new TransactionPoolConfiguration(isJournalRemoteTransactionsEnabled),
+          rocksDbConfiguration(),
+          PrometheusMetricsSystem.init(metricsConfiguration()));
     } catch (final InvalidConfigurationException e) {
       throw new ExecutionException(new CommandLine(this), e.getMessage());
     } catch (final IOException e) {
@@ -456,10 +538,34 @@ public class PantheonCommand implements Runnable {
     return webSocketConfiguration;
   }
 
+  private MetricsConfiguration metricsConfiguration() {
+    final MetricsConfiguration metricsConfiguration = MetricsConfiguration.createDefault();
+    metricsConfiguration.setEnabled(isMetricsEnabled);
+    metricsConfiguration.setHost(metricsHostAndPort.getHost());
+    metricsConfiguration.setPort(metricsHostAndPort.getPort());
+    return metricsConfiguration;
+  }
+
+  private PrunerConfiguration prunerConfiguration() {
+    if (pruningBlocksRetained <= 0) {
+      throw new ParameterException(
+          new CommandLine(this), "--pruning-blocks-retained must be greater than 0.");
+    }
+    return new PrunerConfiguration(isPruningEnabled, pruningBlocksRetained);
+  }
+
+  private RocksDbConfiguration rocksDbConfiguration() {
+    return RocksDbConfiguration.builder()
+        .useTransactions(isRocksDbTransactionsEnabled)
+        .disableWriteAheadLog(isWriteAheadLogDisabledDuringSync)
+        .build();
+  }
+
   private SynchronizerConfiguration buildSyncConfig(final SyncMode syncMode) {
     checkNotNull(syncMode);
     synchronizerConfigurationBuilder.syncMode(syncMode);
     synchronizerConfigurationBuilder.maxTrailingPeers(maxTrailingPeers);
+    synchronizerConfigurationBuilder.worldStateWriteBehindBlocks(worldStateWriteBehindBlocks);
     return synchronizerConfigurationBuilder.build();
   }
 
@@ -471,7 +577,8 @@ public class PantheonCommand implements Runnable {
       final int maxPeers,
       final HostAndPort discoveryHostAndPort,
       final JsonRpcConfiguration jsonRpcConfiguration,
-      final WebSocketConfiguration webSocketConfiguration) {
+      final WebSocketConfiguration webSocketConfiguration,
+      final MetricsConfiguration metricsConfiguration) {
 
     checkNotNull(runnerBuilder);
 
@@ -487,6 +594,7 @@ public class PantheonCommand implements Runnable {
             maxPeers,
             jsonRpcConfiguration,
             webSocketConfiguration,
+            metricsConfiguration,
             dataDir);
 
     runner.execute();
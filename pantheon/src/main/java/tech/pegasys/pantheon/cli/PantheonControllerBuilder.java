@@ -21,6 +21,10 @@ import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
 import tech.pegasys.pantheon.ethereum.chain.GenesisConfig;
 import tech.pegasys.pantheon.ethereum.core.MiningParameters;
 import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
+import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPoolConfiguration;
+import tech.pegasys.pantheon.ethereum.worldstate.PrunerConfiguration;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.RocksDbConfiguration;
 
 import java.io.IOException;
 import java.nio.file.Path;
@@ -35,7 +39,11 @@ public class PantheonControllerBuilder {
       final EthNetworkConfig ethNetworkConfig,
       final boolean syncWithOttoman,
       final MiningParameters miningParameters,
-      final boolean isDevMode)
+      final boolean isDevMode,
+      final PrunerConfiguration prunerConfiguration,
+      final TransactionPoolConfiguration transactionPoolConfiguration,
+      final RocksDbConfiguration rocksDbConfiguration,
+      final MetricsSystem metricsSystem)
       throws IOException {
     // instantiate a controller with mainnet config if no genesis file is defined
     // otherwise use the indicated genesis file
@@ -46,7 +54,11 @@ public class PantheonControllerBuilder {
           GenesisConfig.development(),
           synchronizerConfiguration,
           miningParameters,
-          nodeKeys);
+          nodeKeys,
+          prunerConfiguration,
+          transactionPoolConfiguration,
+          rocksDbConfiguration,
+          metricsSystem);
     } else {
       final String genesisConfig =
           Resources.toString(ethNetworkConfig.getGenesisConfig().toURL(), UTF_8);
@@ -57,7 +69,11 @@ public class PantheonControllerBuilder {
           syncWithOttoman,
           ethNetworkConfig.getNetworkId(),
           miningParameters,
-          nodeKeys);
+          nodeKeys,
+          prunerConfiguration,
+          transactionPoolConfiguration,
+          rocksDbConfiguration,
+          metricsSystem);
     }
   }
 }
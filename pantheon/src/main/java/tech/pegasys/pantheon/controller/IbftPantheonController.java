@@ -40,25 +40,40 @@ import tech.pegasys.pantheon.ethereum.core.Hash;
 import tech.pegasys.pantheon.ethereum.core.Synchronizer;
 import tech.pegasys.pantheon.ethereum.core.TransactionPool;
 import tech.pegasys.pantheon.ethereum.db.DefaultMutableBlockchain;
+import tech.pegasys.pantheon.ethereum.db.KeyValueStorageSegment;
 import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
 import tech.pegasys.pantheon.ethereum.eth.EthProtocol;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManager;
 import tech.pegasys.pantheon.ethereum.eth.sync.DefaultSynchronizer;
 import tech.pegasys.pantheon.ethereum.eth.sync.SyncMode;
 import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.FastSyncStateStorage;
 import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncState;
+import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPoolConfiguration;
 import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPoolFactory;
+import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPoolJournal;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.mainnet.ScheduleBasedBlockHashFunction;
 import tech.pegasys.pantheon.ethereum.p2p.api.ProtocolManager;
 import tech.pegasys.pantheon.ethereum.p2p.config.SubProtocolConfiguration;
 import tech.pegasys.pantheon.ethereum.p2p.wire.SubProtocol;
 import tech.pegasys.pantheon.ethereum.worldstate.KeyValueStorageWorldStateStorage;
-import tech.pegasys.pantheon.services.kvstore.RocksDbKeyValueStorage;
+import tech.pegasys.pantheon.ethereum.worldstate.MarkSweepPruner;
+import tech.pegasys.pantheon.ethereum.worldstate.Pruner;
+import tech.pegasys.pantheon.ethereum.worldstate.PrunerConfiguration;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateRecovery;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
+import tech.pegasys.pantheon.ethereum.worldstate.WriteBehindWorldStateStorage;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.ColumnarRocksDbKeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.RocksDbConfiguration;
+import tech.pegasys.pantheon.services.kvstore.SegmentedKeyValueStorageAdapter;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -113,19 +128,60 @@ public class IbftPantheonController implements PantheonController<IbftContext, I
       final boolean ottomanTestnetOperation,
       final JsonObject ibftConfig,
       final int networkId,
-      final KeyPair nodeKeys)
+      final KeyPair nodeKeys,
+      final PrunerConfiguration prunerConfiguration,
+      final TransactionPoolConfiguration transactionPoolConfiguration,
+      final RocksDbConfiguration rocksDbConfiguration,
+      final MetricsSystem metricsSystem)
       throws IOException {
-    final RocksDbKeyValueStorage kv =
-        RocksDbKeyValueStorage.create(Files.createDirectories(home.resolve(DATABASE_PATH)));
+    final ColumnarRocksDbKeyValueStorage storage =
+        ColumnarRocksDbKeyValueStorage.create(
+            Files.createDirectories(home.resolve(DATABASE_PATH)),
+            Arrays.asList(KeyValueStorageSegment.values()),
+            rocksDbConfiguration,
+            metricsSystem);
+    final KeyValueStorage blockchainKeyValueStorage =
+        new SegmentedKeyValueStorageAdapter<>(KeyValueStorageSegment.BLOCKCHAIN, storage);
+    final KeyValueStorage worldStateKeyValueStorage =
+        new SegmentedKeyValueStorageAdapter<>(KeyValueStorageSegment.WORLD_STATE, storage);
     final ProtocolSchedule<IbftContext> protocolSchedule = genesisConfig.getProtocolSchedule();
     final BlockHashFunction blockHashFunction =
         ScheduleBasedBlockHashFunction.create(protocolSchedule);
     final MutableBlockchain blockchain =
-        new DefaultMutableBlockchain(genesisConfig.getBlock(), kv, blockHashFunction);
-    final KeyValueStorageWorldStateStorage worldStateStorage =
-        new KeyValueStorageWorldStateStorage(kv);
+        new DefaultMutableBlockchain(
+            genesisConfig.getBlock(),
+            blockchainKeyValueStorage,
+            blockHashFunction,
+            metricsSystem);
+    final KeyValueStorageWorldStateStorage persistedWorldStateStorage =
+        KeyValueStorageWorldStateStorage.withDefaultCaches(
+            worldStateKeyValueStorage, metricsSystem);
+    final int writeBehindBlocks = taintedSyncConfig.worldStateWriteBehindBlocks();
+    final Optional<WriteBehindWorldStateStorage> writeBehindStorage =
+        writeBehindBlocks > 0
+            ? Optional.of(
+                new WriteBehindWorldStateStorage(persistedWorldStateStorage, writeBehindBlocks))
+            : Optional.empty();
+    final WorldStateStorage worldStateStorage =
+        writeBehindStorage.isPresent() ? writeBehindStorage.get() : persistedWorldStateStorage;
     final WorldStateArchive worldStateArchive = new WorldStateArchive(worldStateStorage);
     genesisConfig.writeStateTo(worldStateArchive.getMutable(Hash.EMPTY_TRIE_HASH));
+    // Blocks imported during fast sync have no world state until it completes.
+    if (!new FastSyncStateStorage(home.resolve(DefaultSynchronizer.FAST_SYNC_FOLDER))
+        .isFastSyncInProgress()) {
+      WorldStateRecovery.recoverChainHeadWorldState(
+          blockchain, worldStateArchive, protocolSchedule);
+    }
+
+    final Optional<Pruner> pruner =
+        prunerConfiguration.isEnabled()
+            ? Optional.of(
+                new Pruner(
+                    new MarkSweepPruner(worldStateStorage),
+                    blockchain,
+                    Executors.newSingleThreadExecutor(),
+                    prunerConfiguration))
+            : Optional.empty();
 
     final EpochManager epochManager =
         new EpochManager(IbftProtocolSchedule.getEpochLength(Optional.of(ibftConfig)));
@@ -137,7 +193,10 @@ public class IbftPantheonController implements PantheonController<IbftContext, I
 
     final ProtocolContext<IbftContext> protocolContext =
         new ProtocolContext<>(
-            blockchain, worldStateArchive, new IbftContext(voteTally, voteProposer));
+            blockchain,
+            worldStateArchive,
+            new IbftContext(voteTally, voteProposer),
+            metricsSystem);
 
     final SynchronizerConfiguration syncConfig = taintedSyncConfig.validated(blockchain);
     final boolean fastSyncEnabled = syncConfig.syncMode().equals(SyncMode.FAST);
@@ -148,22 +207,38 @@ public class IbftPantheonController implements PantheonController<IbftContext, I
       ethSubProtocol = Istanbul64Protocol.get();
       ethProtocolManager =
           new Istanbul64ProtocolManager(
-              protocolContext.getBlockchain(), networkId, fastSyncEnabled, 1);
+              protocolContext.getBlockchain(),
+              protocolContext.getWorldStateArchive(),
+              networkId,
+              fastSyncEnabled,
+              1);
     } else {
       ethSubProtocol = EthProtocol.get();
       ethProtocolManager =
-          new EthProtocolManager(protocolContext.getBlockchain(), networkId, fastSyncEnabled, 1);
+          new EthProtocolManager(
+              protocolContext.getBlockchain(),
+              protocolContext.getWorldStateArchive(),
+              networkId,
+              fastSyncEnabled,
+              1,
+              metricsSystem);
     }
     final SyncState syncState =
         new SyncState(
             protocolContext.getBlockchain(), ethProtocolManager.ethContext().getEthPeers());
-    final Synchronizer synchronizer =
+    final DefaultSynchronizer<IbftContext> synchronizer =
         new DefaultSynchronizer<>(
             syncConfig,
             protocolSchedule,
             protocolContext,
             ethProtocolManager.ethContext(),
-            syncState);
+            syncState,
+            home);
+    // Blocks imported by fast sync have no world state, so pruning only starts after it.
+    pruner.ifPresent(p -> synchronizer.whenFullSyncStarted(p::start));
+    if (rocksDbConfiguration.isWriteAheadLogDisabled()) {
+      syncState.whenSyncTargetReached(storage::enableWriteAheadLog);
+    }
 
     final IbftEventQueue ibftEventQueue = new IbftEventQueue();
 
@@ -178,6 +253,17 @@ public class IbftPantheonController implements PantheonController<IbftContext, I
     final ExecutorService processorExecutor = Executors.newSingleThreadExecutor();
     processorExecutor.submit(ibftProcessor);
 
+    final TransactionPool transactionPool =
+        TransactionPoolFactory.createTransactionPool(
+            protocolSchedule, protocolContext, ethProtocolManager.ethContext());
+    final TransactionPoolJournal transactionPoolJournal =
+        new TransactionPoolJournal(
+            home.resolve(TransactionPoolJournal.JOURNAL_FILE_NAME),
+            transactionPoolConfiguration,
+            transactionPool,
+            ethProtocolManager.ethContext().getScheduler());
+    transactionPoolJournal.start();
+
     final Runnable closer =
         () -> {
           ibftProcessor.stop();
@@ -187,13 +273,12 @@ public class IbftPantheonController implements PantheonController<IbftContext, I
           } catch (final InterruptedException e) {
             LOG.error("Failed to shutdown ibft processor executor");
           }
-          kv.close();
+          transactionPoolJournal.stop();
+          pruner.ifPresent(Pruner::stop);
+          writeBehindStorage.ifPresent(WriteBehindWorldStateStorage::close);
+          storage.close();
         };
 
-    final TransactionPool transactionPool =
-        TransactionPoolFactory.createTransactionPool(
-            protocolSchedule, protocolContext, ethProtocolManager.ethContext());
-
     final IbftNetworkPeers peers =
         new IbftNetworkPeers(protocolContext.getConsensusState().getVoteTally());
 
@@ -28,26 +28,43 @@ import tech.pegasys.pantheon.ethereum.core.MiningParameters;
 import tech.pegasys.pantheon.ethereum.core.Synchronizer;
 import tech.pegasys.pantheon.ethereum.core.TransactionPool;
 import tech.pegasys.pantheon.ethereum.db.DefaultMutableBlockchain;
+import tech.pegasys.pantheon.ethereum.db.KeyValueStorageSegment;
 import tech.pegasys.pantheon.ethereum.db.WorldStateArchive;
 import tech.pegasys.pantheon.ethereum.eth.EthProtocol;
 import tech.pegasys.pantheon.ethereum.eth.manager.EthProtocolManager;
 import tech.pegasys.pantheon.ethereum.eth.sync.DefaultSynchronizer;
 import tech.pegasys.pantheon.ethereum.eth.sync.SyncMode;
 import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
+import tech.pegasys.pantheon.ethereum.eth.sync.state.FastSyncStateStorage;
 import tech.pegasys.pantheon.ethereum.eth.sync.state.SyncState;
+import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPoolConfiguration;
 import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPoolFactory;
+import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPoolJournal;
 import tech.pegasys.pantheon.ethereum.mainnet.MainnetBlockHeaderValidator;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.mainnet.ScheduleBasedBlockHashFunction;
 import tech.pegasys.pantheon.ethereum.p2p.api.ProtocolManager;
 import tech.pegasys.pantheon.ethereum.p2p.config.SubProtocolConfiguration;
 import tech.pegasys.pantheon.ethereum.worldstate.KeyValueStorageWorldStateStorage;
-import tech.pegasys.pantheon.services.kvstore.RocksDbKeyValueStorage;
+import tech.pegasys.pantheon.ethereum.worldstate.MarkSweepPruner;
+import tech.pegasys.pantheon.ethereum.worldstate.Pruner;
+import tech.pegasys.pantheon.ethereum.worldstate.PrunerConfiguration;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateRecovery;
+import tech.pegasys.pantheon.ethereum.worldstate.WorldStateStorage;
+import tech.pegasys.pantheon.ethereum.worldstate.WriteBehindWorldStateStorage;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.ColumnarRocksDbKeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage;
+import tech.pegasys.pantheon.services.kvstore.RocksDbConfiguration;
+import tech.pegasys.pantheon.services.kvstore.SegmentedKeyValueStorageAdapter;
 import tech.pegasys.pantheon.util.time.SystemClock;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -108,42 +125,135 @@ public class MainnetPantheonController implements PantheonController<Void, EthHa
       final MiningParameters miningParams,
       final KeyPair nodeKeys)
       throws IOException {
-    final RocksDbKeyValueStorage kv =
-        RocksDbKeyValueStorage.create(Files.createDirectories(home.resolve(DATABASE_PATH)));
+    return init(
+        home,
+        genesisConfig,
+        taintedSyncConfig,
+        miningParams,
+        nodeKeys,
+        PrunerConfiguration.disabled());
+  }
+
+  public static PantheonController<Void, EthHashBlockMiner> init(
+      final Path home,
+      final GenesisConfig<Void> genesisConfig,
+      final SynchronizerConfiguration taintedSyncConfig,
+      final MiningParameters miningParams,
+      final KeyPair nodeKeys,
+      final PrunerConfiguration prunerConfiguration)
+      throws IOException {
+    return init(
+        home,
+        genesisConfig,
+        taintedSyncConfig,
+        miningParams,
+        nodeKeys,
+        prunerConfiguration,
+        TransactionPoolConfiguration.createDefault(),
+        RocksDbConfiguration.builder().build(),
+        new NoOpMetricsSystem());
+  }
+
+  public static PantheonController<Void, EthHashBlockMiner> init(
+      final Path home,
+      final GenesisConfig<Void> genesisConfig,
+      final SynchronizerConfiguration taintedSyncConfig,
+      final MiningParameters miningParams,
+      final KeyPair nodeKeys,
+      final PrunerConfiguration prunerConfiguration,
+      final TransactionPoolConfiguration transactionPoolConfiguration,
+      final RocksDbConfiguration rocksDbConfiguration,
+      final MetricsSystem metricsSystem)
+      throws IOException {
+    final ColumnarRocksDbKeyValueStorage storage =
+        ColumnarRocksDbKeyValueStorage.create(
+            Files.createDirectories(home.resolve(DATABASE_PATH)),
+            Arrays.asList(KeyValueStorageSegment.values()),
+            rocksDbConfiguration,
+            metricsSystem);
+    final KeyValueStorage blockchainKeyValueStorage =
+        new SegmentedKeyValueStorageAdapter<>(KeyValueStorageSegment.BLOCKCHAIN, storage);
+    final KeyValueStorage worldStateKeyValueStorage =
+        new SegmentedKeyValueStorageAdapter<>(KeyValueStorageSegment.WORLD_STATE, storage);
     final ProtocolSchedule<Void> protocolSchedule = genesisConfig.getProtocolSchedule();
     final BlockHashFunction blockHashFunction =
         ScheduleBasedBlockHashFunction.create(protocolSchedule);
     final MutableBlockchain blockchain =
-        new DefaultMutableBlockchain(genesisConfig.getBlock(), kv, blockHashFunction);
-    final WorldStateArchive worldStateArchive =
-        new WorldStateArchive(new KeyValueStorageWorldStateStorage(kv));
+        new DefaultMutableBlockchain(
+            genesisConfig.getBlock(),
+            blockchainKeyValueStorage,
+            blockHashFunction,
+            metricsSystem);
+    final KeyValueStorageWorldStateStorage persistedWorldStateStorage =
+        KeyValueStorageWorldStateStorage.withDefaultCaches(
+            worldStateKeyValueStorage, metricsSystem);
+    final int writeBehindBlocks = taintedSyncConfig.worldStateWriteBehindBlocks();
+    final Optional<WriteBehindWorldStateStorage> writeBehindStorage =
+        writeBehindBlocks > 0
+            ? Optional.of(
+                new WriteBehindWorldStateStorage(persistedWorldStateStorage, writeBehindBlocks))
+            : Optional.empty();
+    final WorldStateStorage worldStateStorage =
+        writeBehindStorage.isPresent() ? writeBehindStorage.get() : persistedWorldStateStorage;
+    final WorldStateArchive worldStateArchive = new WorldStateArchive(worldStateStorage);
     genesisConfig.writeStateTo(worldStateArchive.getMutable(Hash.EMPTY_TRIE_HASH));
+    // Blocks imported during fast sync have no world state until it completes.
+    if (!new FastSyncStateStorage(home.resolve(DefaultSynchronizer.FAST_SYNC_FOLDER))
+        .isFastSyncInProgress()) {
+      WorldStateRecovery.recoverChainHeadWorldState(
+          blockchain, worldStateArchive, protocolSchedule);
+    }
+
+    final Optional<Pruner> pruner =
+        prunerConfiguration.isEnabled()
+            ? Optional.of(
+                new Pruner(
+                    new MarkSweepPruner(worldStateStorage),
+                    blockchain,
+                    Executors.newSingleThreadExecutor(),
+                    prunerConfiguration))
+            : Optional.empty();
 
     final ProtocolContext<Void> protocolContext =
-        new ProtocolContext<>(blockchain, worldStateArchive, null);
+        new ProtocolContext<>(blockchain, worldStateArchive, null, metricsSystem);
 
     final SynchronizerConfiguration syncConfig = taintedSyncConfig.validated(blockchain);
     final boolean fastSyncEnabled = syncConfig.syncMode().equals(SyncMode.FAST);
     final EthProtocolManager ethProtocolManager =
         new EthProtocolManager(
             protocolContext.getBlockchain(),
+            protocolContext.getWorldStateArchive(),
             genesisConfig.getChainId(),
             fastSyncEnabled,
-            syncConfig.downloaderParallelism());
+            syncConfig.downloaderParallelism(),
+            metricsSystem);
     final SyncState syncState =
         new SyncState(
             protocolContext.getBlockchain(), ethProtocolManager.ethContext().getEthPeers());
-    final Synchronizer synchronizer =
+    final DefaultSynchronizer<Void> synchronizer =
         new DefaultSynchronizer<>(
             syncConfig,
             protocolSchedule,
             protocolContext,
             ethProtocolManager.ethContext(),
-            syncState);
+            syncState,
+            home);
+    // Blocks imported by fast sync have no world state, so pruning only starts after it.
+    pruner.ifPresent(p -> synchronizer.whenFullSyncStarted(p::start));
+    if (rocksDbConfiguration.isWriteAheadLogDisabled()) {
+      syncState.whenSyncTargetReached(storage::enableWriteAheadLog);
+    }
 
     final TransactionPool transactionPool =
         TransactionPoolFactory.createTransactionPool(
             protocolSchedule, protocolContext, ethProtocolManager.ethContext());
+    final TransactionPoolJournal transactionPoolJournal =
+        new TransactionPoolJournal(
+            home.resolve(TransactionPoolJournal.JOURNAL_FILE_NAME),
+            transactionPoolConfiguration,
+            transactionPool,
+            ethProtocolManager.ethContext().getScheduler());
+    transactionPoolJournal.start();
 
     final ExecutorService minerThreadPool = Executors.newCachedThreadPool();
     final EthHashMinerExecutor executor =
@@ -181,7 +291,10 @@ public class MainnetPantheonController implements PantheonController<Void, EthHa
           } catch (final InterruptedException e) {
             LOG.error("Failed to shutdown miner executor");
           }
-          kv.close();
+          transactionPoolJournal.stop();
+          pruner.ifPresent(Pruner::stop);
+          writeBehindStorage.ifPresent(WriteBehindWorldStateStorage::close);
+          storage.close();
         });
   }
 
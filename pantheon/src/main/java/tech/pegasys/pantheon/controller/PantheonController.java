@@ -24,9 +24,15 @@ import tech.pegasys.pantheon.ethereum.core.MiningParameters;
 import tech.pegasys.pantheon.ethereum.core.Synchronizer;
 import tech.pegasys.pantheon.ethereum.core.TransactionPool;
 import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
+import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPoolConfiguration;
 import tech.pegasys.pantheon.ethereum.mainnet.MainnetProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.p2p.config.SubProtocolConfiguration;
+import tech.pegasys.pantheon.ethereum.vm.CodeCache;
+import tech.pegasys.pantheon.ethereum.worldstate.PrunerConfiguration;
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.RocksDbConfiguration;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -48,35 +54,99 @@ public interface PantheonController<C, M extends BlockMiner<C, ? extends Abstrac
       final MiningParameters miningParameters,
       final KeyPair nodeKeys)
       throws IOException {
+    return fromConfig(
+        syncConfig,
+        configContents,
+        pantheonHome,
+        ottomanTestnetOperation,
+        networkId,
+        miningParameters,
+        nodeKeys,
+        PrunerConfiguration.disabled());
+  }
+
+  static PantheonController<?, ?> fromConfig(
+      final SynchronizerConfiguration syncConfig,
+      final String configContents,
+      final Path pantheonHome,
+      final boolean ottomanTestnetOperation,
+      final int networkId,
+      final MiningParameters miningParameters,
+      final KeyPair nodeKeys,
+      final PrunerConfiguration prunerConfiguration)
+      throws IOException {
+    return fromConfig(
+        syncConfig,
+        configContents,
+        pantheonHome,
+        ottomanTestnetOperation,
+        networkId,
+        miningParameters,
+        nodeKeys,
+        prunerConfiguration,
+        TransactionPoolConfiguration.createDefault(),
+        RocksDbConfiguration.builder().build(),
+        new NoOpMetricsSystem());
+  }
+
+  static PantheonController<?, ?> fromConfig(
+      final SynchronizerConfiguration syncConfig,
+      final String configContents,
+      final Path pantheonHome,
+      final boolean ottomanTestnetOperation,
+      final int networkId,
+      final MiningParameters miningParameters,
+      final KeyPair nodeKeys,
+      final PrunerConfiguration prunerConfiguration,
+      final TransactionPoolConfiguration transactionPoolConfiguration,
+      final RocksDbConfiguration rocksDbConfiguration,
+      final MetricsSystem metricsSystem)
+      throws IOException {
 
     final JsonObject config = new JsonObject(configContents);
     final JsonObject configOptions = config.getJsonObject("config");
+    final CodeCache codeCache =
+        new CodeCache(CodeCache.DEFAULT_MAXIMUM_SIZE_IN_BYTES, metricsSystem);
 
     if (configOptions.containsKey("ethash")) {
       return MainnetPantheonController.init(
           pantheonHome,
-          GenesisConfig.fromConfig(config, MainnetProtocolSchedule.fromConfig(configOptions)),
+          GenesisConfig.fromConfig(
+              config, MainnetProtocolSchedule.fromConfig(configOptions, codeCache)),
           syncConfig,
           miningParameters,
-          nodeKeys);
+          nodeKeys,
+          prunerConfiguration,
+          transactionPoolConfiguration,
+          rocksDbConfiguration,
+          metricsSystem);
     } else if (configOptions.containsKey("ibft")) {
       return IbftPantheonController.init(
           pantheonHome,
-          GenesisConfig.fromConfig(config, IbftProtocolSchedule.create(configOptions)),
+          GenesisConfig.fromConfig(config, IbftProtocolSchedule.create(configOptions, codeCache)),
           syncConfig,
           ottomanTestnetOperation,
           configOptions.getJsonObject("ibft"),
           networkId,
-          nodeKeys);
+          nodeKeys,
+          prunerConfiguration,
+          transactionPoolConfiguration,
+          rocksDbConfiguration,
+          metricsSystem);
     } else if (configOptions.containsKey("clique")) {
       return CliquePantheonController.init(
           pantheonHome,
-          GenesisConfig.fromConfig(config, CliqueProtocolSchedule.create(configOptions, nodeKeys)),
+          GenesisConfig.fromConfig(
+              config, CliqueProtocolSchedule.create(configOptions, nodeKeys, codeCache)),
           syncConfig,
           miningParameters,
           configOptions.getJsonObject("clique"),
           networkId,
-          nodeKeys);
+          nodeKeys,
+          prunerConfiguration,
+          transactionPoolConfiguration,
+          rocksDbConfiguration,
+          metricsSystem);
     } else {
       throw new IllegalArgumentException("Unknown consensus mechanism defined");
     }
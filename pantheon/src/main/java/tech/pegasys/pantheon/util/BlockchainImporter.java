@@ -14,12 +14,12 @@ package tech.pegasys.pantheon.util;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 
 import tech.pegasys.pantheon.controller.PantheonController;
 import tech.pegasys.pantheon.ethereum.ProtocolContext;
 import tech.pegasys.pantheon.ethereum.blockcreation.AbstractBlockCreator;
 import tech.pegasys.pantheon.ethereum.blockcreation.BlockMiner;
-import tech.pegasys.pantheon.ethereum.chain.GenesisConfig;
 import tech.pegasys.pantheon.ethereum.chain.MutableBlockchain;
 import tech.pegasys.pantheon.ethereum.core.Address;
 import tech.pegasys.pantheon.ethereum.core.Block;
@@ -35,7 +35,6 @@ import tech.pegasys.pantheon.ethereum.core.WorldUpdater;
 import tech.pegasys.pantheon.ethereum.mainnet.BlockHeaderValidator;
 import tech.pegasys.pantheon.ethereum.mainnet.HeaderValidationMode;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
-import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSpec;
 import tech.pegasys.pantheon.ethereum.mainnet.ScheduleBasedBlockHashFunction;
 import tech.pegasys.pantheon.ethereum.rlp.FileRLPInput;
 import tech.pegasys.pantheon.ethereum.rlp.RLPInput;
@@ -48,8 +47,15 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.util.Strings;
@@ -85,6 +91,9 @@ public class BlockchainImporter extends BlockImporter {
   private static final Logger LOG = LogManager.getLogger();
   private static final Logger METRICS_LOG = LogManager.getLogger(LOG.getName() + "-metrics");
 
+  private static final int VALIDATOR_THREADS = Runtime.getRuntime().availableProcessors();
+  private static final int PIPELINE_CAPACITY = 256;
+
   Boolean isSkipHeaderValidation = false;
 
   /**
@@ -175,147 +184,320 @@ public class BlockchainImporter extends BlockImporter {
           final Boolean isSkipBlocks,
           final int metricsIntervalSec,
           final Long worldStateOffset) {
+    checkNotNull(isSkipBlocks);
+
+    final long totalBlockCount = rlp.readLongScalar();
+
+    LOG.info(
+        format(
+            "Import file contains %,d blocks, starting at file offset %,d.",
+            totalBlockCount, rlp.currentOffset()));
+
+    if (isSkipBlocks) {
+      return skipBlockchain(
+          pantheonController, rlp, totalBlockCount, metricsIntervalSec, worldStateOffset);
+    }
+    return importBlocks(pantheonController, rlp, totalBlockCount, metricsIntervalSec);
+  }
+
+  /**
+   * Imports the blocks of the blockchain section through a pipeline of three stages connected by a
+   * bounded queue: a decoder thread reads blocks from the file in order, a pool of validator
+   * threads checks each header (including its proof of work) against its predecessor in the file
+   * and computes the header and transaction hashes, and the calling thread appends the validated
+   * blocks to the chain in order. The queue bound applies back-pressure to the decoder so that the
+   * number of blocks held in memory stays fixed regardless of the file size.
+   *
+   * <p>The validator threads run ahead of the import, so they only apply the header rules that
+   * need nothing but the parent header. Rules that depend on the consensus state of the imported
+   * chain, such as Clique and IBFT validator checks, are applied as each block is imported.
+   *
+   * @param <C> the consensus context type
+   * @param pantheonController the PantheonController that defines blockchain behavior
+   * @param rlp RLP Input File, positioned on the first block
+   * @param totalBlockCount number of blocks in the file
+   * @param metricsIntervalSec seconds between logging progress metrics
+   * @return the import result
+   */
+  private <C, M extends BlockMiner<C, ? extends AbstractBlockCreator<C>>>
+      BlockImporter.ImportResult importBlocks(
+          final PantheonController<C, M> pantheonController,
+          final FileRLPInput rlp,
+          final long totalBlockCount,
+          final int metricsIntervalSec) {
     final ProtocolSchedule<C> protocolSchedule = pantheonController.getProtocolSchedule();
     final ProtocolContext<C> context = pantheonController.getProtocolContext();
-    final GenesisConfig<C> genesis = pantheonController.getGenesisConfig();
-    checkNotNull(isSkipBlocks);
+    final BlockHeader genesisHeader = pantheonController.getGenesisConfig().getBlock().getHeader();
+
+    final BlockingQueue<CompletableFuture<DecodedBlock>> validatedBlocks =
+        new ArrayBlockingQueue<>(PIPELINE_CAPACITY);
+    final PipelineStage decodeStage = new PipelineStage("Decoded");
+    final PipelineStage validateStage = new PipelineStage("Validated");
+    final PipelineStage importStage = new PipelineStage("Imported");
+
+    final ExecutorService decoder =
+        Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder()
+                .setNameFormat(BlockchainImporter.class.getSimpleName() + "-Decoder")
+                .build());
+    final ExecutorService validators =
+        Executors.newFixedThreadPool(
+            VALIDATOR_THREADS,
+            new ThreadFactoryBuilder()
+                .setNameFormat(BlockchainImporter.class.getSimpleName() + "-Validator-%d")
+                .build());
 
     final long startTime = System.currentTimeMillis();
     long lapStartTime = startTime;
     final long metricsIntervalMS =
         1_000L * metricsIntervalSec; // Use Millis here to make math easier
     long nextMetricsTime = startTime + metricsIntervalMS;
-    long itemStartingOffset = 0;
-    final String logAction = isSkipBlocks ? "Skipped" : "Imported";
 
-    final long totalBlockCount = rlp.readLongScalar();
+    int blockCount = 0;
+    DecodedBlock block = null;
+    try {
+      decoder.execute(
+          () ->
+              decodeBlocks(
+                  protocolSchedule,
+                  context,
+                  rlp,
+                  totalBlockCount,
+                  genesisHeader,
+                  validators,
+                  validatedBlocks,
+                  decodeStage,
+                  validateStage));
 
-    LOG.info(
-        format(
-            "Import file contains %,d blocks, starting at file offset %,d.",
-            totalBlockCount, rlp.currentOffset()));
+      while (blockCount < totalBlockCount) {
+        block = null; // Reset so that if an error occurs, we log the correct data.
+        block = validatedBlocks.take().join();
+
+        blockCount++;
+
+        if (blockCount == 1) {
+          // Log the first block for ops & dev debug purposes.
+          LOG.info(
+              format(
+                  "First Block, file offset=%,d\nHeader=%s\n\nBody=%s\n\n",
+                  block.offset, block.header, block.body));
+        }
+
+        if (blockCount == totalBlockCount) {
+          // Log the last block for ops & dev debug purposes.
+          LOG.info(
+              format(
+                  "Last Block, file offset=%,d\nHeader=%s\n\nBody=%s\n\n",
+                  block.offset, block.header, block.body));
+        }
+
+        if (LOG.isTraceEnabled()) {
+          LOG.trace(
+              format(
+                  "About to import block from file offset %,d with header=%s, body=%s, receipts=%s",
+                  block.offset, block.header, block.body, block.receiptsString()));
+        }
+
+        // Rules that only need the parent header were already applied by the validation stage.
+        final boolean blockImported =
+            protocolSchedule
+                .getByBlockNumber(block.header.getNumber())
+                .getBlockImporter()
+                .fastImportBlock(
+                    context,
+                    new Block(block.header, block.body),
+                    block.receipts,
+                    isSkipHeaderValidation
+                        ? HeaderValidationMode.NONE
+                        : HeaderValidationMode.SKIP_DETACHED);
+        if (!blockImported) {
+          final String message =
+              format(
+                  "Invalid header block number %,d at file position %,d",
+                  block.header.getNumber(), block.offset);
+          throw new IllegalStateException(message);
+        }
+        importStage.increment();
+
+        if (System.currentTimeMillis() >= nextMetricsTime) {
+          for (final PipelineStage stage : asList(decodeStage, validateStage, importStage)) {
+            stage.logLap(startTime, lapStartTime);
+          }
+          lapStartTime = System.currentTimeMillis();
+          nextMetricsTime = lapStartTime + metricsIntervalMS;
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while importing blocks", e);
+    } catch (final RuntimeException e) {
+      final String message =
+          block == null
+              ? format("Error importing block number %,d", blockCount + 1)
+              : format(
+                  "Error importing block from file offset %,d with header=%s, body=%s, receipts=%s",
+                  block.offset, block.header, block.body, block.receiptsString());
+      throw new RuntimeException(message, e);
+    } finally {
+      decoder.shutdownNow();
+      validators.shutdownNow();
+    }
+
+    logFinalMetrics("Imported", "block", startTime, blockCount);
+    return new BlockchainImporter.ImportResult(
+        context.getBlockchain().getChainHead().getTotalDifficulty(), blockCount);
+  }
+
+  /**
+   * Reads blocks from the file in order and hands each one to the validator threads, queueing the
+   * pending validation results in file order. Blocks while the queue is full.
+   */
+  private <C> void decodeBlocks(
+      final ProtocolSchedule<C> protocolSchedule,
+      final ProtocolContext<C> context,
+      final FileRLPInput rlp,
+      final long totalBlockCount,
+      final BlockHeader genesisHeader,
+      final ExecutorService validators,
+      final BlockingQueue<CompletableFuture<DecodedBlock>> validatedBlocks,
+      final PipelineStage decodeStage,
+      final PipelineStage validateStage) {
+    final Function<RLPInput, BlockHeader> headerReader =
+        rlp2 -> BlockHeader.readFrom(rlp2, ScheduleBasedBlockHashFunction.create(protocolSchedule));
+    BlockHeader previousHeader = genesisHeader;
+    try {
+      for (long i = 0; i < totalBlockCount; i++) {
+        final DecodedBlock block;
+        try {
+          block = DecodedBlock.readFrom(rlp, headerReader);
+        } catch (final RuntimeException e) {
+          final CompletableFuture<DecodedBlock> failed = new CompletableFuture<>();
+          failed.completeExceptionally(e);
+          validatedBlocks.put(failed);
+          return;
+        }
+        decodeStage.increment();
+
+        final BlockHeader parentHeader = previousHeader;
+        validatedBlocks.put(
+            CompletableFuture.supplyAsync(
+                () -> {
+                  validateBlock(protocolSchedule, context, block, parentHeader);
+                  validateStage.increment();
+                  return block;
+                },
+                validators));
+        previousHeader = block.header;
+      }
+    } catch (final InterruptedException e) {
+      // The import stage has failed and shut the pipeline down.
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Validates a decoded block against its predecessor in the import file and computes the hashes
+   * the import stage needs, so that this work happens on the validator threads. Only rules that are
+   * independent of the chain being imported are applied, as earlier blocks may not be imported yet.
+   */
+  private <C> void validateBlock(
+      final ProtocolSchedule<C> protocolSchedule,
+      final ProtocolContext<C> context,
+      final DecodedBlock block,
+      final BlockHeader parentHeader) {
+    if (!isSkipHeaderValidation) {
+      final BlockHeaderValidator<C> blockHeaderValidator =
+          protocolSchedule.getByBlockNumber(block.header.getNumber()).getBlockHeaderValidator();
+      if (!blockHeaderValidator.validateHeader(
+          block.header, parentHeader, context, HeaderValidationMode.DETACHED_ONLY)) {
+        final String message =
+            format(
+                "Invalid header block number %,d at file position %,d",
+                block.header.getNumber(), block.offset);
+        throw new IllegalStateException(message);
+      }
+    }
+    // Hashes are cached once computed, so computing them here takes them off the import thread.
+    block.header.getHash();
+    block.body.getTransactions().forEach(Transaction::hash);
+  }
 
-    if (isSkipBlocks && worldStateOffset != null) {
+  /**
+   * Skips over the blockchain section of the file, parsing only the last block so that it can be
+   * logged.
+   *
+   * @param <C> the consensus context type
+   * @param pantheonController the PantheonController that defines blockchain behavior
+   * @param rlp RLP Input File, positioned on the first block
+   * @param totalBlockCount number of blocks in the file
+   * @param metricsIntervalSec seconds between logging progress metrics
+   * @param worldStateOffset file offset for the starting byte of the world state, or null if the
+   *     blocks have to be parsed to find it
+   * @return the import result
+   */
+  private <C, M extends BlockMiner<C, ? extends AbstractBlockCreator<C>>>
+      BlockImporter.ImportResult skipBlockchain(
+          final PantheonController<C, M> pantheonController,
+          final FileRLPInput rlp,
+          final long totalBlockCount,
+          final int metricsIntervalSec,
+          final Long worldStateOffset) {
+    final long startTime = System.currentTimeMillis();
+
+    if (worldStateOffset != null) {
       // Skip blocks.  Offset was given, so we don't even have to parse through the blocks
       logFinalMetrics("Skipped", "block", startTime, Math.toIntExact(totalBlockCount));
       rlp.setTo(worldStateOffset);
       return new BlockchainImporter.ImportResult(UInt256.ZERO, 0);
     }
 
+    final ProtocolSchedule<C> protocolSchedule = pantheonController.getProtocolSchedule();
     final Function<RLPInput, BlockHeader> headerReader =
         rlp2 -> BlockHeader.readFrom(rlp2, ScheduleBasedBlockHashFunction.create(protocolSchedule));
 
-    BlockHeader previousHeader = genesis.getBlock().getHeader();
+    long lapStartTime = startTime;
+    final long metricsIntervalMS =
+        1_000L * metricsIntervalSec; // Use Millis here to make math easier
+    long nextMetricsTime = startTime + metricsIntervalMS;
     int blockCount = 0;
     int lapCount = 0;
-    BlockHeader header = null;
-    BlockBody body = null;
-    List<TransactionReceipt> receipts = null;
+    long itemStartingOffset = 0;
     try {
       while (blockCount < totalBlockCount) {
-        header = null; // Reset so that if an error occurs, we log the correct data.
-        body = null;
-        receipts = null;
-
         blockCount++;
         lapCount++;
         itemStartingOffset = rlp.currentOffset();
 
-        if (isSkipBlocks && !(blockCount == totalBlockCount - 1)) {
-          // Skip block, unless it is the last one.  If it's the last one, it will get parsed
-          // printed into the log, but not stored.  This is for ops & dev debug purposes.
+        if (blockCount < totalBlockCount) {
           rlp.skipNext();
           rlp.skipNext();
         } else {
-          rlp.enterList(true);
-          header = headerReader.apply(rlp);
-          body = new BlockBody(rlp.readList(Transaction::readFrom), rlp.readList(headerReader));
-          rlp.leaveList();
-          receipts = rlp.readList(TransactionReceipt::readFrom);
-          final ProtocolSpec<C> protocolSpec =
-              protocolSchedule.getByBlockNumber(header.getNumber());
-
-          if (!isSkipHeaderValidation) {
-            // Validate headers here because we already have the previous block, and can avoid
-            // an unnecessary lookup compared to doing the validation in the BlockImporter below.
-            final BlockHeaderValidator<C> blockHeaderValidator =
-                protocolSpec.getBlockHeaderValidator();
-            final boolean validHeader =
-                blockHeaderValidator.validateHeader(
-                    header, previousHeader, context, HeaderValidationMode.FULL);
-            if (!validHeader) {
-              final String message =
-                  format(
-                      "Invalid header block number %,d at file position %,d",
-                      header.getNumber(), itemStartingOffset);
-              throw new IllegalStateException(message);
-            }
-          }
-
-          if (blockCount == 1) {
-            // Log the first block for ops & dev debug purposes.
-            LOG.info(
-                format(
-                    "First Block, file offset=%,d\nHeader=%s\n\nBody=%s\n\n",
-                    itemStartingOffset, header, body));
-          }
-
-          if (blockCount == totalBlockCount) {
-            // Log the last block for ops & dev debug purposes.
-            LOG.info(
-                format(
-                    "Last Block, file offset=%,d\nHeader=%s\n\nBody=%s\n\n",
-                    itemStartingOffset, header, body));
-          }
-
-          if (LOG.isTraceEnabled()) {
-            final String receiptsStr =
-                receipts == null ? null : Strings.join(receipts.iterator(), ',');
-            LOG.trace(
-                format(
-                    "About to import block from file offset %,d with header=%s, body=%s, receipts=%s",
-                    itemStartingOffset, header, body, receiptsStr));
-          }
-
-          final tech.pegasys.pantheon.ethereum.core.BlockImporter<C> blockImporter;
-          blockImporter = protocolSpec.getBlockImporter();
-
-          if (!isSkipBlocks) {
-            // Do not validate headers here.  They were already validated above, since we already
-            // have the previous block on-hand, we avoid the extra lookup BlockImporter would do
-            final boolean blockImported =
-                blockImporter.fastImportBlock(
-                    context, new Block(header, body), receipts, HeaderValidationMode.NONE);
-            if (!blockImported) {
-              final String message =
-                  format(
-                      "Invalid header block number %,d at file position %,d",
-                      header.getNumber(), itemStartingOffset);
-              throw new IllegalStateException(message);
-            }
-          }
+          // Parse the last block so it gets printed into the log, but not stored. This is for
+          // ops & dev debug purposes.
+          final DecodedBlock block = DecodedBlock.readFrom(rlp, headerReader);
+          LOG.info(
+              format(
+                  "Last Block, file offset=%,d\nHeader=%s\n\nBody=%s\n\n",
+                  block.offset, block.header, block.body));
         }
 
         if (System.currentTimeMillis() >= nextMetricsTime) {
-          logLapMetrics(logAction, "block", startTime, blockCount, lapStartTime, lapCount);
+          logLapMetrics("Skipped", "block", startTime, blockCount, lapStartTime, lapCount);
           lapCount = 0;
           lapStartTime = System.currentTimeMillis();
           nextMetricsTime = lapStartTime + metricsIntervalMS;
         }
-        previousHeader = header;
       }
     } catch (final RuntimeException e) {
-      final String receiptsStr = receipts == null ? null : Strings.join(receipts.iterator(), ',');
       final String message =
-          format(
-              "Error importing block from file offset %,d with header=%s, body=%s, receipts=%s",
-              itemStartingOffset, header, body, receiptsStr);
+          format("Error skipping block from file offset %,d", itemStartingOffset);
       throw new RuntimeException(message, e);
     }
 
-    logFinalMetrics(logAction, "block", startTime, blockCount);
+    logFinalMetrics("Skipped", "block", startTime, blockCount);
     return new BlockchainImporter.ImportResult(
-        context.getBlockchain().getChainHead().getTotalDifficulty(), blockCount);
+        pantheonController.getProtocolContext().getBlockchain().getChainHead().getTotalDifficulty(),
+        blockCount);
   }
 
   /**
@@ -573,4 +755,61 @@ public class BlockchainImporter extends BlockImporter {
             action, totalItemCount, itemName, totalRunningSec, totalItemPerSec, itemName);
     METRICS_LOG.info(message);
   }
+
+  /** A block read from the import file, along with its receipts and position in the file. */
+  private static final class DecodedBlock {
+    private final long offset;
+    private final BlockHeader header;
+    private final BlockBody body;
+    private final List<TransactionReceipt> receipts;
+
+    private DecodedBlock(
+        final long offset,
+        final BlockHeader header,
+        final BlockBody body,
+        final List<TransactionReceipt> receipts) {
+      this.offset = offset;
+      this.header = header;
+      this.body = body;
+      this.receipts = receipts;
+    }
+
+    static DecodedBlock readFrom(
+        final FileRLPInput rlp, final Function<RLPInput, BlockHeader> headerReader) {
+      final long offset = rlp.currentOffset();
+      rlp.enterList(true);
+      final BlockHeader header = headerReader.apply(rlp);
+      final BlockBody body =
+          new BlockBody(rlp.readList(Transaction::readFrom), rlp.readList(headerReader));
+      rlp.leaveList();
+      final List<TransactionReceipt> receipts = rlp.readList(TransactionReceipt::readFrom);
+      return new DecodedBlock(offset, header, body, receipts);
+    }
+
+    String receiptsString() {
+      return Strings.join(receipts.iterator(), ',');
+    }
+  }
+
+  /** Counts the blocks that have passed through one stage of the import pipeline. */
+  private final class PipelineStage {
+    private final String action;
+    private final AtomicInteger count = new AtomicInteger();
+    private int lapStartCount = 0;
+
+    PipelineStage(final String action) {
+      this.action = action;
+    }
+
+    void increment() {
+      count.incrementAndGet();
+    }
+
+    void logLap(final long startTime, final long lapStartTime) {
+      final int totalCount = count.get();
+      logLapMetrics(
+          action, "block", startTime, totalCount, lapStartTime, totalCount - lapStartCount);
+      lapStartCount = totalCount;
+    }
+  }
 }
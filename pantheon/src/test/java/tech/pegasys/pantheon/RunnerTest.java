@@ -33,6 +33,7 @@ import tech.pegasys.pantheon.ethereum.mainnet.HeaderValidationMode;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSpec;
 import tech.pegasys.pantheon.ethereum.p2p.peers.DefaultPeer;
+import tech.pegasys.pantheon.metrics.prometheus.MetricsConfiguration;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.net.InetAddress;
@@ -125,6 +126,7 @@ public final class RunnerTest {
             3,
             aheadJsonRpcConfiguration,
             aheadWebSocketConfiguration,
+            MetricsConfiguration.createDefault(),
             dbAhead);
     try {
 
@@ -158,6 +160,7 @@ public final class RunnerTest {
               3,
               behindJsonRpcConfiguration,
               behindWebSocketConfiguration,
+              MetricsConfiguration.createDefault(),
               dbBehind);
 
       executorService.submit(runnerBehind::execute);
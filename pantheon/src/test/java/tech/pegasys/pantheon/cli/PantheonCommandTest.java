@@ -34,9 +34,13 @@ import tech.pegasys.pantheon.ethereum.core.Address;
 import tech.pegasys.pantheon.ethereum.core.MiningParameters;
 import tech.pegasys.pantheon.ethereum.core.Wei;
 import tech.pegasys.pantheon.ethereum.eth.sync.SyncMode;
+import tech.pegasys.pantheon.ethereum.eth.transactions.TransactionPoolConfiguration;
 import tech.pegasys.pantheon.ethereum.jsonrpc.JsonRpcConfiguration;
 import tech.pegasys.pantheon.ethereum.jsonrpc.RpcApis;
 import tech.pegasys.pantheon.ethereum.jsonrpc.websocket.WebSocketConfiguration;
+import tech.pegasys.pantheon.ethereum.worldstate.PrunerConfiguration;
+import tech.pegasys.pantheon.metrics.prometheus.MetricsConfiguration;
+import tech.pegasys.pantheon.services.kvstore.RocksDbConfiguration;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.io.File;
@@ -93,6 +97,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             any(),
             any(),
+            any(),
             any()))
         .thenReturn(mockRunner);
   }
@@ -135,6 +140,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             eq(25),
             eq(defaultJsonRpcConfiguration),
             eq(defaultWebSocketConfiguration),
+            any(),
             any());
 
     final ArgumentCaptor<MiningParameters> miningArg =
@@ -142,7 +148,17 @@ public class PantheonCommandTest extends CommandTestAbstract {
     final ArgumentCaptor<EthNetworkConfig> networkArg =
         ArgumentCaptor.forClass(EthNetworkConfig.class);
     verify(mockControllerBuilder)
-        .build(any(), isNotNull(), networkArg.capture(), eq(false), miningArg.capture(), eq(false));
+        .build(
+            any(),
+            isNotNull(),
+            networkArg.capture(),
+            eq(false),
+            miningArg.capture(),
+            eq(false),
+            any(),
+            any(),
+            any(),
+            any());
 
     verify(mockSyncConfBuilder).syncMode(ArgumentMatchers.eq(SyncMode.FULL));
 
@@ -262,6 +278,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             eq(42),
             eq(jsonRpcConfiguration),
             eq(webSocketConfiguration),
+            any(),
             any());
 
     final Collection<String> nodes =
@@ -280,7 +297,11 @@ public class PantheonCommandTest extends CommandTestAbstract {
             eq(networkConfig),
             eq(false),
             any(),
-            anyBoolean());
+            anyBoolean(),
+            any(),
+            any(),
+            any(),
+            any());
 
     // TODO: Re-enable as per NC-1057/NC-1681
     // verify(mockSyncConfBuilder).syncMode(ArgumentMatchers.eq(SyncMode.FAST));
@@ -315,9 +336,11 @@ public class PantheonCommandTest extends CommandTestAbstract {
             eq(25),
             eq(jsonRpcConfiguration),
             eq(webSocketConfiguration),
+            any(),
             any());
 
-    verify(mockControllerBuilder).build(any(), any(), any(), eq(false), any(), eq(false));
+    verify(mockControllerBuilder)
+        .build(any(), any(), any(), eq(false), any(), eq(false), any(), any(), any(), any());
 
     // TODO: Re-enable as per NC-1057/NC-1681
     // verify(mockSyncConfBuilder).syncMode(ArgumentMatchers.eq(SyncMode.FULL));
@@ -335,7 +358,17 @@ public class PantheonCommandTest extends CommandTestAbstract {
     parseCommand("--datadir", path.toString());
 
     verify(mockControllerBuilder)
-        .build(any(), pathArgumentCaptor.capture(), any(), eq(false), any(), anyBoolean());
+        .build(
+            any(),
+            pathArgumentCaptor.capture(),
+            any(),
+            eq(false),
+            any(),
+            anyBoolean(),
+            any(),
+            any(),
+            any(),
+            any());
 
     assertThat(pathArgumentCaptor.getValue()).isEqualByComparingTo(path);
 
@@ -352,7 +385,17 @@ public class PantheonCommandTest extends CommandTestAbstract {
     parseCommand("--genesis", path.toString());
 
     verify(mockControllerBuilder)
-        .build(any(), any(), networkArg.capture(), anyBoolean(), any(), anyBoolean());
+        .build(
+            any(),
+            any(),
+            networkArg.capture(),
+            anyBoolean(),
+            any(),
+            anyBoolean(),
+            any(),
+            any(),
+            any(),
+            any());
 
     assertThat(networkArg.getValue().getGenesisConfig()).isEqualTo(path.toUri());
 
@@ -368,7 +411,17 @@ public class PantheonCommandTest extends CommandTestAbstract {
 
     verify(mockRunnerBuilder)
         .build(
-            any(), any(), eq(false), any(), anyString(), anyInt(), anyInt(), any(), any(), any());
+            any(),
+            any(),
+            eq(false),
+            any(),
+            anyString(),
+            anyInt(),
+            anyInt(),
+            any(),
+            any(),
+            any(),
+            any());
 
     assertThat(commandOutput.toString()).isEmpty();
     assertThat(commandErrorOutput.toString()).isEmpty();
@@ -399,6 +452,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             any(),
             any(),
+            any(),
             any());
 
     assertThat(stringListArgumentCaptor.getValue().toArray()).isEqualTo(nodes);
@@ -425,6 +479,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             any(),
             any(),
+            any(),
             any());
 
     assertThat(stringArgumentCaptor.getValue()).isEqualTo(host);
@@ -451,6 +506,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             intArgumentCaptor.capture(),
             any(),
             any(),
+            any(),
             any());
 
     assertThat(intArgumentCaptor.getValue()).isEqualTo(maxPeers);
@@ -482,6 +538,65 @@ public class PantheonCommandTest extends CommandTestAbstract {
     assertThat(commandErrorOutput.toString()).isEmpty();
   }
 
+  @Test
+  public void worldStateWriteBehindBlocksMustBeUsed() {
+    parseCommand("--world-state-write-behind-blocks", "4");
+    verify(mockSyncConfBuilder).worldStateWriteBehindBlocks(4);
+
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+  }
+
+  @Test
+  public void journalRemoteTransactionsMustBeUsed() throws Exception {
+    parseCommand("--tx-pool-journal-remote-enabled");
+
+    final ArgumentCaptor<TransactionPoolConfiguration> transactionPoolArg =
+        ArgumentCaptor.forClass(TransactionPoolConfiguration.class);
+
+    verify(mockControllerBuilder)
+        .build(
+            any(),
+            any(),
+            any(),
+            anyBoolean(),
+            any(),
+            anyBoolean(),
+            any(),
+            transactionPoolArg.capture(),
+            any(),
+            any());
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+    assertThat(transactionPoolArg.getValue().isJournalRemoteTransactions()).isTrue();
+  }
+
+  @Test
+  public void rocksDbOptionsMustBeUsed() throws Exception {
+    parseCommand(
+        "--rocksdb-transactions-enabled", "--rocksdb-write-ahead-log-disabled-during-sync");
+
+    final ArgumentCaptor<RocksDbConfiguration> rocksDbArg =
+        ArgumentCaptor.forClass(RocksDbConfiguration.class);
+
+    verify(mockControllerBuilder)
+        .build(
+            any(),
+            any(),
+            any(),
+            anyBoolean(),
+            any(),
+            anyBoolean(),
+            any(),
+            any(),
+            rocksDbArg.capture(),
+            any());
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+    assertThat(rocksDbArg.getValue().useTransactions()).isTrue();
+    assertThat(rocksDbArg.getValue().isWriteAheadLogDisabled()).isTrue();
+  }
+
   @Test
   public void jsonRpcEnabledPropertyDefaultIsFalse() {
     parseCommand();
@@ -497,6 +612,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             jsonRpcConfigArgumentCaptor.capture(),
             any(),
+            any(),
             any());
 
     assertThat(jsonRpcConfigArgumentCaptor.getValue().isEnabled()).isFalse();
@@ -520,6 +636,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             jsonRpcConfigArgumentCaptor.capture(),
             any(),
+            any(),
             any());
 
     assertThat(jsonRpcConfigArgumentCaptor.getValue().isEnabled()).isTrue();
@@ -543,6 +660,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             jsonRpcConfigArgumentCaptor.capture(),
             any(),
+            any(),
             any());
 
     assertThat(jsonRpcConfigArgumentCaptor.getValue().getRpcApis())
@@ -570,6 +688,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             jsonRpcConfigArgumentCaptor.capture(),
             any(),
+            any(),
             any());
 
     assertThat(jsonRpcConfigArgumentCaptor.getValue().getHost()).isEqualTo(host);
@@ -595,6 +714,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             jsonRpcConfigArgumentCaptor.capture(),
             any(),
+            any(),
             any());
 
     assertThat(jsonRpcConfigArgumentCaptor.getValue().getCorsAllowedDomains().toArray())
@@ -620,6 +740,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             jsonRpcConfigArgumentCaptor.capture(),
             any(),
+            any(),
             any());
 
     assertThat(jsonRpcConfigArgumentCaptor.getValue().getCorsAllowedDomains().toArray())
@@ -645,6 +766,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             jsonRpcConfigArgumentCaptor.capture(),
             any(),
+            any(),
             any());
 
     assertThat(jsonRpcConfigArgumentCaptor.getValue().getCorsAllowedDomains())
@@ -670,6 +792,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             jsonRpcConfigArgumentCaptor.capture(),
             any(),
+            any(),
             any());
 
     assertThat(jsonRpcConfigArgumentCaptor.getValue().getCorsAllowedDomains()).isEmpty();
@@ -741,6 +864,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             any(),
             wsRpcConfigArgumentCaptor.capture(),
+            any(),
             any());
 
     assertThat(wsRpcConfigArgumentCaptor.getValue().isEnabled()).isFalse();
@@ -764,6 +888,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             any(),
             wsRpcConfigArgumentCaptor.capture(),
+            any(),
             any());
 
     assertThat(wsRpcConfigArgumentCaptor.getValue().isEnabled()).isTrue();
@@ -787,6 +912,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             any(),
             wsRpcConfigArgumentCaptor.capture(),
+            any(),
             any());
 
     assertThat(wsRpcConfigArgumentCaptor.getValue().getRpcApis())
@@ -813,6 +939,7 @@ public class PantheonCommandTest extends CommandTestAbstract {
             anyInt(),
             any(),
             wsRpcConfigArgumentCaptor.capture(),
+            any(),
             any());
 
     assertThat(wsRpcConfigArgumentCaptor.getValue().getHost()).isEqualTo(host);
@@ -822,6 +949,66 @@ public class PantheonCommandTest extends CommandTestAbstract {
     assertThat(commandErrorOutput.toString()).isEmpty();
   }
 
+  @Test
+  public void metricsEnabledPropertyDefaultIsFalse() {
+    parseCommand();
+
+    final ArgumentCaptor<MetricsConfiguration> metricsArg =
+        ArgumentCaptor.forClass(MetricsConfiguration.class);
+
+    verify(mockRunnerBuilder)
+        .build(
+            any(),
+            any(),
+            anyBoolean(),
+            any(),
+            anyString(),
+            anyInt(),
+            anyInt(),
+            any(),
+            any(),
+            metricsArg.capture(),
+            any());
+
+    assertThat(metricsArg.getValue().isEnabled()).isFalse();
+    assertThat(metricsArg.getValue().getPort())
+        .isEqualTo(MetricsConfiguration.DEFAULT_METRICS_PORT);
+
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+  }
+
+  @Test
+  public void metricsOptionsMustBeUsed() {
+    final String host = "1.2.3.4";
+    final int port = 1234;
+    parseCommand("--metrics-enabled", "--metrics-listen", String.format("%1$s:%2$s", host, port));
+
+    final ArgumentCaptor<MetricsConfiguration> metricsArg =
+        ArgumentCaptor.forClass(MetricsConfiguration.class);
+
+    verify(mockRunnerBuilder)
+        .build(
+            any(),
+            any(),
+            anyBoolean(),
+            any(),
+            anyString(),
+            anyInt(),
+            anyInt(),
+            any(),
+            any(),
+            metricsArg.capture(),
+            any());
+
+    assertThat(metricsArg.getValue().isEnabled()).isTrue();
+    assertThat(metricsArg.getValue().getHost()).isEqualTo(host);
+    assertThat(metricsArg.getValue().getPort()).isEqualTo(port);
+
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+  }
+
   @Test
   public void pantheonDoesNotStartInMiningModeIfCoinbaseNotSet() throws Exception {
     parseCommand("--miner-enabled");
@@ -841,7 +1028,17 @@ public class PantheonCommandTest extends CommandTestAbstract {
         ArgumentCaptor.forClass(MiningParameters.class);
 
     verify(mockControllerBuilder)
-        .build(any(), any(), any(), anyBoolean(), miningArg.capture(), anyBoolean());
+        .build(
+            any(),
+            any(),
+            any(),
+            anyBoolean(),
+            miningArg.capture(),
+            anyBoolean(),
+            any(),
+            any(),
+            any(),
+            any());
     assertThat(commandOutput.toString()).isEmpty();
     assertThat(commandErrorOutput.toString()).isEmpty();
     assertThat(miningArg.getValue().isMiningEnabled()).isTrue();
@@ -849,6 +1046,65 @@ public class PantheonCommandTest extends CommandTestAbstract {
         .isEqualTo(Optional.of(Address.fromHexString(coinbaseStr)));
   }
 
+  @Test
+  public void pruningIsDisabledByDefault() throws Exception {
+    parseCommand();
+
+    final ArgumentCaptor<PrunerConfiguration> prunerArg =
+        ArgumentCaptor.forClass(PrunerConfiguration.class);
+
+    verify(mockControllerBuilder)
+        .build(
+            any(),
+            any(),
+            any(),
+            anyBoolean(),
+            any(),
+            anyBoolean(),
+            prunerArg.capture(),
+            any(),
+            any(),
+            any());
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+    assertThat(prunerArg.getValue().isEnabled()).isFalse();
+  }
+
+  @Test
+  public void pruningParametersAreCaptured() throws Exception {
+    parseCommand("--pruning-enabled", "--pruning-blocks-retained=200");
+
+    final ArgumentCaptor<PrunerConfiguration> prunerArg =
+        ArgumentCaptor.forClass(PrunerConfiguration.class);
+
+    verify(mockControllerBuilder)
+        .build(
+            any(),
+            any(),
+            any(),
+            anyBoolean(),
+            any(),
+            anyBoolean(),
+            prunerArg.capture(),
+            any(),
+            any(),
+            any());
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString()).isEmpty();
+    assertThat(prunerArg.getValue().isEnabled()).isTrue();
+    assertThat(prunerArg.getValue().getBlocksRetained()).isEqualTo(200);
+  }
+
+  @Test
+  public void pruningBlocksRetainedMustBePositive() {
+    parseCommand("--pruning-enabled", "--pruning-blocks-retained=0");
+
+    verifyZeroInteractions(mockControllerBuilder);
+    assertThat(commandOutput.toString()).isEmpty();
+    assertThat(commandErrorOutput.toString())
+        .startsWith("--pruning-blocks-retained must be greater than 0.");
+  }
+
   @Test
   public void miningParametersAreCaptured() throws Exception {
     final Address requestedCoinbase = Address.fromHexString("0000011111222223333344444");
@@ -863,7 +1119,17 @@ public class PantheonCommandTest extends CommandTestAbstract {
         ArgumentCaptor.forClass(MiningParameters.class);
 
     verify(mockControllerBuilder)
-        .build(any(), any(), any(), anyBoolean(), miningArg.capture(), anyBoolean());
+        .build(
+            any(),
+            any(),
+            any(),
+            anyBoolean(),
+            miningArg.capture(),
+            anyBoolean(),
+            any(),
+            any(),
+            any(),
+            any());
     assertThat(commandOutput.toString()).isEmpty();
     assertThat(commandErrorOutput.toString()).isEmpty();
     assertThat(miningArg.getValue().getCoinbase()).isEqualTo(Optional.of(requestedCoinbase));
@@ -875,7 +1141,8 @@ public class PantheonCommandTest extends CommandTestAbstract {
   @Test
   public void devModeOptionMustBeUsed() throws Exception {
     parseCommand("--dev-mode");
-    verify(mockControllerBuilder).build(any(), any(), any(), anyBoolean(), any(), eq(true));
+    verify(mockControllerBuilder)
+        .build(any(), any(), any(), anyBoolean(), any(), eq(true), any(), any(), any(), any());
     assertThat(commandOutput.toString()).isEmpty();
     assertThat(commandErrorOutput.toString()).isEmpty();
   }
@@ -887,7 +1154,17 @@ public class PantheonCommandTest extends CommandTestAbstract {
     final ArgumentCaptor<EthNetworkConfig> networkArg =
         ArgumentCaptor.forClass(EthNetworkConfig.class);
     verify(mockControllerBuilder)
-        .build(any(), any(), networkArg.capture(), anyBoolean(), any(), anyBoolean());
+        .build(
+            any(),
+            any(),
+            networkArg.capture(),
+            anyBoolean(),
+            any(),
+            anyBoolean(),
+            any(),
+            any(),
+            any(),
+            any());
     assertThat(commandOutput.toString()).isEmpty();
     assertThat(commandErrorOutput.toString()).isEmpty();
     assertThat(networkArg.getValue()).isEqualTo(EthNetworkConfig.rinkeby());
@@ -909,7 +1186,17 @@ public class PantheonCommandTest extends CommandTestAbstract {
     final ArgumentCaptor<EthNetworkConfig> networkArg =
         ArgumentCaptor.forClass(EthNetworkConfig.class);
     verify(mockControllerBuilder)
-        .build(any(), any(), networkArg.capture(), anyBoolean(), any(), anyBoolean());
+        .build(
+            any(),
+            any(),
+            networkArg.capture(),
+            anyBoolean(),
+            any(),
+            anyBoolean(),
+            any(),
+            any(),
+            any(),
+            any());
     assertThat(commandOutput.toString()).isEmpty();
     assertThat(commandErrorOutput.toString()).isEmpty();
     assertThat(networkArg.getValue().getGenesisConfig()).isEqualTo(path.toUri());
@@ -12,7 +12,9 @@
  */
 package tech.pegasys.pantheon.util;
 
+import static java.lang.String.format;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static tech.pegasys.pantheon.controller.KeyPairUtil.loadKeyPair;
 
 import tech.pegasys.pantheon.controller.MainnetPantheonController;
@@ -20,18 +22,38 @@ import tech.pegasys.pantheon.controller.PantheonController;
 import tech.pegasys.pantheon.crypto.SECP256K1.KeyPair;
 import tech.pegasys.pantheon.ethereum.blockcreation.EthHashBlockMiner;
 import tech.pegasys.pantheon.ethereum.chain.GenesisConfig;
+import tech.pegasys.pantheon.ethereum.core.Block;
+import tech.pegasys.pantheon.ethereum.core.BlockHeader;
+import tech.pegasys.pantheon.ethereum.core.BlockHeaderBuilder;
+import tech.pegasys.pantheon.ethereum.core.BlockSyncTestUtils;
 import tech.pegasys.pantheon.ethereum.core.MiningParameters;
 import tech.pegasys.pantheon.ethereum.core.MiningParametersTestBuilder;
 import tech.pegasys.pantheon.ethereum.eth.sync.SynchronizerConfiguration;
+import tech.pegasys.pantheon.ethereum.mainnet.BlockHeaderValidator;
+import tech.pegasys.pantheon.ethereum.mainnet.HeaderValidationMode;
+import tech.pegasys.pantheon.ethereum.mainnet.MainnetBlockHashFunction;
 import tech.pegasys.pantheon.ethereum.mainnet.MainnetProtocolSchedule;
 import tech.pegasys.pantheon.ethereum.mainnet.ProtocolSchedule;
+import tech.pegasys.pantheon.ethereum.rlp.RLP;
+import tech.pegasys.pantheon.ethereum.rlp.RLPException;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
 import tech.pegasys.pantheon.util.uint.UInt256;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
 import com.google.common.io.Resources;
 import org.junit.Rule;
 import org.junit.Test;
@@ -82,4 +104,147 @@ public final class BlockchainImporterTest {
     assertThat(result.count).isEqualTo(33);
     assertThat(result.td).isEqualTo(UInt256.of(4357120));
   }
+
+  @Test
+  public void validatedImportOfValidBlocks() throws Exception {
+    final Path source = writeImportFile(mainnetBlocks(20));
+
+    final BlockchainImporter.ImportResult result = importWithValidation(source);
+
+    assertThat(result.count).isEqualTo(20);
+  }
+
+  @Test(timeout = 60_000)
+  public void invalidHeaderPartWayThroughFileFailsImport() throws Exception {
+    // More blocks than the pipeline holds, so the decoder is blocked when the import fails
+    final List<Block> blocks =
+        changeBlock(10, header -> header.gasLimit(4_000)).apply(mainnetBlocks(999));
+    final Path source = writeImportFile(blocks);
+
+    final Throwable thrown = catchThrowable(() -> importWithValidation(source));
+
+    assertThat(thrown).isInstanceOf(RuntimeException.class);
+    assertThat(Throwables.getRootCause(thrown))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageStartingWith("Invalid header block number 10 ");
+  }
+
+  @Test(timeout = 60_000)
+  public void decoderErrorFailsImport() throws Exception {
+    final Path source = writeImportFile(mainnetBlocks(20));
+    final byte[] contents = Files.readAllBytes(source);
+    // Cut the last block short
+    Files.write(source, Arrays.copyOf(contents, contents.length - 10));
+
+    final Throwable thrown = catchThrowable(() -> importWithValidation(source));
+
+    assertThat(thrown).isInstanceOf(RuntimeException.class);
+    assertThat(Throwables.getRootCause(thrown)).isInstanceOf(RLPException.class);
+  }
+
+  @Test
+  public void splitValidationRejectsSameBlocksAsFullValidation() throws Exception {
+    final List<UnaryOperator<List<Block>>> changes = new ArrayList<>();
+    changes.add(blocks -> blocks);
+    changes.add(changeBlock(10, header -> header.difficulty(UInt256.ONE)));
+    changes.add(changeBlock(10, header -> header.timestamp(0)));
+    changes.add(changeBlock(10, header -> header.gasLimit(4_000)));
+    changes.add(changeBlock(10, header -> header.extraData(BytesValue.wrap(new byte[33]))));
+    changes.add(
+        blocks -> {
+          blocks.remove(9);
+          return blocks;
+        });
+
+    for (final UnaryOperator<List<Block>> change : changes) {
+      final List<Block> blocks = change.apply(mainnetBlocks(20));
+      final OptionalLong expectedInvalidBlock = firstInvalidBlockWithFullValidation(blocks);
+      final Path source = writeImportFile(blocks);
+
+      final Throwable thrown = catchThrowable(() -> importWithValidation(source));
+
+      if (expectedInvalidBlock.isPresent()) {
+        assertThat(Throwables.getRootCause(thrown))
+            .hasMessageStartingWith(
+                format("Invalid header block number %,d ", expectedInvalidBlock.getAsLong()));
+      } else {
+        assertThat(thrown).isNull();
+      }
+    }
+  }
+
+  private BlockchainImporter.ImportResult importWithValidation(final Path source)
+      throws IOException {
+    return blockImporter.importBlockchain(
+        source,
+        MainnetPantheonController.mainnet(folder.newFolder().toPath()),
+        false,
+        1,
+        1,
+        false,
+        true,
+        null);
+  }
+
+  /** Validates each header against its predecessor in a single pass, as imports used to. */
+  private OptionalLong firstInvalidBlockWithFullValidation(final List<Block> blocks)
+      throws IOException {
+    try (final PantheonController<Void, EthHashBlockMiner> controller =
+        MainnetPantheonController.mainnet(folder.newFolder().toPath())) {
+      BlockHeader parent = controller.getGenesisConfig().getBlock().getHeader();
+      for (final Block block : blocks) {
+        final BlockHeader header = block.getHeader();
+        final BlockHeaderValidator<Void> validator =
+            controller
+                .getProtocolSchedule()
+                .getByBlockNumber(header.getNumber())
+                .getBlockHeaderValidator();
+        if (!validator.validateHeader(
+            header, parent, controller.getProtocolContext(), HeaderValidationMode.FULL)) {
+          return OptionalLong.of(header.getNumber());
+        }
+        parent = header;
+      }
+      return OptionalLong.empty();
+    }
+  }
+
+  private static List<Block> mainnetBlocks(final int count) {
+    return BlockSyncTestUtils.firstBlocks(count + 1)
+        .stream()
+        .filter(block -> block.getHeader().getNumber() > 0)
+        .collect(Collectors.toList());
+  }
+
+  private static UnaryOperator<List<Block>> changeBlock(
+      final long blockNumber, final UnaryOperator<BlockHeaderBuilder> change) {
+    return blocks -> {
+      final int index = (int) blockNumber - 1;
+      blocks.set(index, withHeader(blocks.get(index), change));
+      return blocks;
+    };
+  }
+
+  private static Block withHeader(
+      final Block block, final UnaryOperator<BlockHeaderBuilder> change) {
+    final BlockHeader header =
+        change
+            .apply(BlockHeaderBuilder.fromHeader(block.getHeader()))
+            .blockHashFunction(MainnetBlockHashFunction::createHash)
+            .buildBlockHeader();
+    return new Block(header, block.getBody());
+  }
+
+  private Path writeImportFile(final List<Block> blocks) throws IOException {
+    final Path file = folder.newFile().toPath();
+    try (final OutputStream out = Files.newOutputStream(file)) {
+      out.write(RLP.encode(rlp -> rlp.writeLongScalar(blocks.size())).extractArray());
+      for (final Block block : blocks) {
+        out.write(RLP.encode(block::writeTo).extractArray());
+        // Mainnet blocks this early have no transactions and so no receipts
+        out.write(RLP.EMPTY_LIST.extractArray());
+      }
+    }
+    return file;
+  }
 }
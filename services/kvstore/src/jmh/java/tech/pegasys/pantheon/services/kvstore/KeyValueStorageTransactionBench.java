@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.services.kvstore;
+
+import tech.pegasys.pantheon.services.kvstore.SegmentedKeyValueStorage.AccessPattern;
+import tech.pegasys.pantheon.services.kvstore.SegmentedKeyValueStorage.Segment;
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Random;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares committing a block's worth of trie node writes through {@code TransactionDB}
+ * transactions against plain write batches.
+ */
+@State(Scope.Benchmark)
+public class KeyValueStorageTransactionBench {
+
+  private static final Segment SEGMENT =
+      new Segment() {
+        @Override
+        public String getName() {
+          return "bench";
+        }
+
+        @Override
+        public byte[] getId() {
+          return getName().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public AccessPattern getAccessPattern() {
+          return AccessPattern.POINT_LOOKUP;
+        }
+      };
+
+  @Param({"transaction", "writeBatch", "writeBatchNoWal"})
+  public String mode;
+
+  @Param({"100", "2000"})
+  public int writesPerCommit;
+
+  private final Random random = new Random(1);
+  private Path directory;
+  private ColumnarRocksDbKeyValueStorage storage;
+  private KeyValueStorage keyValueStorage;
+  private BytesValue value;
+
+  @Setup(Level.Trial)
+  public void prepare() throws IOException {
+    directory = Files.createTempDirectory("kvstore-bench");
+    final RocksDbConfiguration configuration =
+        RocksDbConfiguration.builder()
+            .useTransactions(mode.equals("transaction"))
+            .disableWriteAheadLog(mode.equals("writeBatchNoWal"))
+            .build();
+    storage =
+        ColumnarRocksDbKeyValueStorage.create(
+            directory, Collections.singletonList(SEGMENT), configuration);
+    keyValueStorage = new SegmentedKeyValueStorageAdapter<>(SEGMENT, storage);
+    final byte[] valueBytes = new byte[100];
+    random.nextBytes(valueBytes);
+    value = BytesValue.wrap(valueBytes);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    storage.close();
+    MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+  }
+
+  @Benchmark
+  public void commit() {
+    final KeyValueStorage.Transaction transaction = keyValueStorage.getStartTransaction();
+    final byte[] key = new byte[Bytes32.SIZE];
+    for (int i = 0; i < writesPerCommit; i++) {
+      random.nextBytes(key);
+      transaction.put(Bytes32.wrap(key), value);
+    }
+    transaction.commit();
+  }
+
+  @Benchmark
+  public BytesValue get() {
+    final byte[] key = new byte[Bytes32.SIZE];
+    random.nextBytes(key);
+    return keyValueStorage.get(Bytes32.wrap(key)).orElse(value);
+  }
+}
@@ -0,0 +1,467 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.services.kvstore;
+
+import static com.google.common.base.Preconditions.checkState;
+import static tech.pegasys.pantheon.metrics.MetricCategory.ROCKSDB;
+
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.metrics.OperationTimer.TimingContext;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage.Entry;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage.StorageException;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompactionStyle;
+import org.rocksdb.CompressionType;
+import org.rocksdb.DBOptions;
+import org.rocksdb.FlushOptions;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.RocksObject;
+import org.rocksdb.TransactionDB;
+import org.rocksdb.TransactionDBOptions;
+import org.rocksdb.WriteBatch;
+import org.rocksdb.WriteOptions;
+
+/**
+ * A {@link SegmentedKeyValueStorage} backed by a single RocksDB database in which every segment is
+ * a separate column family. Each column family is tuned according to the {@link
+ * SegmentedKeyValueStorage.AccessPattern} of its segment.
+ *
+ * <p>By default transactions are buffered in a {@link WriteBatch} and applied atomically on commit,
+ * which avoids the locking and conflict tracking of a {@code TransactionDB}. Callers that need
+ * pessimistic transactions can enable them through {@link RocksDbConfiguration}.
+ *
+ * <p>The write-ahead log can be disabled while the node is syncing, when anything lost in a crash
+ * can be downloaded again. It stays disabled until {@link #enableWriteAheadLog()} is called, which
+ * first flushes the unlogged writes to disk.
+ *
+ * <p>Databases written by {@link RocksDbKeyValueStorage} keep every segment's data in the default
+ * column family, where the segments can't be told apart. Opening one fails rather than presenting
+ * its segments as empty.
+ */
+public class ColumnarRocksDbKeyValueStorage
+    implements SegmentedKeyValueStorage<ColumnFamilyHandle> {
+
+  private static final Logger LOG = LogManager.getLogger();
+
+  private static final long POINT_LOOKUP_BLOCK_CACHE_SIZE = 256 * 1024 * 1024;
+  private static final long APPEND_ORDERED_BLOCK_CACHE_SIZE = 64 * 1024 * 1024;
+  private static final long APPEND_ORDERED_BLOCK_SIZE = 64 * 1024;
+  private static final int BLOOM_FILTER_BITS_PER_KEY = 10;
+
+  private final DBOptions options;
+  private final TransactionDBOptions txOptions;
+  private volatile WriteOptions writeOptions;
+  // Write options replaced by enableWriteAheadLog, kept until close as transactions may use them
+  private final List<WriteOptions> retiredWriteOptions = new ArrayList<>();
+  private final boolean useTransactions;
+  private final RocksDB db;
+  private final Map<String, ColumnFamilyHandle> columnHandlesByName = new HashMap<>();
+  private final List<ColumnFamilyHandle> columnHandles = new ArrayList<>();
+  // Native resources that must outlive the database and be released when it is closed
+  private final List<RocksObject> columnResources = new ArrayList<>();
+  private final AtomicBoolean closed = new AtomicBoolean(false);
+  private final OperationTimer readLatency;
+  private final OperationTimer commitLatency;
+
+  static {
+    RocksDB.loadLibrary();
+  }
+
+  public static ColumnarRocksDbKeyValueStorage create(
+      final Path storageDirectory, final List<? extends Segment> segments)
+      throws StorageException {
+    return create(storageDirectory, segments, RocksDbConfiguration.builder().build());
+  }
+
+  public static ColumnarRocksDbKeyValueStorage create(
+      final Path storageDirectory,
+      final List<? extends Segment> segments,
+      final RocksDbConfiguration configuration)
+      throws StorageException {
+    return create(storageDirectory, segments, configuration, new NoOpMetricsSystem());
+  }
+
+  public static ColumnarRocksDbKeyValueStorage create(
+      final Path storageDirectory,
+      final List<? extends Segment> segments,
+      final RocksDbConfiguration configuration,
+      final MetricsSystem metricsSystem)
+      throws StorageException {
+    return new ColumnarRocksDbKeyValueStorage(
+        storageDirectory, segments, configuration, metricsSystem);
+  }
+
+  private ColumnarRocksDbKeyValueStorage(
+      final Path storageDirectory,
+      final List<? extends Segment> segments,
+      final RocksDbConfiguration configuration,
+      final MetricsSystem metricsSystem) {
+    checkNotLegacyDatabase(storageDirectory, segments);
+    readLatency =
+        metricsSystem.createTimer(ROCKSDB, "read_latency_seconds", "Latency of database reads");
+    commitLatency =
+        metricsSystem.createTimer(
+            ROCKSDB, "commit_latency_seconds", "Latency of database transaction commits");
+    useTransactions = configuration.useTransactions();
+    writeOptions = new WriteOptions().setDisableWAL(configuration.isWriteAheadLogDisabled());
+    try {
+      final ColumnFamilyOptions defaultColumnOptions = new ColumnFamilyOptions();
+      columnResources.add(defaultColumnOptions);
+      final List<ColumnFamilyDescriptor> columnDescriptors = new ArrayList<>();
+      columnDescriptors.add(
+          new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, defaultColumnOptions));
+      for (final Segment segment : segments) {
+        columnDescriptors.add(
+            new ColumnFamilyDescriptor(segment.getId(), createColumnOptions(segment)));
+      }
+
+      options = new DBOptions().setCreateIfMissing(true).setCreateMissingColumnFamilies(true);
+      txOptions = new TransactionDBOptions();
+      if (useTransactions) {
+        db =
+            TransactionDB.open(
+                options, txOptions, storageDirectory.toString(), columnDescriptors, columnHandles);
+      } else {
+        db = RocksDB.open(options, storageDirectory.toString(), columnDescriptors, columnHandles);
+      }
+
+      for (int i = 0; i < segments.size(); i++) {
+        // The default column family is always first
+        columnHandlesByName.put(segments.get(i).getName(), columnHandles.get(i + 1));
+      }
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  private static void checkNotLegacyDatabase(
+      final Path storageDirectory, final List<? extends Segment> segments) {
+    if (!Files.exists(storageDirectory.resolve("CURRENT"))) {
+      // No database has been created yet.
+      return;
+    }
+    final boolean hasData;
+    try (final Options listOptions = new Options()) {
+      final List<byte[]> existingColumns =
+          RocksDB.listColumnFamilies(listOptions, storageDirectory.toString());
+      if (existingColumns.stream().anyMatch(column -> isSegmentColumn(column, segments))) {
+        return;
+      }
+      try (final RocksDB legacyDb = RocksDB.openReadOnly(storageDirectory.toString());
+          final RocksIterator iterator = legacyDb.newIterator()) {
+        iterator.seekToFirst();
+        hasData = iterator.isValid();
+      }
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+    if (hasData) {
+      throw new StorageException(
+          "The database in "
+              + storageDirectory
+              + " was created by an older version that stores all data in a single column family."
+              + " Remove it and resynchronise.");
+    }
+  }
+
+  private static boolean isSegmentColumn(
+      final byte[] column, final List<? extends Segment> segments) {
+    return segments.stream().anyMatch(segment -> Arrays.equals(column, segment.getId()));
+  }
+
+  private ColumnFamilyOptions createColumnOptions(final Segment segment) {
+    final ColumnFamilyOptions columnOptions = new ColumnFamilyOptions();
+    columnResources.add(columnOptions);
+    final BloomFilter bloomFilter = new BloomFilter(BLOOM_FILTER_BITS_PER_KEY, false);
+    columnResources.add(bloomFilter);
+    final BlockBasedTableConfig tableConfig =
+        new BlockBasedTableConfig().setFilter(bloomFilter).setCacheIndexAndFilterBlocks(true);
+
+    switch (segment.getAccessPattern()) {
+      case POINT_LOOKUP:
+        // Keys are hashes so there is no locality to exploit, and hashed values barely compress.
+        // Favour a large cache and keep the default small blocks so each lookup reads little.
+        tableConfig.setBlockCacheSize(POINT_LOOKUP_BLOCK_CACHE_SIZE);
+        columnOptions
+            .setCompressionType(CompressionType.NO_COMPRESSION)
+            .setCompactionStyle(CompactionStyle.LEVEL);
+        break;
+      case APPEND_ORDERED:
+        // Written once and rarely overwritten, so universal compaction keeps write amplification
+        // low, while larger compressed blocks suit reading whole blocks and ranges back.
+        tableConfig
+            .setBlockCacheSize(APPEND_ORDERED_BLOCK_CACHE_SIZE)
+            .setBlockSize(APPEND_ORDERED_BLOCK_SIZE);
+        columnOptions
+            .setCompressionType(CompressionType.LZ4_COMPRESSION)
+            .setCompactionStyle(CompactionStyle.UNIVERSAL);
+        break;
+      default:
+        throw new IllegalArgumentException(
+            "Unsupported access pattern: " + segment.getAccessPattern());
+    }
+    columnOptions.setTableFormatConfig(tableConfig);
+    return columnOptions;
+  }
+
+  @Override
+  public ColumnFamilyHandle getSegmentIdentifierByName(final Segment segment) {
+    final ColumnFamilyHandle handle = columnHandlesByName.get(segment.getName());
+    if (handle == null) {
+      throw new IllegalArgumentException("Unknown storage segment: " + segment.getName());
+    }
+    return handle;
+  }
+
+  @Override
+  public Optional<BytesValue> get(final ColumnFamilyHandle segment, final BytesValue key)
+      throws StorageException {
+    throwIfClosed();
+    try (final TimingContext ignored = readLatency.startTimer()) {
+      return Optional.ofNullable(db.get(segment, key.extractArray())).map(BytesValue::wrap);
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  @Override
+  public void put(final ColumnFamilyHandle segment, final BytesValue key, final BytesValue value)
+      throws StorageException {
+    throwIfClosed();
+    try {
+      db.put(segment, writeOptions, key.extractArray(), value.extractArray());
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  @Override
+  public void remove(final ColumnFamilyHandle segment, final BytesValue key)
+      throws StorageException {
+    throwIfClosed();
+    try {
+      db.delete(segment, writeOptions, key.extractArray());
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  @Override
+  public Transaction<ColumnFamilyHandle> getStartTransaction() throws StorageException {
+    throwIfClosed();
+    if (useTransactions) {
+      return new RocksDbTransaction(
+          ((TransactionDB) db).beginTransaction(writeOptions), commitLatency);
+    }
+    return new WriteBatchTransaction(db, writeOptions, commitLatency);
+  }
+
+  @Override
+  public Stream<Entry> entries(final ColumnFamilyHandle segment) {
+    throwIfClosed();
+    final RocksIterator rocksIt = db.newIterator(segment);
+    rocksIt.seekToFirst();
+    return new RocksDbEntryIterator(rocksIt).toStream();
+  }
+
+  /**
+   * Logs all subsequent writes to the write-ahead log, if it was disabled by the {@link
+   * RocksDbConfiguration}, and flushes the writes made without it to disk.
+   */
+  public synchronized void enableWriteAheadLog() {
+    throwIfClosed();
+    if (!writeOptions.disableWAL()) {
+      return;
+    }
+    retiredWriteOptions.add(writeOptions);
+    writeOptions = new WriteOptions();
+    flush();
+    LOG.info("Enabled database write-ahead log.");
+  }
+
+  private void flush() {
+    try (final FlushOptions flushOptions = new FlushOptions().setWaitForFlush(true)) {
+      for (final ColumnFamilyHandle columnHandle : columnHandles) {
+        db.flush(flushOptions, columnHandle);
+      }
+    } catch (final RocksDBException e) {
+      throw new StorageException(e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (closed.compareAndSet(false, true)) {
+      if (writeOptions.disableWAL()) {
+        // Writes that were not logged would otherwise be lost.
+        flush();
+      }
+      columnHandles.forEach(ColumnFamilyHandle::close);
+      db.close();
+      writeOptions.close();
+      retiredWriteOptions.forEach(WriteOptions::close);
+      txOptions.close();
+      options.close();
+      columnResources.forEach(RocksObject::close);
+    }
+  }
+
+  private void throwIfClosed() {
+    if (closed.get()) {
+      LOG.error("Attempting to use a closed ColumnarRocksDbKeyValueStorage");
+      throw new IllegalStateException("Storage has been closed");
+    }
+  }
+
+  private static class RocksDbTransaction implements Transaction<ColumnFamilyHandle> {
+    private final org.rocksdb.Transaction innerTx;
+    private final OperationTimer commitLatency;
+    private boolean active = true;
+
+    RocksDbTransaction(final org.rocksdb.Transaction innerTx, final OperationTimer commitLatency) {
+      this.innerTx = innerTx;
+      this.commitLatency = commitLatency;
+    }
+
+    @Override
+    public void put(
+        final ColumnFamilyHandle segment, final BytesValue key, final BytesValue value) {
+      checkState(active, "Cannot invoke put() on a completed transaction.");
+      try {
+        innerTx.put(segment, key.extractArray(), value.extractArray());
+      } catch (final RocksDBException e) {
+        throw new StorageException(e);
+      }
+    }
+
+    @Override
+    public void remove(final ColumnFamilyHandle segment, final BytesValue key) {
+      checkState(active, "Cannot invoke remove() on a completed transaction.");
+      try {
+        innerTx.delete(segment, key.extractArray());
+      } catch (final RocksDBException e) {
+        throw new StorageException(e);
+      }
+    }
+
+    @Override
+    public void commit() throws StorageException {
+      checkState(active, "Cannot commit a completed transaction.");
+      active = false;
+      try (final TimingContext ignored = commitLatency.startTimer()) {
+        innerTx.commit();
+      } catch (final RocksDBException e) {
+        throw new StorageException(e);
+      } finally {
+        close();
+      }
+    }
+
+    @Override
+    public void rollback() {
+      checkState(active, "Cannot rollback a completed transaction.");
+      active = false;
+      try {
+        innerTx.rollback();
+      } catch (final RocksDBException e) {
+        throw new StorageException(e);
+      } finally {
+        close();
+      }
+    }
+
+    private void close() {
+      innerTx.close();
+    }
+  }
+
+  private static class WriteBatchTransaction implements Transaction<ColumnFamilyHandle> {
+    private final RocksDB db;
+    private final WriteOptions options;
+    private final OperationTimer commitLatency;
+    private final WriteBatch batch = new WriteBatch();
+    private boolean active = true;
+
+    WriteBatchTransaction(
+        final RocksDB db, final WriteOptions options, final OperationTimer commitLatency) {
+      this.db = db;
+      this.options = options;
+      this.commitLatency = commitLatency;
+    }
+
+    @Override
+    public void put(
+        final ColumnFamilyHandle segment, final BytesValue key, final BytesValue value) {
+      checkState(active, "Cannot invoke put() on a completed transaction.");
+      try {
+        batch.put(segment, key.extractArray(), value.extractArray());
+      } catch (final RocksDBException e) {
+        throw new StorageException(e);
+      }
+    }
+
+    @Override
+    public void remove(final ColumnFamilyHandle segment, final BytesValue key) {
+      checkState(active, "Cannot invoke remove() on a completed transaction.");
+      try {
+        batch.delete(segment, key.extractArray());
+      } catch (final RocksDBException e) {
+        throw new StorageException(e);
+      }
+    }
+
+    @Override
+    public void commit() throws StorageException {
+      checkState(active, "Cannot commit a completed transaction.");
+      active = false;
+      try (final TimingContext ignored = commitLatency.startTimer()) {
+        db.write(options, batch);
+      } catch (final RocksDBException e) {
+        throw new StorageException(e);
+      } finally {
+        batch.close();
+      }
+    }
+
+    @Override
+    public void rollback() {
+      checkState(active, "Cannot rollback a completed transaction.");
+      active = false;
+      batch.close();
+    }
+  }
+}
@@ -100,6 +100,10 @@ public interface KeyValueStorage {
     public StorageException(final Throwable t) {
       super(t);
     }
+
+    public StorageException(final String message) {
+      super(message);
+    }
   }
 
   /**
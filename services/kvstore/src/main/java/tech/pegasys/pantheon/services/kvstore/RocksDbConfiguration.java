@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.services.kvstore;
+
+/** Controls how {@link ColumnarRocksDbKeyValueStorage} opens the database and applies writes. */
+public class RocksDbConfiguration {
+
+  private final boolean useTransactions;
+  private final boolean disableWriteAheadLog;
+
+  private RocksDbConfiguration(final boolean useTransactions, final boolean disableWriteAheadLog) {
+    this.useTransactions = useTransactions;
+    this.disableWriteAheadLog = disableWriteAheadLog;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * @return true if writes should go through pessimistic {@code TransactionDB} transactions rather
+   *     than plain write batches
+   */
+  public boolean useTransactions() {
+    return useTransactions;
+  }
+
+  /**
+   * @return true if writes should skip the write-ahead log until {@link
+   *     ColumnarRocksDbKeyValueStorage#enableWriteAheadLog()} is called, trading crash durability
+   *     of the most recent writes for throughput
+   */
+  public boolean isWriteAheadLogDisabled() {
+    return disableWriteAheadLog;
+  }
+
+  public static class Builder {
+
+    private boolean useTransactions = false;
+    private boolean disableWriteAheadLog = false;
+
+    public Builder useTransactions(final boolean useTransactions) {
+      this.useTransactions = useTransactions;
+      return this;
+    }
+
+    public Builder disableWriteAheadLog(final boolean disableWriteAheadLog) {
+      this.disableWriteAheadLog = disableWriteAheadLog;
+      return this;
+    }
+
+    public RocksDbConfiguration build() {
+      return new RocksDbConfiguration(useTransactions, disableWriteAheadLog);
+    }
+  }
+}
@@ -12,18 +12,19 @@
  */
 package tech.pegasys.pantheon.services.kvstore;
 
+import static tech.pegasys.pantheon.metrics.MetricCategory.ROCKSDB;
+
+import tech.pegasys.pantheon.metrics.MetricsSystem;
+import tech.pegasys.pantheon.metrics.OperationTimer;
+import tech.pegasys.pantheon.metrics.OperationTimer.TimingContext;
+import tech.pegasys.pantheon.metrics.noop.NoOpMetricsSystem;
 import tech.pegasys.pantheon.util.bytes.BytesValue;
 
 import java.io.Closeable;
 import java.nio.file.Path;
-import java.util.Iterator;
-import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.Spliterator;
-import java.util.Spliterators;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -43,16 +44,28 @@ public class RocksDbKeyValueStorage implements KeyValueStorage, Closeable {
   private final TransactionDBOptions txOptions;
   private final TransactionDB db;
   private final AtomicBoolean closed = new AtomicBoolean(false);
+  private final OperationTimer readLatency;
+  private final OperationTimer commitLatency;
 
   static {
     RocksDB.loadLibrary();
   }
 
   public static RocksDbKeyValueStorage create(final Path storageDirectory) throws StorageException {
-    return new RocksDbKeyValueStorage(storageDirectory);
+    return create(storageDirectory, new NoOpMetricsSystem());
+  }
+
+  public static RocksDbKeyValueStorage create(
+      final Path storageDirectory, final MetricsSystem metricsSystem) throws StorageException {
+    return new RocksDbKeyValueStorage(storageDirectory, metricsSystem);
   }
 
-  private RocksDbKeyValueStorage(final Path storageDirectory) {
+  private RocksDbKeyValueStorage(final Path storageDirectory, final MetricsSystem metricsSystem) {
+    readLatency =
+        metricsSystem.createTimer(ROCKSDB, "read_latency_seconds", "Latency of database reads");
+    commitLatency =
+        metricsSystem.createTimer(
+            ROCKSDB, "commit_latency_seconds", "Latency of database transaction commits");
     try {
       options = new Options().setCreateIfMissing(true);
       txOptions = new TransactionDBOptions();
@@ -65,7 +78,7 @@ public class RocksDbKeyValueStorage implements KeyValueStorage, Closeable {
   @Override
   public Optional<BytesValue> get(final BytesValue key) throws StorageException {
     throwIfClosed();
-    try {
+    try (final TimingContext ignored = readLatency.startTimer()) {
       return Optional.ofNullable(db.get(key.extractArray())).map(BytesValue::wrap);
     } catch (final RocksDBException e) {
       throw new StorageException(e);
@@ -96,7 +109,7 @@ public class RocksDbKeyValueStorage implements KeyValueStorage, Closeable {
   public Transaction getStartTransaction() throws StorageException {
     throwIfClosed();
     final WriteOptions options = new WriteOptions();
-    return new RocksDbTransaction(db.beginTransaction(options), options);
+    return new RocksDbTransaction(db.beginTransaction(options), options, commitLatency);
   }
 
   @Override
@@ -123,68 +136,18 @@ public class RocksDbKeyValueStorage implements KeyValueStorage, Closeable {
     }
   }
 
-  /**
-   * Iterates over rocksDB key-value entries. Reads from a db snapshot implicitly taken when the
-   * RocksIterator passed to the constructor was created.
-   *
-   * <p>Implements {@link AutoCloseable} and can be used with try-with-resources construct. When
-   * transformed to a stream (see {@link #toStream}), iterator is automatically closed when the
-   * stream is closed.
-   */
-  private static class RocksDbEntryIterator implements Iterator<Entry>, AutoCloseable {
-    private final RocksIterator rocksIt;
-    private volatile boolean closed = false;
-
-    RocksDbEntryIterator(final RocksIterator rocksIt) {
-      this.rocksIt = rocksIt;
-    }
-
-    @Override
-    public boolean hasNext() {
-      return rocksIt.isValid();
-    }
-
-    @Override
-    public Entry next() {
-      if (closed) {
-        throw new IllegalStateException("Attempt to read from a closed RocksDbEntryIterator.");
-      }
-      try {
-        rocksIt.status();
-      } catch (final RocksDBException e) {
-        LOG.error("RocksDbEntryIterator encountered a problem while iterating.", e);
-      }
-      if (!hasNext()) {
-        throw new NoSuchElementException();
-      }
-      final Entry entry =
-          Entry.create(BytesValue.wrap(rocksIt.key()), BytesValue.wrap(rocksIt.value()));
-      rocksIt.next();
-      return entry;
-    }
-
-    public Stream<Entry> toStream() {
-      final Spliterator<Entry> split =
-          Spliterators.spliteratorUnknownSize(
-              this, Spliterator.IMMUTABLE | Spliterator.DISTINCT | Spliterator.NONNULL);
-
-      return StreamSupport.stream(split, false).onClose(this::close);
-    }
-
-    @Override
-    public void close() {
-      rocksIt.close();
-      closed = true;
-    }
-  }
-
   private static class RocksDbTransaction extends AbstractTransaction {
     private final org.rocksdb.Transaction innerTx;
     private final WriteOptions options;
+    private final OperationTimer commitLatency;
 
-    RocksDbTransaction(final org.rocksdb.Transaction innerTx, final WriteOptions options) {
+    RocksDbTransaction(
+        final org.rocksdb.Transaction innerTx,
+        final WriteOptions options,
+        final OperationTimer commitLatency) {
       this.innerTx = innerTx;
       this.options = options;
+      this.commitLatency = commitLatency;
     }
 
     @Override
@@ -207,7 +170,7 @@ public class RocksDbKeyValueStorage implements KeyValueStorage, Closeable {
 
     @Override
     protected void doCommit() throws StorageException {
-      try {
+      try (final TimingContext ignored = commitLatency.startTimer()) {
         innerTx.commit();
       } catch (final RocksDBException e) {
         throw new StorageException(e);
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.services.kvstore;
+
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage.Entry;
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage.StorageException;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.io.Closeable;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Service provided by pantheon to facilitate persistent data storage split into independent
+ * segments, each with its own keyspace.
+ *
+ * @param <S> the segment identifier type
+ */
+public interface SegmentedKeyValueStorage<S> extends Closeable {
+
+  /**
+   * @param segment The segment to look up.
+   * @return The identifier used to access the given segment.
+   */
+  S getSegmentIdentifierByName(Segment segment);
+
+  /**
+   * @param segment The segment to read from.
+   * @param key Index into the segment.
+   * @return The value persisted at the key index.
+   */
+  Optional<BytesValue> get(S segment, BytesValue key) throws StorageException;
+
+  /**
+   * @param segment The segment to write to.
+   * @param key Index into the segment.
+   * @param value The value persisted at the key index.
+   */
+  void put(S segment, BytesValue key, BytesValue value) throws StorageException;
+
+  /**
+   * Remove the data corresponding to the given key.
+   *
+   * @param segment The segment to remove from.
+   * @param key Index into the segment.
+   */
+  void remove(S segment, BytesValue key) throws StorageException;
+
+  /**
+   * Begins a transaction that may span several segments.
+   *
+   * @return An object representing the transaction.
+   */
+  Transaction<S> getStartTransaction() throws StorageException;
+
+  /**
+   * Stream all key-value pairs stored in a segment.
+   *
+   * @param segment The segment to read from.
+   * @return A stream of the contained key-value pairs.
+   */
+  Stream<Entry> entries(S segment);
+
+  @Override
+  void close();
+
+  /** A named segment of storage. */
+  interface Segment {
+
+    String getName();
+
+    byte[] getId();
+
+    /** @return how data in this segment is predominantly accessed, used to tune its storage */
+    AccessPattern getAccessPattern();
+  }
+
+  enum AccessPattern {
+    /** Random reads by hash with no locality, such as trie nodes and contract code. */
+    POINT_LOOKUP,
+    /** Data appended in block order and mostly read back in ranges, such as chain data. */
+    APPEND_ORDERED
+  }
+
+  /**
+   * Represents a set of changes to be committed atomically. A single transaction is not
+   * thread-safe, but multiple transactions can execute concurrently.
+   *
+   * @param <S> the segment identifier type
+   */
+  interface Transaction<S> {
+
+    /**
+     * Add the given key-value pair to the set of updates to be committed.
+     *
+     * @param segment The segment to modify.
+     * @param key The key to set / modify.
+     * @param value The value to be set.
+     */
+    void put(S segment, BytesValue key, BytesValue value);
+
+    /**
+     * Schedules the given key to be deleted from storage.
+     *
+     * @param segment The segment to modify.
+     * @param key The key to delete
+     */
+    void remove(S segment, BytesValue key);
+
+    /**
+     * Atomically commit the set of changes contained in this transaction to the underlying
+     * storage. After committing, the transaction is no longer usable and will throw exceptions if
+     * modifications are attempted.
+     */
+    void commit() throws StorageException;
+
+    /**
+     * Cancel this transaction. After rolling back, the transaction is no longer usable and will
+     * throw exceptions if modifications are attempted.
+     */
+    void rollback();
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.services.kvstore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import tech.pegasys.pantheon.services.kvstore.KeyValueStorage.StorageException;
+import tech.pegasys.pantheon.services.kvstore.SegmentedKeyValueStorage.AccessPattern;
+import tech.pegasys.pantheon.services.kvstore.SegmentedKeyValueStorage.Segment;
+import tech.pegasys.pantheon.services.kvstore.SegmentedKeyValueStorage.Transaction;
+import tech.pegasys.pantheon.util.bytes.BytesValue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rocksdb.ColumnFamilyHandle;
+
+public class ColumnarRocksDbKeyValueStorageTest extends AbstractKeyValueStorageTest {
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Override
+  protected KeyValueStorage createStore() throws Exception {
+    return new SegmentedKeyValueStorageAdapter<>(
+        TestSegment.FOO, createSegmentedStore(folder.newFolder().toPath()));
+  }
+
+  @Test
+  public void segmentsAreIndependent() throws Exception {
+    final SegmentedKeyValueStorage<ColumnFamilyHandle> store =
+        createSegmentedStore(folder.newFolder().toPath());
+    final ColumnFamilyHandle foo = store.getSegmentIdentifierByName(TestSegment.FOO);
+    final ColumnFamilyHandle bar = store.getSegmentIdentifierByName(TestSegment.BAR);
+
+    store.put(foo, BytesValue.fromHexString("0001"), BytesValue.fromHexString("0FFF"));
+
+    assertEquals(
+        Optional.of(BytesValue.fromHexString("0FFF")),
+        store.get(foo, BytesValue.fromHexString("0001")));
+    assertEquals(Optional.empty(), store.get(bar, BytesValue.fromHexString("0001")));
+    assertEquals(0, store.entries(bar).count());
+  }
+
+  @Test
+  public void transactionSpansSegments() throws Exception {
+    final SegmentedKeyValueStorage<ColumnFamilyHandle> store =
+        createSegmentedStore(folder.newFolder().toPath());
+    final ColumnFamilyHandle foo = store.getSegmentIdentifierByName(TestSegment.FOO);
+    final ColumnFamilyHandle bar = store.getSegmentIdentifierByName(TestSegment.BAR);
+
+    final Transaction<ColumnFamilyHandle> tx = store.getStartTransaction();
+    tx.put(foo, BytesValue.fromHexString("01"), BytesValue.fromHexString("0A"));
+    tx.put(bar, BytesValue.fromHexString("01"), BytesValue.fromHexString("0B"));
+    assertEquals(Optional.empty(), store.get(foo, BytesValue.fromHexString("01")));
+    tx.commit();
+
+    assertEquals(
+        Optional.of(BytesValue.fromHexString("0A")),
+        store.get(foo, BytesValue.fromHexString("01")));
+    assertEquals(
+        Optional.of(BytesValue.fromHexString("0B")),
+        store.get(bar, BytesValue.fromHexString("01")));
+  }
+
+  @Test
+  public void dataIsPersistedAcrossRestarts() throws Exception {
+    final Path directory = folder.newFolder().toPath();
+    final SegmentedKeyValueStorage<ColumnFamilyHandle> store = createSegmentedStore(directory);
+    store.put(
+        store.getSegmentIdentifierByName(TestSegment.BAR),
+        BytesValue.fromHexString("01"),
+        BytesValue.fromHexString("0B"));
+    store.close();
+
+    final SegmentedKeyValueStorage<ColumnFamilyHandle> reopened = createSegmentedStore(directory);
+    assertEquals(
+        Optional.of(BytesValue.fromHexString("0B")),
+        reopened.get(
+            reopened.getSegmentIdentifierByName(TestSegment.BAR), BytesValue.fromHexString("01")));
+  }
+
+  @Test
+  public void writesWithoutWriteAheadLogArePersistedAcrossRestarts() throws Exception {
+    final Path directory = folder.newFolder().toPath();
+    final ColumnarRocksDbKeyValueStorage store =
+        ColumnarRocksDbKeyValueStorage.create(
+            directory,
+            Arrays.asList(TestSegment.values()),
+            RocksDbConfiguration.builder().disableWriteAheadLog(true).build());
+    final ColumnFamilyHandle bar = store.getSegmentIdentifierByName(TestSegment.BAR);
+    store.put(bar, BytesValue.fromHexString("01"), BytesValue.fromHexString("0B"));
+    store.enableWriteAheadLog();
+    store.put(bar, BytesValue.fromHexString("02"), BytesValue.fromHexString("0C"));
+    store.close();
+
+    final SegmentedKeyValueStorage<ColumnFamilyHandle> reopened = createSegmentedStore(directory);
+    final ColumnFamilyHandle reopenedBar = reopened.getSegmentIdentifierByName(TestSegment.BAR);
+    assertEquals(
+        Optional.of(BytesValue.fromHexString("0B")),
+        reopened.get(reopenedBar, BytesValue.fromHexString("01")));
+    assertEquals(
+        Optional.of(BytesValue.fromHexString("0C")),
+        reopened.get(reopenedBar, BytesValue.fromHexString("02")));
+  }
+
+  @Test
+  public void openingLegacySingleColumnDatabaseFails() throws Exception {
+    final Path directory = folder.newFolder().toPath();
+    final RocksDbKeyValueStorage legacyStore = RocksDbKeyValueStorage.create(directory);
+    legacyStore.put(BytesValue.fromHexString("01"), BytesValue.fromHexString("0A"));
+    legacyStore.close();
+
+    try {
+      createSegmentedStore(directory);
+      fail("Expected opening a legacy database to fail");
+    } catch (final StorageException e) {
+      assertTrue(e.getMessage().contains("single column family"));
+    }
+  }
+
+  @Test
+  public void emptyLegacySingleColumnDatabaseIsUpgraded() throws Exception {
+    final Path directory = folder.newFolder().toPath();
+    RocksDbKeyValueStorage.create(directory).close();
+
+    final SegmentedKeyValueStorage<ColumnFamilyHandle> store = createSegmentedStore(directory);
+    assertEquals(0, store.entries(store.getSegmentIdentifierByName(TestSegment.FOO)).count());
+  }
+
+  private SegmentedKeyValueStorage<ColumnFamilyHandle> createSegmentedStore(final Path directory) {
+    return ColumnarRocksDbKeyValueStorage.create(directory, Arrays.asList(TestSegment.values()));
+  }
+
+  private enum TestSegment implements Segment {
+    FOO(AccessPattern.POINT_LOOKUP),
+    BAR(AccessPattern.APPEND_ORDERED);
+
+    private final AccessPattern accessPattern;
+
+    TestSegment(final AccessPattern accessPattern) {
+      this.accessPattern = accessPattern;
+    }
+
+    @Override
+    public String getName() {
+      return name();
+    }
+
+    @Override
+    public byte[] getId() {
+      return name().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public AccessPattern getAccessPattern() {
+      return accessPattern;
+    }
+  }
+}
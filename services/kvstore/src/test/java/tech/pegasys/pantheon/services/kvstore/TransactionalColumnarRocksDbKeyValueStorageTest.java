@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.services.kvstore;
+
+import tech.pegasys.pantheon.services.kvstore.SegmentedKeyValueStorage.AccessPattern;
+import tech.pegasys.pantheon.services.kvstore.SegmentedKeyValueStorage.Segment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+public class TransactionalColumnarRocksDbKeyValueStorageTest extends AbstractKeyValueStorageTest {
+
+  private static final Segment SEGMENT =
+      new Segment() {
+        @Override
+        public String getName() {
+          return "test";
+        }
+
+        @Override
+        public byte[] getId() {
+          return getName().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public AccessPattern getAccessPattern() {
+          return AccessPattern.POINT_LOOKUP;
+        }
+      };
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Override
+  protected KeyValueStorage createStore() throws Exception {
+    return new SegmentedKeyValueStorageAdapter<>(
+        SEGMENT,
+        ColumnarRocksDbKeyValueStorage.create(
+            folder.newFolder().toPath(),
+            Collections.singletonList(SEGMENT),
+            RocksDbConfiguration.builder().useTransactions(true).build()));
+  }
+}
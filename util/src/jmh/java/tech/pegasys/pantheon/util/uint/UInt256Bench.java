@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.util.uint;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValues;
+import tech.pegasys.pantheon.util.bytes.MutableBytes32;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the long-limb arithmetic behind {@link UInt256Bytes} with the {@link BigInteger} based
+ * implementation it replaced, and with the allocating {@link UInt256} API built on top of it.
+ */
+@State(Scope.Thread)
+public class UInt256Bench {
+
+  private static final BigInteger P256 = BigInteger.ONE.shiftLeft(256);
+
+  @Param({"64", "128", "256"})
+  public int bits;
+
+  private Bytes32 v1;
+  private Bytes32 v2;
+  private Bytes32 modulus;
+  private Bytes32 exponent;
+  private UInt256 u1;
+  private UInt256 u2;
+  private UInt256 uModulus;
+  private final MutableBytes32 result = MutableBytes32.create();
+
+  @Setup(Level.Trial)
+  public void prepare() {
+    final Random random = new Random(1);
+    v1 = UInt256Bytes.of(new BigInteger(bits, random).setBit(bits - 1));
+    v2 = UInt256Bytes.of(new BigInteger(bits / 2, random).setBit(bits / 2 - 1));
+    modulus = UInt256Bytes.of(new BigInteger(bits, random).setBit(bits - 1));
+    exponent = UInt256Bytes.of(BigInteger.valueOf(random.nextInt() & 0xffff));
+    u1 = UInt256.wrap(v1);
+    u2 = UInt256.wrap(v2);
+    uModulus = UInt256.wrap(modulus);
+  }
+
+  @Benchmark
+  public Bytes32 multiplyLimbs() {
+    UInt256Bytes.multiply(v1, v2, result);
+    return result;
+  }
+
+  @Benchmark
+  public Bytes32 multiplyBigInteger() {
+    return UInt256Bytes.of(big(v1).multiply(big(v2)).mod(P256));
+  }
+
+  @Benchmark
+  public UInt256 multiplyUInt256() {
+    return u1.times(u2);
+  }
+
+  @Benchmark
+  public Bytes32 divideLimbs() {
+    UInt256Bytes.divide(v1, v2, result);
+    return result;
+  }
+
+  @Benchmark
+  public Bytes32 divideBigInteger() {
+    return UInt256Bytes.of(big(v1).divide(big(v2)));
+  }
+
+  @Benchmark
+  public UInt256 divideUInt256() {
+    return u1.dividedBy(u2);
+  }
+
+  @Benchmark
+  public Bytes32 multiplyModuloLimbs() {
+    UInt256Bytes.multiplyModulo(v1, v2, modulus, result);
+    return result;
+  }
+
+  @Benchmark
+  public Bytes32 multiplyModuloBigInteger() {
+    return UInt256Bytes.of(big(v1).multiply(big(v2)).mod(big(modulus)));
+  }
+
+  @Benchmark
+  public UInt256 multiplyModuloUInt256() {
+    return u1.timesModulo(u2, uModulus);
+  }
+
+  @Benchmark
+  public Bytes32 exponentLimbs() {
+    UInt256Bytes.exponent(v1, exponent, result);
+    return result;
+  }
+
+  @Benchmark
+  public Bytes32 exponentBigInteger() {
+    return UInt256Bytes.of(big(v1).modPow(big(exponent), P256));
+  }
+
+  private static BigInteger big(final Bytes32 value) {
+    return BytesValues.asUnsignedBigInteger(value);
+  }
+}
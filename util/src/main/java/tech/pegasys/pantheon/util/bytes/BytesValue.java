@@ -95,6 +95,12 @@ public interface BytesValue extends Comparable<BytesValue> {
         return i < v1.size() ? v1.get(i) : v2.get(i - v1.size());
       }
 
+      @Override
+      public void update(final MessageDigest digest) {
+        v1.update(digest);
+        v2.update(digest);
+      }
+
       @Override
       public BytesValue slice(final int i, final int length) {
         if (i == 0 && length == size()) return this;
@@ -14,6 +14,8 @@ package tech.pegasys.pantheon.util.bytes;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import java.security.MessageDigest;
+
 /** A simple class to wrap another {@link BytesValue} of exactly 32 bytes as a {@link Bytes32}. */
 class WrappingBytes32 extends AbstractBytesValue implements Bytes32 {
 
@@ -35,6 +37,11 @@ class WrappingBytes32 extends AbstractBytesValue implements Bytes32 {
     return value.slice(index, length);
   }
 
+  @Override
+  public void update(final MessageDigest digest) {
+    value.update(digest);
+  }
+
   @Override
   public MutableBytes32 mutableCopy() {
     final MutableBytes32 copy = MutableBytes32.create();
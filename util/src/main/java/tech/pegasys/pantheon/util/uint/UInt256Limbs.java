@@ -0,0 +1,418 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.util.uint;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.MutableBytes32;
+
+/**
+ * A mutable 256-bits unsigned integer held as four 64-bits limbs, on which arithmetic is performed
+ * in place.
+ *
+ * <p>This is the arithmetic engine behind {@link UInt256Bytes}: operands are loaded from {@link
+ * Bytes32}, combined without allocating, and the result is written back to a {@link
+ * MutableBytes32}. All operations are modulo 2^256 and follow the EVM conventions, so dividing by
+ * zero or reducing modulo zero yields zero. Division uses Knuth's algorithm D on 32-bits digits,
+ * with scratch space held by the instance.
+ *
+ * <p>Instances are not thread-safe; each thread should use its own.
+ */
+public final class UInt256Limbs {
+
+  private static final int LIMBS = 4;
+  private static final int DIGITS = LIMBS * 2;
+  private static final long DIGIT_MASK = 0xffffffffL;
+
+  /** Limbs, least significant first. */
+  private final long[] limbs = new long[LIMBS];
+
+  // Scratch space: a full 512-bits product, the exponentiation base and the division digits.
+  private final long[] product = new long[LIMBS * 2];
+  private final long[] base = new long[LIMBS];
+  private final int[] numerator = new int[DIGITS * 2 + 1];
+  private final int[] divisor = new int[DIGITS];
+  private final int[] quotient = new int[DIGITS * 2];
+  private int numeratorLength;
+  private int shift;
+
+  /**
+   * Loads a value.
+   *
+   * @param value The value to load.
+   * @return This instance.
+   */
+  public UInt256Limbs set(final Bytes32 value) {
+    limbs[3] = value.getLong(0);
+    limbs[2] = value.getLong(8);
+    limbs[1] = value.getLong(16);
+    limbs[0] = value.getLong(24);
+    return this;
+  }
+
+  /**
+   * Loads a value.
+   *
+   * @param value The value to load, interpreted as unsigned.
+   * @return This instance.
+   */
+  public UInt256Limbs set(final long value) {
+    limbs[3] = 0;
+    limbs[2] = 0;
+    limbs[1] = 0;
+    limbs[0] = value;
+    return this;
+  }
+
+  /**
+   * Writes the current value.
+   *
+   * @param result The bytes to write the value to.
+   */
+  public void writeTo(final MutableBytes32 result) {
+    result.setLong(0, limbs[3]);
+    result.setLong(8, limbs[2]);
+    result.setLong(16, limbs[1]);
+    result.setLong(24, limbs[0]);
+  }
+
+  /** @return The current value as new bytes. */
+  public Bytes32 toBytes32() {
+    final MutableBytes32 result = MutableBytes32.create();
+    writeTo(result);
+    return result;
+  }
+
+  public boolean isZero() {
+    return (limbs[0] | limbs[1] | limbs[2] | limbs[3]) == 0;
+  }
+
+  /**
+   * Adds a value to this one, modulo 2^256.
+   *
+   * @param other The value to add.
+   * @return This instance.
+   */
+  public UInt256Limbs add(final UInt256Limbs other) {
+    long carry = 0;
+    for (int i = 0; i < LIMBS; i++) {
+      final long sum = limbs[i] + other.limbs[i];
+      final long withCarry = sum + carry;
+      carry =
+          (Long.compareUnsigned(sum, limbs[i]) < 0 ? 1 : 0)
+              + (Long.compareUnsigned(withCarry, sum) < 0 ? 1 : 0);
+      limbs[i] = withCarry;
+    }
+    return this;
+  }
+
+  /**
+   * Multiplies this value by another one, modulo 2^256.
+   *
+   * @param other The value to multiply by.
+   * @return This instance.
+   */
+  public UInt256Limbs multiply(final UInt256Limbs other) {
+    multiplyFull(limbs, other.limbs, product);
+    System.arraycopy(product, 0, limbs, 0, LIMBS);
+    return this;
+  }
+
+  /**
+   * Divides this value by another one, rounding towards zero.
+   *
+   * @param other The divisor; dividing by zero yields zero.
+   * @return This instance.
+   */
+  public UInt256Limbs divide(final UInt256Limbs other) {
+    loadNumerator(limbs, LIMBS);
+    return divideNumerator(other, true);
+  }
+
+  /**
+   * Replaces this value by the remainder of its division by another one.
+   *
+   * @param other The modulus; reducing modulo zero yields zero.
+   * @return This instance.
+   */
+  public UInt256Limbs mod(final UInt256Limbs other) {
+    loadNumerator(limbs, LIMBS);
+    return divideNumerator(other, false);
+  }
+
+  /**
+   * Adds a value to this one and reduces the full 257-bits sum modulo a third value.
+   *
+   * @param other The value to add.
+   * @param modulus The modulus; reducing modulo zero yields zero.
+   * @return This instance.
+   */
+  public UInt256Limbs addMod(final UInt256Limbs other, final UInt256Limbs modulus) {
+    long carry = 0;
+    for (int i = 0; i < LIMBS; i++) {
+      final long sum = limbs[i] + other.limbs[i];
+      final long withCarry = sum + carry;
+      carry =
+          (Long.compareUnsigned(sum, limbs[i]) < 0 ? 1 : 0)
+              + (Long.compareUnsigned(withCarry, sum) < 0 ? 1 : 0);
+      product[i] = withCarry;
+    }
+    product[LIMBS] = carry;
+    loadNumerator(product, LIMBS + 1);
+    return divideNumerator(modulus, false);
+  }
+
+  /**
+   * Multiplies this value by another one and reduces the full 512-bits product modulo a third
+   * value.
+   *
+   * @param other The value to multiply by.
+   * @param modulus The modulus; reducing modulo zero yields zero.
+   * @return This instance.
+   */
+  public UInt256Limbs multiplyMod(final UInt256Limbs other, final UInt256Limbs modulus) {
+    multiplyFull(limbs, other.limbs, product);
+    loadNumerator(product, LIMBS * 2);
+    return divideNumerator(modulus, false);
+  }
+
+  /**
+   * Raises this value to the given power, modulo 2^256.
+   *
+   * @param exponent The exponent.
+   * @return This instance.
+   */
+  public UInt256Limbs pow(final UInt256Limbs exponent) {
+    System.arraycopy(limbs, 0, base, 0, LIMBS);
+    set(1);
+    for (int i = LIMBS * 64 - 1 - numberOfLeadingZeros(exponent.limbs); i >= 0; i--) {
+      multiplyFull(limbs, limbs, product);
+      System.arraycopy(product, 0, limbs, 0, LIMBS);
+      if ((exponent.limbs[i / 64] >>> (i % 64) & 1) != 0) {
+        multiplyFull(limbs, base, product);
+        System.arraycopy(product, 0, limbs, 0, LIMBS);
+      }
+    }
+    return this;
+  }
+
+  private static int numberOfLeadingZeros(final long[] value) {
+    for (int i = LIMBS - 1; i >= 0; i--) {
+      if (value[i] != 0) {
+        return (LIMBS - 1 - i) * 64 + Long.numberOfLeadingZeros(value[i]);
+      }
+    }
+    return LIMBS * 64;
+  }
+
+  /** Computes the full product of two 4-limbs values into 8 limbs. */
+  private static void multiplyFull(final long[] a, final long[] b, final long[] result) {
+    // a may be the same array as b, but the result must alias neither.
+    for (int i = 0; i < LIMBS * 2; i++) {
+      result[i] = 0;
+    }
+    for (int i = 0; i < LIMBS; i++) {
+      final long ai = a[i];
+      if (ai == 0) {
+        continue;
+      }
+      long carry = 0;
+      for (int j = 0; j < LIMBS; j++) {
+        carry = multiplyAccumulate(ai, b[j], result, i + j, carry);
+      }
+      result[i + LIMBS] = carry;
+    }
+  }
+
+  /**
+   * Sets {@code result[index]} to the low limb of {@code x * y + result[index] + carry} and returns
+   * the high limb, which cannot overflow.
+   */
+  private static long multiplyAccumulate(
+      final long x, final long y, final long[] result, final int index, final long carry) {
+    final long low = x * y;
+    long high = unsignedMultiplyHigh(x, y);
+    final long withExisting = low + result[index];
+    if (Long.compareUnsigned(withExisting, low) < 0) {
+      high++;
+    }
+    final long withCarry = withExisting + carry;
+    if (Long.compareUnsigned(withCarry, withExisting) < 0) {
+      high++;
+    }
+    result[index] = withCarry;
+    return high;
+  }
+
+  /** The high 64 bits of the unsigned 128-bits product (Math.multiplyHigh is not in Java 8). */
+  private static long unsignedMultiplyHigh(final long x, final long y) {
+    final long x0 = x & DIGIT_MASK;
+    final long x1 = x >>> 32;
+    final long y0 = y & DIGIT_MASK;
+    final long y1 = y >>> 32;
+    final long p00 = x0 * y0;
+    final long p01 = x0 * y1;
+    final long p10 = x1 * y0;
+    final long p11 = x1 * y1;
+    final long middle = (p00 >>> 32) + (p01 & DIGIT_MASK) + (p10 & DIGIT_MASK);
+    return p11 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+  }
+
+  private void loadNumerator(final long[] value, final int limbCount) {
+    for (int i = 0; i < limbCount; i++) {
+      numerator[2 * i] = (int) value[i];
+      numerator[2 * i + 1] = (int) (value[i] >>> 32);
+    }
+    numeratorLength = limbCount * 2;
+  }
+
+  /**
+   * Divides the loaded numerator by the given value and stores either the quotient or the
+   * remainder, both of which fit 256 bits whenever they are requested.
+   */
+  private UInt256Limbs divideNumerator(final UInt256Limbs other, final boolean keepQuotient) {
+    int n = DIGITS;
+    for (int i = 0; i < LIMBS; i++) {
+      divisor[2 * i] = (int) other.limbs[i];
+      divisor[2 * i + 1] = (int) (other.limbs[i] >>> 32);
+    }
+    while (n > 0 && divisor[n - 1] == 0) {
+      n--;
+    }
+    if (n == 0) {
+      return set(0);
+    }
+    int m = numeratorLength;
+    while (m > 0 && numerator[m - 1] == 0) {
+      m--;
+    }
+    if (m < n) {
+      // The divisor is larger than the numerator, which must then fit 256 bits.
+      if (keepQuotient) {
+        return set(0);
+      }
+      storeDigits(numerator, m, 0);
+      return this;
+    }
+
+    if (n == 1) {
+      final long d = divisor[0] & DIGIT_MASK;
+      long remainder = 0;
+      for (int j = m - 1; j >= 0; j--) {
+        final long current = (remainder << 32) | (numerator[j] & DIGIT_MASK);
+        quotient[j] = (int) Long.divideUnsigned(current, d);
+        remainder = Long.remainderUnsigned(current, d);
+      }
+      if (keepQuotient) {
+        storeDigits(quotient, m, 0);
+      } else {
+        set(remainder);
+      }
+      return this;
+    }
+
+    divideLong(m, n);
+    if (keepQuotient) {
+      storeDigits(quotient, m - n + 1, 0);
+    } else {
+      storeDigits(numerator, n, shift);
+    }
+    return this;
+  }
+
+  /**
+   * Knuth's algorithm D (as presented in Hacker's Delight, divmnu) for a numerator of m digits and
+   * a divisor of n >= 2 digits. Leaves the quotient in {@code quotient} and the remainder, still
+   * normalized by {@code shift} bits, in the first n + 1 digits of {@code numerator}.
+   */
+  private void divideLong(final int m, final int n) {
+    shift = Integer.numberOfLeadingZeros(divisor[n - 1]);
+    if (shift > 0) {
+      for (int i = n - 1; i > 0; i--) {
+        divisor[i] = (divisor[i] << shift) | (divisor[i - 1] >>> (32 - shift));
+      }
+      divisor[0] <<= shift;
+      numerator[m] = numerator[m - 1] >>> (32 - shift);
+      for (int i = m - 1; i > 0; i--) {
+        numerator[i] = (numerator[i] << shift) | (numerator[i - 1] >>> (32 - shift));
+      }
+      numerator[0] <<= shift;
+    } else {
+      numerator[m] = 0;
+    }
+
+    final long vTop = divisor[n - 1] & DIGIT_MASK;
+    final long vNext = divisor[n - 2] & DIGIT_MASK;
+    for (int j = m - n; j >= 0; j--) {
+      final long top =
+          ((numerator[j + n] & DIGIT_MASK) << 32) | (numerator[j + n - 1] & DIGIT_MASK);
+      long qhat = Long.divideUnsigned(top, vTop);
+      long rhat = Long.remainderUnsigned(top, vTop);
+      while (qhat > DIGIT_MASK
+          || Long.compareUnsigned(qhat * vNext, (rhat << 32) | (numerator[j + n - 2] & DIGIT_MASK))
+              > 0) {
+        qhat--;
+        rhat += vTop;
+        if (rhat > DIGIT_MASK) {
+          break;
+        }
+      }
+
+      // Multiply and subtract.
+      long borrow = 0;
+      long t;
+      for (int i = 0; i < n; i++) {
+        final long p = qhat * (divisor[i] & DIGIT_MASK);
+        t = (numerator[i + j] & DIGIT_MASK) - borrow - (p & DIGIT_MASK);
+        numerator[i + j] = (int) t;
+        borrow = (p >>> 32) - (t >> 32);
+      }
+      t = (numerator[j + n] & DIGIT_MASK) - borrow;
+      numerator[j + n] = (int) t;
+
+      quotient[j] = (int) qhat;
+      if (t < 0) {
+        // Subtracted too much, add back.
+        quotient[j]--;
+        long carry = 0;
+        for (int i = 0; i < n; i++) {
+          t = (numerator[i + j] & DIGIT_MASK) + (divisor[i] & DIGIT_MASK) + carry;
+          numerator[i + j] = (int) t;
+          carry = t >>> 32;
+        }
+        numerator[j + n] += (int) carry;
+      }
+    }
+  }
+
+  /** Stores the given digits, shifted right by {@code rightShift} bits, discarding high digits. */
+  private void storeDigits(final int[] digits, final int length, final int rightShift) {
+    for (int i = 0; i < LIMBS; i++) {
+      final long low = digitAt(digits, length, 2 * i, rightShift);
+      final long high = digitAt(digits, length, 2 * i + 1, rightShift);
+      limbs[i] = (high << 32) | low;
+    }
+  }
+
+  private static long digitAt(
+      final int[] digits, final int length, final int index, final int rightShift) {
+    if (index >= length) {
+      return 0;
+    }
+    if (rightShift == 0) {
+      return digits[index] & DIGIT_MASK;
+    }
+    final long next = index + 1 < length ? digits[index + 1] & DIGIT_MASK : 0;
+    return ((digits[index] & DIGIT_MASK) >>> rightShift | (next << (32 - rightShift)))
+        & DIGIT_MASK;
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package tech.pegasys.pantheon.util.uint;
+
+import static org.junit.Assert.assertEquals;
+
+import tech.pegasys.pantheon.util.bytes.Bytes32;
+import tech.pegasys.pantheon.util.bytes.BytesValues;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class UInt256LimbsTest {
+
+  private static final BigInteger P256 = BigInteger.ONE.shiftLeft(256);
+  private static final BigInteger MAX = P256.subtract(BigInteger.ONE);
+
+  private final Random random = new Random(42);
+  private final UInt256Limbs a = new UInt256Limbs();
+  private final UInt256Limbs b = new UInt256Limbs();
+  private final UInt256Limbs c = new UInt256Limbs();
+
+  @Test
+  public void addWrapsAround() {
+    assertEquals(BigInteger.ZERO, value(a.set(bytes(MAX)).add(b.set(1))));
+  }
+
+  @Test
+  public void multiplyWrapsAround() {
+    assertEquals(MAX, value(a.set(bytes(MAX)).multiply(b.set(bytes(BigInteger.ONE)))));
+    assertEquals(BigInteger.ONE, value(a.set(bytes(MAX)).multiply(b.set(bytes(MAX)))));
+  }
+
+  @Test
+  public void divisionAndModuloByZeroYieldZero() {
+    assertEquals(BigInteger.ZERO, value(a.set(bytes(MAX)).divide(b.set(0))));
+    assertEquals(BigInteger.ZERO, value(a.set(bytes(MAX)).mod(b.set(0))));
+    assertEquals(BigInteger.ZERO, value(a.set(bytes(MAX)).addMod(b.set(1), c.set(0))));
+    assertEquals(BigInteger.ZERO, value(a.set(bytes(MAX)).multiplyMod(b.set(2), c.set(0))));
+  }
+
+  @Test
+  public void addModUsesTheFullSum() {
+    final BigInteger modulus = BigInteger.valueOf(7);
+    assertEquals(
+        MAX.add(MAX).mod(modulus),
+        value(a.set(bytes(MAX)).addMod(b.set(bytes(MAX)), c.set(bytes(modulus)))));
+  }
+
+  @Test
+  public void zeroToThePowerOfZeroIsOne() {
+    assertEquals(BigInteger.ONE, value(a.set(0).pow(b.set(0))));
+  }
+
+  @Test
+  public void matchesBigIntegerArithmetic() {
+    for (int i = 0; i < 10_000; i++) {
+      final BigInteger x = randomValue();
+      final BigInteger y = randomValue();
+      final BigInteger m = randomValue();
+
+      assertEquals(x.add(y).mod(P256), value(a.set(bytes(x)).add(b.set(bytes(y)))));
+      assertEquals(x.multiply(y).mod(P256), value(a.set(bytes(x)).multiply(b.set(bytes(y)))));
+      if (y.signum() != 0) {
+        assertEquals(x.divide(y), value(a.set(bytes(x)).divide(b.set(bytes(y)))));
+        assertEquals(x.mod(y), value(a.set(bytes(x)).mod(b.set(bytes(y)))));
+      }
+      if (m.signum() != 0) {
+        assertEquals(
+            x.add(y).mod(m), value(a.set(bytes(x)).addMod(b.set(bytes(y)), c.set(bytes(m)))));
+        assertEquals(
+            x.multiply(y).mod(m),
+            value(a.set(bytes(x)).multiplyMod(b.set(bytes(y)), c.set(bytes(m)))));
+      }
+      if (i % 10 == 0) {
+        assertEquals(x.modPow(y, P256), value(a.set(bytes(x)).pow(b.set(bytes(y)))));
+      }
+    }
+  }
+
+  private BigInteger randomValue() {
+    switch (random.nextInt(5)) {
+      case 0:
+        return BigInteger.valueOf(random.nextInt(4));
+      case 1:
+        return MAX.subtract(BigInteger.valueOf(random.nextInt(4)));
+      case 2:
+        return BigInteger.ONE.shiftLeft(random.nextInt(256));
+      default:
+        return new BigInteger(random.nextInt(257), random);
+    }
+  }
+
+  private static Bytes32 bytes(final BigInteger value) {
+    return UInt256Bytes.of(value);
+  }
+
+  private static BigInteger value(final UInt256Limbs limbs) {
+    return BytesValues.asUnsignedBigInteger(limbs.toBytes32());
+  }
+}